@@ -1,11 +1,19 @@
 package com.supermarket.billingservice.controller;
 
+import java.io.OutputStream;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
+import com.supermarket.billingservice.dto.OrderSummary;
+import com.supermarket.billingservice.export.ExportFormat;
 import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.supermarket.billingservice.model.Order;
 import com.supermarket.billingservice.service.OrderServiceImpl;
@@ -28,7 +36,7 @@ public class OrderController {
 	}
 
 	@GetMapping("/customer/getMyOrders")
-	public List<Order> getMyOrders(@RequestHeader("X-UserId") int userId) {
+	public List<OrderSummary> getMyOrders(@RequestHeader("X-UserId") int userId) {
 		return orderService.getOrdersByUserId(userId);
 	}
 	
@@ -57,7 +65,7 @@ public class OrderController {
 	}
 
 	@GetMapping("/admin/getOrderByUserId/{userId}")
-	public List<Order> getOrdersByUserId(@PathVariable @Min(value = 1, message = "User ID must be positive") int userId){
+	public List<OrderSummary> getOrdersByUserId(@PathVariable @Min(value = 1, message = "User ID must be positive") int userId){
 		return orderService.getOrdersByUserId(userId);
 	}
 
@@ -68,8 +76,28 @@ public class OrderController {
 	}
 	
 	@GetMapping("/admin/getAllOrders")
-	public List<Order> getAllOrders(){
+	public List<OrderSummary> getAllOrders(){
 		return orderService.getAllOrders();
 	}
-}
 
+	// Streams all orders as NDJSON or CSV for end-of-day reconciliation, optionally gzip-compressed.
+	@GetMapping("/admin/exportOrders")
+	public ResponseEntity<StreamingResponseBody> exportOrders(
+			@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+			@RequestParam(defaultValue = "false") boolean gzip) {
+		StreamingResponseBody body = outputStream -> {
+			OutputStream target = gzip ? new GZIPOutputStream(outputStream, 8192) : outputStream;
+			orderService.exportOrders(format, target);
+			if (target instanceof GZIPOutputStream gzipStream) {
+				gzipStream.finish();
+			}
+		};
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(format.getContentType()))
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + format.getFileExtension() + "\"");
+		if (gzip) {
+			response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return response.body(body);
+	}
+}
@@ -0,0 +1,23 @@
+package com.supermarket.billingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// cart-service's checkout snapshot: cart id, version and lines from one read of the cart. The
+// lines carry no cartItemId or cartId; those fields of CartItemResponse stay 0.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CheckoutSnapshotResponse {
+    private int cartId;
+    private int userId;
+    private long version;
+    private double cartTotalPrice;
+    private List<CartItemResponse> items = new ArrayList<>();
+}
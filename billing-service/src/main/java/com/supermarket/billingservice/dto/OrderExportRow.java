@@ -0,0 +1,22 @@
+package com.supermarket.billingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Flat order header used by the streaming export; built by a JPQL constructor expression so
+// rows are never attached to the persistence context and order items are never loaded.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderExportRow {
+    private int orderId;
+    private int userId;
+    private int cartId;
+    private LocalDateTime orderDate;
+    private double totalBillPrice;
+}
@@ -0,0 +1,23 @@
+package com.supermarket.billingservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Order header for list views, built by a JPQL constructor expression: the number of lines comes
+// from a subquery in the same statement, so listing orders never loads their items.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderSummary {
+    private int orderId;
+    private int userId;
+    private int cartId;
+    private LocalDateTime orderDate;
+    private double totalBillPrice;
+    private int itemCount;
+}
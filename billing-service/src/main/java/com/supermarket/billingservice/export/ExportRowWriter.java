@@ -0,0 +1,59 @@
+package com.supermarket.billingservice.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.function.Function;
+
+// Writes export rows one at a time so nothing but the current row is held in memory.
+public class ExportRowWriter<T> {
+
+    private final ExportFormat format;
+    private final Writer writer;
+    private final ObjectMapper objectMapper;
+    private final Function<T, List<Object>> csvColumns;
+
+    public ExportRowWriter(ExportFormat format, Writer writer, ObjectMapper objectMapper,
+                           List<String> csvHeader, Function<T, List<Object>> csvColumns) throws IOException {
+        this.format = format;
+        this.writer = writer;
+        this.objectMapper = objectMapper;
+        this.csvColumns = csvColumns;
+        if (format == ExportFormat.CSV) {
+            writeCsvLine(csvHeader);
+        }
+    }
+
+    public void write(T row) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(row));
+            writer.write('\n');
+        } else {
+            writeCsvLine(csvColumns.apply(row));
+        }
+    }
+
+    private void writeCsvLine(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    // Quotes a value only when it contains a delimiter, quote or line break (RFC 4180).
+    static String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
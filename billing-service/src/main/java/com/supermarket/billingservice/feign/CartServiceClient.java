@@ -7,6 +7,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
 import com.supermarket.billingservice.dto.CartItemResponse;
+import com.supermarket.billingservice.dto.CheckoutSnapshotResponse;
 
 @FeignClient(name = "cart-service", url = "${cart-service.url}")
 public interface CartServiceClient {
@@ -17,4 +18,8 @@ public interface CartServiceClient {
 	@GetMapping("/cart/getCartIdByUserId/{userId}")
 	int getCartIdByUserId(@PathVariable int userId);
 
+	// Cart id and items in one round trip; placeOrder uses this instead of the two calls above.
+	@GetMapping("/cart/checkoutSnapshot/{userId}")
+	CheckoutSnapshotResponse getCheckoutSnapshot(@PathVariable int userId);
+
 }
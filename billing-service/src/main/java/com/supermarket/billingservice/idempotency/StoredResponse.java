@@ -0,0 +1,11 @@
+package com.supermarket.billingservice.idempotency;
+
+import java.time.LocalDateTime;
+
+// A response as it is replayed for a repeated Idempotency-Key.
+public record StoredResponse(String fingerprint, int status, String contentType, byte[] body, LocalDateTime expiresAt) {
+
+    boolean isExpired() {
+        return expiresAt.isBefore(LocalDateTime.now());
+    }
+}
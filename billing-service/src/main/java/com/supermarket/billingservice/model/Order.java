@@ -43,7 +43,9 @@ public class Order {
     @PositiveOrZero(message = "Total bill price cannot be negative")
     private double totalBillPrice;
 
-    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // Lazy: detail reads fetch the items with an entity graph and list views use OrderSummary, so
+    // no read pays one extra select per order.
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @Valid
     private List<OrderItems> orderItems = new ArrayList<>();
 
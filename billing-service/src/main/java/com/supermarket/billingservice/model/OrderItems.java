@@ -1,6 +1,7 @@
 package com.supermarket.billingservice.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.supermarket.billingservice.idgen.IdGeneratorTable;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -21,7 +22,10 @@ public class OrderItems {
 
     @Id
     @Column(name = "order_item_id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_item_ids")
+    @TableGenerator(name = "order_item_ids", table = IdGeneratorTable.TABLE, pkColumnName = IdGeneratorTable.NAME_COLUMN,
+            valueColumnName = IdGeneratorTable.VALUE_COLUMN, pkColumnValue = IdGeneratorTable.ORDER_ITEMS,
+            allocationSize = IdGeneratorTable.ALLOCATION_SIZE) // pooled, so inserts can be batched
     private int orderItemId;
 
     @Column(name = "product_id")
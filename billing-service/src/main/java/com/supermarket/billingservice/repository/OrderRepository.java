@@ -2,10 +2,19 @@ package com.supermarket.billingservice.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import com.supermarket.billingservice.dto.OrderExportRow;
+import com.supermarket.billingservice.dto.OrderSummary;
 import com.supermarket.billingservice.model.Order;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 public interface OrderRepository extends JpaRepository<Order, Integer>{
 
@@ -15,4 +24,29 @@ public interface OrderRepository extends JpaRepository<Order, Integer>{
 
     Optional<Order> findByUserIdAndOrderId(int userId, int orderId);
 
+    // Detail reads: the order and its items in one joined select.
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<Order> findWithItemsByOrderId(int orderId);
+
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<Order> findWithItemsByUserIdAndOrderId(int userId, int orderId);
+
+    // List views: headers only, one statement however many orders match.
+    @Query("select new com.supermarket.billingservice.dto.OrderSummary(o.orderId, o.userId, o.cartId, o.orderDate, o.totalBillPrice, size(o.orderItems)) from Order o where o.userId = :userId order by o.orderId")
+    List<OrderSummary> findSummariesByUserId(@Param("userId") int userId);
+
+    @Query("select new com.supermarket.billingservice.dto.OrderSummary(o.orderId, o.userId, o.cartId, o.orderDate, o.totalBillPrice, size(o.orderItems)) from Order o order by o.orderId")
+    List<OrderSummary> findAllSummaries();
+
+    // Streams order headers row by row: a fetch size of Integer.MIN_VALUE puts MySQL Connector/J into
+    // streaming mode for this query only, instead of buffering the whole result set in the driver.
+    // The connection serves nothing else until the stream is closed.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select new com.supermarket.billingservice.dto.OrderExportRow(o.orderId, o.userId, o.cartId, o.orderDate, o.totalBillPrice) from Order o order by o.orderId")
+    Stream<OrderExportRow> streamAllForExport();
+
 }
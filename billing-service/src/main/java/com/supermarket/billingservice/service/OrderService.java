@@ -1,15 +1,19 @@
 package com.supermarket.billingservice.service;
 
+import java.io.OutputStream;
 import java.util.List;
 
+import com.supermarket.billingservice.dto.OrderSummary;
+import com.supermarket.billingservice.export.ExportFormat;
 import com.supermarket.billingservice.model.Order;
 
 public interface OrderService {
 	Order placeOrder(int userId);
-	List<Order> getOrdersByUserId(int userId);
+	List<OrderSummary> getOrdersByUserId(int userId);
 	Order getOrderByOrderId(int orderId);
-	List<Order> getAllOrders();
+	List<OrderSummary> getAllOrders();
 	void deleteOrder(int userId, int orderId);
 	Order getOrderByUserIdAndOrderId(int userId, int orderId);
+	void exportOrders(ExportFormat format, OutputStream outputStream);
 
 }
@@ -1,9 +1,15 @@
 package com.supermarket.billingservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.supermarket.billingservice.dto.CartItemResponse;
+import com.supermarket.billingservice.dto.CheckoutSnapshotResponse;
+import com.supermarket.billingservice.dto.OrderExportRow;
+import com.supermarket.billingservice.dto.OrderSummary;
 import com.supermarket.billingservice.exception.OperationFailedException;
 import com.supermarket.billingservice.exception.OrderPlacementException;
 import com.supermarket.billingservice.exception.ResourceNotFoundException;
+import com.supermarket.billingservice.export.ExportFormat;
+import com.supermarket.billingservice.export.ExportRowWriter;
 import com.supermarket.billingservice.feign.CartServiceClient;
 import com.supermarket.billingservice.model.Order;
 import com.supermarket.billingservice.model.OrderItems;
@@ -15,9 +21,18 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class OrderServiceImpl implements OrderService{
@@ -30,36 +45,28 @@ public class OrderServiceImpl implements OrderService{
     @Autowired
     private CartServiceClient cartServiceClient;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
 
     @Override
     @Transactional
     public Order placeOrder(int userId) {
-        List<CartItemResponse> cartItems;
+        // one call for the cart id and its items, both from the same read of the cart
+        CheckoutSnapshotResponse snapshot;
         try {
-            cartItems = cartServiceClient.getCartItemsByUserId(userId);
+            snapshot = cartServiceClient.getCheckoutSnapshot(userId);
         } catch (FeignException.NotFound e) {
             throw new OrderPlacementException("Cannot place order: Cart not found or is empty for user ID: " + userId, e);
         } catch (FeignException e) {
             throw new OrderPlacementException("Cannot place order: Error while fetching cart items.", e);
         }
 
-
+        List<CartItemResponse> cartItems = snapshot == null ? null : snapshot.getItems();
         if (cartItems == null || cartItems.isEmpty()) {
             throw new OrderPlacementException("Cannot place order: Cart is empty for user ID: " + userId);
         }
-
-        // check if cart exist for userId
-        int cartId;
-        try {
-            cartId = cartServiceClient.getCartIdByUserId(userId);
-        } catch (FeignException.NotFound e) {
-            // Check in the cart service if items exist but cart ID doesn't
-            throw new ResourceNotFoundException("Cannot place order: Associated Cart ID not found for user ID: " + userId, e);
-        } catch (FeignException e) {
-            throw new OperationFailedException("Failed to retrieve associated Cart ID from Cart Service.", e);
-        } catch (Exception e) {
-            throw new OperationFailedException("An unexpected error occurred while fetching the Cart ID.", e);
-        }
+        int cartId = snapshot.getCartId();
 
         double totalAmount = 0.0;
 
@@ -102,9 +109,9 @@ public class OrderServiceImpl implements OrderService{
     }
 
     @Override
-    public List<Order> getOrdersByUserId(int userId) {
+    public List<OrderSummary> getOrdersByUserId(int userId) {
         try {
-            List<Order> orders = orderRepository.findAllByUserId(userId);
+            List<OrderSummary> orders = orderRepository.findSummariesByUserId(userId);
             if (orders.isEmpty()) {
                 throw new ResourceNotFoundException("No orders found for user ID: " + userId);
             }
@@ -116,13 +123,13 @@ public class OrderServiceImpl implements OrderService{
 
     @Override
     public Order getOrderByOrderId(int orderId) {
-        return orderRepository.findById(orderId).orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
+        return orderRepository.findWithItemsByOrderId(orderId).orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + orderId));
     }
 
     @Override
-    public List<Order> getAllOrders() {
+    public List<OrderSummary> getAllOrders() {
         try {
-            List<Order> orders = orderRepository.findAll();
+            List<OrderSummary> orders = orderRepository.findAllSummaries();
             if (orders.isEmpty()) {
                 throw new ResourceNotFoundException("No orders found.");
             }
@@ -148,7 +155,29 @@ public class OrderServiceImpl implements OrderService{
    
     @Override
     public Order getOrderByUserIdAndOrderId(int userId, int orderId) {
-    	Order order = orderRepository.findByUserIdAndOrderId(userId, orderId).orElseThrow(() -> new ResourceNotFoundException("Order not found with UserId: "+ userId+ " and orderId: "+ orderId));
+    	Order order = orderRepository.findWithItemsByUserIdAndOrderId(userId, orderId).orElseThrow(() -> new ResourceNotFoundException("Order not found with UserId: "+ userId+ " and orderId: "+ orderId));
     	return order;
     }
+
+    // Streams every order header to the output in the requested format; rows are streamed from the
+    // driver and written one at a time, so memory use does not grow with the table.
+    @Override
+    @Transactional(readOnly = true)
+    public void exportOrders(ExportFormat format, OutputStream outputStream) {
+        try (Stream<OrderExportRow> rows = orderRepository.streamAllForExport()) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            ExportRowWriter<OrderExportRow> rowWriter = new ExportRowWriter<>(format, writer, objectMapper,
+                    List.of("orderId", "userId", "cartId", "orderDate", "totalBillPrice"),
+                    row -> Arrays.asList(row.getOrderId(), row.getUserId(), row.getCartId(), row.getOrderDate(), row.getTotalBillPrice()));
+            Iterator<OrderExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.write(iterator.next());
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new OperationFailedException("Failed to write order export.", e);
+        } catch (DataAccessException e) {
+            throw new OperationFailedException("Failed to read orders for export.", e);
+        }
+    }
 }
@@ -0,0 +1,107 @@
+package com.supermarket.billingservice.controller;
+
+import com.supermarket.billingservice.model.Order;
+import com.supermarket.billingservice.model.OrderItems;
+import com.supermarket.billingservice.repository.OrderRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Pins the number of SQL statements each order read endpoint issues, so an EAGER mapping or a
+// lazy load during serialisation (one select per order) shows up as a failure. Uses the database
+// from application.properties, like BillingServiceApplicationTests.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class OrderQueryCountTest {
+
+    private static final int USER_ID = 800_000;
+    private static final int ORDERS = 3;
+    private static final int LINES_PER_ORDER = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<Integer> orderIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int o = 0; o < ORDERS; o++) {
+            Order order = new Order(0, USER_ID, 1, LocalDateTime.now(), 0.0, new ArrayList<>());
+            for (int l = 1; l <= LINES_PER_ORDER; l++) {
+                order.getOrderItems().add(new OrderItems(0, l, "count" + l, 2.0, 1, 2.0, order));
+            }
+            order.setTotalBillPrice(LINES_PER_ORDER * 2.0);
+            orderIds.add(orderRepository.save(order).getOrderId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderIds.forEach(orderRepository::deleteById);
+    }
+
+    // Runs one request with the statistics reset, so the count afterwards is that request's alone.
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        statistics.clear();
+        return mockMvc.perform(request).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("List endpoints: One statement for all of a user's orders, with line counts and no lines")
+    void listEndpoints_ShouldIssueOneStatement() throws Exception {
+        perform(get("/bill/customer/getMyOrders").header("X-UserId", USER_ID))
+                .andExpect(jsonPath("$.length()").value(ORDERS))
+                .andExpect(jsonPath("$[0].itemCount").value(LINES_PER_ORDER))
+                .andExpect(jsonPath("$[0].orderItems").doesNotExist());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        perform(get("/bill/admin/getOrderByUserId/{userId}", USER_ID))
+                .andExpect(jsonPath("$.length()").value(ORDERS));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        perform(get("/bill/admin/getAllOrders"));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Detail endpoints: One joined statement for the order and its lines")
+    void detailEndpoints_ShouldIssueOneStatement() throws Exception {
+        int orderId = orderIds.get(0);
+
+        perform(get("/bill/admin-biller/getOrderByOrderId/{orderId}", orderId))
+                .andExpect(jsonPath("$.orderId").value(orderId))
+                .andExpect(jsonPath("$.orderItems.length()").value(LINES_PER_ORDER));
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        perform(get("/bill/customer/getMyOrderById/{orderId}", orderId).header("X-UserId", USER_ID))
+                .andExpect(jsonPath("$.orderItems.length()").value(LINES_PER_ORDER));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,207 @@
+package com.supermarket.billingservice.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supermarket.billingservice.dto.CartItemResponse;
+import com.supermarket.billingservice.dto.CheckoutSnapshotResponse;
+import com.supermarket.billingservice.feign.CartServiceClient;
+import com.supermarket.billingservice.model.Order;
+import com.supermarket.billingservice.repository.IdempotencyRecordRepository;
+import com.supermarket.billingservice.repository.OrderRepository;
+import com.supermarket.billingservice.repository.OrderitemsRepository;
+import com.supermarket.billingservice.service.OrderServiceImpl;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyFilterTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Mock
+    private OrderRepository orderRepository;
+    @Mock
+    private OrderitemsRepository orderitemsRepository;
+    @Mock
+    private CartServiceClient cartServiceClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private IdempotencyStore store;
+    private IdempotencyFilter filter;
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "idempotencyRecordRepository", idempotencyRecordRepository);
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+        filter = new IdempotencyFilter();
+        ReflectionTestUtils.setField(filter, "idempotencyStore", store);
+        ReflectionTestUtils.setField(filter, "inFlightWaitMillis", 5_000L);
+
+        orderService = new OrderServiceImpl();
+        ReflectionTestUtils.setField(orderService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(orderService, "orderitemsRepository", orderitemsRepository);
+        ReflectionTestUtils.setField(orderService, "cartServiceClient", cartServiceClient);
+        ReflectionTestUtils.setField(orderService, "objectMapper", objectMapper);
+
+        List<CartItemResponse> items = List.of(new CartItemResponse(1, 10, 101, "Milk", 2.5, 2, 5.0));
+        when(cartServiceClient.getCheckoutSnapshot(1)).thenReturn(new CheckoutSnapshotResponse(10, 1, 3L, 5.0, items));
+        when(orderRepository.save(any(Order.class))).thenAnswer(inv -> {
+            Order order = inv.getArgument(0);
+            order.setOrderId(100);
+            return order;
+        });
+        when(orderitemsRepository.saveAll(any(List.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.stop();
+    }
+
+    private MockHttpServletRequest placeOrder(String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/bill/biller/placeOrder/1");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        return request;
+    }
+
+    // Stands in for OrderController.placeOrder, running the real service against mocked repositories.
+    private FilterChain placeOrderChain() {
+        return (request, response) -> {
+            Order order = orderService.placeOrder(1);
+            response.setContentType("application/json");
+            objectMapper.writeValue(response.getOutputStream(), Map.of("orderId", order.getOrderId()));
+        };
+    }
+
+    @Test
+    @DisplayName("PlaceOrder: A retried placeOrder with the same key writes exactly one Order")
+    void placeOrder_WhenRetriedWithSameKey_ShouldSaveOneOrder() throws Exception {
+        // Arrange
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(placeOrder("order-1"), first, placeOrderChain());
+        filter.doFilter(placeOrder("order-1"), retry, placeOrderChain());
+
+        // Assert
+        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(orderitemsRepository, times(1)).saveAll(any(List.class));
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    @DisplayName("PlaceOrder: Concurrent placeOrder retries with the same key write exactly one Order")
+    void placeOrder_WhenRetriedConcurrently_ShouldSaveOneOrder() throws Exception {
+        // Arrange
+        int retries = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(retries);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+
+        // Act
+        try {
+            for (int i = 0; i < retries; i++) {
+                responses.add(pool.submit(() -> {
+                    start.await();
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+                    filter.doFilter(placeOrder("order-2"), response, placeOrderChain());
+                    return response;
+                }));
+            }
+            start.countDown();
+            for (Future<MockHttpServletResponse> response : responses) {
+                assertEquals(200, response.get(10, TimeUnit.SECONDS).getStatus());
+                assertEquals("{\"orderId\":100}", response.get().getContentAsString());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Assert
+        verify(orderRepository, times(1)).save(any(Order.class));
+        verify(idempotencyRecordRepository, times(1)).save(any());
+    }
+
+    @Test
+    @DisplayName("PlaceOrder: A retry whose lookup misses just before the first request completes writes no second Order")
+    void placeOrder_WhenFirstCompletesDuringRetryLookup_ShouldSaveOneOrder() throws Exception {
+        // Arrange: the retry's table lookup is still on its way back when the first request completes
+        CountDownLatch retryLookingUp = new CountDownLatch(1);
+        CountDownLatch firstCompleted = new CountDownLatch(1);
+        AtomicInteger lookups = new AtomicInteger();
+        when(idempotencyRecordRepository.findById("order-3")).thenAnswer(invocation -> {
+            if (lookups.incrementAndGet() == 3) { // the first request looks up before and after its claim
+                retryLookingUp.countDown();
+                firstCompleted.await(5, TimeUnit.SECONDS);
+            }
+            return Optional.empty();
+        });
+        CountDownLatch firstRunning = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        FilterChain slow = (request, response) -> {
+            firstRunning.countDown();
+            try {
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            placeOrderChain().doFilter(request, response);
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        // Act
+        try {
+            Future<?> firstDone = pool.submit(() -> {
+                filter.doFilter(placeOrder("order-3"), first, slow);
+                return null;
+            });
+            assertTrue(firstRunning.await(5, TimeUnit.SECONDS));
+            Future<?> retryDone = pool.submit(() -> {
+                filter.doFilter(placeOrder("order-3"), retry, placeOrderChain());
+                return null;
+            });
+            assertTrue(retryLookingUp.await(5, TimeUnit.SECONDS));
+            releaseFirst.countDown();
+            firstDone.get(5, TimeUnit.SECONDS);
+            firstCompleted.countDown();
+            retryDone.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Assert
+        verify(orderRepository, times(1)).save(any(Order.class));
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+}
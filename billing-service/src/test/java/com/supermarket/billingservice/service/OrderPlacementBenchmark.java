@@ -0,0 +1,76 @@
+package com.supermarket.billingservice.service;
+
+import com.supermarket.billingservice.dto.CartItemResponse;
+import com.supermarket.billingservice.dto.CheckoutSnapshotResponse;
+import com.supermarket.billingservice.feign.CartServiceClient;
+import com.supermarket.billingservice.model.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+// placeOrder latency for carts of 5, 50 and 200 lines against the MySQL database from
+// application.properties. cart-service is mocked, so the numbers are the order and item inserts.
+// Run with:
+//   mvn test -Dtest=OrderPlacementBenchmark -Dbenchmark=true
+// For the per-row baseline run it again with
+//   -Dspring.jpa.properties.hibernate.jdbc.batch_size=1
+// or on the commit before pooled ids were introduced, where items use IDENTITY.
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderPlacementBenchmark {
+
+    private static final int[] LINE_COUNTS = {5, 50, 200};
+    private static final int WARMUP = 20;
+    private static final int ROUNDS = 100;
+    private static final int USER_ID = 900_000;
+
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    @MockBean
+    private CartServiceClient cartServiceClient;
+
+    @Test
+    void measurePlaceOrderLatency() {
+        for (int lines : LINE_COUNTS) {
+            when(cartServiceClient.getCheckoutSnapshot(anyInt())).thenReturn(snapshot(lines));
+            List<Integer> created = new ArrayList<>();
+            try {
+                for (int i = 0; i < WARMUP; i++) {
+                    created.add(orderService.placeOrder(USER_ID).getOrderId());
+                }
+                long[] nanos = new long[ROUNDS];
+                for (int i = 0; i < ROUNDS; i++) {
+                    long started = System.nanoTime();
+                    Order order = orderService.placeOrder(USER_ID);
+                    nanos[i] = System.nanoTime() - started;
+                    created.add(order.getOrderId());
+                    assertEquals(lines, order.getOrderItems().size());
+                }
+                Arrays.sort(nanos);
+                System.out.printf("placeOrder %3d lines: p50=%.2f ms p95=%.2f ms max=%.2f ms%n", lines,
+                        nanos[ROUNDS / 2] / 1e6, nanos[ROUNDS * 95 / 100] / 1e6, nanos[ROUNDS - 1] / 1e6);
+            } finally {
+                created.forEach(orderId -> orderService.deleteOrder(USER_ID, orderId));
+            }
+        }
+    }
+
+    private CheckoutSnapshotResponse snapshot(int lines) {
+        List<CartItemResponse> items = new ArrayList<>(lines);
+        for (int i = 1; i <= lines; i++) {
+            items.add(new CartItemResponse(0, 0, i, "bench" + i, 1.5, 2, 3.0));
+        }
+        return new CheckoutSnapshotResponse(1, USER_ID, 1, lines * 3.0, items);
+    }
+}
@@ -1,9 +1,14 @@
 package com.supermarket.billingservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.supermarket.billingservice.dto.CartItemResponse;
+import com.supermarket.billingservice.dto.CheckoutSnapshotResponse;
+import com.supermarket.billingservice.dto.OrderExportRow;
+import com.supermarket.billingservice.dto.OrderSummary;
 import com.supermarket.billingservice.exception.OperationFailedException;
 import com.supermarket.billingservice.exception.OrderPlacementException;
 import com.supermarket.billingservice.exception.ResourceNotFoundException;
+import com.supermarket.billingservice.export.ExportFormat;
 import com.supermarket.billingservice.feign.CartServiceClient;
 import com.supermarket.billingservice.model.Order;
 import com.supermarket.billingservice.model.OrderItems;
@@ -20,14 +25,22 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataAccessException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -43,6 +56,8 @@ class OrderServiceImplTest {
     private OrderitemsRepository orderitemsRepository;
     @Mock
     private CartServiceClient cartServiceClient;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     @InjectMocks
     private OrderServiceImpl orderService;
@@ -66,6 +81,10 @@ class OrderServiceImplTest {
         sampleCartItems = List.of(item1, item2);
     }
 
+    private CheckoutSnapshotResponse snapshot(List<CartItemResponse> items) {
+        return new CheckoutSnapshotResponse(cartId, userId, 3, 1350.00, items);
+    }
+
     // Helper to create a FeignException.NotFound
     private FeignException.NotFound createFeignNotFoundException() {
         Request request = Request.create(Request.HttpMethod.GET, "/dummy", Collections.emptyMap(), null, new RequestTemplate());
@@ -87,8 +106,7 @@ class OrderServiceImplTest {
         double expectedTotal = item1.getTotalPrice() + item2.getTotalPrice(); // 1200 + 150 = 1350
         Order expectedSavedOrder = new Order(orderId, userId, cartId, null, expectedTotal, new ArrayList<>()); // Date set later
 
-        when(cartServiceClient.getCartItemsByUserId(userId)).thenReturn(sampleCartItems);
-        when(cartServiceClient.getCartIdByUserId(userId)).thenReturn(cartId);
+        when(cartServiceClient.getCheckoutSnapshot(userId)).thenReturn(snapshot(sampleCartItems));
         // Mock saving the order
         when(orderRepository.save(any(Order.class))).thenAnswer(inv -> {
             Order o = inv.getArgument(0);
@@ -111,9 +129,9 @@ class OrderServiceImplTest {
         assertNotNull(result.getOrderDate());
         assertEquals(2, result.getOrderItems().size()); // Check items are associated back
 
-        // Verify interactions
-        verify(cartServiceClient).getCartItemsByUserId(userId);
-        verify(cartServiceClient).getCartIdByUserId(userId);
+        // Verify interactions: one remote call for the whole cart
+        verify(cartServiceClient).getCheckoutSnapshot(userId);
+        verifyNoMoreInteractions(cartServiceClient);
         verify(orderRepository).save(orderCaptor.capture());
         assertEquals(expectedTotal, orderCaptor.getValue().getTotalBillPrice()); // Verify total passed to save
 
@@ -133,76 +151,74 @@ class OrderServiceImplTest {
     }
 
     @Test
-    @DisplayName("PlaceOrder: Throws OrderPlacementException if getCartItems returns empty list")
+    @DisplayName("PlaceOrder: Throws OrderPlacementException if the snapshot has no items")
     void placeOrder_WhenGetCartItemsEmpty_ShouldThrowOrderPlacementException() {
         // Arrange
-        when(cartServiceClient.getCartItemsByUserId(userId)).thenReturn(Collections.emptyList());
+        when(cartServiceClient.getCheckoutSnapshot(userId)).thenReturn(snapshot(Collections.emptyList()));
 
         // Act & Assert
         assertThrows(OrderPlacementException.class, () -> {
             orderService.placeOrder(userId);
         });
-        verify(cartServiceClient).getCartItemsByUserId(userId);
+        verify(cartServiceClient).getCheckoutSnapshot(userId);
         verifyNoInteractions(orderRepository, orderitemsRepository); // Nothing should be saved
     }
 
     @Test
-    @DisplayName("PlaceOrder: Throws OrderPlacementException if getCartItems returns null")
+    @DisplayName("PlaceOrder: Throws OrderPlacementException if the snapshot is null")
     void placeOrder_WhenGetCartItemsNull_ShouldThrowOrderPlacementException() {
         // Arrange
-        when(cartServiceClient.getCartItemsByUserId(userId)).thenReturn(null);
+        when(cartServiceClient.getCheckoutSnapshot(userId)).thenReturn(null);
 
         // Act & Assert
         assertThrows(OrderPlacementException.class, () -> {
             orderService.placeOrder(userId);
         });
-        verify(cartServiceClient).getCartItemsByUserId(userId);
+        verify(cartServiceClient).getCheckoutSnapshot(userId);
         verifyNoInteractions(orderRepository, orderitemsRepository);
     }
 
     @Test
-    @DisplayName("PlaceOrder: Throws OrderPlacementException if getCartItems fails (FeignException)")
+    @DisplayName("PlaceOrder: Throws OrderPlacementException if getCheckoutSnapshot fails (FeignException)")
     void placeOrder_WhenGetCartItemsFails_ShouldThrowOrderPlacementException() {
         // Arrange
-        when(cartServiceClient.getCartItemsByUserId(userId)).thenThrow(createFeignServerErrorException());
+        when(cartServiceClient.getCheckoutSnapshot(userId)).thenThrow(createFeignServerErrorException());
 
         // Act & Assert
         // Note: The service wraps generic FeignException in OrderPlacementException for this call
         assertThrows(OrderPlacementException.class, () -> {
             orderService.placeOrder(userId);
         });
-        verify(cartServiceClient).getCartItemsByUserId(userId);
+        verify(cartServiceClient).getCheckoutSnapshot(userId);
         verifyNoInteractions(orderRepository, orderitemsRepository);
     }
 
     @Test
-    @DisplayName("PlaceOrder: Throws OrderPlacementException if getCartItems fails (NotFound)")
+    @DisplayName("PlaceOrder: Throws OrderPlacementException if getCheckoutSnapshot fails (NotFound)")
     void placeOrder_WhenGetCartItemsNotFound_ShouldThrowOrderPlacementException() {
         // Arrange
-        when(cartServiceClient.getCartItemsByUserId(userId)).thenThrow(createFeignNotFoundException());
+        when(cartServiceClient.getCheckoutSnapshot(userId)).thenThrow(createFeignNotFoundException());
 
         // Act & Assert
         assertThrows(OrderPlacementException.class, () -> {
             orderService.placeOrder(userId);
         });
-        verify(cartServiceClient).getCartItemsByUserId(userId);
+        verify(cartServiceClient).getCheckoutSnapshot(userId);
         verifyNoInteractions(orderRepository, orderitemsRepository);
     }
 
 
     @Test
-    @DisplayName("PlaceOrder: Throws ResourceNotFoundException if getCartId fails (NotFound)")
-    void placeOrder_WhenGetCartIdNotFound_ShouldThrowResourceNotFoundException() {
+    @DisplayName("PlaceOrder: Throws OrderPlacementException if the snapshot has no items list")
+    void placeOrder_WhenSnapshotItemsNull_ShouldThrowOrderPlacementException() {
         // Arrange
-        when(cartServiceClient.getCartItemsByUserId(userId)).thenReturn(sampleCartItems); // Items fetched OK
-        when(cartServiceClient.getCartIdByUserId(userId)).thenThrow(createFeignNotFoundException()); // Cart ID fetch fails
+        when(cartServiceClient.getCheckoutSnapshot(userId)).thenReturn(new CheckoutSnapshotResponse(cartId, userId, 3, 0.0, null));
 
         // Act & Assert
-        assertThrows(ResourceNotFoundException.class, () -> {
+        assertThrows(OrderPlacementException.class, () -> {
             orderService.placeOrder(userId);
         });
-        verify(cartServiceClient).getCartItemsByUserId(userId);
-        verify(cartServiceClient).getCartIdByUserId(userId);
+        verify(cartServiceClient).getCheckoutSnapshot(userId);
         verifyNoInteractions(orderRepository, orderitemsRepository);
     }
 
@@ -210,16 +226,14 @@ class OrderServiceImplTest {
     @DisplayName("PlaceOrder: Throws OperationFailedException if save order fails")
     void placeOrder_WhenSaveOrderFails_ShouldThrowOperationFailedException() {
         // Arrange
-        when(cartServiceClient.getCartItemsByUserId(userId)).thenReturn(sampleCartItems);
-        when(cartServiceClient.getCartIdByUserId(userId)).thenReturn(cartId);
+        when(cartServiceClient.getCheckoutSnapshot(userId)).thenReturn(snapshot(sampleCartItems));
         when(orderRepository.save(any(Order.class))).thenThrow(new DataAccessException("DB Save Order Error") {});
 
         // Act & Assert
         assertThrows(OperationFailedException.class, () -> {
             orderService.placeOrder(userId);
         });
-        verify(cartServiceClient).getCartItemsByUserId(userId);
-        verify(cartServiceClient).getCartIdByUserId(userId);
+        verify(cartServiceClient).getCheckoutSnapshot(userId);
         verify(orderRepository).save(any(Order.class));
         verifyNoInteractions(orderitemsRepository); // Items save not reached
     }
@@ -230,8 +244,7 @@ class OrderServiceImplTest {
         // Arrange
         Order expectedSavedOrder = new Order(orderId, userId, cartId, LocalDateTime.now(), 1350.0, new ArrayList<>());
 
-        when(cartServiceClient.getCartItemsByUserId(userId)).thenReturn(sampleCartItems);
-        when(cartServiceClient.getCartIdByUserId(userId)).thenReturn(cartId);
+        when(cartServiceClient.getCheckoutSnapshot(userId)).thenReturn(snapshot(sampleCartItems));
         when(orderRepository.save(any(Order.class))).thenReturn(expectedSavedOrder); // Order save succeeds
         when(orderitemsRepository.saveAll(any(List.class))).thenThrow(new DataAccessException("DB Save Items Error") {}); // Items save fails
 
@@ -239,8 +252,7 @@ class OrderServiceImplTest {
         assertThrows(OperationFailedException.class, () -> {
             orderService.placeOrder(userId);
         });
-        verify(cartServiceClient).getCartItemsByUserId(userId);
-        verify(cartServiceClient).getCartIdByUserId(userId);
+        verify(cartServiceClient).getCheckoutSnapshot(userId);
         verify(orderRepository).save(any(Order.class));
         verify(orderitemsRepository).saveAll(any(List.class)); // Verify saveAll was attempted
     }
@@ -250,8 +262,7 @@ class OrderServiceImplTest {
     void placeOrder_WhenClearCartFails_ShouldThrowOperationFailedException() {
         // Arrange - Everything succeeds until clearCart
         Order expectedSavedOrder = new Order(orderId, userId, cartId, LocalDateTime.now(), 1350.0, new ArrayList<>());
-        when(cartServiceClient.getCartItemsByUserId(userId)).thenReturn(sampleCartItems);
-        when(cartServiceClient.getCartIdByUserId(userId)).thenReturn(cartId);
+        when(cartServiceClient.getCheckoutSnapshot(userId)).thenReturn(snapshot(sampleCartItems));
         when(orderRepository.save(any(Order.class))).thenReturn(expectedSavedOrder);
         when(orderitemsRepository.saveAll(any(List.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -262,8 +273,7 @@ class OrderServiceImplTest {
         assertTrue(ex.getMessage().contains("failed to clear the cart")); // Check specific message
 
         // Verify all steps up to clearCart were called
-        verify(cartServiceClient).getCartItemsByUserId(userId);
-        verify(cartServiceClient).getCartIdByUserId(userId);
+        verify(cartServiceClient).getCheckoutSnapshot(userId);
         verify(orderRepository).save(any(Order.class));
         verify(orderitemsRepository).saveAll(any(List.class));
     }
@@ -273,26 +283,27 @@ class OrderServiceImplTest {
     @Test
     @DisplayName("GetOrdersByUserId: Success returns list")
     void getOrdersByUserId_WhenFound_ReturnsList() {
-        Order order1 = new Order(101, userId, 10, LocalDateTime.now(), 100.0, List.of());
-        Order order2 = new Order(102, userId, 11, LocalDateTime.now(), 200.0, List.of());
-        when(orderRepository.findAllByUserId(userId)).thenReturn(List.of(order1, order2));
+        OrderSummary order1 = new OrderSummary(101, userId, 10, LocalDateTime.now(), 100.0, 1);
+        OrderSummary order2 = new OrderSummary(102, userId, 11, LocalDateTime.now(), 200.0, 3);
+        when(orderRepository.findSummariesByUserId(userId)).thenReturn(List.of(order1, order2));
 
-        List<Order> result = orderService.getOrdersByUserId(userId);
+        List<OrderSummary> result = orderService.getOrdersByUserId(userId);
 
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(orderRepository).findAllByUserId(userId);
+        verify(orderRepository).findSummariesByUserId(userId);
+        verify(orderRepository, never()).findAllByUserId(anyInt()); // list views never load entities
     }
 
     @Test
     @DisplayName("GetOrdersByUserId: Throws ResourceNotFoundException if none found")
     void getOrdersByUserId_WhenNoneFound_ThrowsResourceNotFoundException() {
-        when(orderRepository.findAllByUserId(userId)).thenReturn(Collections.emptyList());
+        when(orderRepository.findSummariesByUserId(userId)).thenReturn(Collections.emptyList());
 
         assertThrows(ResourceNotFoundException.class, () -> {
             orderService.getOrdersByUserId(userId);
         });
-        verify(orderRepository).findAllByUserId(userId);
+        verify(orderRepository).findSummariesByUserId(userId);
     }
 
 
@@ -301,50 +312,51 @@ class OrderServiceImplTest {
     @DisplayName("GetOrderByOrderId: Success returns order")
     void getOrderByOrderId_WhenFound_ReturnsOrder() {
         Order order = new Order(orderId, userId, cartId, LocalDateTime.now(), 1350.0, List.of());
-        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        when(orderRepository.findWithItemsByOrderId(orderId)).thenReturn(Optional.of(order));
 
         Order result = orderService.getOrderByOrderId(orderId);
 
         assertNotNull(result);
         assertEquals(orderId, result.getOrderId());
-        verify(orderRepository).findById(orderId);
+        verify(orderRepository).findWithItemsByOrderId(orderId);
     }
 
     @Test
     @DisplayName("GetOrderByOrderId: Throws ResourceNotFoundException if not found")
     void getOrderByOrderId_WhenNotFound_ThrowsResourceNotFoundException() {
-        when(orderRepository.findById(orderId)).thenReturn(Optional.empty());
+        when(orderRepository.findWithItemsByOrderId(orderId)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
             orderService.getOrderByOrderId(orderId);
         });
-        verify(orderRepository).findById(orderId);
+        verify(orderRepository).findWithItemsByOrderId(orderId);
     }
 
     // --- getAllOrders Tests ---
     @Test
     @DisplayName("GetAllOrders: Success returns list")
     void getAllOrders_WhenOrdersExist_ReturnsList() {
-        Order order1 = new Order(101, 1, 10, LocalDateTime.now(), 100.0, List.of());
-        Order order2 = new Order(102, 2, 11, LocalDateTime.now(), 200.0, List.of());
-        when(orderRepository.findAll()).thenReturn(List.of(order1, order2));
+        OrderSummary order1 = new OrderSummary(101, 1, 10, LocalDateTime.now(), 100.0, 1);
+        OrderSummary order2 = new OrderSummary(102, 2, 11, LocalDateTime.now(), 200.0, 2);
+        when(orderRepository.findAllSummaries()).thenReturn(List.of(order1, order2));
 
-        List<Order> result = orderService.getAllOrders();
+        List<OrderSummary> result = orderService.getAllOrders();
 
         assertNotNull(result);
         assertEquals(2, result.size());
-        verify(orderRepository).findAll();
+        verify(orderRepository).findAllSummaries();
+        verify(orderRepository, never()).findAll();
     }
 
     @Test
     @DisplayName("GetAllOrders: Throws ResourceNotFoundException if none exist")
     void getAllOrders_WhenNoneExist_ThrowsResourceNotFoundException() {
-        when(orderRepository.findAll()).thenReturn(Collections.emptyList());
+        when(orderRepository.findAllSummaries()).thenReturn(Collections.emptyList());
 
         assertThrows(ResourceNotFoundException.class, () -> {
             orderService.getAllOrders();
         });
-        verify(orderRepository).findAll();
+        verify(orderRepository).findAllSummaries();
     }
 
 
@@ -400,4 +412,69 @@ class OrderServiceImplTest {
         verify(orderitemsRepository).deleteAllByOrder(orderToDelete);
         verify(orderRepository).deleteById(orderId);
     }
-}
\ No newline at end of file
+
+    // --- exportOrders Tests ---
+    @Test
+    @DisplayName("ExportOrders: Writes CSV header and one line per streamed row")
+    void exportOrders_WhenCsv_WritesHeaderAndRows() {
+        // Arrange
+        LocalDateTime orderDate = LocalDateTime.of(2025, 7, 4, 10, 15);
+        when(orderRepository.streamAllForExport()).thenReturn(Stream.of(
+                new OrderExportRow(orderId, userId, cartId, orderDate, 1350.0),
+                new OrderExportRow(orderId + 1, userId, cartId, null, 20.5)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        orderService.exportOrders(ExportFormat.CSV, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("orderId,userId,cartId,orderDate,totalBillPrice", lines[0]);
+        assertEquals(orderId + "," + userId + "," + cartId + "," + orderDate + ",1350.0", lines[1]);
+        assertEquals((orderId + 1) + "," + userId + "," + cartId + ",,20.5", lines[2]);
+        verify(orderRepository).streamAllForExport();
+    }
+
+    @Test
+    @DisplayName("ExportOrders: Writes one JSON object per line for NDJSON")
+    void exportOrders_WhenNdjson_WritesOneObjectPerLine() {
+        // Arrange
+        when(orderRepository.streamAllForExport()).thenReturn(Stream.of(
+                new OrderExportRow(orderId, userId, cartId, null, 1350.0),
+                new OrderExportRow(orderId + 1, userId, cartId, null, 20.5)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        orderService.exportOrders(ExportFormat.NDJSON, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"orderId\":" + orderId));
+        assertTrue(lines[1].contains("\"totalBillPrice\":20.5"));
+    }
+
+    @Test
+    @DisplayName("ExportOrders: Gzip-wrapped output, as the controller writes it, decompresses to the plain export")
+    void exportOrders_WhenGzipped_DecompressesToPlainExport() throws IOException {
+        // Arrange
+        LocalDateTime orderDate = LocalDateTime.of(2025, 7, 4, 10, 15);
+        when(orderRepository.streamAllForExport()).thenReturn(
+                Stream.of(new OrderExportRow(orderId, userId, cartId, orderDate, 1350.0)),
+                Stream.of(new OrderExportRow(orderId, userId, cartId, orderDate, 1350.0)));
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        // Act
+        orderService.exportOrders(ExportFormat.CSV, plain);
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192);
+        orderService.exportOrders(ExportFormat.CSV, gzip);
+        gzip.finish();
+
+        // Assert
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(plain.toByteArray(), in.readAllBytes());
+        }
+    }
+}
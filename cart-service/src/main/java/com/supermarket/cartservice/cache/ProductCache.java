@@ -0,0 +1,239 @@
+package com.supermarket.cartservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supermarket.cartservice.dto.ProductChangeNotification;
+import com.supermarket.cartservice.dto.ProductResponse;
+import com.supermarket.cartservice.feed.ProductChangeFeedClient;
+import com.supermarket.cartservice.feed.ProductChangeListener;
+import com.supermarket.cartservice.feign.InventoryServiceClient;
+import feign.FeignException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Short-lived snapshots of inventory products, so browsing and quantity changes do not pay a
+// remote call each. Entries are keyed by product id, with a second index from the normalised name
+// (trimmed, lower case, matching MySQL's case-insensitive lookup) to the id.
+//
+// A hit older than ttl-ms minus refresh-ahead-ms is returned as is and reloaded in the background,
+// so a product in active use rarely expires. Past ttl-ms the caller loads it synchronously. When
+// the product change feed is enabled, changes are applied as they happen and a feed reset clears
+// the cache. The TTL then only bounds staleness while the feed is down.
+//
+// Stock read from here is advisory. The strict check is inventory-service's reduceStock at
+// checkout, which refuses to sell more than is on hand.
+@Component
+public class ProductCache implements ProductChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCache.class);
+
+    @Autowired
+    private InventoryServiceClient inventoryServiceClient;
+
+    @Autowired(required = false)
+    private ObjectMapper objectMapper;
+
+    @Value("${cart.product-cache.ttl-ms:5000}")
+    private long ttlMillis;
+
+    @Value("${cart.product-cache.refresh-ahead-ms:1000}")
+    private long refreshAheadMillis;
+
+    @Value("${cart.product-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${cart.product-cache.feed-enabled:false}")
+    private boolean feedEnabled;
+
+    @Value("${inventory-service.url:http://localhost:8082}")
+    private String inventoryUrl;
+
+    private static final class Entry {
+        private final ProductResponse product;
+        private final long loadedAtNanos;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(ProductResponse product) {
+            this.product = product;
+            this.loadedAtNanos = System.nanoTime();
+        }
+    }
+
+    private final Map<Integer, Entry> byId = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idByName = new ConcurrentHashMap<>();
+
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-cache-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ProductChangeFeedClient feedClient;
+
+    @PostConstruct
+    public void start() {
+        if (feedEnabled) {
+            feedClient = new ProductChangeFeedClient(URI.create(inventoryUrl + "/invent/changes"), HttpClient.newHttpClient(),
+                    objectMapper != null ? objectMapper : new ObjectMapper(), this);
+            feedClient.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (feedClient != null) {
+            feedClient.close();
+        }
+        refresher.shutdownNow();
+    }
+
+    // Product by name; loads it from inventory-service on a miss. Feign errors pass through.
+    public ProductResponse getByName(String prodName) {
+        Integer prodId = idByName.get(normalise(prodName));
+        if (prodId != null) {
+            ProductResponse cached = fresh(prodId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return put(inventoryServiceClient.getProductByProdName(prodName));
+    }
+
+    // Product by id; loads it from inventory-service on a miss. Feign errors pass through.
+    public ProductResponse getById(int prodId) {
+        ProductResponse cached = fresh(prodId);
+        if (cached != null) {
+            return cached;
+        }
+        return put(inventoryServiceClient.getProductById(prodId));
+    }
+
+    // Product by barcode. Barcodes are not indexed, so this always asks inventory-service, but the
+    // result warms the id and name entries.
+    public ProductResponse getByBarcode(long barcode) {
+        return put(inventoryServiceClient.getProductByBarcode(barcode));
+    }
+
+    public void invalidate(int prodId) {
+        Entry removed = byId.remove(prodId);
+        if (removed != null) {
+            idByName.remove(normalise(removed.product.getProdName()), prodId);
+        }
+    }
+
+    public void clear() {
+        byId.clear();
+        idByName.clear();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public void onChange(ProductChangeNotification change) {
+        if ("DELETED".equals(change.getType())) {
+            invalidate(change.getProdId());
+        } else {
+            put(new ProductResponse(change.getProdId(), change.getProdName(), change.getPrice(), change.getStock()));
+        }
+    }
+
+    @Override
+    public void onReset() {
+        clear();
+    }
+
+    // Stores a copy of the snapshot and returns it; callers may keep or modify what they get back.
+    public ProductResponse put(ProductResponse product) {
+        if (product == null) {
+            return null;
+        }
+        Entry entry = new Entry(copy(product));
+        Entry previous = byId.put(product.getProdId(), entry);
+        if (previous != null && !normalise(previous.product.getProdName()).equals(normalise(product.getProdName()))) {
+            idByName.remove(normalise(previous.product.getProdName()), product.getProdId()); // renamed
+        }
+        if (product.getProdName() != null) {
+            idByName.put(normalise(product.getProdName()), product.getProdId());
+        }
+        if (byId.size() > maxEntries) {
+            evictOldest();
+        }
+        return product;
+    }
+
+    private ProductResponse fresh(int prodId) {
+        Entry entry = byId.get(prodId);
+        if (entry == null) {
+            return null;
+        }
+        long ageMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - entry.loadedAtNanos);
+        if (ageMillis >= ttlMillis) {
+            return null;
+        }
+        if (ageMillis >= ttlMillis - refreshAheadMillis && entry.refreshing.compareAndSet(false, true)) {
+            refreshLater(prodId);
+        }
+        return copy(entry.product);
+    }
+
+    private void refreshLater(int prodId) {
+        try {
+            refresher.execute(() -> {
+                try {
+                    put(inventoryServiceClient.getProductById(prodId));
+                } catch (FeignException.NotFound e) {
+                    invalidate(prodId);
+                } catch (RuntimeException e) {
+                    // the entry just expires and the next caller loads it
+                    log.debug("Background refresh of product {} failed: {}", prodId, e.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            log.debug("Background refresh of product {} not scheduled: {}", prodId, e.getMessage());
+        }
+    }
+
+    // Brings the cache back to 90% of max-entries by dropping the entries loaded longest ago.
+    // Overflow is rare for a catalogue-sized bound, so a sort here is cheaper than an LRU list.
+    private synchronized void evictOldest() {
+        int excess = byId.size() - maxEntries * 9 / 10;
+        if (excess <= 0) {
+            return;
+        }
+        List<Map.Entry<Integer, Entry>> entries = new ArrayList<>(byId.entrySet());
+        entries.sort(Comparator.comparingLong(e -> e.getValue().loadedAtNanos));
+        for (int i = 0; i < excess && i < entries.size(); i++) {
+            Map.Entry<Integer, Entry> oldest = entries.get(i);
+            if (byId.remove(oldest.getKey(), oldest.getValue())) {
+                idByName.remove(normalise(oldest.getValue().product.getProdName()), oldest.getKey());
+            }
+        }
+    }
+
+    private static ProductResponse copy(ProductResponse product) {
+        return new ProductResponse(product.getProdId(), product.getProdName(), product.getPrice(), product.getStock());
+    }
+
+    private static String normalise(String prodName) {
+        return prodName == null ? "" : prodName.trim().toLowerCase(Locale.ROOT);
+    }
+}
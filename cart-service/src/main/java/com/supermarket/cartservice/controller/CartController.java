@@ -1,14 +1,20 @@
 package com.supermarket.cartservice.controller;
 
+import com.supermarket.cartservice.dto.CartLineRequest;
+import com.supermarket.cartservice.dto.CheckoutSnapshot;
 import com.supermarket.cartservice.model.Cart;
 import com.supermarket.cartservice.model.CartItems;
 import com.supermarket.cartservice.service.CartServiceImpl;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -32,6 +38,35 @@ public class CartController {
         return prodName + " added to cart of userId" + userId;
     }
 
+    // Adds a scanned item by its EAN/UPC barcode
+    @PostMapping("/biller/addToCartByBarcode")
+    public String addToCartByBarcode(
+            @RequestParam @Min(value = 1, message = "User ID must be positive") int userId,
+            @RequestParam @Positive(message = "Barcode must be positive") long barcode,
+            @RequestParam(defaultValue = "1") @Positive(message = "Quantity must be positive") int quantity) {
+        cartService.addToCartByBarcode(userId, barcode, quantity);
+        return "Product with barcode " + barcode + " added to cart of userId" + userId;
+    }
+
+    // Adds a whole scan burst in one request; either every line is added or none is
+    @PostMapping("/biller/addToCartBulk")
+    public String addToCartBulk(
+            @RequestParam @Min(value = 1, message = "User ID must be positive") int userId,
+            @RequestBody List<@Valid CartLineRequest> lines) {
+        cartService.addToCartBulk(userId, lines);
+        return lines.size() + " lines added to cart of userId" + userId;
+    }
+
+    // Sets an item's quantity outright; 0 removes it
+    @PutMapping("/biller/setQuantity")
+    public String setQuantityInUserCart(
+            @RequestParam @Min(value = 1, message = "User ID must be positive") int userId,
+            @RequestParam @NotBlank(message = "Product name cannot be blank") String prodName,
+            @RequestParam @PositiveOrZero(message = "Quantity cannot be negative") int quantity) {
+        cartService.setQuantity(userId, prodName, quantity);
+        return "Set item quantity to " + quantity;
+    }
+
     @DeleteMapping("/biller/removeItemFromCart")
     public String removeItemFromCart(
             @RequestParam @Min(value = 1, message = "User ID must be positive") int userId,
@@ -76,6 +111,18 @@ public class CartController {
         return cartService.getCartByUserId(userId);
     }
 
+    // Streams the customer's cart as Server-Sent Events: a snapshot, then a delta for every change
+    @GetMapping(value = "/customer/myCartUpdates", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter myCartUpdates(@RequestHeader("X-UserId") int userId) {
+        return cartService.subscribeToCart(userId);
+    }
+
+    // Same stream for the biller screen and the customer-facing display, instead of polling getCartByUser
+    @GetMapping(value = "/biller/cartUpdates/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter cartUpdates(@PathVariable @Min(value = 1, message = "User ID must be positive") int userId) {
+        return cartService.subscribeToCart(userId);
+    }
+
     @PutMapping("/customer/increaseQuantity")
     public String increaseQuantity(
             @RequestHeader("X-UserId") int userId,
@@ -84,6 +131,15 @@ public class CartController {
         return "Increased item quantity by one";
     }
 
+    @PutMapping("/customer/setQuantity")
+    public String setQuantity(
+            @RequestHeader("X-UserId") int userId,
+            @RequestParam @NotBlank(message = "Product name cannot be blank") String prodName,
+            @RequestParam @PositiveOrZero(message = "Quantity cannot be negative") int quantity) {
+        cartService.setQuantity(userId, prodName, quantity);
+        return "Set item quantity to " + quantity;
+    }
+
     @PutMapping("/customer/decreaseQuantity")
     public String decreaseQuantity(
             @RequestHeader("X-UserId") int userId,
@@ -118,8 +174,9 @@ public class CartController {
 
 
     @DeleteMapping("/clearCartAndReduceStock/{userId}")
-    public String clearCartAndReduceStockForUser(@PathVariable @Min(value = 1, message = "User ID must be positive") int userId) {
-        cartService.clearCart(userId);
+    public String clearCartAndReduceStockForUser(@PathVariable @Min(value = 1, message = "User ID must be positive") int userId,
+                                                 @RequestHeader(value = "X-StoreId", required = false) Integer storeId) {
+        cartService.clearCart(userId, storeId);
         return "Cart cleared successfully.";
     }
 
@@ -140,4 +197,9 @@ public class CartController {
         return cartService.getCartItemsByUserId(userId);
     }
 
+    @GetMapping("/checkoutSnapshot/{userId}")
+    public CheckoutSnapshot getCheckoutSnapshot(@PathVariable @Min(value = 1, message = "User ID must be positive") int userId) {
+        return cartService.getCheckoutSnapshot(userId);
+    }
+
 }
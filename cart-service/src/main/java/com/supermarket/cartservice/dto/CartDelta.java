@@ -0,0 +1,21 @@
+package com.supermarket.cartservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// One cart update on a user's cart stream. Sequences count up by one per user from the snapshot's;
+// a screen that sees a jump has missed an update and should subscribe again.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartDelta {
+    private long sequence;
+    private int userId;
+    private List<CartLineChange> changes;
+    private double cartTotal;
+}
@@ -0,0 +1,19 @@
+package com.supermarket.cartservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// One cart line as pushed to POS screens.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartLine {
+    private int prodId;
+    private String prodName;
+    private double price;
+    private int quantity;
+    private double totalPrice;
+}
@@ -0,0 +1,16 @@
+package com.supermarket.cartservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// A line that changed in one cart update. Removed lines carry the line as it was.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartLineChange {
+    private String type; // LINE_ADDED, QUANTITY_CHANGED or LINE_REMOVED
+    private CartLine line;
+}
@@ -0,0 +1,21 @@
+package com.supermarket.cartservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// One line of a bulk add-to-cart request.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartLineRequest {
+    @NotBlank(message = "Product name cannot be blank")
+    private String prodName;
+
+    @Positive(message = "Quantity must be positive")
+    private int quantity;
+}
@@ -0,0 +1,20 @@
+package com.supermarket.cartservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// The whole cart, sent first on every cart stream. Deltas that follow continue from its sequence.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CartSnapshot {
+    private long sequence;
+    private int userId;
+    private List<CartLine> lines;
+    private double cartTotal;
+}
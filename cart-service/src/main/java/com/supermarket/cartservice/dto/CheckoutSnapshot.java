@@ -0,0 +1,22 @@
+package com.supermarket.cartservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Everything billing needs to turn a cart into an order, read in one go: the cart id, its
+// optimistic-lock version and the lines without their cart back-reference.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CheckoutSnapshot {
+    private int cartId;
+    private int userId;
+    private long version;
+    private double cartTotalPrice;
+    private List<CartLine> items;
+}
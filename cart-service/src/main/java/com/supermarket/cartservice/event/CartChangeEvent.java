@@ -0,0 +1,51 @@
+package com.supermarket.cartservice.event;
+
+import com.supermarket.cartservice.dto.CartLine;
+import com.supermarket.cartservice.model.Cart;
+import com.supermarket.cartservice.model.CartItems;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Published after every cart mutation with a detached copy of the cart's lines and total, so the
+// cart stream can push the change without reading the cart again.
+//
+// The stamp is taken inside the mutation, after the cart was read. Of two changes to the same cart
+// only the one that read the other's result can commit, so stamps follow commit order even when
+// the after-commit listeners run the other way round.
+@Getter
+public class CartChangeEvent {
+
+    private static final AtomicLong STAMPS = new AtomicLong();
+
+    private final int userId;
+    private final long stamp;
+    private final List<CartLine> lines;
+    private final double cartTotal;
+
+    private CartChangeEvent(int userId, List<CartLine> lines, double cartTotal) {
+        this.userId = userId;
+        this.stamp = STAMPS.incrementAndGet();
+        this.lines = lines;
+        this.cartTotal = cartTotal;
+    }
+
+    public static CartChangeEvent of(Cart cart) {
+        return new CartChangeEvent(cart.getUserId(), lines(cart), cart.getCartTotalPrice());
+    }
+
+    public static List<CartLine> lines(Cart cart) {
+        List<CartLine> lines = new ArrayList<>(cart.getItems().size());
+        for (CartItems item : cart.getItems()) {
+            lines.add(new CartLine(item.getProdId(), item.getProdName(), item.getPrice(), item.getQuantity(), item.getTotalPrice()));
+        }
+        return lines;
+    }
+
+    @Override
+    public String toString() {
+        return "CartChangeEvent{userId=" + userId + ", lines=" + lines.size() + ", total=" + cartTotal + "}";
+    }
+}
@@ -0,0 +1,201 @@
+package com.supermarket.cartservice.expiry;
+
+import com.supermarket.cartservice.store.MemoryCartStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Deletes carts nobody has changed for ttl-hours, so abandoned carts stop piling up in the cart
+// and cart_items tables. Each batch is one short transaction: the expired cart rows are locked
+// oldest first (SKIP LOCKED passes over carts a request is editing right now), then their items
+// and the carts go in two set-based DELETE ... WHERE cart_id IN (...) statements.
+//
+// Throttling: batches are capped at batch-size carts and max-batches-per-run per sweep, and after
+// each batch the sweeper pauses for batch-pause-ms or as long as the batch took, whichever is
+// longer. A slow batch usually means the tables are busy, so the sweeper backs off with it.
+//
+// Under cart.store=memory a cart held in memory is never deleted, even when only reads keep it
+// there and its last_modified (written by flushes) is old: MemoryCartStore.claimExpired leaves it
+// out and blocks loads of the carts being deleted until the batch commits. Skipped carts get a
+// fresh last_modified so they stop filling the oldest-first batches.
+@Component
+@ConditionalOnProperty(name = "cart.expiry.enabled", havingValue = "true", matchIfMissing = true)
+public class CartExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(CartExpirySweeper.class);
+
+    private static final String SELECT_EXPIRED_SQL =
+            "SELECT cart_id FROM cart WHERE last_modified < ? ORDER BY last_modified LIMIT ? FOR UPDATE SKIP LOCKED";
+    private static final String BACKFILL_SQL = "UPDATE cart SET last_modified = ? WHERE last_modified IS NULL";
+
+    // Only present under cart.store=memory.
+    @Autowired(required = false)
+    private MemoryCartStore memoryCartStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cart.expiry.ttl-hours:72}")
+    private long ttlHours;
+
+    @Value("${cart.expiry.sweep-interval-minutes:10}")
+    private long sweepIntervalMinutes;
+
+    @Value("${cart.expiry.batch-size:200}")
+    private int batchSize;
+
+    @Value("${cart.expiry.batch-pause-ms:250}")
+    private long batchPauseMillis;
+
+    @Value("${cart.expiry.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    // Expired carts a batch selected, and the carts and items it removed, counted once its
+    // transaction has committed.
+    private record Batch(int selected, int carts, int items) {
+    }
+
+    private TransactionTemplate transactionTemplate;
+    private Counter cartsReclaimed;
+    private Counter itemsReclaimed;
+    private Timer sweepTimer;
+    private volatile boolean backfilled;
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cart-expiry-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        cartsReclaimed = meterRegistry.counter("cart.expiry.reclaimed", "table", "cart");
+        itemsReclaimed = meterRegistry.counter("cart.expiry.reclaimed", "table", "cart_items");
+        sweepTimer = meterRegistry.timer("cart.expiry.sweep.duration");
+        sweeper.scheduleWithFixedDelay(this::sweepSafely, sweepIntervalMinutes, sweepIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+    }
+
+    // Runs one sweep and returns the number of carts deleted.
+    public int sweep() {
+        long started = System.nanoTime();
+        backfill();
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(ttlHours);
+        int reclaimed = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            long batchStarted = System.nanoTime();
+            Batch deleted;
+            try {
+                deleted = transactionTemplate.execute(status -> deleteBatch(cutoff));
+            } finally {
+                if (memoryCartStore != null) {
+                    memoryCartStore.releaseExpired();
+                }
+            }
+            if (deleted == null || deleted.selected() == 0) {
+                break;
+            }
+            cartsReclaimed.increment(deleted.carts());
+            itemsReclaimed.increment(deleted.items());
+            reclaimed += deleted.carts();
+            if (deleted.selected() < batchSize || !pause(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - batchStarted))) {
+                break;
+            }
+        }
+        sweepTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (reclaimed > 0) {
+            log.info("Deleted {} carts untouched since {}", reclaimed, cutoff);
+        }
+        return reclaimed;
+    }
+
+    private void sweepSafely() {
+        try {
+            sweep();
+        } catch (DataAccessException | TransactionException e) {
+            // nothing is lost; the same carts are still expired at the next sweep
+            log.warn("Cart expiry sweep failed: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Cart expiry sweep failed", e);
+        }
+    }
+
+    // Carts created before last_modified existed have no timestamp. They get the full TTL from the
+    // first sweep instead of being treated as expired.
+    private void backfill() {
+        if (!backfilled) {
+            int updated = jdbcTemplate.update(BACKFILL_SQL, LocalDateTime.now());
+            if (updated > 0) {
+                log.info("Stamped {} carts without a last-modified time", updated);
+            }
+            backfilled = true;
+        }
+    }
+
+    private Batch deleteBatch(LocalDateTime cutoff) {
+        List<Integer> expired = jdbcTemplate.queryForList(SELECT_EXPIRED_SQL, Integer.class, cutoff, batchSize);
+        if (expired.isEmpty()) {
+            return new Batch(0, 0, 0);
+        }
+        List<Integer> cartIds = memoryCartStore == null ? expired : memoryCartStore.claimExpired(expired);
+        if (cartIds.size() < expired.size()) {
+            List<Integer> held = expired.stream().filter(cartId -> !cartIds.contains(cartId)).toList();
+            jdbcTemplate.update("UPDATE cart SET last_modified = ? WHERE cart_id IN (" + String.join(",", Collections.nCopies(held.size(), "?")) + ")",
+                    Stream.concat(Stream.of(LocalDateTime.now()), held.stream()).toArray());
+        }
+        if (cartIds.isEmpty()) {
+            return new Batch(expired.size(), 0, 0);
+        }
+        String in = String.join(",", Collections.nCopies(cartIds.size(), "?"));
+        int items = jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (" + in + ")", cartIds.toArray());
+        int carts = jdbcTemplate.update("DELETE FROM cart WHERE cart_id IN (" + in + ")", cartIds.toArray());
+        return new Batch(expired.size(), carts, items);
+    }
+
+    // Returns false if the sweeper is being shut down.
+    private boolean pause(long lastBatchMillis) {
+        long millis = Math.max(batchPauseMillis, lastBatchMillis);
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.supermarket.cartservice.feed;
+
+import com.supermarket.cartservice.dto.CartDelta;
+import com.supermarket.cartservice.dto.CartLine;
+import com.supermarket.cartservice.dto.CartLineChange;
+import com.supermarket.cartservice.dto.CartSnapshot;
+import com.supermarket.cartservice.event.CartChangeEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Per-user cart streams over Server-Sent Events for the biller screen and the customer display.
+// A subscriber gets a "snapshot" of the cart first, then a "delta" for every committed change:
+// the lines added, changed or removed and the new total. Deltas are computed by comparing each
+// CartChangeEvent with the last image sent on that user's channel, so no cart is read per change.
+//
+// Each channel numbers its events; the snapshot carries the current number and every delta the
+// next one. A gap tells a screen it missed something and should subscribe again for a fresh
+// snapshot. Channels exist only while someone is subscribed, and changes to other carts are dropped.
+//
+// Only changes made through this instance are pushed. With several cart-service instances a
+// screen must be routed to the instance that serves its cart.
+@Component
+public class CartUpdateFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(CartUpdateFeed.class);
+
+    public static final String SNAPSHOT_EVENT = "snapshot";
+    public static final String DELTA_EVENT = "delta";
+
+    @Value("${cart.feed.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMillis;
+
+    @Value("${cart.feed.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    // The cart as read by a subscribing caller.
+    public record Image(List<CartLine> lines, double cartTotal) {
+    }
+
+    // One cart's subscribers and the image last sent to them. Touched only on the dispatcher thread.
+    static final class Channel {
+        private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+        private Map<Integer, CartLine> lines; // null until the first subscriber's read or a change arrives
+        private double cartTotal;
+        private long sequence;
+        private long lastStamp = Long.MIN_VALUE;
+        private int opening; // subscribers registered whose snapshot has not been sent yet
+
+        Channel() {
+        }
+
+        Channel(List<CartLine> lines, double cartTotal) {
+            this.lines = index(lines);
+            this.cartTotal = cartTotal;
+        }
+    }
+
+    private final Map<Integer, Channel> channels = new HashMap<>();
+
+    // One thread does all sending, so each screen sees its cart's changes in order.
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cart-update-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        dispatcher.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        channels.values().forEach(channel -> channel.subscribers.forEach(SseEmitter::complete));
+    }
+
+    // Pushes a cart change once its transaction has committed.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartChange(CartChangeEvent event) {
+        dispatcher.execute(() -> {
+            Channel channel = channels.get(event.getUserId());
+            if (channel == null) {
+                return;
+            }
+            if (channel.lines == null) {
+                // committed while the first subscriber was reading the cart; newer than or equal to that read
+                channel.lines = index(event.getLines());
+                channel.cartTotal = event.getCartTotal();
+                channel.lastStamp = event.getStamp();
+                return;
+            }
+            CartDelta delta = apply(channel, event);
+            if (delta != null) {
+                send(event.getUserId(), channel, DELTA_EVENT, delta.getSequence(), delta);
+            }
+        });
+    }
+
+    // Opens a cart stream. The channel is registered before read is called, so a change that
+    // commits after the read is queued behind the registration and reaches the channel; the
+    // snapshot is the read, or the newest change that arrived while the cart was being read.
+    public SseEmitter subscribe(int userId, Supplier<Image> read) {
+        SseEmitter emitter = newEmitter();
+        emitter.onCompletion(() -> dispatcher.execute(() -> remove(userId, emitter)));
+        emitter.onTimeout(() -> dispatcher.execute(() -> remove(userId, emitter)));
+        emitter.onError(error -> dispatcher.execute(() -> remove(userId, emitter)));
+
+        dispatcher.execute(() -> channels.computeIfAbsent(userId, id -> new Channel()).opening++);
+        Image image;
+        try {
+            image = read.get();
+        } catch (RuntimeException e) {
+            dispatcher.execute(() -> opened(userId, channels.get(userId)));
+            throw e;
+        }
+
+        dispatcher.execute(() -> {
+            Channel channel = channels.get(userId);
+            if (channel.lines == null) {
+                channel.lines = index(image.lines());
+                channel.cartTotal = image.cartTotal();
+            }
+            CartSnapshot snapshot = new CartSnapshot(channel.sequence, userId, new ArrayList<>(channel.lines.values()), channel.cartTotal);
+            try {
+                emitter.send(SseEmitter.event().id(Long.toString(snapshot.getSequence())).name(SNAPSHOT_EVENT).data(snapshot, MediaType.APPLICATION_JSON));
+                channel.subscribers.add(emitter);
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+            opened(userId, channel);
+        });
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(emitterTimeoutMillis);
+    }
+
+    // A registered subscriber got its snapshot or gave up; drops the channel if nobody is left.
+    private void opened(int userId, Channel channel) {
+        channel.opening--;
+        if (channel.subscribers.isEmpty() && channel.opening == 0) {
+            channels.remove(userId);
+        }
+    }
+
+    // Moves the channel to the event's image and returns what changed, or null if nothing did or
+    // the event is older than one already applied.
+    static CartDelta apply(Channel channel, CartChangeEvent event) {
+        if (event.getStamp() <= channel.lastStamp) {
+            return null;
+        }
+        channel.lastStamp = event.getStamp();
+        Map<Integer, CartLine> next = index(event.getLines());
+        List<CartLineChange> changes = new ArrayList<>();
+        for (CartLine line : next.values()) {
+            CartLine previous = channel.lines.get(line.getProdId());
+            if (previous == null) {
+                changes.add(new CartLineChange("LINE_ADDED", line));
+            } else if (previous.getQuantity() != line.getQuantity() || previous.getPrice() != line.getPrice()
+                    || !Objects.equals(previous.getProdName(), line.getProdName())) {
+                changes.add(new CartLineChange("QUANTITY_CHANGED", line));
+            }
+        }
+        for (CartLine previous : channel.lines.values()) {
+            if (!next.containsKey(previous.getProdId())) {
+                changes.add(new CartLineChange("LINE_REMOVED", previous));
+            }
+        }
+        boolean totalChanged = Double.compare(channel.cartTotal, event.getCartTotal()) != 0;
+        channel.lines = next;
+        channel.cartTotal = event.getCartTotal();
+        if (changes.isEmpty() && !totalChanged) {
+            return null;
+        }
+        return new CartDelta(++channel.sequence, event.getUserId(), changes, event.getCartTotal());
+    }
+
+    private static Map<Integer, CartLine> index(List<CartLine> lines) {
+        Map<Integer, CartLine> indexed = new LinkedHashMap<>();
+        for (CartLine line : lines) {
+            indexed.putIfAbsent(line.getProdId(), line);
+        }
+        return indexed;
+    }
+
+    private void send(int userId, Channel channel, String name, long sequence, Object data) {
+        for (SseEmitter emitter : channel.subscribers) {
+            try {
+                emitter.send(SseEmitter.event().id(Long.toString(sequence)).name(name).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                remove(userId, emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void remove(int userId, SseEmitter emitter) {
+        Channel channel = channels.get(userId);
+        if (channel != null && channel.subscribers.remove(emitter) && channel.subscribers.isEmpty() && channel.opening == 0) {
+            channels.remove(userId);
+        }
+    }
+
+    // A comment line keeps idle connections open through proxies and exposes closed screens.
+    private void heartbeat() {
+        for (Map.Entry<Integer, Channel> entry : new ArrayList<>(channels.entrySet())) {
+            for (SseEmitter emitter : entry.getValue().subscribers) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(entry.getKey(), emitter);
+                    emitter.completeWithError(e);
+                }
+            }
+        }
+        log.debug("Cart update feed serving {} carts", channels.size());
+    }
+}
@@ -0,0 +1,197 @@
+package com.supermarket.cartservice.feed;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.supermarket.cartservice.dto.ProductChangeNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+// Subscriber for inventory-service's product change feed (GET /invent/changes, Server-Sent Events).
+// Runs one background thread that keeps the stream open, hands each change to the listener in
+// sequence order and, after a dropped connection, reconnects with Last-Event-ID so only the
+// missed changes are replayed. When the server cannot replay the gap the listener gets onReset().
+//
+// Only depends on the JDK HTTP client and Jackson, so it can be reused by any JVM subscriber.
+public class ProductChangeFeedClient implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeFeedClient.class);
+
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final URI feedUri;
+    private final HttpClient httpClient;
+    private final ObjectReader notificationReader;
+    private final ProductChangeListener listener;
+
+    private volatile boolean running;
+    private volatile String lastEventId;
+    private volatile Stream<String> currentStream;
+    private Thread thread;
+
+    public ProductChangeFeedClient(URI feedUri, HttpClient httpClient, ObjectMapper objectMapper, ProductChangeListener listener) {
+        this.feedUri = feedUri;
+        this.httpClient = httpClient;
+        this.notificationReader = objectMapper.readerFor(ProductChangeNotification.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.listener = listener;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "product-change-feed-client");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void close() {
+        running = false;
+        Stream<String> stream = currentStream;
+        if (stream != null) {
+            stream.close(); // unblocks the reader thread
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // Id of the last event handled; resuming from here replays nothing twice.
+    public String getLastEventId() {
+        return lastEventId;
+    }
+
+    private void run() {
+        Duration backoff = MIN_BACKOFF;
+        while (running) {
+            try {
+                if (connect()) {
+                    backoff = MIN_BACKOFF; // the stream was up, so retry promptly
+                }
+            } catch (IOException | UncheckedIOException e) {
+                if (running) {
+                    log.warn("Product change feed disconnected: {}", e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!running) {
+                return;
+            }
+            try {
+                Thread.sleep(backoff.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+        }
+    }
+
+    // Returns true if the stream was opened, whether or not it later dropped.
+    private boolean connect() throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(feedUri)
+                .header("Accept", "text/event-stream")
+                .GET();
+        String resumeFrom = lastEventId;
+        if (resumeFrom != null) {
+            request.header("Last-Event-ID", resumeFrom);
+        }
+        HttpResponse<Stream<String>> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofLines());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Product change feed returned HTTP " + response.statusCode());
+        }
+        if (resumeFrom == null) {
+            // anything cached before the first subscription may already be stale
+            notifyReset();
+        }
+        try (Stream<String> lines = response.body()) {
+            currentStream = lines;
+            consume(lines);
+        } finally {
+            currentStream = null;
+        }
+        return true;
+    }
+
+    // Parses the SSE wire format: "field: value" lines, a blank line ends an event, ':' starts a comment.
+    void consume(Stream<String> lines) {
+        String event = null;
+        String id = null;
+        StringBuilder data = new StringBuilder();
+        Iterator<String> iterator = lines.iterator();
+        while (iterator.hasNext()) {
+            String line = iterator.next();
+            if (line.isEmpty()) {
+                if (event != null || !data.isEmpty()) {
+                    dispatch(event == null ? "message" : event, id, data.toString());
+                }
+                event = null;
+                id = null;
+                data.setLength(0);
+                continue;
+            }
+            if (line.startsWith(":")) {
+                continue; // heartbeat
+            }
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            switch (field) {
+                case "event" -> event = value;
+                case "id" -> id = value;
+                case "data" -> {
+                    if (!data.isEmpty()) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                }
+                default -> { } // retry and unknown fields are ignored
+            }
+        }
+    }
+
+    private void dispatch(String event, String id, String data) {
+        try {
+            switch (event) {
+                case "change" -> listener.onChange(notificationReader.readValue(data));
+                case "reset" -> notifyReset();
+                default -> { } // "ready" only moves the resume point
+            }
+        } catch (IOException e) {
+            log.warn("Skipping malformed product change event {}: {}", id, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Product change listener failed for event {}", id, e);
+        }
+        if (id != null) {
+            lastEventId = id;
+        }
+    }
+
+    private void notifyReset() {
+        try {
+            listener.onReset();
+        } catch (RuntimeException e) {
+            log.error("Product change listener failed on reset", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.supermarket.cartservice.feed;
+
+import com.supermarket.cartservice.dto.ProductChangeNotification;
+
+// Callback for ProductChangeFeedClient. Called on the client's reader thread, in sequence order.
+public interface ProductChangeListener {
+
+    // A product was created, updated or deleted.
+    void onChange(ProductChangeNotification change);
+
+    // Changes may have been missed (first connect after a gap, or inventory-service restarted),
+    // so any product data cached locally must be dropped or reloaded.
+    void onReset();
+}
@@ -3,9 +3,14 @@ package com.supermarket.cartservice.feign;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 import com.supermarket.cartservice.dto.ProductResponse;
+
+import java.util.List;
 import org.springframework.web.bind.annotation.RequestParam;
 
 @FeignClient(name = "inventory-service", url = "${inventory-service.url}")
@@ -17,6 +22,24 @@ public interface InventoryServiceClient {
 	@PutMapping("/invent/reduceStock/{productId}/{quantity}")
 	public void reduceStock(@PathVariable int productId, @PathVariable int quantity);
 
+	// Sells from one store's stock instead of the central stock.
+	@PutMapping("/invent/reduceStock/{productId}/{quantity}")
+	public void reduceStock(@PathVariable int productId, @PathVariable int quantity, @RequestHeader("X-StoreId") int storeId);
+
+	// Puts units back into the central stock, e.g. to undo a checkout that failed part way.
+	@PutMapping("/invent/restock/{productId}/{quantity}")
+	public void restock(@PathVariable int productId, @PathVariable int quantity);
+
+	@PutMapping("/invent/restock/{productId}/{quantity}")
+	public void restock(@PathVariable int productId, @PathVariable int quantity, @RequestHeader("X-StoreId") int storeId);
+
 	@GetMapping("/invent/getProductByProdName")
 	ProductResponse getProductByProdName(@RequestParam String prodName);
+
+	// Products with any of the given names in one call; unknown names are left out of the result.
+	@PostMapping("/invent/getProductsByProdNames")
+	List<ProductResponse> getProductsByProdNames(@RequestBody List<String> prodNames);
+
+	@GetMapping("/invent/getProductByBarcode/{barcode}")
+	ProductResponse getProductByBarcode(@PathVariable long barcode);
 }
@@ -0,0 +1,156 @@
+package com.supermarket.cartservice.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Makes POST, PUT and DELETE requests carrying an Idempotency-Key header safe to retry: the first
+// request runs and its response is recorded; a retry with the same key gets that response back,
+// marked with Idempotent-Replayed: true, without running again. A retry arriving while the first
+// request is still running waits for it. Requests without the header are not affected.
+//
+// 5xx responses are not recorded, so a retry after a server error runs again. A key reused for a
+// different request (method, path, query string or X-UserId) is refused with 422; request bodies
+// are not compared.
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired(required = false)
+    private ObjectMapper objectMapper;
+
+    @Value("${spring.application.name}")
+    private String serviceName;
+
+    // How long a retry waits for the request already running with its key before giving up with 409.
+    @Value("${idempotency.in-flight-wait-ms:30000}")
+    private long inFlightWaitMillis;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        boolean mutation = "POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method) || "PATCH".equals(method);
+        return !mutation || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(request, response, HttpStatus.BAD_REQUEST, IDEMPOTENCY_KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters.");
+            return;
+        }
+        String fingerprint = fingerprint(request);
+
+        while (true) {
+            StoredResponse stored = idempotencyStore.find(key);
+            if (stored != null) {
+                replay(request, response, stored, fingerprint);
+                return;
+            }
+            CompletableFuture<StoredResponse> holder = idempotencyStore.claim(key);
+            if (holder == null) {
+                // the previous holder may have recorded its response between our find and the claim
+                StoredResponse recorded = idempotencyStore.find(key);
+                if (recorded != null) {
+                    idempotencyStore.release(key, recorded);
+                    replay(request, response, recorded, fingerprint);
+                    return;
+                }
+                break; // this request runs
+            }
+            try {
+                // the holder's response, or null if it was not recorded and this request should run
+                holder.get(inFlightWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                writeError(request, response, HttpStatus.CONFLICT, "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still being processed.");
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServletException("Interrupted while waiting for a request with the same " + IDEMPOTENCY_KEY_HEADER, e);
+            } catch (ExecutionException e) {
+                // not completed exceptionally by the store; treat like an unrecorded response
+            }
+        }
+
+        ContentCachingResponseWrapper captured = new ContentCachingResponseWrapper(response);
+        boolean record = false;
+        try {
+            chain.doFilter(request, captured);
+            record = captured.getStatus() < 500;
+        } finally {
+            idempotencyStore.complete(key, fingerprint, captured.getStatus(), captured.getContentType(), captured.getContentAsByteArray(), record);
+            captured.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletRequest request, HttpServletResponse response, StoredResponse stored, String fingerprint) throws IOException {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            writeError(request, response, HttpStatus.UNPROCESSABLE_ENTITY, IDEMPOTENCY_KEY_HEADER + " was already used for a different request.");
+            return;
+        }
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        byte[] body = stored.body() == null ? new byte[0] : stored.body();
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    // Same shape as the GlobalExceptionHandler error body.
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now().toString());
+        body.put("status", status.value());
+        body.put("error", status.getReasonPhrase());
+        body.put("message", message);
+        body.put("service", serviceName);
+        body.put("path", request.getRequestURI());
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        (objectMapper != null ? objectMapper : new ObjectMapper()).writeValue(response.getOutputStream(), body);
+    }
+
+    static String fingerprint(HttpServletRequest request) {
+        String canonical = request.getMethod() + ' ' + request.getRequestURI()
+                + '?' + (request.getQueryString() == null ? "" : request.getQueryString())
+                + " user=" + (request.getHeader("X-UserId") == null ? "" : request.getHeader("X-UserId"));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
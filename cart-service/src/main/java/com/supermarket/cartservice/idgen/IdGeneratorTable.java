@@ -0,0 +1,61 @@
+package com.supermarket.cartservice.idgen;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Pooled ids for rows inserted in batches. With an IDENTITY column Hibernate must insert each row
+// on persist to learn its id, which turns JDBC batching off. A table generator hands out
+// ALLOCATION_SIZE ids per round trip instead, so a flush can send all of its inserts as one batch.
+//
+// Hibernate runs the pooled-lo optimizer (see application.properties): next_val is always the
+// lowest id nobody has reserved. At startup each generator is raised above the highest id already
+// in its table, so rows written under the old AUTO_INCREMENT column are never reused.
+@Component
+@DependsOn("entityManagerFactory") // schema update has created the tables
+public class IdGeneratorTable {
+
+    public static final String TABLE = "id_generator";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String CART_ITEMS = "cart_items";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void start() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        seed(CART_ITEMS, "cart_items", "cart_item_id");
+    }
+
+    // Moves a generator past the highest id in its table; never moves it back.
+    void seed(String name, String table, String idColumn) {
+        Long next = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + table, Long.class);
+        jdbcTemplate.update("INSERT INTO " + TABLE + " (" + NAME_COLUMN + ", " + VALUE_COLUMN + ") VALUES (?, ?)"
+                + " ON DUPLICATE KEY UPDATE " + VALUE_COLUMN + " = GREATEST(" + VALUE_COLUMN + ", ?)", name, next, next);
+    }
+
+    // Reserves count consecutive ids for rows written outside Hibernate and returns the first. Runs
+    // in its own short transaction so the generator row is not locked for the caller's whole batch.
+    public long reserve(String name, int count) {
+        return requiresNew.execute(status -> {
+            Long first = jdbcTemplate.queryForObject("SELECT " + VALUE_COLUMN + " FROM " + TABLE + " WHERE " + NAME_COLUMN + " = ? FOR UPDATE", Long.class, name);
+            jdbcTemplate.update("UPDATE " + TABLE + " SET " + VALUE_COLUMN + " = ? WHERE " + NAME_COLUMN + " = ?", first + count, name);
+            return first;
+        });
+    }
+}
@@ -4,15 +4,18 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 @Entity
-@Table(name = "cart")
+@Table(name = "cart", indexes = @Index(name = "idx_cart_last_modified", columnList = "last_modified"))
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Cart {
 
@@ -27,10 +30,40 @@ public class Cart {
     @Column(name = "cart_total_price")
     private double cartTotalPrice;
 
+    // Optimistic lock version, bumped by Hibernate on every update, so two requests editing the
+    // same cart cannot both commit a total computed from the same starting point.
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    // Time of the last insert or update, read by CartExpirySweeper to find abandoned carts.
+    @Column(name = "last_modified")
+    private LocalDateTime lastModified;
 
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     private List<CartItems> items = new ArrayList<>();
 
+    // Lines by product id and by normalised name, so lookups in carts with hundreds of lines do not
+    // scan the list. Not persisted: built on first lookup after load and kept current by
+    // addItem/removeItem/clearItems. A size mismatch means the list was changed directly, and the
+    // index is rebuilt.
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<Integer, CartItems> linesByProdId;
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Map<String, CartItems> linesByName;
+
+    public Cart(int cartId, int userId, double cartTotalPrice, List<CartItems> items) {
+        this.cartId = cartId;
+        this.userId = userId;
+        this.cartTotalPrice = cartTotalPrice;
+        this.items = items;
+    }
+
     public int getCartId() {
         return cartId;
     }
@@ -55,11 +88,94 @@ public class Cart {
         this.cartTotalPrice = cartTotalPrice;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(LocalDateTime lastModified) {
+        this.lastModified = lastModified;
+    }
+
     public List<CartItems> getItems() {
         return items;
     }
 
     public void setItems(List<CartItems> items) {
         this.items = items;
+        this.linesByProdId = null;
+    }
+
+    public CartItems findItemByProdId(int prodId) {
+        return index().get(prodId);
+    }
+
+    // Case-insensitive, ignoring surrounding spaces, like the inventory name lookup.
+    public CartItems findItemByName(String prodName) {
+        index();
+        return prodName == null ? null : linesByName.get(normalise(prodName));
+    }
+
+    public void addItem(CartItems item) {
+        index();
+        items.add(item);
+        indexLine(item);
+    }
+
+    public void removeItem(CartItems item) {
+        if (!items.remove(item) || linesByProdId == null) {
+            return;
+        }
+        linesByProdId.remove(item.getProdId(), item);
+        if (item.getProdName() != null) {
+            linesByName.remove(normalise(item.getProdName()), item);
+        }
+    }
+
+    public void clearItems() {
+        items.clear();
+        linesByProdId = null;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = LocalDateTime.now();
+    }
+
+    // Hibernate fills the items after construction, so any index from before the load is void.
+    @PostLoad
+    void resetIndex() {
+        linesByProdId = null;
+    }
+
+    private Map<Integer, CartItems> index() {
+        if (linesByProdId == null || linesByProdId.size() != items.size()) {
+            linesByProdId = new HashMap<>(Math.max(16, items.size() * 2));
+            linesByName = new HashMap<>(Math.max(16, items.size() * 2));
+            for (CartItems item : items) {
+                indexLine(item);
+            }
+        }
+        return linesByProdId;
+    }
+
+    // The first line wins on duplicates, as a front-to-back scan of the list would find it.
+    private void indexLine(CartItems item) {
+        linesByProdId.putIfAbsent(item.getProdId(), item);
+        if (item.getProdName() != null) {
+            linesByName.putIfAbsent(normalise(item.getProdName()), item);
+        }
+    }
+
+    private static String normalise(String prodName) {
+        return prodName.trim().toLowerCase(Locale.ROOT);
     }
 }
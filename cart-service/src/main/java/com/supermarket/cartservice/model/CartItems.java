@@ -1,6 +1,7 @@
 package com.supermarket.cartservice.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.supermarket.cartservice.idgen.IdGeneratorTable;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -19,7 +20,10 @@ public class CartItems {
 
     @Id
     @Column(name = "cart_item_id")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "cart_item_ids")
+    @TableGenerator(name = "cart_item_ids", table = IdGeneratorTable.TABLE, pkColumnName = IdGeneratorTable.NAME_COLUMN,
+            valueColumnName = IdGeneratorTable.VALUE_COLUMN, pkColumnValue = IdGeneratorTable.CART_ITEMS,
+            allocationSize = IdGeneratorTable.ALLOCATION_SIZE) // pooled, so inserts can be batched
     private int cartItemId;
 
     @ManyToOne
@@ -2,6 +2,7 @@ package com.supermarket.cartservice.repository;
 
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +11,8 @@ import com.supermarket.cartservice.model.Cart;
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Integer> {
 	Optional<Cart> findByUserId(int userId);
+
+	// Cart and items in one joined select; findByUserId loads the EAGER items with a second one.
+	@EntityGraph(attributePaths = "items")
+	Optional<Cart> findWithItemsByUserId(int userId);
 }
@@ -2,22 +2,31 @@ package com.supermarket.cartservice.service;
 
 import java.util.List;
 
+import com.supermarket.cartservice.dto.CartLineRequest;
+import com.supermarket.cartservice.dto.CheckoutSnapshot;
 import com.supermarket.cartservice.model.Cart;
 import com.supermarket.cartservice.model.CartItems;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 public interface CartService {
 	double calculateNewTotal(double currentTotal, double itemPriceChange, boolean increase);
 	void addToCart(int userId, String prodName, int quantity);
+	void addToCartByBarcode(int userId, long barcode, int quantity);
+	void addToCartBulk(int userId, List<CartLineRequest> lines);
+	void setQuantity(int userId, String prodName, int quantity);
 	Cart getCartByUserId(int userId);
 	void increaseQuantity(int userId, String prodName);
 	void decreaseQuantity(int userId, String prodName);
 	void removeItemFromCartInternal(Cart cart, CartItems item);
 	void removeItemFromCart(int userId, String prodName);
 	void clearCart(int userId);
+	void clearCart(int userId, Integer storeId);
 	void clearCartContentsOnly(int userId);
 	void deleteCart(int cartId);
 	Cart getMyCart(int userId);
 	List<CartItems> getCartItemsByUserId(int userId);
+	CheckoutSnapshot getCheckoutSnapshot(int userId);
+	SseEmitter subscribeToCart(int userId);
 	
 	
 	
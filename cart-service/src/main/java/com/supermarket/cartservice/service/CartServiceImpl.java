@@ -1,26 +1,63 @@
 package com.supermarket.cartservice.service;
 
+import com.supermarket.cartservice.cache.ProductCache;
+import com.supermarket.cartservice.dto.CartLineRequest;
+import com.supermarket.cartservice.dto.CheckoutSnapshot;
 import com.supermarket.cartservice.dto.ProductResponse;
+import com.supermarket.cartservice.event.CartChangeEvent;
 import com.supermarket.cartservice.exception.CartOperationException;
 import com.supermarket.cartservice.exception.OperationFailedException;
 import com.supermarket.cartservice.exception.ResourceNotFoundException;
+import com.supermarket.cartservice.feed.CartUpdateFeed;
 import com.supermarket.cartservice.feign.InventoryServiceClient;
 import com.supermarket.cartservice.model.Cart;
 import com.supermarket.cartservice.model.CartItems;
 import com.supermarket.cartservice.repository.CartItemsRepository;
 import com.supermarket.cartservice.repository.CartRepository;
+import com.supermarket.cartservice.store.MemoryCartStore;
 import feign.FeignException;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 @Service
 public class CartServiceImpl implements CartService{
+
+    private static final Logger log = LoggerFactory.getLogger(CartServiceImpl.class);
+
+    static final int MAX_BULK_LINES = 200;
+    static final int MAX_CART_UPDATE_ATTEMPTS = 5;
+
+    // Concurrent reduceStock calls per checkout.
+    @Value("${cart.checkout.stock-fanout:8}")
+    private int stockFanout;
+
     @Autowired
     private CartRepository cartRepository;
 
@@ -30,13 +67,28 @@ public class CartServiceImpl implements CartService{
     @Autowired
     private InventoryServiceClient inventoryServiceClient;
 
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CartUpdateFeed cartUpdateFeed;
+
+    // Present when cart.store=memory; otherwise every operation reads and writes MySQL directly.
+    @Autowired(required = false)
+    private MemoryCartStore memoryCartStore;
+
     @Override
     public double calculateNewTotal(double currentTotal, double itemPriceChange, boolean increase) {
         return increase ? currentTotal + itemPriceChange : currentTotal - itemPriceChange;
     }
 
     @Override
-    @Transactional
     public void addToCart(int userId, String prodName, int quantity) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity to add must be positive.");
@@ -44,7 +96,7 @@ public class CartServiceImpl implements CartService{
         ProductResponse product;
 
         try {
-            product = inventoryServiceClient.getProductByProdName(prodName);
+            product = productCache.getByName(prodName);
         }
         catch (FeignException.NotFound e) {
             throw new ResourceNotFoundException("Product '" + prodName + "' not found in inventory.", e);
@@ -55,17 +107,70 @@ public class CartServiceImpl implements CartService{
             throw new OperationFailedException("An unexpected error occurred while contacting inventory service.", e);
         }
 
+        addProductToCart(userId, product, prodName, quantity);
+    }
+
+    // Adds a scanned item; the barcode is resolved to the product in a single inventory call.
+    @Override
+    public void addToCartByBarcode(int userId, long barcode, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity to add must be positive.");
+        }
+        ProductResponse product;
+
+        try {
+            product = productCache.getByBarcode(barcode);
+        }
+        catch (FeignException.NotFound e) {
+            throw new ResourceNotFoundException("Product with barcode " + barcode + " not found in inventory.", e);
+        } catch (FeignException e) {
+            throw new OperationFailedException("Failed to retrieve product details from inventory service.", e);
+        } catch (Exception e) {
+            throw new OperationFailedException("An unexpected error occurred while contacting inventory service.", e);
+        }
+
+        addProductToCart(userId, product, product.getProdName(), quantity);
+    }
+
+    // Shared add-to-cart logic once the product has been resolved from inventory.
+    private void addProductToCart(int userId, ProductResponse product, String prodName, int quantity) {
         // if available stock
         if (product.getStock() < quantity) {
-            System.out.println("inside stock check");
             throw new CartOperationException("Insufficient stock for product '" + prodName + "'. Available: " + product.getStock());
         }
 
-        int prodId = product.getProdId();
-        double prodPrice = product.getPrice();
-        double totalPrice = prodPrice * quantity;
+        if (memoryCartStore != null) {
+            memoryCartStore.update(userId, true, cart -> mergeItem(cart, product, prodName, quantity));
+            return;
+        }
+
+        retryOnVersionConflict(userId, retry -> {
+            // find or create new cart
+            Cart cart = findOrCreateCart(userId, retry);
+
+            CartItems itemToSave = mergeItem(cart, product, prodName, quantity);
+
+            try {
+                cartItemsRepository.save(itemToSave);
+                cartRepository.save(cart);
+            } catch (DataAccessException e) {
+                throw new OperationFailedException("Failed to save item or update cart for user: " + userId, e);
+            } catch (Exception e) {
+                throw new OperationFailedException("An unexpected error occurred while updating the cart for user: " + userId, e);
+            }
+            publishChange(cart);
+            return itemToSave;
+        });
+    }
+
+    // Announces the cart's new state to the cart streams; delivered once the transaction commits.
+    private void publishChange(Cart cart) {
+        eventPublisher.publishEvent(CartChangeEvent.of(cart));
+    }
 
-        // find or create new cart
+    // The user's cart, created if there is none yet. On a retry the total is rebuilt from the
+    // lines, so a total left behind by an earlier lost update heals instead of carrying over.
+    private Cart findOrCreateCart(int userId, boolean retry) {
         Cart cart = cartRepository.findByUserId(userId).orElseGet(() -> {
             // if no cart found for userId, creating new one
             Cart newCart = new Cart();
@@ -77,26 +182,77 @@ public class CartServiceImpl implements CartService{
                 throw new OperationFailedException("Failed to create a new cart for user: " + userId, dae);
             }
         });
+        if (retry) {
+            recomputeTotal(cart);
+        }
+        return cart;
+    }
 
-        // Check if item already exists in cart, update quantity if it does
-        Optional<CartItems> existingItemOpt = cart.getItems().stream()
-                .filter(item -> item.getProdId() == prodId)
-                .findFirst();
-
-        CartItems itemToSave;
-        double cartTotalChange;
-        if (existingItemOpt.isPresent()) { // already existing cartItem
-            itemToSave = existingItemOpt.get();
-            int newQuantity = itemToSave.getQuantity() + quantity;
-            // Check stock for the *additional* quantity
-            ProductResponse currentStockCheck;
+    // The user's cart for a change; throws ResourceNotFoundException if there is none.
+    private Cart loadCart(int userId, boolean retry) {
+        Cart cart = getCartByUserId(userId);
+        if (retry) {
+            recomputeTotal(cart);
+        }
+        return cart;
+    }
+
+    private static void recomputeTotal(Cart cart) {
+        double total = 0.0;
+        for (CartItems item : cart.getItems()) {
+            total += item.getTotalPrice();
+        }
+        cart.setCartTotalPrice(total);
+    }
+
+    // Runs one cart change per transaction. The version check happens when the transaction
+    // flushes, so a conflict surfaces from execute(); the next attempt reads the committed cart.
+    private <T> T retryOnVersionConflict(int userId, CartChange<T> change) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            boolean retry = attempt > 1;
             try {
-                currentStockCheck = inventoryServiceClient.getProductById(prodId);
-            } catch (FeignException.NotFound e) {
-                throw new ResourceNotFoundException("Product '" + prodName + "' not found in inventory.", e);
+                return transaction.execute(status -> change.apply(retry));
+            } catch (RuntimeException e) {
+                // a conflict raised by a save inside the change arrives wrapped in OperationFailedException
+                if (!(e instanceof OptimisticLockingFailureException) && !(e.getCause() instanceof OptimisticLockingFailureException)) {
+                    throw e;
+                }
+                if (attempt >= MAX_CART_UPDATE_ATTEMPTS) {
+                    throw e instanceof OptimisticLockingFailureException ? e : (OptimisticLockingFailureException) e.getCause();
+                }
+                log.debug("Version conflict on cart of user {} (attempt {}), retrying", userId, attempt);
+                try {
+                    // jittered backoff so a biller and the customer app do not collide again in lockstep
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L * attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
             }
-            if (currentStockCheck.getStock() < newQuantity) {
-                throw new CartOperationException("Insufficient stock for product '" + prodName + "'. Available: " + currentStockCheck.getStock());
+        }
+    }
+
+    // One attempt at a cart change; retry is true when an earlier attempt lost a version conflict.
+    @FunctionalInterface
+    private interface CartChange<T> {
+        T apply(boolean retry);
+    }
+
+    // Adds quantity of the product to the cart object, checking stock for the combined quantity if
+    // it is already in the cart, and updates the cart total. Returns the line that changed; nothing is persisted here.
+    private CartItems mergeItem(Cart cart, ProductResponse product, String prodName, int quantity) {
+        int prodId = product.getProdId();
+        double prodPrice = product.getPrice();
+        double totalPrice = prodPrice * quantity;
+
+        // Check if item already exists in cart, update quantity if it does
+        CartItems itemToSave = cart.findItemByProdId(prodId);
+        if (itemToSave != null) { // already existing cartItem
+            int newQuantity = itemToSave.getQuantity() + quantity;
+            // Check stock for the combined quantity against the snapshot just resolved
+            if (product.getStock() < newQuantity) {
+                throw new CartOperationException("Insufficient stock for product '" + prodName + "'. Available: " + product.getStock());
             }
             itemToSave.setQuantity(newQuantity);
             itemToSave.setTotalPrice(prodPrice * newQuantity); // Recalculate total price for item
@@ -108,113 +264,294 @@ public class CartServiceImpl implements CartService{
             itemToSave.setQuantity(quantity);
             itemToSave.setPrice(prodPrice); // Price per unit at the time of adding
             itemToSave.setTotalPrice(totalPrice);
-            cart.getItems().add(itemToSave); // Add to the list in the Cart object
+            cart.addItem(itemToSave); // Add to the list and line index of the Cart object
+        }
+        cart.setCartTotalPrice(calculateNewTotal(cart.getCartTotalPrice(), totalPrice, true));
+        return itemToSave;
+    }
+
+    // Adds a whole scan burst: every product is resolved and stock-checked with one inventory call,
+    // merged into the cart in memory and saved once. Either every line is added or none is.
+    @Override
+    public void addToCartBulk(int userId, List<CartLineRequest> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("At least one cart line is required.");
+        }
+        if (lines.size() > MAX_BULK_LINES) {
+            throw new IllegalArgumentException("Cannot add more than " + MAX_BULK_LINES + " lines at once.");
+        }
+        // the same product scanned twice becomes one line
+        Map<String, CartLineRequest> merged = new LinkedHashMap<>();
+        for (CartLineRequest line : lines) {
+            if (line.getProdName() == null || line.getProdName().isBlank()) {
+                throw new IllegalArgumentException("Product name cannot be blank.");
+            }
+            if (line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity to add must be positive.");
+            }
+            merged.merge(line.getProdName().trim().toLowerCase(Locale.ROOT), new CartLineRequest(line.getProdName().trim(), line.getQuantity()),
+                    (first, next) -> new CartLineRequest(first.getProdName(), first.getQuantity() + next.getQuantity()));
         }
-        cartTotalChange = totalPrice;
 
+        List<ProductResponse> found;
         try {
-            cartItemsRepository.save(itemToSave);
-            double newCartTotal = calculateNewTotal(cart.getCartTotalPrice(), cartTotalChange, true);
-            cart.setCartTotalPrice(newCartTotal);
-            cartRepository.save(cart);
-        } catch (DataAccessException e) {
-            throw new OperationFailedException("Failed to save item or update cart for user: " + userId, e);
-        } catch (Exception e) {
-            throw new OperationFailedException("An unexpected error occurred while updating the cart for user: " + userId, e);
+            found = inventoryServiceClient.getProductsByProdNames(merged.values().stream().map(CartLineRequest::getProdName).toList());
+        } catch (FeignException e) {
+            throw new OperationFailedException("Failed to retrieve product details from inventory service.", e);
+        }
+        Map<String, ProductResponse> products = new HashMap<>();
+        for (ProductResponse product : found) {
+            productCache.put(product);
+            products.put(product.getProdName().trim().toLowerCase(Locale.ROOT), product);
+        }
+        List<String> missing = merged.entrySet().stream()
+                .filter(entry -> !products.containsKey(entry.getKey()))
+                .map(entry -> entry.getValue().getProdName())
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new ResourceNotFoundException("Products not found in inventory: " + String.join(", ", missing));
+        }
+
+        if (memoryCartStore != null) {
+            memoryCartStore.update(userId, true, cart -> mergeLines(cart, merged, products));
+            return;
+        }
+
+        retryOnVersionConflict(userId, retry -> {
+            Cart cart = findOrCreateCart(userId, retry);
+            List<CartItems> changed = mergeLines(cart, merged, products);
+            try {
+                cartItemsRepository.saveAll(changed);
+                cartRepository.save(cart);
+            } catch (DataAccessException e) {
+                throw new OperationFailedException("Failed to save items or update cart for user: " + userId, e);
+            }
+            publishChange(cart);
+            return changed;
+        });
+    }
+
+    private List<CartItems> mergeLines(Cart cart, Map<String, CartLineRequest> lines, Map<String, ProductResponse> products) {
+        List<CartItems> changed = new ArrayList<>(lines.size());
+        lines.forEach((key, line) -> {
+            ProductResponse product = products.get(key);
+            if (product.getStock() < line.getQuantity()) {
+                throw new CartOperationException("Insufficient stock for product '" + product.getProdName() + "'. Available: " + product.getStock());
+            }
+            changed.add(mergeItem(cart, product, product.getProdName(), line.getQuantity()));
+        });
+        return changed;
+    }
+
+    // Sets the quantity of a product in the cart outright, adding the line if needed; 0 removes it.
+    @Override
+    public void setQuantity(int userId, String prodName, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative.");
+        }
+        if (memoryCartStore != null) {
+            // the product is looked up before the cart is locked, as in addToCart
+            CartItems seen = memoryCartStore.find(userId).flatMap(cart -> findItem(cart, prodName)).orElse(null);
+            ProductResponse product = quantity > 0 ? resolveForQuantity(seen, prodName) : null;
+            memoryCartStore.update(userId, quantity > 0, cart -> {
+                Optional<CartItems> existing = findItem(cart, prodName);
+                if (quantity == 0) {
+                    existing.ifPresent(item -> detachItem(cart, item));
+                    return cart;
+                }
+                return applyQuantity(cart, existing.orElse(null), product, quantity);
+            });
+            return;
+        }
+
+        // resolved once, outside the transaction, so a retry does not repeat the inventory call
+        // and no connection is held open across it
+        CartItems seen = quantity > 0 ? cartRepository.findByUserId(userId).flatMap(cart -> findItem(cart, prodName)).orElse(null) : null;
+        ProductResponse product = quantity > 0 ? resolveForQuantity(seen, prodName) : null;
+        retryOnVersionConflict(userId, retry -> {
+            if (quantity == 0) {
+                Cart cart = loadCart(userId, retry);
+                findItem(cart, prodName).ifPresent(item -> removeItemFromCartInternal(cart, item));
+                publishChange(cart);
+                return cart;
+            }
+            Cart cart = findOrCreateCart(userId, retry);
+            CartItems existing = findItem(cart, prodName).orElse(null);
+            CartItems item = applyQuantity(cart, existing, product, quantity);
+            try {
+                cartItemsRepository.save(item);
+                cartRepository.save(cart);
+            } catch (DataAccessException e) {
+                throw new OperationFailedException("Failed to update item quantity or cart total for product: " + prodName, e);
+            }
+            publishChange(cart);
+            return item;
+        });
+    }
+
+    // The product behind a set-quantity call: by id if it is already in the cart, otherwise by name.
+    private ProductResponse resolveForQuantity(CartItems existing, String prodName) {
+        try {
+            return existing != null ? productCache.getById(existing.getProdId()) : productCache.getByName(prodName);
+        } catch (FeignException.NotFound e) {
+            throw new ResourceNotFoundException("Product '" + prodName + "' not found in inventory.", e);
+        } catch (FeignException e) {
+            throw new OperationFailedException("Failed to retrieve product details from inventory service.", e);
+        }
+    }
+
+    private CartItems applyQuantity(Cart cart, CartItems existing, ProductResponse product, int quantity) {
+        if (product.getStock() < quantity) {
+            throw new CartOperationException("Insufficient stock for product '" + product.getProdName() + "'. Available: " + product.getStock());
         }
+        if (existing == null) {
+            return mergeItem(cart, product, product.getProdName(), quantity);
+        }
+        double itemPrice = existing.getPrice();
+        int delta = quantity - existing.getQuantity();
+        existing.setQuantity(quantity);
+        existing.setTotalPrice(itemPrice * quantity);
+        cart.setCartTotalPrice(calculateNewTotal(cart.getCartTotalPrice(), itemPrice * delta, true));
+        return existing;
+    }
+
+    // Opens a live stream of the user's cart: a snapshot, then a delta per change. A user without a
+    // cart starts from an empty snapshot.
+    @Override
+    public SseEmitter subscribeToCart(int userId) {
+        return cartUpdateFeed.subscribe(userId, () -> {
+            try {
+                Cart cart = getCartByUserId(userId);
+                return new CartUpdateFeed.Image(CartChangeEvent.lines(cart), cart.getCartTotalPrice());
+            } catch (ResourceNotFoundException e) {
+                return new CartUpdateFeed.Image(List.of(), 0.0);
+            }
+        });
     }
 
     @Override
     public Cart getCartByUserId(int userId) {
+        if (memoryCartStore != null) {
+            return memoryCartStore.get(userId);
+        }
         return cartRepository.findByUserId(userId).orElseThrow(() -> new ResourceNotFoundException("No cart available for user ID: " + userId));
     }
 
     //increase quantity
     @Override
-    @Transactional
     public void increaseQuantity(int userId, String prodName) {
-        Cart cart = getCartByUserId(userId); // Throws ResourceNotFoundException if cart not found
-        AtomicBoolean itemFound = new AtomicBoolean(false);
-
-        cart.getItems().stream()
-                .filter(item -> item.getProdName().equalsIgnoreCase(prodName))
-                .findFirst()
-                .ifPresentOrElse(item -> {
-                            itemFound.set(true);
-                            // Check inventory stock before increasing
-                            try {
-                                ProductResponse p = inventoryServiceClient.getProductById(item.getProdId());
-                                if (p.getStock() <= item.getQuantity()) {
-                                    throw new CartOperationException("Insufficient stock for product '" + prodName + "'. Available: " + p.getStock());
-                                }
-                            } catch (FeignException.NotFound e) {
-                                throw new ResourceNotFoundException("Product '" + prodName + "' not found in inventory.", e);
-                            }
-                            int newQuantity = item.getQuantity() + 1;
-                            item.setQuantity(newQuantity);
-                            double itemPrice = item.getPrice();
-                            item.setTotalPrice(itemPrice * newQuantity); // Update item total price
-
-                            double cartTotal = calculateNewTotal(cart.getCartTotalPrice(), itemPrice, true); // Increase cart total by one
-                            cart.setCartTotalPrice(cartTotal);
-
-                            try {
-                                cartItemsRepository.save(item); // Save the updated item
-                                cartRepository.save(cart);    // Save the updated cart total
-                            } catch (DataAccessException e) {
-                                throw new OperationFailedException("Failed to update item quantity or cart total for product: " + prodName, e);
-                            }
-                        },
-                        //  Throw if item not found
-                        () -> {
-                            throw new ResourceNotFoundException("Item '" + prodName + "' not found in the cart for user: " + userId);
-                        });
+        if (memoryCartStore != null) {
+            // the stock is looked up before the cart is locked, as in addToCart
+            CartItems seen = findItemToIncrement(memoryCartStore.get(userId), userId, prodName);
+            ProductResponse product = stockForIncrement(seen, prodName);
+            memoryCartStore.update(userId, false, cart -> incrementItem(cart, userId, prodName, product));
+            return;
+        }
+        // as in setQuantity, the stock is looked up once before the transaction opens
+        ProductResponse product = stockForIncrement(findItemToIncrement(getCartByUserId(userId), userId, prodName), prodName);
+        retryOnVersionConflict(userId, retry -> {
+            Cart cart = loadCart(userId, retry); // Throws ResourceNotFoundException if cart not found
+            CartItems item = incrementItem(cart, userId, prodName, product);
+            try {
+                cartItemsRepository.save(item); // Save the updated item
+                cartRepository.save(cart);    // Save the updated cart total
+            } catch (DataAccessException e) {
+                throw new OperationFailedException("Failed to update item quantity or cart total for product: " + prodName, e);
+            }
+            publishChange(cart);
+            return item;
+        });
+    }
+
+    private CartItems findItemToIncrement(Cart cart, int userId, String prodName) {
+        return findItem(cart, prodName)
+                .orElseThrow(() -> new ResourceNotFoundException("Item '" + prodName + "' not found in the cart for user: " + userId));
+    }
+
+    // A cached snapshot of the product's stock is enough until checkout.
+    private ProductResponse stockForIncrement(CartItems item, String prodName) {
+        try {
+            return productCache.getById(item.getProdId());
+        } catch (FeignException.NotFound e) {
+            throw new ResourceNotFoundException("Product '" + prodName + "' not found in inventory.", e);
+        }
+    }
+
+    // Adds one unit of an item already in the cart after checking the product's stock.
+    private CartItems incrementItem(Cart cart, int userId, String prodName, ProductResponse product) {
+        CartItems item = findItemToIncrement(cart, userId, prodName);
+        if (product.getStock() <= item.getQuantity()) {
+            throw new CartOperationException("Insufficient stock for product '" + prodName + "'. Available: " + product.getStock());
+        }
+        int newQuantity = item.getQuantity() + 1;
+        item.setQuantity(newQuantity);
+        double itemPrice = item.getPrice();
+        item.setTotalPrice(itemPrice * newQuantity); // Update item total price
+        cart.setCartTotalPrice(calculateNewTotal(cart.getCartTotalPrice(), itemPrice, true)); // Increase cart total by one
+        return item;
     }
 
     // decrease quantity
     @Override
-    @Transactional
     public void decreaseQuantity(int userId, String prodName) {
-        Cart cart = getCartByUserId(userId);
-        AtomicBoolean itemProcessed = new AtomicBoolean(false);
-
-        cart.getItems().stream()
-                .filter(item -> item.getProdName().equalsIgnoreCase(prodName))
-                .findFirst()
-                .ifPresentOrElse(item -> {
-                    itemProcessed.set(true);
-                    int currentQuantity = item.getQuantity();
-
-                    if (currentQuantity <= 1) {
-                        // If quantity is 1 or less, remove the item instead of decreasing
-                        removeItemFromCartInternal(cart, item);
-                    } else {
-                        int newQuantity = currentQuantity - 1;
-                        item.setQuantity(newQuantity);
-                        double itemPrice = item.getPrice();
-                        item.setTotalPrice(itemPrice * newQuantity); // Update item total price
-
-                        double cartTotal = calculateNewTotal(cart.getCartTotalPrice(), itemPrice, false); // Decrease cart total
-                        cart.setCartTotalPrice(cartTotal);
-
-                        try {
-                            cartItemsRepository.save(item);
-                            cartRepository.save(cart);
-                        } catch (DataAccessException e) {
-                            throw new OperationFailedException("Failed to update item quantity or cart total for product: " + prodName, e);
-                        }
-                    }
-                }, () -> {
-                    throw new ResourceNotFoundException("Item '" + prodName + "' not found in the cart for user: " + userId);
-                });
+        if (memoryCartStore != null) {
+            memoryCartStore.update(userId, false, cart -> {
+                CartItems item = findItem(cart, prodName)
+                        .orElseThrow(() -> new ResourceNotFoundException("Item '" + prodName + "' not found in the cart for user: " + userId));
+                if (item.getQuantity() <= 1) {
+                    detachItem(cart, item);
+                } else {
+                    decrementItem(cart, item);
+                }
+                return item;
+            });
+            return;
+        }
+        retryOnVersionConflict(userId, retry -> {
+            Cart cart = loadCart(userId, retry);
+            CartItems item = findItem(cart, prodName)
+                    .orElseThrow(() -> new ResourceNotFoundException("Item '" + prodName + "' not found in the cart for user: " + userId));
+
+            if (item.getQuantity() <= 1) {
+                // If quantity is 1 or less, remove the item instead of decreasing
+                removeItemFromCartInternal(cart, item);
+            } else {
+                decrementItem(cart, item);
+                try {
+                    cartItemsRepository.save(item);
+                    cartRepository.save(cart);
+                } catch (DataAccessException e) {
+                    throw new OperationFailedException("Failed to update item quantity or cart total for product: " + prodName, e);
+                }
+            }
+            publishChange(cart);
+            return item;
+        });
+    }
+
+    private void decrementItem(Cart cart, CartItems item) {
+        int newQuantity = item.getQuantity() - 1;
+        item.setQuantity(newQuantity);
+        double itemPrice = item.getPrice();
+        item.setTotalPrice(itemPrice * newQuantity); // Update item total price
+        cart.setCartTotalPrice(calculateNewTotal(cart.getCartTotalPrice(), itemPrice, false)); // Decrease cart total
+    }
+
+    private static Optional<CartItems> findItem(Cart cart, String prodName) {
+        return Optional.ofNullable(cart.findItemByName(prodName));
+    }
+
+    // Takes the item out of the cart object and its total out of the cart total.
+    private void detachItem(Cart cart, CartItems item) {
+        double updatedPrice = calculateNewTotal(cart.getCartTotalPrice(), item.getTotalPrice(), false); // Decrease by item's total
+        cart.setCartTotalPrice(updatedPrice);
+        cart.removeItem(item); // Remove from collection and line index in Cart object
     }
 
     // Remove item from cart
     @Override
     public void removeItemFromCartInternal(Cart cart, CartItems item) {
-        double updatedPrice = calculateNewTotal(cart.getCartTotalPrice(), item.getTotalPrice(), false); // Decrease by item's total
-        cart.setCartTotalPrice(updatedPrice);
-        cart.getItems().remove(item); // Remove from collection in Cart object
+        detachItem(cart, item);
 
         try {
             cartItemsRepository.delete(item); // Delete from DB
@@ -225,81 +562,237 @@ public class CartServiceImpl implements CartService{
     }
 
     @Override
-    @Transactional
     public void removeItemFromCart(int userId, String prodName) {
-        Cart cart = getCartByUserId(userId);
-        CartItems item = cartItemsRepository.findByCartCartIdAndProdName(cart.getCartId(), prodName).orElseThrow(() -> new ResourceNotFoundException("Item '" + prodName + "' not found in cart for user: " + userId));
-        removeItemFromCartInternal(cart, item); // Use internal helper
+        if (memoryCartStore != null) {
+            memoryCartStore.update(userId, false, cart -> {
+                CartItems item = findItem(cart, prodName)
+                        .orElseThrow(() -> new ResourceNotFoundException("Item '" + prodName + "' not found in cart for user: " + userId));
+                detachItem(cart, item);
+                return item;
+            });
+            return;
+        }
+        retryOnVersionConflict(userId, retry -> {
+            Cart cart = loadCart(userId, retry);
+            // the line comes from the loaded cart itself, so no second query and the same instance is removed
+            CartItems item = findItem(cart, prodName).orElseThrow(() -> new ResourceNotFoundException("Item '" + prodName + "' not found in cart for user: " + userId));
+            removeItemFromCartInternal(cart, item); // Use internal helper
+            publishChange(cart);
+            return item;
+        });
     }
 
     @Override
-    @Transactional
     public void clearCart(int userId) {
+        clearCart(userId, null);
+    }
+
+    // Reduces stock at the given store, or the central stock when storeId is null. The remote calls
+    // run outside any transaction; only the final clear of the cart is one. If the stock cannot all
+    // be reduced, or the cart cannot be cleared afterwards, the stock already taken is put back.
+    // Not retried on a version conflict: the cart changed during checkout, so the caller must look
+    // at it again.
+    @Override
+    public void clearCart(int userId, Integer storeId) {
     	
     	if (userId <= 0) {
             throw new IllegalArgumentException("Invalid User ID in header for clearing cart.");
     	}
+
+        if (memoryCartStore != null) {
+            // stock is reduced without holding the cart's lock; a cart changed meanwhile is restocked as below
+            List<CartItems> lines = memoryCartStore.get(userId).getItems();
+            reduceStock(lines, storeId);
+            try {
+                memoryCartStore.update(userId, false, cart -> {
+                    if (!sameLines(cart.getItems(), lines)) {
+                        throw new OptimisticLockingFailureException("Cart for user " + userId + " changed during checkout.");
+                    }
+                    cart.clearItems();
+                    cart.setCartTotalPrice(0.0);
+                    return cart;
+                });
+            } catch (RuntimeException e) {
+                restock(lines, storeId);
+                throw e;
+            }
+            return;
+        }
     	
         Cart cart = getCartByUserId(userId);
-        List<CartItems> itemsList = cart.getItems();
-        if (cart.getCartTotalPrice() != 0.0) {
-            cart.setCartTotalPrice(0.0);
-            try {
-                cartRepository.save(cart);
-            } catch (DataAccessException e) {
-                throw new OperationFailedException("Failed to clear cart for user: " + userId, e);
+        List<CartItems> lines = List.copyOf(cart.getItems());
+
+        reduceStock(lines, storeId);
+
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                //  delete all items belonging to the cart
+                cartItemsRepository.deleteByCart_CartId(cart.getCartId());
+
+                // Clear the list in the Cart object and reset total price
+                cart.clearItems(); // Clear the collection managed
+                cart.setCartTotalPrice(0.0);
+                cartRepository.save(cart); // fails on a version conflict if the cart changed since it was read
+                publishChange(cart);
+            });
+        } catch (OptimisticLockingFailureException e) {
+            restock(lines, storeId);
+            throw e;
+        } catch (DataAccessException | TransactionException e) {
+            restock(lines, storeId);
+            throw new OperationFailedException("Failed to clear cart items from database after updating inventory.", e);
+        }
+    }
+
+    // True if both hold the same products in the same quantities.
+    private static boolean sameLines(List<CartItems> current, List<CartItems> read) {
+        if (current.size() != read.size()) {
+            return false;
+        }
+        for (int i = 0; i < current.size(); i++) {
+            if (current.get(i).getProdId() != read.get(i).getProdId() || current.get(i).getQuantity() != read.get(i).getQuantity()) {
+                return false;
             }
         }
+        return true;
+    }
 
-        for (CartItems item : itemsList) {
-            try {
+    // The strict stock check: inventory-service refuses to reduce below zero, whatever the cart saw.
+    // Lines are reduced concurrently. After the first failure no new calls are started, the lines
+    // already reduced are restocked, and that failure is thrown.
+    private void reduceStock(List<CartItems> items, Integer storeId) {
+        StockCalls calls = forEachLine(items, true, item -> reduceStock(item, storeId));
+        if (calls.failure() != null) {
+            restock(calls.succeeded(), storeId);
+            throw calls.failure();
+        }
+    }
+
+    private void reduceStock(CartItems item, Integer storeId) {
+        try {
+            if (storeId == null) {
                 inventoryServiceClient.reduceStock(item.getProdId(), item.getQuantity());
-            } catch (FeignException e) {
-                // Translate specific Feign errors if needed
-                if (e instanceof FeignException.NotFound) {
-                    throw new OperationFailedException("Error during cart clear: Product ID " + item.getProdId() + " not found in inventory.", e);
-                }
-                throw new OperationFailedException("Failed to update inventory for product ID " + item.getProdId() + " while clearing cart.", e);
-            } catch (Exception e) {
-                throw new OperationFailedException("An unexpected error occurred while updating inventory for product ID " + item.getProdId(), e);
+            } else {
+                inventoryServiceClient.reduceStock(item.getProdId(), item.getQuantity(), storeId);
+            }
+            productCache.invalidate(item.getProdId()); // stock has changed; next lookup reloads it
+        } catch (FeignException e) {
+            // Translate specific Feign errors if needed
+            if (e instanceof FeignException.NotFound) {
+                throw new OperationFailedException("Error during cart clear: Product ID " + item.getProdId() + " not found in inventory.", e);
             }
+            throw new OperationFailedException("Failed to update inventory for product ID " + item.getProdId() + " while clearing cart.", e);
+        } catch (Exception e) {
+            throw new OperationFailedException("An unexpected error occurred while updating inventory for product ID " + item.getProdId(), e);
         }
+    }
 
-        try {
-            //  delete all items belonging to the cart
-            cartItemsRepository.deleteByCart_CartId(cart.getCartId());
+    // Compensation for a checkout that did not complete. A restock that fails cannot be undone any
+    // further, so it is logged with what has to be corrected by hand.
+    private void restock(List<CartItems> items, Integer storeId) {
+        forEachLine(items, false, item -> {
+            try {
+                if (storeId == null) {
+                    inventoryServiceClient.restock(item.getProdId(), item.getQuantity());
+                } else {
+                    inventoryServiceClient.restock(item.getProdId(), item.getQuantity(), storeId);
+                }
+                productCache.invalidate(item.getProdId());
+            } catch (RuntimeException e) {
+                log.error("Could not restock {} x product {} at {} after a failed checkout", item.getQuantity(), item.getProdId(),
+                        storeId == null ? "central stock" : "store " + storeId, e);
+                throw e;
+            }
+        });
+    }
 
-            // Clear the list in the Cart object and reset total price
-            cart.getItems().clear(); // Clear the collection managed
-            cart.setCartTotalPrice(0.0);
-            cartRepository.save(cart); // Save the cart with empty items list and zero total
-        } catch (DataAccessException e) {
-            throw new OperationFailedException("Failed to clear cart items from database after updating inventory.", e);
+    // Lines a fan-out of inventory calls succeeded for, and the first failure in line order, if any.
+    private record StockCalls(List<CartItems> succeeded, RuntimeException failure) {
+    }
+
+    // Runs call for each line on its own virtual thread, at most stock-fanout at a time, and waits
+    // for all of them. With failFast, lines still waiting for a permit are skipped once a call fails.
+    private StockCalls forEachLine(List<CartItems> items, boolean failFast, Consumer<CartItems> call) {
+        Semaphore permits = new Semaphore(Math.max(1, stockFanout));
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<Boolean>> results = new ArrayList<>(items.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (CartItems item : items) {
+                results.add(executor.submit(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        if (failFast && failed.get()) {
+                            return false;
+                        }
+                        call.accept(item);
+                        return true;
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        } // close() waits for every call
+
+        List<CartItems> succeeded = new ArrayList<>(items.size());
+        RuntimeException failure = null;
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                if (results.get(i).get()) {
+                    succeeded.add(items.get(i));
+                }
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException runtime ? runtime : new OperationFailedException("Inventory call failed.", e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // not reached: every call has finished
+                if (failure == null) {
+                    failure = new OperationFailedException("Interrupted while updating inventory.", e);
+                }
+            }
         }
+        return new StockCalls(succeeded, failure);
     }
 
     @Override
-    @Transactional
     public void clearCartContentsOnly(int userId) {
         if(userId <= 0) {
             throw new IllegalArgumentException("Invalid User ID");
         }
-        Cart cart = getCartByUserId(userId);
-
-        if (cart.getItems().isEmpty() && cart.getCartTotalPrice() == 0.0) {
+        if (memoryCartStore != null) {
+            memoryCartStore.update(userId, false, cart -> {
+                cart.clearItems();
+                cart.setCartTotalPrice(0.0);
+                return cart;
+            });
             return;
         }
-        try {
-           cartItemsRepository.deleteByCart_CartId(cart.getCartId());
-            cart.getItems().clear();
-            cart.setCartTotalPrice(0.0);
-            cartRepository.save(cart);
-        } catch (DataAccessException e) {
-            throw new OperationFailedException("Failed to clear cart items from database.", e);
-        }
+        retryOnVersionConflict(userId, retry -> {
+            Cart cart = getCartByUserId(userId); // the total is reset here anyway, so nothing to recompute
+
+            if (cart.getItems().isEmpty() && cart.getCartTotalPrice() == 0.0) {
+                return cart;
+            }
+            try {
+               cartItemsRepository.deleteByCart_CartId(cart.getCartId());
+                cart.clearItems();
+                cart.setCartTotalPrice(0.0);
+                cartRepository.save(cart);
+            } catch (DataAccessException e) {
+                throw new OperationFailedException("Failed to clear cart items from database.", e);
+            }
+            publishChange(cart);
+            return cart;
+        });
     }
 
     public int getCartIdByUserId(int userId) {
+        if (memoryCartStore != null) {
+            return memoryCartStore.find(userId).orElseThrow(() -> new ResourceNotFoundException("Cart not found for user ID: " + userId)).getCartId();
+        }
         Cart cart = cartRepository.findByUserId(userId).orElseThrow(() -> new ResourceNotFoundException("Cart not found for user ID: " + userId));
         return cart.getCartId();
     }
@@ -307,6 +800,10 @@ public class CartServiceImpl implements CartService{
     @Override
     @Transactional
     public void deleteCart(int cartId) {
+        if (memoryCartStore != null) {
+            memoryCartStore.delete(cartId);
+            return;
+        }
         // Check if cart exists first to provide a better error message
         if (!cartRepository.existsById(cartId)) {
             throw new ResourceNotFoundException("Cannot delete. Cart not found with ID: " + cartId);
@@ -327,8 +824,25 @@ public class CartServiceImpl implements CartService{
 
     @Override
     public List<CartItems> getCartItemsByUserId(int userId) {
+        if (memoryCartStore != null) {
+            return memoryCartStore.find(userId).orElseThrow(() -> new ResourceNotFoundException("No cart found for user ID: " + userId + " to retrieve items.")).getItems();
+        }
         Cart cart;
         cart = cartRepository.findByUserId(userId).orElseThrow(() -> new ResourceNotFoundException("No cart found for user ID: " + userId + " to retrieve items."));
         return cart.getItems();
     }
+
+    // Cart id, version and lines for order placement, from a single read, so billing makes one
+    // call instead of fetching the items and the cart id separately. Under the memory engine the
+    // live image carries no version and 0 is reported.
+    @Override
+    public CheckoutSnapshot getCheckoutSnapshot(int userId) {
+        Cart cart;
+        if (memoryCartStore != null) {
+            cart = memoryCartStore.find(userId).orElseThrow(() -> new ResourceNotFoundException("No cart found for user ID: " + userId + " to check out."));
+        } else {
+            cart = cartRepository.findWithItemsByUserId(userId).orElseThrow(() -> new ResourceNotFoundException("No cart found for user ID: " + userId + " to check out."));
+        }
+        return new CheckoutSnapshot(cart.getCartId(), cart.getUserId(), cart.getVersion(), cart.getCartTotalPrice(), CartChangeEvent.lines(cart));
+    }
 }
@@ -0,0 +1,196 @@
+package com.supermarket.cartservice.store;
+
+import com.supermarket.cartservice.model.Cart;
+import com.supermarket.cartservice.model.CartItems;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Redo log for the in-memory cart store. Every mutation appends the cart's full new image, or a
+// tombstone for a deleted cart, so replay needs no business logic: the last record per user wins.
+// The log is split into segments. MemoryCartStore rotates to a new segment before each flush to
+// MySQL and deletes the older segments once that flush has committed.
+//
+// Record layout (big-endian): payload length int | CRC32C of payload int | payload. A torn or
+// corrupt record ends recovery of its segment; everything after it was never acknowledged.
+final class CartWriteAheadLog implements AutoCloseable {
+
+    private static final String PREFIX = "cart-wal-";
+    private static final String SUFFIX = ".log";
+
+    // Result of replaying the log: latest image per user, and carts deleted since the last flush.
+    record Recovery(Map<Integer, Cart> carts, List<Integer> deletedCartIds) {
+    }
+
+    private final Path directory;
+    private final boolean fsync;
+    private long segment;
+    private FileChannel channel;
+
+    CartWriteAheadLog(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    static String fileName(long segment) {
+        return String.format("%s%020d%s", PREFIX, segment, SUFFIX);
+    }
+
+    // Replays all segments in order and opens a fresh one for new appends.
+    synchronized Recovery open() throws IOException {
+        Files.createDirectories(directory);
+        Map<Integer, Cart> carts = new LinkedHashMap<>();
+        List<Integer> deleted = new ArrayList<>();
+        for (long existing : segments()) {
+            segment = Math.max(segment, existing);
+            replay(directory.resolve(fileName(existing)), carts, deleted);
+        }
+        openSegment(segment + 1);
+        return new Recovery(carts, deleted);
+    }
+
+    synchronized void append(Cart cart) throws IOException {
+        write(encode(cart, false));
+    }
+
+    synchronized void appendDelete(Cart cart) throws IOException {
+        write(encode(cart, true));
+    }
+
+    // Forces the current segment, starts a new one and returns the number of the one now closed.
+    synchronized long rotate() throws IOException {
+        long closed = segment;
+        channel.force(false);
+        channel.close();
+        openSegment(segment + 1);
+        return closed;
+    }
+
+    // Deletes every segment up to and including the given one; their records are in MySQL now.
+    synchronized void deleteUpTo(long lastSegment) throws IOException {
+        for (long existing : segments()) {
+            if (existing <= lastSegment) {
+                Files.deleteIfExists(directory.resolve(fileName(existing)));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        segment = number;
+        channel = FileChannel.open(directory.resolve(fileName(number)), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void write(byte[] payload) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static void replay(Path file, Map<Integer, Cart> carts, List<Integer> deleted) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                return; // torn tail
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                return;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                boolean tombstone = in.readBoolean();
+                Cart cart = decode(in);
+                if (tombstone) {
+                    Cart current = carts.get(cart.getUserId());
+                    if (current != null && current.getCartId() == cart.getCartId()) {
+                        carts.remove(cart.getUserId());
+                    }
+                    deleted.add(cart.getCartId());
+                } else {
+                    carts.put(cart.getUserId(), cart);
+                }
+            }
+        }
+    }
+
+    private static byte[] encode(Cart cart, boolean tombstone) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + cart.getItems().size() * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeBoolean(tombstone);
+            out.writeInt(cart.getUserId());
+            out.writeInt(cart.getCartId());
+            out.writeDouble(cart.getCartTotalPrice());
+            out.writeInt(cart.getItems().size());
+            for (CartItems item : cart.getItems()) {
+                out.writeInt(item.getProdId());
+                out.writeUTF(item.getProdName());
+                out.writeDouble(item.getPrice());
+                out.writeInt(item.getQuantity());
+                out.writeDouble(item.getTotalPrice());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Cart decode(DataInputStream in) throws IOException {
+        Cart cart = new Cart();
+        cart.setUserId(in.readInt());
+        cart.setCartId(in.readInt());
+        cart.setCartTotalPrice(in.readDouble());
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            CartItems item = new CartItems();
+            item.setCart(cart);
+            item.setProdId(in.readInt());
+            item.setProdName(in.readUTF());
+            item.setPrice(in.readDouble());
+            item.setQuantity(in.readInt());
+            item.setTotalPrice(in.readDouble());
+            cart.addItem(item);
+        }
+        return cart;
+    }
+}
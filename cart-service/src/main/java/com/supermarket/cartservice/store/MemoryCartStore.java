@@ -0,0 +1,457 @@
+package com.supermarket.cartservice.store;
+
+import com.supermarket.cartservice.event.CartChangeEvent;
+import com.supermarket.cartservice.exception.OperationFailedException;
+import com.supermarket.cartservice.exception.ResourceNotFoundException;
+import com.supermarket.cartservice.idgen.IdGeneratorTable;
+import com.supermarket.cartservice.model.Cart;
+import com.supermarket.cartservice.model.CartItems;
+import com.supermarket.cartservice.repository.CartRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Optional cart engine (cart.store=memory). Live carts are kept in memory, keyed by userId, and
+// each cart has its own lock, so a mutation is a copy of one small object and a log append instead
+// of a load and two or more saves. Dirty carts are written to the cart/cart_items tables by a
+// background flusher. It coalesces every change a cart received since the last flush into one
+// image and writes a whole batch of carts in one transaction.
+//
+// Crash safety comes from CartWriteAheadLog. A mutation is acknowledged only after its new image
+// is appended. The log is rotated before each flush, and the closed segments are deleted once the
+// flush commits. Recovery replays the log and flushes it before the service takes traffic.
+// Appends reach the page cache immediately, so a process crash loses nothing. Unless wal-fsync
+// is on, an OS crash can lose up to one flush interval.
+//
+// A cart row is still inserted synchronously when a cart is created, so its cart_id is real from
+// the start. Under this engine cart_item_id is not stable: each flush rewrites a cart's items, with
+// ids reserved from IdGeneratorTable.
+@Component
+@ConditionalOnProperty(name = "cart.store", havingValue = "memory")
+public class MemoryCartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryCartStore.class);
+
+    private static final String UPDATE_CART_SQL = "UPDATE cart SET cart_total_price = ?, version = version + 1, last_modified = ? WHERE cart_id = ?";
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO cart_items (cart_item_id, cart_id, product_id, product_name, price, quantity, total_price) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private IdGeneratorTable idGeneratorTable;
+
+    @Value("${cart.memory.wal-dir:data/cart-wal}")
+    private String walDirectory;
+
+    // Force the log on every append instead of once per flush; survives OS crashes, costs an fsync per click.
+    @Value("${cart.memory.wal-fsync:false}")
+    private boolean walFsync;
+
+    @Value("${cart.memory.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    // Carts per flush transaction.
+    @Value("${cart.memory.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    // Clean carts untouched for this long are dropped from memory and reloaded on next use.
+    @Value("${cart.memory.idle-evict-minutes:30}")
+    private long idleEvictMinutes;
+
+    // One live cart. The published image is never modified: mutations work on a copy and swap it
+    // in under the lock, so readers can take a consistent image without locking.
+    private static final class LiveCart {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Cart cart;
+        private volatile long lastAccessMillis;
+        private boolean evicted; // guarded by lock
+
+        private LiveCart(Cart cart) {
+            this.cart = cart;
+            this.lastAccessMillis = System.currentTimeMillis();
+        }
+    }
+
+    private final Map<Integer, LiveCart> carts = new ConcurrentHashMap<>();
+
+    // Carts deleted in memory whose rows have not been deleted yet.
+    private final Set<Integer> pendingDeletes = ConcurrentHashMap.newKeySet();
+
+    // Expired carts CartExpirySweeper is deleting right now; they are not loaded meanwhile. Guarded by this.
+    private final Set<Integer> expiring = new HashSet<>();
+
+    // Guarded by this, together with the log append, so a rotation sees each change either in the
+    // closed segment and the drained set, or in neither.
+    private Set<Integer> dirtyUsers = new HashSet<>();
+
+    // Serialises flushes (scheduled and shutdown) without blocking mutations.
+    private final Object flushLock = new Object();
+
+    private CartWriteAheadLog wal;
+    private TransactionTemplate transactionTemplate;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cart-store-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() throws IOException {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        wal = new CartWriteAheadLog(Paths.get(walDirectory), walFsync);
+        CartWriteAheadLog.Recovery recovery = wal.open();
+        synchronized (this) {
+            recovery.carts().forEach((userId, cart) -> {
+                carts.put(userId, new LiveCart(cart));
+                dirtyUsers.add(userId);
+            });
+            pendingDeletes.addAll(recovery.deletedCartIds());
+        }
+        if (!recovery.carts().isEmpty() || !recovery.deletedCartIds().isEmpty()) {
+            log.info("Recovered {} carts and {} deletions from the cart log", recovery.carts().size(), recovery.deletedCartIds().size());
+        }
+        flush();
+        flusher.scheduleWithFixedDelay(this::flushAndEvict, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        flusher.shutdownNow();
+        flush();
+        wal.close();
+    }
+
+    // Consistent copy of a user's cart.
+    public Optional<Cart> find(int userId) {
+        LiveCart live = live(userId, false);
+        if (live == null) {
+            return Optional.empty();
+        }
+        live.lastAccessMillis = System.currentTimeMillis();
+        return Optional.of(copy(live.cart));
+    }
+
+    public Cart get(int userId) {
+        return find(userId).orElseThrow(() -> new ResourceNotFoundException("No cart available for user ID: " + userId));
+    }
+
+    // Applies a mutation to a private copy of the cart under the cart's lock, logs the result and
+    // publishes it. If the mutation throws, the cart is left exactly as it was.
+    public <T> T update(int userId, boolean create, Function<Cart, T> mutation) {
+        while (true) {
+            LiveCart live = live(userId, create);
+            if (live == null) {
+                throw new ResourceNotFoundException("No cart available for user ID: " + userId);
+            }
+            live.lock.lock();
+            try {
+                if (live.evicted) {
+                    continue; // evicted or deleted while we waited; load again
+                }
+                Cart working = copy(live.cart);
+                T result = mutation.apply(working);
+                log(live, working, false);
+                live.lastAccessMillis = System.currentTimeMillis();
+                eventPublisher.publishEvent(CartChangeEvent.of(working)); // under the lock, so in mutation order
+                return result;
+            } finally {
+                live.lock.unlock();
+            }
+        }
+    }
+
+    // Deletes a cart; its rows are removed by the next flush.
+    public void delete(int cartId) {
+        while (true) {
+            int userId = findUserIdByCartId(cartId);
+            LiveCart live = live(userId, false);
+            if (live == null || live.cart.getCartId() != cartId) {
+                throw new ResourceNotFoundException("Cannot delete. Cart not found with ID: " + cartId);
+            }
+            live.lock.lock();
+            try {
+                if (live.evicted) {
+                    continue;
+                }
+                log(live, live.cart, true);
+                live.evicted = true;
+                carts.remove(userId, live);
+                return;
+            } finally {
+                live.lock.unlock();
+            }
+        }
+    }
+
+    // Called by CartExpirySweeper inside its delete transaction. Returns the expired carts that may
+    // be deleted and keeps them from being loaded until releaseExpired(). Carts held in memory are
+    // left out: they are in use even when only read, and their last_modified is only written by a
+    // flush.
+    public synchronized List<Integer> claimExpired(List<Integer> cartIds) {
+        Set<Integer> held = new HashSet<>();
+        for (LiveCart live : carts.values()) {
+            held.add(live.cart.getCartId());
+        }
+        List<Integer> claimed = new ArrayList<>(cartIds.size());
+        for (int cartId : cartIds) {
+            if (!held.contains(cartId)) {
+                expiring.add(cartId);
+                claimed.add(cartId);
+            }
+        }
+        return claimed;
+    }
+
+    // Called once the sweeper's transaction has committed or rolled back.
+    public synchronized void releaseExpired() {
+        expiring.clear();
+    }
+
+    // Number of carts changed since the last flush.
+    public synchronized int getDirtyCount() {
+        return dirtyUsers.size();
+    }
+
+    // Writes every dirty cart and pending deletion to MySQL. Safe to call at any time; the flusher
+    // thread calls it every flush-interval-ms.
+    public void flush() {
+        synchronized (flushLock) {
+            flushOnce();
+        }
+    }
+
+    private void flushOnce() {
+        long closedSegment;
+        Set<Integer> users;
+        List<Integer> deletes;
+        try {
+            synchronized (this) {
+                if (dirtyUsers.isEmpty() && pendingDeletes.isEmpty()) {
+                    return;
+                }
+                closedSegment = wal.rotate();
+                users = dirtyUsers;
+                dirtyUsers = new HashSet<>();
+                deletes = new ArrayList<>(pendingDeletes);
+            }
+        } catch (IOException e) {
+            log.error("Could not rotate the cart log; flush skipped", e);
+            return;
+        }
+
+        List<Cart> images = new ArrayList<>(users.size());
+        for (int userId : users) {
+            LiveCart live = carts.get(userId);
+            if (live != null && !pendingDeletes.contains(live.cart.getCartId())) {
+                images.add(live.cart); // published images are immutable
+            }
+        }
+        try {
+            for (int from = 0; from < images.size(); from += flushBatchSize) {
+                write(images.subList(from, Math.min(images.size(), from + flushBatchSize)));
+            }
+            if (!deletes.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (" + placeholders(deletes.size()) + ")", deletes.toArray());
+                    jdbcTemplate.update("DELETE FROM cart WHERE cart_id IN (" + placeholders(deletes.size()) + ")", deletes.toArray());
+                });
+                pendingDeletes.removeAll(deletes);
+            }
+            wal.deleteUpTo(closedSegment);
+        } catch (DataAccessException | TransactionException | IOException e) {
+            // the log still holds every change, so retrying at the next interval loses nothing
+            synchronized (this) {
+                dirtyUsers.addAll(users);
+            }
+            log.error("Cart flush of {} carts failed; will retry", images.size(), e);
+        }
+    }
+
+    private void flushAndEvict() {
+        try {
+            flush();
+            evictIdle();
+        } catch (RuntimeException e) {
+            log.error("Cart store maintenance failed", e);
+        }
+    }
+
+    // Coalesced write of one batch: totals updated, items replaced, all in one transaction.
+    private void write(List<Cart> batch) {
+        List<Integer> cartIds = batch.stream().map(Cart::getCartId).toList();
+        List<CartItems> items = batch.stream().flatMap(cart -> cart.getItems().stream()).toList();
+        LocalDateTime flushedAt = LocalDateTime.now();
+        // item ids come from the same pool as Hibernate's, reserved before the write transaction
+        long[] nextItemId = {items.isEmpty() ? 0 : idGeneratorTable.reserve(IdGeneratorTable.CART_ITEMS, items.size())};
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPDATE_CART_SQL, batch, batch.size(), (ps, cart) -> {
+                ps.setDouble(1, cart.getCartTotalPrice());
+                ps.setObject(2, flushedAt);
+                ps.setInt(3, cart.getCartId());
+            });
+            jdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (" + placeholders(cartIds.size()) + ")", cartIds.toArray());
+            if (!items.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, items, items.size(), (ps, item) -> {
+                    ps.setLong(1, nextItemId[0]++);
+                    ps.setInt(2, item.getCart().getCartId());
+                    ps.setInt(3, item.getProdId());
+                    ps.setString(4, item.getProdName());
+                    ps.setDouble(5, item.getPrice());
+                    ps.setInt(6, item.getQuantity());
+                    ps.setDouble(7, item.getTotalPrice());
+                });
+            }
+        });
+    }
+
+    // Drops clean carts nobody has touched for idle-evict-minutes.
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleEvictMinutes);
+        for (Map.Entry<Integer, LiveCart> entry : carts.entrySet()) {
+            LiveCart live = entry.getValue();
+            if (live.lastAccessMillis >= cutoff || !live.lock.tryLock()) {
+                continue;
+            }
+            try {
+                synchronized (this) {
+                    if (dirtyUsers.contains(entry.getKey())) {
+                        continue;
+                    }
+                }
+                live.evicted = true;
+                carts.remove(entry.getKey(), live);
+            } finally {
+                live.lock.unlock();
+            }
+        }
+    }
+
+    // Appends to the log, marks the user dirty and publishes the image as one step relative to
+    // rotation, so a flush either writes this image or leaves the user dirty for the next one.
+    private void log(LiveCart live, Cart cart, boolean deleted) {
+        try {
+            synchronized (this) {
+                if (deleted) {
+                    wal.appendDelete(cart);
+                    pendingDeletes.add(cart.getCartId());
+                    dirtyUsers.remove(cart.getUserId());
+                } else {
+                    wal.append(cart);
+                    dirtyUsers.add(cart.getUserId());
+                    live.cart = cart;
+                }
+            }
+        } catch (IOException e) {
+            throw new OperationFailedException("Failed to record cart change for user: " + cart.getUserId(), e);
+        }
+    }
+
+    // The live cart for a user, loaded from MySQL on first use and optionally created.
+    private LiveCart live(int userId, boolean create) {
+        LiveCart live = carts.get(userId);
+        if (live != null) {
+            return live;
+        }
+        Optional<Cart> stored;
+        try {
+            stored = cartRepository.findByUserId(userId).filter(cart -> !pendingDeletes.contains(cart.getCartId()));
+        } catch (DataAccessException e) {
+            throw new OperationFailedException("Failed to load cart for user: " + userId, e);
+        }
+        if (stored.isPresent()) {
+            synchronized (this) {
+                if (!expiring.contains(stored.get().getCartId())) {
+                    return carts.computeIfAbsent(userId, id -> new LiveCart(copy(stored.get())));
+                }
+            }
+            // the sweeper is deleting this cart; a new one is created once its delete commits
+        }
+        if (!create) {
+            return null;
+        }
+        return carts.computeIfAbsent(userId, id -> new LiveCart(insert(id)));
+    }
+
+    private Cart insert(int userId) {
+        Cart newCart = new Cart();
+        newCart.setUserId(userId);
+        newCart.setCartTotalPrice(0.0);
+        try {
+            return copy(cartRepository.save(newCart));
+        } catch (DataAccessException e) {
+            throw new OperationFailedException("Failed to create a new cart for user: " + userId, e);
+        }
+    }
+
+    private int findUserIdByCartId(int cartId) {
+        for (LiveCart live : carts.values()) {
+            Cart cart = live.cart;
+            if (cart.getCartId() == cartId) {
+                return cart.getUserId();
+            }
+        }
+        return cartRepository.findById(cartId)
+                .filter(cart -> !pendingDeletes.contains(cart.getCartId()))
+                .map(Cart::getUserId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cannot delete. Cart not found with ID: " + cartId));
+    }
+
+    // Detached deep copy; items point back at the copy.
+    static Cart copy(Cart source) {
+        Cart cart = new Cart();
+        cart.setCartId(source.getCartId());
+        cart.setUserId(source.getUserId());
+        cart.setCartTotalPrice(source.getCartTotalPrice());
+        List<CartItems> items = new ArrayList<>(source.getItems().size());
+        for (CartItems sourceItem : source.getItems()) {
+            items.add(new CartItems(sourceItem.getCartItemId(), cart, sourceItem.getProdId(), sourceItem.getProdName(),
+                    sourceItem.getPrice(), sourceItem.getQuantity(), sourceItem.getTotalPrice()));
+        }
+        cart.setItems(items);
+        return cart;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+}
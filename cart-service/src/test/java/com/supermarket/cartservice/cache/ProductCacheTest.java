@@ -0,0 +1,125 @@
+package com.supermarket.cartservice.cache;
+
+import com.supermarket.cartservice.dto.ProductChangeNotification;
+import com.supermarket.cartservice.dto.ProductResponse;
+import com.supermarket.cartservice.feign.InventoryServiceClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCacheTest {
+
+    @Mock
+    private InventoryServiceClient inventoryServiceClient;
+
+    private ProductCache productCache;
+
+    private final ProductResponse milk = new ProductResponse(1, "Milk", 1.2, 40);
+
+    private ProductCache newCache(long ttlMillis, long refreshAheadMillis, int maxEntries) {
+        ProductCache cache = new ProductCache();
+        ReflectionTestUtils.setField(cache, "inventoryServiceClient", inventoryServiceClient);
+        ReflectionTestUtils.setField(cache, "ttlMillis", ttlMillis);
+        ReflectionTestUtils.setField(cache, "refreshAheadMillis", refreshAheadMillis);
+        ReflectionTestUtils.setField(cache, "maxEntries", maxEntries);
+        return cache;
+    }
+
+    @BeforeEach
+    void setUp() {
+        productCache = newCache(60_000, 1_000, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productCache.stop();
+    }
+
+    @Test
+    @DisplayName("GetById: A product loaded by name is served by id and by any casing of its name")
+    void getByName_ShouldServeLaterLookupsFromCache() {
+        when(inventoryServiceClient.getProductByProdName("Milk")).thenReturn(milk);
+
+        productCache.getByName("Milk");
+        ProductResponse byId = productCache.getById(1);
+        ProductResponse byName = productCache.getByName(" milk ");
+
+        assertEquals(40, byId.getStock());
+        assertEquals("Milk", byName.getProdName());
+        verify(inventoryServiceClient, times(1)).getProductByProdName("Milk");
+        verifyNoMoreInteractions(inventoryServiceClient);
+    }
+
+    @Test
+    @DisplayName("GetById: An expired entry is loaded again")
+    void getById_AfterTtl_ShouldReload() {
+        productCache = newCache(0, 0, 100);
+        when(inventoryServiceClient.getProductById(1)).thenReturn(milk);
+
+        productCache.getById(1);
+        productCache.getById(1);
+
+        verify(inventoryServiceClient, times(2)).getProductById(1);
+    }
+
+    @Test
+    @DisplayName("GetById: An entry close to expiry is returned at once and refreshed in the background")
+    void getById_NearExpiry_ShouldRefreshAsynchronously() {
+        productCache = newCache(60_000, 60_000, 100);
+        productCache.put(milk);
+        when(inventoryServiceClient.getProductById(1)).thenReturn(new ProductResponse(1, "Milk", 1.2, 7));
+
+        assertEquals(40, productCache.getById(1).getStock());
+
+        verify(inventoryServiceClient, timeout(2_000)).getProductById(1);
+    }
+
+    @Test
+    @DisplayName("OnChange: Feed updates replace the entry, renames move the name index and deletes drop it")
+    void onChange_ShouldApplyFeedChanges() {
+        productCache.put(milk);
+
+        productCache.onChange(new ProductChangeNotification(5, "UPDATED", 1, "Whole Milk", 1.3, 12, 3, null, 0));
+        assertEquals(12, productCache.getById(1).getStock());
+        when(inventoryServiceClient.getProductByProdName("Milk")).thenReturn(null);
+        assertNull(productCache.getByName("Milk")); // old name no longer resolves from the cache
+        assertEquals(1, productCache.getByName("whole milk").getProdId());
+
+        productCache.onChange(new ProductChangeNotification(6, "DELETED", 1, null, 0, 0, 0, null, 0));
+        assertEquals(0, productCache.size());
+    }
+
+    @Test
+    @DisplayName("OnReset: A feed reset empties the cache")
+    void onReset_ShouldClear() {
+        productCache.put(milk);
+
+        productCache.onReset();
+
+        assertEquals(0, productCache.size());
+    }
+
+    @Test
+    @DisplayName("Put: The cache stays within max-entries by dropping the oldest entries")
+    void put_OverCapacity_ShouldEvictOldest() {
+        productCache = newCache(60_000, 1_000, 10);
+
+        for (int id = 1; id <= 11; id++) {
+            productCache.put(new ProductResponse(id, "P" + id, 1.0, 1));
+        }
+
+        assertTrue(productCache.size() <= 10);
+        when(inventoryServiceClient.getProductById(1)).thenReturn(new ProductResponse(1, "P1", 1.0, 1));
+        productCache.getById(1); // evicted first, so loaded again
+        verify(inventoryServiceClient).getProductById(1);
+    }
+}
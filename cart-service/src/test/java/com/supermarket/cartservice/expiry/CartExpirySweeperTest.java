@@ -0,0 +1,145 @@
+package com.supermarket.cartservice.expiry;
+
+import com.supermarket.cartservice.store.MemoryCartStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CartExpirySweeperTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private MemoryCartStore memoryCartStore;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CartExpirySweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        sweeper = new CartExpirySweeper();
+        ReflectionTestUtils.setField(sweeper, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(sweeper, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(sweeper, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(sweeper, "ttlHours", 72L);
+        ReflectionTestUtils.setField(sweeper, "sweepIntervalMinutes", 60L);
+        ReflectionTestUtils.setField(sweeper, "batchSize", 2);
+        ReflectionTestUtils.setField(sweeper, "batchPauseMillis", 0L);
+        ReflectionTestUtils.setField(sweeper, "maxBatchesPerRun", 10);
+        sweeper.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sweeper.stop();
+    }
+
+    // DELETE statements report one row per cart id and two items per cart.
+    private void stubDeletes() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            int ids = invocation.getArguments().length - 1;
+            return sql.startsWith("DELETE FROM cart_items") ? ids * 2 : sql.startsWith("DELETE FROM cart ") ? ids : 0;
+        });
+    }
+
+    @Test
+    @DisplayName("Sweep: Expired carts are deleted in batches until a short batch")
+    void sweep_ShouldDeleteInBatchesUntilShortBatch() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(Object[].class)))
+                .thenReturn(List.of(11, 12), List.of(13));
+        stubDeletes();
+
+        // Act
+        int reclaimed = sweeper.sweep();
+
+        // Assert
+        assertEquals(3, reclaimed);
+        verify(jdbcTemplate).update("DELETE FROM cart_items WHERE cart_id IN (?,?)", 11, 12);
+        verify(jdbcTemplate).update("DELETE FROM cart WHERE cart_id IN (?,?)", 11, 12);
+        verify(jdbcTemplate).update("DELETE FROM cart WHERE cart_id IN (?)", 13);
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Integer.class), any(Object[].class));
+        assertEquals(3.0, meterRegistry.counter("cart.expiry.reclaimed", "table", "cart").count());
+        assertEquals(6.0, meterRegistry.counter("cart.expiry.reclaimed", "table", "cart_items").count());
+    }
+
+    @Test
+    @DisplayName("Sweep: One run stops after max-batches-per-run full batches")
+    void sweep_ShouldStopAtMaxBatchesPerRun() {
+        // Arrange
+        ReflectionTestUtils.setField(sweeper, "maxBatchesPerRun", 3);
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(Object[].class))).thenReturn(List.of(1, 2));
+        stubDeletes();
+
+        // Act
+        int reclaimed = sweeper.sweep();
+
+        // Assert
+        assertEquals(6, reclaimed);
+        verify(jdbcTemplate, times(3)).queryForList(anyString(), eq(Integer.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Sweep: Nothing is deleted when no cart has expired, and carts without a timestamp are stamped once")
+    void sweep_WhenNothingExpired_ShouldNotDelete() {
+        // Arrange
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(Object[].class))).thenReturn(List.of());
+
+        // Act
+        int first = sweeper.sweep();
+        int second = sweeper.sweep();
+
+        // Assert
+        assertEquals(0, first + second);
+        verify(jdbcTemplate, times(1)).update(startsWith("UPDATE cart SET last_modified"), any(Object[].class));
+        verify(jdbcTemplate, never()).update(startsWith("DELETE"), any(Object[].class));
+        assertEquals(0.0, meterRegistry.counter("cart.expiry.reclaimed", "table", "cart").count());
+    }
+
+    @Test
+    @DisplayName("Sweep: Under the memory store, carts held in memory are skipped and re-stamped instead of deleted")
+    void sweep_WhenCartsHeldInMemory_ShouldSkipThem() {
+        // Arrange
+        ReflectionTestUtils.setField(sweeper, "memoryCartStore", memoryCartStore);
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(Object[].class)))
+                .thenReturn(List.of(11, 12), List.of(13));
+        when(memoryCartStore.claimExpired(List.of(11, 12))).thenReturn(List.of(12));
+        when(memoryCartStore.claimExpired(List.of(13))).thenReturn(List.of());
+        stubDeletes();
+
+        // Act
+        int reclaimed = sweeper.sweep();
+
+        // Assert
+        assertEquals(1, reclaimed);
+        verify(jdbcTemplate).update("DELETE FROM cart_items WHERE cart_id IN (?)", 12);
+        verify(jdbcTemplate).update("DELETE FROM cart WHERE cart_id IN (?)", 12);
+        verify(jdbcTemplate).update(eq("UPDATE cart SET last_modified = ? WHERE cart_id IN (?)"), any(), eq(11));
+        verify(jdbcTemplate).update(eq("UPDATE cart SET last_modified = ? WHERE cart_id IN (?)"), any(), eq(13));
+        verify(jdbcTemplate, never()).update(startsWith("DELETE FROM cart WHERE cart_id IN (?)"), eq(11));
+        verify(jdbcTemplate, never()).update(startsWith("DELETE FROM cart WHERE cart_id IN (?)"), eq(13));
+        verify(memoryCartStore, times(2)).releaseExpired();
+    }
+}
@@ -0,0 +1,126 @@
+package com.supermarket.cartservice.feed;
+
+import com.supermarket.cartservice.dto.CartDelta;
+import com.supermarket.cartservice.dto.CartLine;
+import com.supermarket.cartservice.dto.CartSnapshot;
+import com.supermarket.cartservice.event.CartChangeEvent;
+import com.supermarket.cartservice.model.Cart;
+import com.supermarket.cartservice.model.CartItems;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartUpdateFeedTest {
+
+    private static Cart cart(double total, CartItems... items) {
+        Cart cart = new Cart(10, 1, total, new ArrayList<>());
+        for (CartItems item : items) {
+            item.setCart(cart);
+            cart.addItem(item);
+        }
+        return cart;
+    }
+
+    private static CartItems line(int prodId, String name, double price, int quantity) {
+        return new CartItems(0, null, prodId, name, price, quantity, price * quantity);
+    }
+
+    @Test
+    @DisplayName("Apply: Added, changed and removed lines are reported with the new total and the next sequence")
+    void apply_ShouldReportLineChanges() {
+        CartUpdateFeed.Channel channel = new CartUpdateFeed.Channel(
+                List.of(new CartLine(1, "Milk", 1.5, 1, 1.5), new CartLine(2, "Bread", 2.0, 1, 2.0)), 3.5);
+
+        CartDelta delta = CartUpdateFeed.apply(channel, CartChangeEvent.of(cart(7.0, line(1, "Milk", 1.5, 2), line(3, "Eggs", 4.0, 1))));
+
+        assertNotNull(delta);
+        assertEquals(1, delta.getSequence());
+        assertEquals(7.0, delta.getCartTotal());
+        assertEquals(3, delta.getChanges().size());
+        assertEquals("QUANTITY_CHANGED", delta.getChanges().get(0).getType());
+        assertEquals(2, delta.getChanges().get(0).getLine().getQuantity());
+        assertEquals("LINE_ADDED", delta.getChanges().get(1).getType());
+        assertEquals(3, delta.getChanges().get(1).getLine().getProdId());
+        assertEquals("LINE_REMOVED", delta.getChanges().get(2).getType());
+        assertEquals(2, delta.getChanges().get(2).getLine().getProdId());
+    }
+
+    @Test
+    @DisplayName("Apply: An event that changes nothing sends nothing and keeps the sequence")
+    void apply_WhenNothingChanged_ShouldReturnNull() {
+        CartUpdateFeed.Channel channel = new CartUpdateFeed.Channel(List.of(new CartLine(1, "Milk", 1.5, 2, 3.0)), 3.0);
+
+        assertNull(CartUpdateFeed.apply(channel, CartChangeEvent.of(cart(3.0, line(1, "Milk", 1.5, 2)))));
+        CartDelta next = CartUpdateFeed.apply(channel, CartChangeEvent.of(cart(4.5, line(1, "Milk", 1.5, 3))));
+
+        assertEquals(1, next.getSequence());
+    }
+
+    @Test
+    @DisplayName("Apply: An event stamped before one already applied is ignored")
+    void apply_WhenEventIsStale_ShouldIgnoreIt() {
+        CartUpdateFeed.Channel channel = new CartUpdateFeed.Channel(List.of(), 0.0);
+        CartChangeEvent older = CartChangeEvent.of(cart(1.5, line(1, "Milk", 1.5, 1)));
+        CartChangeEvent newer = CartChangeEvent.of(cart(3.0, line(1, "Milk", 1.5, 2)));
+
+        CartDelta applied = CartUpdateFeed.apply(channel, newer);
+        CartDelta ignored = CartUpdateFeed.apply(channel, older);
+
+        assertEquals(3.0, applied.getCartTotal());
+        assertNull(ignored);
+    }
+
+    @Test
+    @DisplayName("Subscribe: A change committed while the subscriber reads the cart is not lost")
+    void subscribe_WhenChangeCommitsDuringRead_ShouldIncludeIt() throws Exception {
+        // Arrange
+        List<Object> sent = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch snapshotSent = new CountDownLatch(1);
+        CartUpdateFeed feed = new CartUpdateFeed() {
+            @Override
+            SseEmitter newEmitter() {
+                return new SseEmitter(0L) {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        builder.build().forEach(part -> {
+                            if (part.getData() instanceof CartSnapshot || part.getData() instanceof CartDelta) {
+                                sent.add(part.getData());
+                            }
+                        });
+                        snapshotSent.countDown();
+                    }
+                };
+            }
+        };
+        ReflectionTestUtils.setField(feed, "heartbeatSeconds", 60L);
+        feed.start();
+
+        // Act
+        try {
+            feed.subscribe(1, () -> {
+                // the read sees one milk; adding the second commits before the subscription is queued
+                CartUpdateFeed.Image stale = new CartUpdateFeed.Image(List.of(new CartLine(1, "Milk", 1.5, 1, 1.5)), 1.5);
+                feed.onCartChange(CartChangeEvent.of(cart(3.0, line(1, "Milk", 1.5, 2))));
+                return stale;
+            });
+            assertTrue(snapshotSent.await(5, TimeUnit.SECONDS));
+        } finally {
+            feed.stop();
+        }
+
+        // Assert
+        assertEquals(1, sent.size());
+        CartSnapshot snapshot = (CartSnapshot) sent.get(0);
+        assertEquals(3.0, snapshot.getCartTotal());
+        assertEquals(2, snapshot.getLines().get(0).getQuantity());
+    }
+}
@@ -0,0 +1,72 @@
+package com.supermarket.cartservice.feed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supermarket.cartservice.dto.ProductChangeNotification;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductChangeFeedClientTest {
+
+    private final List<ProductChangeNotification> changes = new ArrayList<>();
+    private int resets;
+
+    private final ProductChangeFeedClient client = new ProductChangeFeedClient(URI.create("http://localhost/invent/changes"),
+            HttpClient.newHttpClient(), new ObjectMapper(), new ProductChangeListener() {
+        @Override
+        public void onChange(ProductChangeNotification change) {
+            changes.add(change);
+        }
+
+        @Override
+        public void onReset() {
+            resets++;
+        }
+    });
+
+    @Test
+    @DisplayName("Consume: Dispatches change and reset events and tracks the resume point")
+    void consume_ShouldDispatchEventsAndTrackLastEventId() {
+        client.consume(Stream.of(
+                "id:abc:7",
+                "event:reset",
+                "data:7",
+                "",
+                ":heartbeat",
+                "",
+                "id: abc:8",
+                "event: change",
+                "data: {\"sequence\":8,\"type\":\"UPDATED\",\"prodId\":42,\"prodName\":\"Milk\",\"price\":1.25,\"stock\":9,\"categoryId\":3,\"extra\":true}",
+                "",
+                "id:abc:8",
+                "event:ready",
+                "data:8",
+                ""));
+
+        assertEquals(1, resets);
+        assertEquals(1, changes.size());
+        assertEquals(42, changes.get(0).getProdId());
+        assertEquals(1.25, changes.get(0).getPrice());
+        assertEquals("abc:8", client.getLastEventId());
+    }
+
+    @Test
+    @DisplayName("Consume: Skips malformed events but still advances past them")
+    void consume_WhenDataMalformed_ShouldSkipEvent() {
+        client.consume(Stream.of(
+                "id:abc:9",
+                "event:change",
+                "data:{not json",
+                ""));
+
+        assertTrue(changes.isEmpty());
+        assertEquals("abc:9", client.getLastEventId());
+    }
+}
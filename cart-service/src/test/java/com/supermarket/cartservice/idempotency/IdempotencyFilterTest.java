@@ -0,0 +1,217 @@
+package com.supermarket.cartservice.idempotency;
+
+import com.supermarket.cartservice.repository.IdempotencyRecordRepository;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyFilterTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private IdempotencyStore store;
+    private IdempotencyFilter filter;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "idempotencyRecordRepository", idempotencyRecordRepository);
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+        filter = new IdempotencyFilter();
+        ReflectionTestUtils.setField(filter, "idempotencyStore", store);
+        ReflectionTestUtils.setField(filter, "inFlightWaitMillis", 5_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.stop();
+    }
+
+    private MockHttpServletRequest addToCart(String key, String quantity) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/cart/biller/addToCart");
+        request.setQueryString("userId=1&prodName=Milk&quantity=" + quantity);
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        return request;
+    }
+
+    // Stands in for the controller: counts executions and answers with the count.
+    private FilterChain chain(int status) {
+        return (request, response) -> {
+            int run = executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(status);
+            response.setContentType("text/plain");
+            response.getWriter().write("run " + run);
+        };
+    }
+
+    @Test
+    @DisplayName("Filter: A retried request gets the recorded response without running again")
+    void retry_ShouldReplayRecordedResponse() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+
+        filter.doFilter(addToCart("k-1", "2"), first, chain(200));
+        filter.doFilter(addToCart("k-1", "2"), second, chain(200));
+
+        assertEquals(1, executions.get());
+        assertEquals("run 1", second.getContentAsString());
+        assertEquals(200, second.getStatus());
+        assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        verify(idempotencyRecordRepository).save(any());
+    }
+
+    @Test
+    @DisplayName("Filter: A key reused for a different request is refused with 422")
+    void reusedKey_ForDifferentRequest_ShouldBeRefused() throws Exception {
+        filter.doFilter(addToCart("k-2", "2"), new MockHttpServletResponse(), chain(200));
+        MockHttpServletResponse other = new MockHttpServletResponse();
+
+        filter.doFilter(addToCart("k-2", "5"), other, chain(200));
+
+        assertEquals(1, executions.get());
+        assertEquals(422, other.getStatus());
+    }
+
+    @Test
+    @DisplayName("Filter: Server errors are not recorded, so the retry runs again")
+    void serverError_ShouldNotBeRecorded() throws Exception {
+        filter.doFilter(addToCart("k-3", "2"), new MockHttpServletResponse(), chain(502));
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        filter.doFilter(addToCart("k-3", "2"), retry, chain(200));
+
+        assertEquals(2, executions.get());
+        assertEquals("run 2", retry.getContentAsString());
+        verify(idempotencyRecordRepository, times(1)).save(any());
+    }
+
+    @Test
+    @DisplayName("Filter: Requests without the header are passed through untouched")
+    void withoutKey_ShouldAlwaysRun() throws Exception {
+        filter.doFilter(addToCart(null, "2"), new MockHttpServletResponse(), chain(200));
+        filter.doFilter(addToCart(null, "2"), new MockHttpServletResponse(), chain(200));
+
+        assertEquals(2, executions.get());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    @DisplayName("Filter: A retry arriving while the first request runs waits for it instead of running")
+    void concurrentRetry_ShouldWaitForFirstRequest() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slow = (request, response) -> {
+            running.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            chain(200).doFilter(request, response);
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            MockHttpServletResponse first = new MockHttpServletResponse();
+            MockHttpServletResponse second = new MockHttpServletResponse();
+            Future<?> firstDone = pool.submit(() -> {
+                filter.doFilter(addToCart("k-4", "2"), first, slow);
+                return null;
+            });
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            Future<?> secondDone = pool.submit(() -> {
+                filter.doFilter(addToCart("k-4", "2"), second, chain(200));
+                return null;
+            });
+            Thread.sleep(50); // let the retry find the key in flight
+            release.countDown();
+            firstDone.get(5, TimeUnit.SECONDS);
+            secondDone.get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, executions.get());
+            assertEquals("run 1", second.getContentAsString());
+            assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Filter: A retry whose lookup misses just before the first request completes replays instead of running")
+    void retry_WhenFirstCompletesDuringLookup_ShouldReplay() throws Exception {
+        CountDownLatch firstRunning = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch retryLookingUp = new CountDownLatch(1);
+        CountDownLatch firstCompleted = new CountDownLatch(1);
+        AtomicInteger lookups = new AtomicInteger();
+        when(idempotencyRecordRepository.findById("k-5")).thenAnswer(invocation -> {
+            if (lookups.incrementAndGet() == 3) { // the first request looks up before and after its claim
+                // the retry's table lookup is still on its way back when the first request completes
+                retryLookingUp.countDown();
+                firstCompleted.await(5, TimeUnit.SECONDS);
+            }
+            return Optional.empty();
+        });
+        FilterChain slow = (request, response) -> {
+            firstRunning.countDown();
+            try {
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            chain(200).doFilter(request, response);
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            MockHttpServletResponse first = new MockHttpServletResponse();
+            MockHttpServletResponse retry = new MockHttpServletResponse();
+            Future<?> firstDone = pool.submit(() -> {
+                filter.doFilter(addToCart("k-5", "2"), first, slow);
+                return null;
+            });
+            assertTrue(firstRunning.await(5, TimeUnit.SECONDS));
+            Future<?> retryDone = pool.submit(() -> {
+                filter.doFilter(addToCart("k-5", "2"), retry, chain(200));
+                return null;
+            });
+            assertTrue(retryLookingUp.await(5, TimeUnit.SECONDS));
+            releaseFirst.countDown();
+            firstDone.get(5, TimeUnit.SECONDS);
+            firstCompleted.countDown();
+            retryDone.get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, executions.get());
+            assertEquals("run 1", retry.getContentAsString());
+            assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
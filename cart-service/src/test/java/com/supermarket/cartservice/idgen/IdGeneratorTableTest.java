@@ -0,0 +1,102 @@
+package com.supermarket.cartservice.idgen;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdGeneratorTableTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager; // TransactionTemplate runs the callback against the mock
+
+    private IdGeneratorTable idGeneratorTable;
+
+    @BeforeEach
+    void setUp() {
+        idGeneratorTable = new IdGeneratorTable();
+        ReflectionTestUtils.setField(idGeneratorTable, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(idGeneratorTable, "transactionManager", transactionManager);
+    }
+
+    @Test
+    @DisplayName("Start: The cart_items generator is raised past the highest existing id, never lowered")
+    void start_ShouldSeedGeneratorAboveExistingIds() {
+        // Arrange
+        when(jdbcTemplate.queryForObject("SELECT COALESCE(MAX(cart_item_id), 0) + 1 FROM cart_items", Long.class)).thenReturn(1201L);
+
+        // Act
+        idGeneratorTable.start();
+
+        // Assert
+        verify(jdbcTemplate).update("INSERT INTO id_generator (sequence_name, next_val) VALUES (?, ?)"
+                + " ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, ?)", "cart_items", 1201L, 1201L);
+    }
+
+    @Test
+    @DisplayName("Reserve: Returns the lowest free id and moves the generator past the whole block")
+    void reserve_ShouldReturnFirstIdAndAdvanceByCount() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L);
+        idGeneratorTable.start();
+        when(jdbcTemplate.queryForObject(startsWith("SELECT next_val FROM id_generator"), eq(Long.class), eq("cart_items"))).thenReturn(500L);
+
+        // Act
+        long first = idGeneratorTable.reserve(IdGeneratorTable.CART_ITEMS, 120);
+
+        // Assert
+        assertEquals(500L, first);
+        verify(jdbcTemplate).update("UPDATE id_generator SET next_val = ? WHERE sequence_name = ?", 620L, "cart_items");
+    }
+
+    @Test
+    @DisplayName("Reserve: Blocks reserved for the memory store never overlap Hibernate's pooled-lo blocks")
+    void reserve_ShouldNotOverlapPooledLoBlocks() {
+        // Arrange: one id_generator row shared by reserve() and Hibernate's table generator
+        long[] nextVal = {1201L};
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1201L);
+        idGeneratorTable.start();
+        when(jdbcTemplate.queryForObject(startsWith("SELECT next_val FROM id_generator"), eq(Long.class), eq("cart_items")))
+                .thenAnswer(invocation -> nextVal[0]);
+        when(jdbcTemplate.update(eq("UPDATE id_generator SET next_val = ? WHERE sequence_name = ?"), anyLong(), eq("cart_items")))
+                .thenAnswer(invocation -> {
+                    nextVal[0] = invocation.getArgument(1);
+                    return 1;
+                });
+        List<long[]> blocks = new ArrayList<>(); // [first, last] of every block handed out
+
+        // Act: pooled-lo reads next_val, writes next_val + ALLOCATION_SIZE and uses the ids in between
+        for (int count : new int[] {120, 1, 49, 50, 7}) {
+            long pooled = nextVal[0];
+            nextVal[0] = pooled + IdGeneratorTable.ALLOCATION_SIZE;
+            blocks.add(new long[] {pooled, pooled + IdGeneratorTable.ALLOCATION_SIZE - 1});
+            long first = idGeneratorTable.reserve(IdGeneratorTable.CART_ITEMS, count);
+            blocks.add(new long[] {first, first + count - 1});
+        }
+
+        // Assert: sorted by first id, each block starts right after the previous one ends
+        blocks.sort(Comparator.comparingLong(block -> block[0]));
+        assertEquals(1201L, blocks.get(0)[0]);
+        for (int i = 1; i < blocks.size(); i++) {
+            assertEquals(blocks.get(i - 1)[1] + 1, blocks.get(i)[0]);
+        }
+        assertEquals(blocks.get(blocks.size() - 1)[1] + 1, nextVal[0]);
+    }
+}
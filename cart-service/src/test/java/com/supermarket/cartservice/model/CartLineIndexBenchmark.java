@@ -0,0 +1,65 @@
+package com.supermarket.cartservice.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Line lookup cost in large carts: the indexed Cart lookups against the stream scan they replace.
+// Each round looks up every line once by id and once by name, in random order. Run with:
+//   mvn test -Dtest=CartLineIndexBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CartLineIndexBenchmark {
+
+    private static final int[] CART_SIZES = {10, 100, 500, 2000};
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 5_000;
+
+    private static Cart cartOf(int lines) {
+        Cart cart = new Cart(1, 1, 0.0, new ArrayList<>());
+        for (int i = 1; i <= lines; i++) {
+            cart.addItem(new CartItems(i, cart, i, "Product " + i, 1.0, 1, 1.0));
+        }
+        return cart;
+    }
+
+    private static long scan(Cart cart, int prodId, String prodName) {
+        CartItems byId = cart.getItems().stream().filter(item -> item.getProdId() == prodId).findFirst().orElseThrow();
+        CartItems byName = cart.getItems().stream().filter(item -> item.getProdName().equalsIgnoreCase(prodName)).findFirst().orElseThrow();
+        return byId.getCartItemId() + byName.getCartItemId();
+    }
+
+    private static long indexed(Cart cart, int prodId, String prodName) {
+        return cart.findItemByProdId(prodId).getCartItemId() + cart.findItemByName(prodName).getCartItemId();
+    }
+
+    // Nanoseconds per lookup pair.
+    private static double measure(Cart cart, int[] order, boolean useIndex, int rounds) {
+        long sink = 0;
+        long started = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            int prodId = order[round % order.length];
+            String prodName = "product " + prodId;
+            sink += useIndex ? indexed(cart, prodId, prodName) : scan(cart, prodId, prodName);
+        }
+        long elapsed = System.nanoTime() - started;
+        assertTrue(sink > 0); // keeps the lookups from being optimised away
+        return (double) elapsed / rounds;
+    }
+
+    @Test
+    void compareLookups() {
+        for (int size : CART_SIZES) {
+            Cart cart = cartOf(size);
+            int[] order = ThreadLocalRandom.current().ints(1024, 1, size + 1).toArray();
+            measure(cart, order, false, WARMUP_ROUNDS);
+            measure(cart, order, true, WARMUP_ROUNDS);
+            double scan = measure(cart, order, false, MEASURED_ROUNDS);
+            double index = measure(cart, order, true, MEASURED_ROUNDS);
+            System.out.printf("cart lines=%d: stream scan %.0f ns, index %.0f ns per lookup pair (%.1fx)%n", size, scan, index, scan / index);
+        }
+    }
+}
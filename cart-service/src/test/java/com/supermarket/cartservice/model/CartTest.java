@@ -0,0 +1,61 @@
+package com.supermarket.cartservice.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartTest {
+
+    private static CartItems line(Cart cart, int prodId, String prodName) {
+        return new CartItems(prodId, cart, prodId, prodName, 1.0, 1, 1.0);
+    }
+
+    @Test
+    @DisplayName("FindItem: Lines are found by id and by name regardless of case and surrounding spaces")
+    void findItem_ShouldUseIndex() {
+        Cart cart = new Cart(1, 1, 0.0, new ArrayList<>());
+        CartItems milk = line(cart, 10, "Milk");
+        cart.addItem(milk);
+        cart.addItem(line(cart, 11, "Bread"));
+
+        assertSame(milk, cart.findItemByProdId(10));
+        assertSame(milk, cart.findItemByName(" mILK "));
+        assertNull(cart.findItemByName("Eggs"));
+        assertNull(cart.findItemByProdId(99));
+    }
+
+    @Test
+    @DisplayName("RemoveItem: Removed lines drop out of the index, cleared carts have none")
+    void removeItem_ShouldMaintainIndex() {
+        Cart cart = new Cart(1, 1, 0.0, new ArrayList<>());
+        CartItems milk = line(cart, 10, "Milk");
+        cart.addItem(milk);
+        cart.addItem(line(cart, 11, "Bread"));
+
+        cart.removeItem(milk);
+        assertNull(cart.findItemByProdId(10));
+        assertNull(cart.findItemByName("Milk"));
+        assertEquals(List.of(11), cart.getItems().stream().map(CartItems::getProdId).toList());
+
+        cart.clearItems();
+        assertNull(cart.findItemByName("Bread"));
+    }
+
+    @Test
+    @DisplayName("FindItem: Lines added straight to the list or via setItems are picked up")
+    void findItem_AfterDirectListChange_ShouldRebuild() {
+        Cart cart = new Cart(1, 1, 0.0, new ArrayList<>());
+        assertNull(cart.findItemByProdId(10));
+
+        cart.getItems().add(line(cart, 10, "Milk"));
+        assertNotNull(cart.findItemByProdId(10));
+
+        cart.setItems(new ArrayList<>(List.of(line(cart, 12, "Eggs"))));
+        assertNull(cart.findItemByProdId(10));
+        assertNotNull(cart.findItemByName("eggs"));
+    }
+}
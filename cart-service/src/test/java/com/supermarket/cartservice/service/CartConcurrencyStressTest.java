@@ -0,0 +1,112 @@
+package com.supermarket.cartservice.service;
+
+import com.supermarket.cartservice.dto.ProductResponse;
+import com.supermarket.cartservice.exception.CartOperationException;
+import com.supermarket.cartservice.exception.ResourceNotFoundException;
+import com.supermarket.cartservice.feign.InventoryServiceClient;
+import com.supermarket.cartservice.model.Cart;
+import com.supermarket.cartservice.model.CartItems;
+import com.supermarket.cartservice.repository.CartRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Billers and the customer app hammering the same carts at once. Whatever interleaving the
+// threads produce, each cart's stored total must equal the sum of its stored lines. Needs the
+// database from application.properties; run with:
+//   mvn test -Dtest=CartConcurrencyStressTest -Dstress=true
+@SpringBootTest(properties = {"cart.store=jpa", "cart.product-cache.feed-enabled=false"})
+@EnabledIfSystemProperty(named = "stress", matches = "true")
+class CartConcurrencyStressTest {
+
+    private static final int THREADS = 12;
+    private static final int OPERATIONS_PER_THREAD = 300;
+    private static final int CARTS = 3;
+    private static final String[] PRODUCTS = {"stress1", "stress2", "stress3", "stress4"};
+
+    @Autowired
+    private CartServiceImpl cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @MockBean
+    private InventoryServiceClient inventoryServiceClient;
+
+    @Test
+    void concurrentEdits_ShouldKeepTotalEqualToSumOfLines() throws Exception {
+        // prices are exact binary fractions, so the sums compare without rounding noise
+        when(inventoryServiceClient.getProductByProdName(anyString())).thenAnswer(invocation -> product(invocation.getArgument(0)));
+        when(inventoryServiceClient.getProductById(anyInt())).thenAnswer(invocation -> product("stress" + invocation.getArgument(0)));
+
+        int firstUserId = 4_000_000 + ThreadLocalRandom.current().nextInt(100_000) * 10;
+        for (int c = 0; c < CARTS; c++) {
+            cartService.addToCart(firstUserId + c, PRODUCTS[0], 1);
+        }
+
+        AtomicInteger gaveUp = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    int userId = firstUserId + random.nextInt(CARTS);
+                    String prodName = PRODUCTS[random.nextInt(PRODUCTS.length)];
+                    try {
+                        switch (random.nextInt(5)) {
+                            case 0 -> cartService.addToCart(userId, prodName, 1 + random.nextInt(3));
+                            case 1 -> cartService.increaseQuantity(userId, prodName);
+                            case 2 -> cartService.decreaseQuantity(userId, prodName);
+                            case 3 -> cartService.setQuantity(userId, prodName, random.nextInt(6));
+                            default -> cartService.removeItemFromCart(userId, prodName);
+                        }
+                    } catch (ResourceNotFoundException | CartOperationException expected) {
+                        // the line was removed by another thread, or the cap was hit; both are fine
+                    } catch (OptimisticLockingFailureException e) {
+                        gaveUp.incrementAndGet(); // allowed, as long as nothing half-applied was committed
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        for (int c = 0; c < CARTS; c++) {
+            Cart cart = cartRepository.findByUserId(firstUserId + c).orElseThrow();
+            double sumOfLines = cart.getItems().stream().mapToDouble(CartItems::getTotalPrice).sum();
+            assertEquals(sumOfLines, cart.getCartTotalPrice(), 1e-9, "cart total drifted from its lines for user " + (firstUserId + c));
+            for (CartItems item : cart.getItems()) {
+                assertEquals(item.getPrice() * item.getQuantity(), item.getTotalPrice(), 1e-9);
+            }
+        }
+        System.out.printf("cart stress: %d operations, %d gave up after %d attempts%n",
+                THREADS * OPERATIONS_PER_THREAD, gaveUp.get(), CartServiceImpl.MAX_CART_UPDATE_ATTEMPTS);
+
+        for (int c = 0; c < CARTS; c++) {
+            cartService.deleteCart(cartService.getCartIdByUserId(firstUserId + c));
+        }
+    }
+
+    private static ProductResponse product(String prodName) {
+        int prodId = Integer.parseInt(prodName.substring("stress".length()));
+        return new ProductResponse(prodId, prodName, 0.25 * (prodId + 1), 1_000);
+    }
+}
@@ -1,6 +1,10 @@
 package com.supermarket.cartservice.service;
 
+import com.supermarket.cartservice.cache.ProductCache;
+import com.supermarket.cartservice.dto.CartLineRequest;
+import com.supermarket.cartservice.dto.CheckoutSnapshot;
 import com.supermarket.cartservice.dto.ProductResponse;
+import com.supermarket.cartservice.event.CartChangeEvent;
 import com.supermarket.cartservice.exception.CartOperationException;
 import com.supermarket.cartservice.exception.OperationFailedException;
 import com.supermarket.cartservice.exception.ResourceNotFoundException;
@@ -9,6 +13,7 @@ import com.supermarket.cartservice.model.Cart;
 import com.supermarket.cartservice.model.CartItems;
 import com.supermarket.cartservice.repository.CartItemsRepository;
 import com.supermarket.cartservice.repository.CartRepository;
+import com.supermarket.cartservice.store.MemoryCartStore;
 import feign.FeignException;
 import feign.Request;
 import feign.RequestTemplate;
@@ -18,19 +23,31 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -49,6 +66,10 @@ class CartServiceImplTest {
     private CartItemsRepository cartItemsRepository;
     @Mock
     private InventoryServiceClient inventoryServiceClient;
+    @Mock
+    private PlatformTransactionManager transactionManager; // TransactionTemplate runs the callback against the mock
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private CartServiceImpl cartService;
     @Captor
@@ -69,6 +90,13 @@ class CartServiceImplTest {
         // Sample items
         sampleCartItem1 = new CartItems(1, sampleCart, prod1Id, prod1Name, prod1Price, 1, prod1Price);
         sampleCartItem2 = new CartItems(2, sampleCart, prod2Id, prod2Name, 75.0, 2, 150.0);
+        // A real, empty cache in front of the mocked client, so every test starts with misses
+        ProductCache productCache = new ProductCache();
+        ReflectionTestUtils.setField(productCache, "inventoryServiceClient", inventoryServiceClient);
+        ReflectionTestUtils.setField(productCache, "ttlMillis", 60_000L);
+        ReflectionTestUtils.setField(productCache, "refreshAheadMillis", 1_000L);
+        ReflectionTestUtils.setField(productCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(cartService, "productCache", productCache);
     }
 
     // Helper to create a FeignException.NotFound
@@ -149,7 +177,7 @@ class CartServiceImplTest {
 
 
     @Test
-    @DisplayName("AddToCart: Success updates quantity of existing item")
+    @DisplayName("AddToCart: Success updates quantity of existing item with a single inventory call")
     void addToCart_ExistingCartExistingItem_Success() {
         // Arrange
         int initialQuantity = 1;
@@ -164,7 +192,6 @@ class CartServiceImplTest {
         sampleCart.setCartTotalPrice(initialCartTotal);
 
         when(inventoryServiceClient.getProductByProdName(prod1Name)).thenReturn(sampleProduct1Response); // Stock = 50
-        when(inventoryServiceClient.getProductById(prod1Id)).thenReturn(sampleProduct1Response); // Stock check for update
         when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
         when(cartItemsRepository.save(any(CartItems.class))).thenAnswer(i -> i.getArgument(0));
         when(cartRepository.save(any(Cart.class))).thenReturn(sampleCart);
@@ -174,7 +201,7 @@ class CartServiceImplTest {
 
         // Assert
         verify(inventoryServiceClient).getProductByProdName(prod1Name);
-        verify(inventoryServiceClient).getProductById(prod1Id);
+        verify(inventoryServiceClient, never()).getProductById(anyInt()); // stock checked on the snapshot just fetched
         verify(cartRepository).findByUserId(userId);
         verify(cartRepository).save(cartCaptor.capture());
         assertEquals(initialCartTotal + (prod1Price * quantityToAdd), cartCaptor.getValue().getCartTotalPrice());
@@ -219,6 +246,157 @@ class CartServiceImplTest {
     }
 
 
+    // --- addToCartBulk Tests ---
+
+    @Test
+    @DisplayName("AddToCartBulk: Resolves all lines in one inventory call, merges duplicates and saves once")
+    void addToCartBulk_ShouldMergeLinesAndSaveOnce() {
+        // Arrange
+        sampleCartItem1.setQuantity(1);
+        sampleCart.getItems().add(sampleCartItem1);
+        sampleCart.setCartTotalPrice(prod1Price);
+
+        when(inventoryServiceClient.getProductsByProdNames(List.of(prod1Name, prod2Name)))
+                .thenReturn(List.of(sampleProduct1Response, sampleProduct2Response));
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+
+        // Act
+        cartService.addToCartBulk(userId, List.of(
+                new CartLineRequest(prod1Name, 2),
+                new CartLineRequest(prod2Name, 3),
+                new CartLineRequest(prod1Name.toLowerCase(), 1)));
+
+        // Assert
+        verify(inventoryServiceClient, times(1)).getProductsByProdNames(anyList());
+        verifyNoMoreInteractions(inventoryServiceClient);
+        verify(cartItemsRepository).saveAll(anyList());
+        verify(cartRepository, times(1)).save(cartCaptor.capture());
+        Cart saved = cartCaptor.getValue();
+        assertEquals(2, saved.getItems().size());
+        assertEquals(4, saved.getItems().get(0).getQuantity());
+        assertEquals(3, saved.getItems().get(1).getQuantity());
+        assertEquals(prod1Price * 4 + 75.0 * 3, saved.getCartTotalPrice());
+    }
+
+    @Test
+    @DisplayName("AddToCartBulk: Throws ResourceNotFoundException naming unknown products and adds nothing")
+    void addToCartBulk_WithUnknownProduct_ShouldAddNothing() {
+        // Arrange
+        when(inventoryServiceClient.getProductsByProdNames(List.of(prod1Name, "Unknown"))).thenReturn(List.of(sampleProduct1Response));
+
+        // Act & Assert
+        ResourceNotFoundException thrown = assertThrows(ResourceNotFoundException.class, () -> cartService.addToCartBulk(userId,
+                List.of(new CartLineRequest(prod1Name, 1), new CartLineRequest("Unknown", 1))));
+        assertTrue(thrown.getMessage().contains("Unknown"));
+        verifyNoInteractions(cartRepository, cartItemsRepository);
+    }
+
+    @Test
+    @DisplayName("AddToCartBulk: Throws CartOperationException when any line exceeds stock")
+    void addToCartBulk_WhenStockInsufficient_ShouldThrow() {
+        // Arrange
+        when(inventoryServiceClient.getProductsByProdNames(List.of(prod2Name))).thenReturn(List.of(sampleProduct2Response)); // Stock 100
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+
+        // Act & Assert
+        assertThrows(CartOperationException.class, () -> cartService.addToCartBulk(userId, List.of(new CartLineRequest(prod2Name, 101))));
+        verify(cartRepository, never()).save(any());
+        verifyNoInteractions(cartItemsRepository);
+    }
+
+    // --- setQuantity Tests ---
+
+    @Test
+    @DisplayName("SetQuantity: Sets an existing item's quantity outright and adjusts the total")
+    void setQuantity_WhenItemExists_ShouldSetAbsoluteQuantity() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem2); // qty 2, price 75
+        sampleCart.setCartTotalPrice(150.0);
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+        when(inventoryServiceClient.getProductById(prod2Id)).thenReturn(sampleProduct2Response);
+
+        // Act
+        cartService.setQuantity(userId, prod2Name, 12);
+
+        // Assert
+        verify(cartItemsRepository).save(cartItemsCaptor.capture());
+        verify(cartRepository).save(cartCaptor.capture());
+        assertEquals(12, cartItemsCaptor.getValue().getQuantity());
+        assertEquals(900.0, cartItemsCaptor.getValue().getTotalPrice());
+        assertEquals(900.0, cartCaptor.getValue().getCartTotalPrice());
+    }
+
+    @Test
+    @DisplayName("SetQuantity: Adds the product when it is not in the cart yet")
+    void setQuantity_WhenItemMissing_ShouldAddLine() {
+        // Arrange
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+        when(inventoryServiceClient.getProductByProdName(prod1Name)).thenReturn(sampleProduct1Response);
+
+        // Act
+        cartService.setQuantity(userId, prod1Name, 3);
+
+        // Assert
+        verify(cartItemsRepository).save(cartItemsCaptor.capture());
+        assertEquals(3, cartItemsCaptor.getValue().getQuantity());
+        assertEquals(prod1Price * 3, sampleCart.getCartTotalPrice());
+    }
+
+    @Test
+    @DisplayName("SetQuantity: Zero removes the item")
+    void setQuantity_Zero_ShouldRemoveItem() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem2);
+        sampleCart.setCartTotalPrice(150.0);
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+
+        // Act
+        cartService.setQuantity(userId, prod2Name, 0);
+
+        // Assert
+        verify(cartItemsRepository).delete(sampleCartItem2);
+        assertTrue(sampleCart.getItems().isEmpty());
+        assertEquals(0.0, sampleCart.getCartTotalPrice());
+        verifyNoInteractions(inventoryServiceClient);
+    }
+
+    @Test
+    @DisplayName("SetQuantity: Throws CartOperationException above available stock")
+    void setQuantity_AboveStock_ShouldThrow() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem2);
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+        when(inventoryServiceClient.getProductById(prod2Id)).thenReturn(sampleProduct2Response); // Stock 100
+
+        // Act & Assert
+        assertThrows(CartOperationException.class, () -> cartService.setQuantity(userId, prod2Name, 101));
+        verifyNoInteractions(cartItemsRepository);
+        assertEquals(2, sampleCartItem2.getQuantity());
+    }
+
+    @Test
+    @DisplayName("SetQuantity: The product is resolved once, before the transaction opens, even across a retry")
+    void setQuantity_OnVersionConflict_ShouldResolveProductOnceBeforeTransaction() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem2);
+        sampleCart.setCartTotalPrice(150.0);
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+        when(inventoryServiceClient.getProductById(prod2Id)).thenReturn(sampleProduct2Response);
+        when(cartRepository.save(any(Cart.class)))
+                .thenThrow(new OptimisticLockingFailureException("cart changed"))
+                .thenAnswer(i -> i.getArgument(0));
+
+        // Act
+        cartService.setQuantity(userId, prod2Name, 5);
+
+        // Assert
+        InOrder order = inOrder(inventoryServiceClient, transactionManager);
+        order.verify(inventoryServiceClient).getProductById(prod2Id);
+        order.verify(transactionManager, times(2)).getTransaction(any());
+        verify(inventoryServiceClient, times(1)).getProductById(prod2Id);
+        assertEquals(5, sampleCartItem2.getQuantity());
+    }
+
     // --- getCartByUserId Tests ---
     @Test
     @DisplayName("GetCartByUserId: Success returns cart")
@@ -258,7 +436,7 @@ class CartServiceImplTest {
         cartService.increaseQuantity(userId, prod1Name);
 
         // Assert
-        verify(cartRepository).findByUserId(userId);
+        verify(cartRepository, times(2)).findByUserId(userId); // the stock lookup, then the change
         verify(inventoryServiceClient).getProductById(prod1Id);
         verify(cartItemsRepository).save(cartItemsCaptor.capture());
         verify(cartRepository).save(cartCaptor.capture());
@@ -268,6 +446,48 @@ class CartServiceImplTest {
         assertEquals(prod1Price * 2, cartCaptor.getValue().getCartTotalPrice()); // Cart total updated
     }
 
+    @Test
+    @DisplayName("IncreaseQuantity: The new cart state is published for the cart streams")
+    void increaseQuantity_ShouldPublishCartChange() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem1);
+        sampleCart.setCartTotalPrice(sampleCartItem1.getTotalPrice());
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+        when(inventoryServiceClient.getProductById(prod1Id)).thenReturn(new ProductResponse(prod1Id, prod1Name, prod1Price, 10));
+
+        // Act
+        cartService.increaseQuantity(userId, prod1Name);
+
+        // Assert
+        ArgumentCaptor<CartChangeEvent> eventCaptor = ArgumentCaptor.forClass(CartChangeEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        CartChangeEvent event = eventCaptor.getValue();
+        assertEquals(userId, event.getUserId());
+        assertEquals(prod1Price * 2, event.getCartTotal());
+        assertEquals(1, event.getLines().size());
+        assertEquals(2, event.getLines().get(0).getQuantity());
+    }
+
+    @Test
+    @DisplayName("IncreaseQuantity: Repeated clicks reuse the cached product instead of calling inventory each time")
+    void increaseQuantity_RepeatedClicks_ShouldCallInventoryOnce() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem1);
+        sampleCart.setCartTotalPrice(sampleCartItem1.getTotalPrice());
+
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+        when(inventoryServiceClient.getProductById(prod1Id)).thenReturn(new ProductResponse(prod1Id, prod1Name, prod1Price, 10));
+
+        // Act
+        cartService.increaseQuantity(userId, prod1Name);
+        cartService.increaseQuantity(userId, prod1Name);
+        cartService.increaseQuantity(userId, prod1Name);
+
+        // Assert
+        verify(inventoryServiceClient, times(1)).getProductById(prod1Id);
+        assertEquals(4, sampleCartItem1.getQuantity());
+    }
+
     @Test
     @DisplayName("IncreaseQuantity: Throws ResourceNotFoundException if item not in cart")
     void increaseQuantity_WhenItemNotInCart_ThrowsResourceNotFoundException() {
@@ -297,13 +517,56 @@ class CartServiceImplTest {
         assertThrows(CartOperationException.class, () -> {
             cartService.increaseQuantity(userId, prod1Name);
         });
-        verify(cartRepository).findByUserId(userId);
+        verify(cartRepository, times(2)).findByUserId(userId);
         verify(inventoryServiceClient).getProductById(prod1Id);
         verify(cartItemsRepository, never()).save(any()); // Save not called
         verify(cartRepository, never()).save(cartCaptor.capture()); // Cart total save not called
     }
 
 
+    @Test
+    @DisplayName("IncreaseQuantity: A version conflict is retried on the fresh cart with its total rebuilt from the lines")
+    void increaseQuantity_OnVersionConflict_ShouldRetryWithRecomputedTotal() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem1); // qty 1
+        sampleCart.setCartTotalPrice(prod1Price);
+        Cart freshCart = new Cart(cartId, userId, 999.0, new ArrayList<>()); // total out of step with its lines
+        freshCart.getItems().add(new CartItems(1, freshCart, prod1Id, prod1Name, prod1Price, 2, prod1Price * 2));
+
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart), Optional.of(sampleCart), Optional.of(freshCart));
+        when(inventoryServiceClient.getProductById(prod1Id)).thenReturn(new ProductResponse(prod1Id, prod1Name, prod1Price, 10));
+        when(cartRepository.save(any(Cart.class)))
+                .thenThrow(new OptimisticLockingFailureException("cart changed"))
+                .thenAnswer(i -> i.getArgument(0));
+
+        // Act
+        cartService.increaseQuantity(userId, prod1Name);
+
+        // Assert
+        verify(cartRepository, times(3)).findByUserId(userId); // the stock lookup, then one read per attempt
+        verify(inventoryServiceClient, times(1)).getProductById(prod1Id);
+        verify(cartRepository, times(2)).save(cartCaptor.capture());
+        Cart saved = cartCaptor.getValue();
+        assertSame(freshCart, saved);
+        assertEquals(3, saved.getItems().get(0).getQuantity());
+        assertEquals(prod1Price * 3, saved.getCartTotalPrice());
+    }
+
+    @Test
+    @DisplayName("IncreaseQuantity: Gives up with the conflict after the bounded number of attempts")
+    void increaseQuantity_WhenConflictPersists_ShouldThrowAfterMaxAttempts() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem1);
+        sampleCart.setCartTotalPrice(prod1Price);
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+        when(inventoryServiceClient.getProductById(prod1Id)).thenReturn(new ProductResponse(prod1Id, prod1Name, prod1Price, 100));
+        when(cartRepository.save(any(Cart.class))).thenThrow(new OptimisticLockingFailureException("cart changed"));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> cartService.increaseQuantity(userId, prod1Name));
+        verify(cartRepository, times(CartServiceImpl.MAX_CART_UPDATE_ATTEMPTS + 1)).findByUserId(userId);
+    }
+
     // --- decreaseQuantity Tests ---
     @Test
     @DisplayName("DecreaseQuantity: Success decreases quantity > 1")
@@ -375,14 +638,13 @@ class CartServiceImplTest {
 
     // --- removeItemFromCart Tests ---
     @Test
-    @DisplayName("RemoveItemFromCart: Success removes item")
+    @DisplayName("RemoveItemFromCart: Success removes item found in the loaded cart without a second query")
     void removeItemFromCart_WhenItemExists_RemovesItemAndUpdatesTotal() {
         // Arrange
         sampleCart.getItems().add(sampleCartItem1);
         sampleCart.setCartTotalPrice(sampleCartItem1.getTotalPrice()); // 1200
 
         when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
-        when(cartItemsRepository.findByCartCartIdAndProdName(cartId, prod1Name)).thenReturn(Optional.of(sampleCartItem1));
         doNothing().when(cartItemsRepository).delete(sampleCartItem1);
         when(cartRepository.save(any(Cart.class))).thenReturn(sampleCart);
 
@@ -391,7 +653,7 @@ class CartServiceImplTest {
 
         // Assert
         verify(cartRepository).findByUserId(userId);
-        verify(cartItemsRepository).findByCartCartIdAndProdName(cartId, prod1Name);
+        verify(cartItemsRepository, never()).findByCartCartIdAndProdName(anyInt(), any());
         verify(cartItemsRepository).delete(sampleCartItem1);
         verify(cartRepository).save(cartCaptor.capture());
         assertEquals(0.0, cartCaptor.getValue().getCartTotalPrice()); // Cart total should be 0
@@ -403,14 +665,12 @@ class CartServiceImplTest {
     void removeItemFromCart_WhenItemNotFound_ThrowsResourceNotFoundException() {
         // Arrange
         when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart)); // Cart exists
-        when(cartItemsRepository.findByCartCartIdAndProdName(cartId, prod1Name)).thenReturn(Optional.empty()); // Item not found
 
         // Act & Assert
         assertThrows(ResourceNotFoundException.class, () -> {
             cartService.removeItemFromCart(userId, prod1Name);
         });
         verify(cartRepository).findByUserId(userId);
-        verify(cartItemsRepository).findByCartCartIdAndProdName(cartId, prod1Name);
         verify(cartItemsRepository, never()).delete(any());
         verify(cartRepository, never()).save(any());
     }
@@ -440,7 +700,7 @@ class CartServiceImplTest {
         verify(inventoryServiceClient).reduceStock(sampleCartItem2.getProdId(), sampleCartItem2.getQuantity());
         // Verify items deleted and cart saved
         verify(cartItemsRepository).deleteByCart_CartId(cartId);
-        verify(cartRepository, times(2)).save(cartCaptor.capture()); // Once for initial total reset, once for final save
+        verify(cartRepository).save(cartCaptor.capture()); // Only the final save; nothing is written before stock is reduced
         assertEquals(0.0, cartCaptor.getValue().getCartTotalPrice()); // Final total is 0
         assertTrue(cartCaptor.getValue().getItems().isEmpty()); // Items list cleared
     }
@@ -464,9 +724,154 @@ class CartServiceImplTest {
         verify(cartRepository).findByUserId(userId);
         verify(inventoryServiceClient).reduceStock(sampleCartItem1.getProdId(), sampleCartItem1.getQuantity()); // Called once before failing
         verify(cartItemsRepository, never()).deleteByCart_CartId(anyInt()); // Deletion should not happen
-        verify(cartRepository, times(1)).save(any()); // Only initial total reset save might happen
+        verify(cartRepository, never()).save(any()); // The cart is untouched
+        verify(inventoryServiceClient, never()).restock(anyInt(), anyInt()); // Nothing was reduced, so nothing to undo
+    }
+
+    @Test
+    @DisplayName("ClearCart: A failed reduction restocks the lines already reduced and leaves the cart alone")
+    void clearCart_WhenOneReductionFails_ShouldRestockTheOthers() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(cartService, "stockFanout", 4);
+        sampleCart.getItems().add(sampleCartItem1);
+        sampleCart.getItems().add(sampleCartItem2);
+        sampleCart.setCartTotalPrice(sampleCartItem1.getTotalPrice() + sampleCartItem2.getTotalPrice());
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+        CountDownLatch firstReduced = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            firstReduced.countDown();
+            return null;
+        }).when(inventoryServiceClient).reduceStock(prod1Id, 1);
+        doAnswer(invocation -> {
+            firstReduced.await(5, TimeUnit.SECONDS); // fail only once the other line has gone through
+            throw createFeignNotFoundException();
+        }).when(inventoryServiceClient).reduceStock(prod2Id, 2);
+
+        // Act & Assert
+        assertThrows(OperationFailedException.class, () -> cartService.clearCart(userId));
+
+        verify(inventoryServiceClient).restock(prod1Id, 1);
+        verify(inventoryServiceClient, never()).restock(eq(prod2Id), anyInt());
+        verify(cartItemsRepository, never()).deleteByCart_CartId(anyInt());
+        verify(cartRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("ClearCart: A cart changed during checkout gets its stock back and the conflict is reported")
+    void clearCart_WhenCartChangedDuringCheckout_ShouldRestockAndThrow() {
+        // Arrange
+        ReflectionTestUtils.setField(cartService, "stockFanout", 4);
+        sampleCart.getItems().add(sampleCartItem1);
+        sampleCart.getItems().add(sampleCartItem2);
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(sampleCart));
+        when(cartRepository.save(any(Cart.class))).thenThrow(new OptimisticLockingFailureException("cart version changed"));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> cartService.clearCart(userId, 3));
+
+        verify(inventoryServiceClient).reduceStock(prod1Id, 1, 3);
+        verify(inventoryServiceClient).reduceStock(prod2Id, 2, 3);
+        verify(inventoryServiceClient).restock(prod1Id, 1, 3);
+        verify(inventoryServiceClient).restock(prod2Id, 2, 3);
+    }
+
+
+    // --- in-memory store: no inventory call while a cart is locked ---
+
+    // A copy of the cart as MemoryCartStore hands it out.
+    private static Cart copyOf(Cart source) {
+        Cart cart = new Cart(source.getCartId(), source.getUserId(), source.getCartTotalPrice(), new ArrayList<>());
+        for (CartItems item : source.getItems()) {
+            cart.getItems().add(new CartItems(item.getCartItemId(), cart, item.getProdId(), item.getProdName(), item.getPrice(), item.getQuantity(), item.getTotalPrice()));
+        }
+        return cart;
     }
 
+    // Installs a MemoryCartStore whose update runs the mutation on cart with cartLocked set, as the
+    // real store runs it under the cart's lock.
+    private AtomicBoolean useMemoryStore(Cart cart) {
+        AtomicBoolean cartLocked = new AtomicBoolean();
+        MemoryCartStore store = mock(MemoryCartStore.class);
+        lenient().when(store.find(userId)).thenAnswer(invocation -> Optional.of(copyOf(cart)));
+        lenient().when(store.get(userId)).thenAnswer(invocation -> copyOf(cart));
+        when(store.update(eq(userId), anyBoolean(), any())).thenAnswer(invocation -> {
+            cartLocked.set(true);
+            try {
+                return invocation.<Function<Cart, Object>>getArgument(2).apply(cart);
+            } finally {
+                cartLocked.set(false);
+            }
+        });
+        ReflectionTestUtils.setField(cartService, "memoryCartStore", store);
+        return cartLocked;
+    }
+
+    @Test
+    @DisplayName("MemoryStore: setQuantity and increaseQuantity look the product up before the cart is locked")
+    void memoryStore_QuantityChanges_ShouldResolveProductOutsideLock() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem1);
+        sampleCart.setCartTotalPrice(prod1Price);
+        AtomicBoolean cartLocked = useMemoryStore(sampleCart);
+        List<Boolean> lockedDuringLookup = new ArrayList<>();
+        when(inventoryServiceClient.getProductById(prod1Id)).thenAnswer(invocation -> {
+            lockedDuringLookup.add(cartLocked.get());
+            return sampleProduct1Response;
+        });
+        when(inventoryServiceClient.getProductByProdName(prod2Name)).thenAnswer(invocation -> {
+            lockedDuringLookup.add(cartLocked.get());
+            return sampleProduct2Response;
+        });
+
+        // Act
+        cartService.increaseQuantity(userId, prod1Name);
+        cartService.setQuantity(userId, prod2Name, 3);
+
+        // Assert
+        assertEquals(List.of(false, false), lockedDuringLookup);
+        assertEquals(2, sampleCartItem1.getQuantity());
+        assertEquals(prod1Price * 2 + 75.0 * 3, sampleCart.getCartTotalPrice());
+    }
+
+    @Test
+    @DisplayName("MemoryStore: clearCart reduces stock before the cart is locked, then empties it")
+    void memoryStore_ClearCart_ShouldReduceStockOutsideLock() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem1);
+        sampleCart.getItems().add(sampleCartItem2);
+        AtomicBoolean cartLocked = useMemoryStore(sampleCart);
+        List<Boolean> lockedDuringReduce = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            lockedDuringReduce.add(cartLocked.get());
+            return null;
+        }).when(inventoryServiceClient).reduceStock(anyInt(), anyInt());
+
+        // Act
+        cartService.clearCart(userId);
+
+        // Assert
+        assertEquals(List.of(false, false), lockedDuringReduce);
+        assertTrue(sampleCart.getItems().isEmpty());
+        assertEquals(0.0, sampleCart.getCartTotalPrice());
+    }
+
+    @Test
+    @DisplayName("MemoryStore: A cart changed while its stock was reduced gets the stock back and the conflict is reported")
+    void memoryStore_ClearCart_WhenCartChangedDuringCheckout_ShouldRestockAndThrow() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem1);
+        useMemoryStore(sampleCart);
+        doAnswer(invocation -> {
+            sampleCartItem1.setQuantity(5); // another till adds to the cart meanwhile
+            return null;
+        }).when(inventoryServiceClient).reduceStock(prod1Id, 1);
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> cartService.clearCart(userId));
+
+        verify(inventoryServiceClient).restock(prod1Id, 1);
+        assertEquals(1, sampleCart.getItems().size());
+    }
 
     // --- deleteCart Tests ---
     @Test
@@ -552,4 +957,39 @@ class CartServiceImplTest {
         verify(cartRepository).findByUserId(userId);
     }
 
+    // --- getCheckoutSnapshot Tests ---
+    @Test
+    @DisplayName("GetCheckoutSnapshot: Returns cart id, version and lines from one read")
+    void getCheckoutSnapshot_WhenCartExists_ReturnsSnapshot() {
+        // Arrange
+        sampleCart.getItems().add(sampleCartItem1);
+        sampleCart.getItems().add(sampleCartItem2);
+        sampleCart.setCartTotalPrice(sampleCartItem1.getTotalPrice() + sampleCartItem2.getTotalPrice());
+        sampleCart.setVersion(7);
+        when(cartRepository.findWithItemsByUserId(userId)).thenReturn(Optional.of(sampleCart));
+
+        // Act
+        CheckoutSnapshot result = cartService.getCheckoutSnapshot(userId);
+
+        // Assert
+        assertEquals(sampleCart.getCartId(), result.getCartId());
+        assertEquals(userId, result.getUserId());
+        assertEquals(7, result.getVersion());
+        assertEquals(sampleCart.getCartTotalPrice(), result.getCartTotalPrice());
+        assertEquals(2, result.getItems().size());
+        assertEquals(prod1Id, result.getItems().get(0).getProdId());
+        assertEquals(sampleCartItem1.getQuantity(), result.getItems().get(0).getQuantity());
+        verify(cartRepository, never()).findByUserId(anyInt());
+    }
+
+    @Test
+    @DisplayName("GetCheckoutSnapshot: Throws ResourceNotFoundException if cart not found")
+    void getCheckoutSnapshot_WhenCartNotFound_ThrowsResourceNotFoundException() {
+        // Arrange
+        when(cartRepository.findWithItemsByUserId(userId)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> cartService.getCheckoutSnapshot(userId));
+    }
+
 }
\ No newline at end of file
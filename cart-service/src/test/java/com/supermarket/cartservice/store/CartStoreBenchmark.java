@@ -0,0 +1,96 @@
+package com.supermarket.cartservice.store;
+
+import com.supermarket.cartservice.dto.ProductResponse;
+import com.supermarket.cartservice.feign.InventoryServiceClient;
+import com.supermarket.cartservice.service.CartServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Mutations per second through CartServiceImpl with the in-memory store against the plain JPA
+// path, on the same MySQL database. Inventory is mocked so only cart storage is measured. Needs
+// the database from application.properties; run with:
+//   mvn test -Dtest=CartStoreBenchmark -Dbenchmark=true
+@SpringBootTest(properties = "cart.store=memory")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CartStoreBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int USERS = 200;
+    private static final int PRODUCTS = 20;
+    private static final long RUN_MILLIS = 10_000;
+
+    @Autowired
+    private CartServiceImpl cartService;
+
+    @Autowired
+    private MemoryCartStore memoryCartStore;
+
+    @MockBean
+    private InventoryServiceClient inventoryServiceClient;
+
+    @Test
+    void compareMutationThroughput() throws Exception {
+        when(inventoryServiceClient.getProductByProdName(anyString())).thenAnswer(invocation -> {
+            String name = invocation.getArgument(0);
+            return new ProductResponse(Integer.parseInt(name.substring(5)), name, 1.5, Integer.MAX_VALUE);
+        });
+        when(inventoryServiceClient.getProductById(anyInt())).thenAnswer(invocation -> {
+            int id = invocation.getArgument(0);
+            return new ProductResponse(id, "bench" + id, 1.5, Integer.MAX_VALUE);
+        });
+
+        double memory = run(1_000_000);
+        memoryCartStore.flush();
+        assertEquals(0, memoryCartStore.getDirtyCount());
+
+        ReflectionTestUtils.setField(cartService, "memoryCartStore", null);
+        double jpa;
+        try {
+            jpa = run(2_000_000);
+        } finally {
+            ReflectionTestUtils.setField(cartService, "memoryCartStore", memoryCartStore);
+        }
+
+        System.out.printf("cart mutations/sec: memory=%.0f jpa=%.0f (%.1fx)%n", memory, jpa, memory / jpa);
+    }
+
+    // Each thread adds to and removes from random carts of its own user range until time runs out.
+    private double run(int firstUserId) throws InterruptedException {
+        AtomicLong mutations = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.currentTimeMillis() + RUN_MILLIS;
+        long started = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                ThreadLocalRandom random = java.util.concurrent.ThreadLocalRandom.current();
+                while (System.currentTimeMillis() < deadline) {
+                    int userId = firstUserId + thread * USERS + random.nextInt(USERS);
+                    String product = "bench" + (1 + random.nextInt(PRODUCTS));
+                    cartService.addToCart(userId, product, 1);
+                    if (random.nextInt(4) == 0) {
+                        cartService.clearCartContentsOnly(userId);
+                    }
+                    mutations.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(RUN_MILLIS * 6, TimeUnit.MILLISECONDS));
+        return mutations.get() / ((System.nanoTime() - started) / 1e9);
+    }
+}
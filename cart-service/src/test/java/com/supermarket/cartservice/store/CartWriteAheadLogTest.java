@@ -0,0 +1,123 @@
+package com.supermarket.cartservice.store;
+
+import com.supermarket.cartservice.model.Cart;
+import com.supermarket.cartservice.model.CartItems;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static Cart cart(int cartId, int userId, int... quantities) {
+        Cart cart = new Cart();
+        cart.setCartId(cartId);
+        cart.setUserId(userId);
+        double total = 0;
+        for (int i = 0; i < quantities.length; i++) {
+            CartItems item = new CartItems();
+            item.setCart(cart);
+            item.setProdId(i + 1);
+            item.setProdName("Product " + (i + 1));
+            item.setPrice(2.5);
+            item.setQuantity(quantities[i]);
+            item.setTotalPrice(2.5 * quantities[i]);
+            cart.getItems().add(item);
+            total += item.getTotalPrice();
+        }
+        cart.setCartTotalPrice(total);
+        return cart;
+    }
+
+    @Test
+    @DisplayName("Open: Replays the latest image of each cart across segments")
+    void open_ShouldReplayLatestImagePerUser() throws IOException {
+        try (CartWriteAheadLog wal = new CartWriteAheadLog(directory, false)) {
+            wal.open();
+            wal.append(cart(1, 10, 1));
+            wal.rotate();
+            wal.append(cart(1, 10, 3, 2));
+            wal.append(cart(2, 20, 5));
+        }
+
+        try (CartWriteAheadLog wal = new CartWriteAheadLog(directory, false)) {
+            CartWriteAheadLog.Recovery recovery = wal.open();
+
+            assertEquals(2, recovery.carts().size());
+            Cart recovered = recovery.carts().get(10);
+            assertEquals(1, recovered.getCartId());
+            assertEquals(12.5, recovered.getCartTotalPrice());
+            assertEquals(2, recovered.getItems().size());
+            assertEquals("Product 2", recovered.getItems().get(1).getProdName());
+            assertSame(recovered, recovered.getItems().get(0).getCart());
+            assertTrue(recovery.deletedCartIds().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Open: A tombstone removes the cart and reports its id for deletion")
+    void open_WithTombstone_ShouldReportDeletedCart() throws IOException {
+        try (CartWriteAheadLog wal = new CartWriteAheadLog(directory, false)) {
+            wal.open();
+            wal.append(cart(1, 10, 1));
+            wal.appendDelete(cart(1, 10, 1));
+        }
+
+        try (CartWriteAheadLog wal = new CartWriteAheadLog(directory, false)) {
+            CartWriteAheadLog.Recovery recovery = wal.open();
+
+            assertTrue(recovery.carts().isEmpty());
+            assertEquals(List.of(1), recovery.deletedCartIds());
+        }
+    }
+
+    @Test
+    @DisplayName("Open: A torn record at the tail is dropped and earlier records survive")
+    void open_WithTornTail_ShouldKeepCompleteRecords() throws IOException {
+        long segment;
+        try (CartWriteAheadLog wal = new CartWriteAheadLog(directory, false)) {
+            wal.open();
+            wal.append(cart(1, 10, 1));
+            wal.append(cart(1, 10, 4));
+            segment = wal.rotate();
+        }
+        Path file = directory.resolve(CartWriteAheadLog.fileName(segment));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3), StandardOpenOption.TRUNCATE_EXISTING);
+
+        try (CartWriteAheadLog wal = new CartWriteAheadLog(directory, false)) {
+            Cart recovered = wal.open().carts().get(10);
+
+            assertEquals(1, recovered.getItems().get(0).getQuantity());
+        }
+    }
+
+    @Test
+    @DisplayName("DeleteUpTo: Flushed segments are removed and not replayed")
+    void deleteUpTo_ShouldDropFlushedSegments() throws IOException {
+        try (CartWriteAheadLog wal = new CartWriteAheadLog(directory, false)) {
+            wal.open();
+            wal.append(cart(1, 10, 1));
+            long flushed = wal.rotate();
+            wal.append(cart(2, 20, 1));
+            wal.deleteUpTo(flushed);
+        }
+
+        try (CartWriteAheadLog wal = new CartWriteAheadLog(directory, false)) {
+            CartWriteAheadLog.Recovery recovery = wal.open();
+
+            assertEquals(List.of(20), List.copyOf(recovery.carts().keySet()));
+        }
+    }
+}
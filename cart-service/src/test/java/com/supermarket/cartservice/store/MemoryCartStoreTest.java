@@ -0,0 +1,156 @@
+package com.supermarket.cartservice.store;
+
+import com.supermarket.cartservice.idgen.IdGeneratorTable;
+import com.supermarket.cartservice.model.Cart;
+import com.supermarket.cartservice.repository.CartRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MemoryCartStoreTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager; // TransactionTemplate runs the callback against the mock
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private IdGeneratorTable idGeneratorTable;
+
+    @TempDir
+    Path walDirectory;
+
+    private MemoryCartStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new MemoryCartStore();
+        ReflectionTestUtils.setField(store, "cartRepository", cartRepository);
+    }
+
+    private Cart cart(int cartId, int userId) {
+        Cart cart = new Cart();
+        cart.setCartId(cartId);
+        cart.setUserId(userId);
+        return cart;
+    }
+
+    @Test
+    @DisplayName("ClaimExpired: A cart held in memory is not handed to the sweeper, even if it is only read")
+    void claimExpired_WhenCartHeldInMemory_ShouldLeaveItOut() {
+        // Arrange
+        when(cartRepository.findByUserId(1)).thenReturn(Optional.of(cart(11, 1)));
+        store.find(1);
+
+        // Act
+        List<Integer> claimed = store.claimExpired(List.of(11, 12));
+
+        // Assert
+        assertEquals(List.of(12), claimed);
+    }
+
+    @Test
+    @DisplayName("ClaimExpired: A cart being deleted by the sweeper is not loaded until the sweep releases it")
+    void find_WhenCartClaimedForExpiry_ShouldNotLoadIt() {
+        // Arrange
+        when(cartRepository.findByUserId(1)).thenReturn(Optional.of(cart(11, 1)));
+        assertEquals(List.of(11), store.claimExpired(List.of(11)));
+
+        // Act
+        Optional<Cart> whileExpiring = store.find(1);
+        store.releaseExpired();
+        Optional<Cart> afterRelease = store.find(1);
+
+        // Assert
+        assertTrue(whileExpiring.isEmpty());
+        assertEquals(11, afterRelease.orElseThrow().getCartId());
+        assertEquals(List.of(), store.claimExpired(List.of(11)));
+    }
+
+    @Test
+    @DisplayName("Flush: A flush racing a mutation either writes the new image or leaves the cart dirty")
+    void flush_WhenRacingUpdate_ShouldNotLoseAcknowledgedChange() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(store, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(store, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(store, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(store, "idGeneratorTable", idGeneratorTable);
+        ReflectionTestUtils.setField(store, "walDirectory", walDirectory.toString());
+        ReflectionTestUtils.setField(store, "flushIntervalMillis", 3_600_000L);
+        ReflectionTestUtils.setField(store, "flushBatchSize", 500);
+        ReflectionTestUtils.setField(store, "idleEvictMinutes", 60L);
+        when(cartRepository.findByUserId(1)).thenReturn(Optional.of(cart(11, 1)));
+        double[] written = {0.0}; // total of the last image the flush wrote for cart 11
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE cart SET"), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    Collection<Cart> batch = invocation.getArgument(1);
+                    batch.forEach(image -> written[0] = image.getCartTotalPrice());
+                    return new int[0][];
+                });
+        store.start();
+
+        // Act & Assert: each round runs one mutation and one flush at the same moment
+        try {
+            for (int round = 1; round <= 500; round++) {
+                double total = round;
+                CountDownLatch go = new CountDownLatch(1);
+                Thread updater = new Thread(() -> {
+                    awaitQuietly(go);
+                    store.update(1, false, cart -> {
+                        cart.setCartTotalPrice(total);
+                        return cart;
+                    });
+                });
+                Thread flusher = new Thread(() -> {
+                    awaitQuietly(go);
+                    store.flush();
+                });
+                updater.start();
+                flusher.start();
+                go.countDown();
+                updater.join();
+                flusher.join();
+
+                assertTrue(store.getDirtyCount() > 0 || written[0] == total,
+                        "round " + round + ": change is neither flushed nor still dirty");
+            }
+        } finally {
+            store.stop();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.supermarket.inventoryservice.alert;
+
+import com.supermarket.inventoryservice.dto.LowStockAlert;
+import com.supermarket.inventoryservice.dto.LowStockItem;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.ProductVersions;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Tracks every product's stock against its reorder point, fed by ProductChangeEvents, so nobody
+// has to scan the catalogue. Products in the alerted state sit in a TreeSet ordered by urgency
+// (stock as a fraction of the reorder point, emptiest first), so the low-stock list is always
+// ready and each change costs O(log n).
+//
+// Hysteresis: an alert fires once when stock drops to the reorder point or below. It only re-arms,
+// with a "cleared" event, once stock climbs above the reorder point plus a margin, so a product
+// selling and restocking around its threshold does not flood managers with alerts.
+@Component
+public class LowStockMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(LowStockMonitor.class);
+
+    public static final String LOW_STOCK_EVENT = "low-stock";
+    public static final String CLEARED_EVENT = "cleared";
+    public static final String SNAPSHOT_EVENT = "snapshot";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${inventory.low-stock.default-reorder-point:10}")
+    private int defaultReorderPoint;
+
+    // Re-arm margin as a percentage of the reorder point (at least one unit).
+    @Value("${inventory.low-stock.rearm-margin-percent:20}")
+    private int rearmMarginPercent;
+
+    @Value("${inventory.feed.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMillis;
+
+    @Value("${inventory.feed.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    private static final class Tracked {
+        private final int prodId;
+        private String prodName;
+        private int stock;
+        private Integer reorderPoint; // null uses the default
+        private boolean alerted;
+
+        private Tracked(int prodId) {
+            this.prodId = prodId;
+        }
+    }
+
+    // Guarded by this.
+    private final Map<Integer, Tracked> tracked = new HashMap<>();
+    private final TreeSet<Tracked> low = new TreeSet<>(Comparator
+            .comparingDouble((Tracked t) -> (double) t.stock / Math.max(1, threshold(t)))
+            .thenComparingInt(t -> t.stock)
+            .thenComparingInt(t -> t.prodId));
+    private final ProductVersions versions = new ProductVersions();
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+
+    // One thread does all sending, so subscribers see alerts in the order they were raised.
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "low-stock-alerts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        dispatcher.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+        subscribers.clear();
+    }
+
+    // Loads every product once the application has started. Products already low are listed but
+    // not announced; subscribers receive them in their initial snapshot. The monitor is held
+    // across the load, so a change committed meanwhile is applied after it, not overwritten.
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        rebuild(productRepository.findAll());
+    }
+
+    public synchronized void rebuild(List<Product> products) {
+        tracked.clear();
+        low.clear();
+        versions.reset(products);
+        for (Product product : products) {
+            Tracked entry = new Tracked(product.getProdId());
+            entry.prodName = product.getProdName();
+            entry.stock = product.getStock();
+            entry.reorderPoint = product.getReorderPoint();
+            entry.alerted = entry.stock <= threshold(entry);
+            tracked.put(entry.prodId, entry);
+            if (entry.alerted) {
+                low.add(entry);
+            }
+        }
+        log.info("Low-stock monitor tracking {} products, {} below reorder point", tracked.size(), low.size());
+    }
+
+    // Re-evaluates one product after its change has committed. The alert is queued under the same
+    // monitor that applied the change, so a "cleared" can never overtake the alert it clears.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        synchronized (this) {
+            LowStockAlert alert = apply(event);
+            if (alert != null) {
+                dispatcher.execute(() -> broadcast(alert.getType(), alert));
+            }
+        }
+    }
+
+    // Updates the tracked state and returns the alert to send, if this change crossed a threshold.
+    // A change delivered after a newer one for the same product is skipped.
+    synchronized LowStockAlert apply(ProductChangeEvent event) {
+        if (!versions.advance(event)) {
+            return null;
+        }
+        if (event.getType() == ProductChangeEvent.Type.DELETED) {
+            Tracked removed = tracked.remove(event.getProdId());
+            if (removed != null && removed.alerted) {
+                low.remove(removed);
+            }
+            return null;
+        }
+        Tracked entry = tracked.computeIfAbsent(event.getProdId(), Tracked::new);
+        if (entry.alerted) {
+            low.remove(entry); // its sort key is about to change
+        }
+        entry.prodName = event.getProdName();
+        entry.stock = event.getStock();
+        if (event.getReorderPoint() != null) {
+            entry.reorderPoint = event.getReorderPoint();
+        }
+        int threshold = threshold(entry);
+        LowStockAlert alert = null;
+        if (!entry.alerted && entry.stock <= threshold) {
+            entry.alerted = true;
+            alert = alert(LOW_STOCK_EVENT, entry, threshold);
+        } else if (entry.alerted && entry.stock > threshold + rearmMargin(threshold)) {
+            entry.alerted = false;
+            alert = alert(CLEARED_EVENT, entry, threshold);
+        }
+        if (entry.alerted) {
+            low.add(entry);
+        }
+        return alert;
+    }
+
+    // Products in the alerted state, most urgent first.
+    public synchronized List<LowStockItem> getLowStock(int limit) {
+        List<LowStockItem> items = new ArrayList<>(Math.min(limit, low.size()));
+        for (Tracked entry : low) {
+            if (items.size() == limit) {
+                break;
+            }
+            int threshold = threshold(entry);
+            items.add(new LowStockItem(entry.prodId, entry.prodName, entry.stock, threshold, Math.max(0, threshold + 1 - entry.stock)));
+        }
+        return items;
+    }
+
+    // Opens an alert stream; the current low-stock list is sent first so nothing is missed.
+    public SseEmitter subscribe() {
+        SseEmitter emitter = newEmitter();
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+        dispatcher.execute(() -> {
+            try {
+                emitter.send(SseEmitter.event().name(SNAPSHOT_EVENT).data(getLowStock(Integer.MAX_VALUE), MediaType.APPLICATION_JSON));
+                // alerts raised after the snapshot are queued behind this task
+                subscribers.add(emitter);
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(emitterTimeoutMillis);
+    }
+
+    int rearmMargin(int threshold) {
+        return Math.max(1, threshold * rearmMarginPercent / 100);
+    }
+
+    private int threshold(Tracked entry) {
+        return entry.reorderPoint != null ? entry.reorderPoint : defaultReorderPoint;
+    }
+
+    private static LowStockAlert alert(String type, Tracked entry, int threshold) {
+        return new LowStockAlert(type, entry.prodId, entry.prodName, entry.stock, threshold, Instant.now());
+    }
+
+    private void broadcast(String name, Object data) {
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    // A comment line keeps idle connections open through proxies and exposes dead subscribers.
+    private void heartbeat() {
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.supermarket.inventoryservice.cache;
+
+import com.supermarket.inventoryservice.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+// Writes that bypass Hibernate (plain JDBC batches) do not update the second-level cache or the
+// query-cache timestamps, so callers evict the affected entries themselves after committing.
+@Component
+public class ProductCacheEvictor {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public void evictProducts(Collection<Integer> prodIds) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        for (Integer prodId : prodIds) {
+            cache.evictEntityData(Product.class, prodId);
+        }
+        // cached name/barcode lookups may now be stale, including "not found" results for new names
+        cache.evictDefaultQueryRegion();
+    }
+}
@@ -1,7 +1,11 @@
 package com.supermarket.inventoryservice.controller;
 
+import com.supermarket.inventoryservice.dto.CategoryNode;
+import com.supermarket.inventoryservice.exception.ResourceNotFoundException;
 import com.supermarket.inventoryservice.model.Category;
+import com.supermarket.inventoryservice.search.CategoryTree;
 import com.supermarket.inventoryservice.service.CategoryServiceImpl;
+import com.supermarket.inventoryservice.util.ETags;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -9,6 +13,7 @@ import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -21,6 +26,9 @@ public class CategoryController {
     @Autowired
     private CategoryServiceImpl categoryServiceImpl;
 
+    @Autowired
+    private CategoryTree categoryTree;
+
     // routes for admin
     @PostMapping("/admin/addCategory")
     public String addCategory(@Valid @RequestBody Category category){
@@ -29,8 +37,9 @@ public class CategoryController {
     }
 
     @GetMapping("/admin/getAllCategory")
-    public List<Category> getAllCategory() {
-        return categoryServiceImpl.getAllCategories();
+    public List<Category> getAllCategory(WebRequest request) {
+        List<Category> categories = categoryServiceImpl.getAllCategories();
+        return request.checkNotModified(ETags.ofCategories(categories)) ? null : categories;
     }
 
     @GetMapping("/customer/getAllCategoryName")
@@ -45,16 +54,39 @@ public class CategoryController {
     }
 
 
+    @PutMapping("/admin/moveCategory/{id}")
+    public Category moveCategory(
+            @PathVariable @Min(value = 1, message = "Category ID must be positive") int id,
+            @RequestParam(required = false) @Min(value = 1, message = "Parent ID must be positive") Integer parentId) {
+        return categoryServiceImpl.moveCategory(id, parentId);
+    }
+
+
     // routes for biller and customer
+    // Whole category hierarchy, served from the in-memory tree.
+    @GetMapping("/biller-customer/getCategoryTree")
+    public List<CategoryNode> getCategoryTree() {
+        return categoryTree.roots();
+    }
+
+    @GetMapping("/biller-customer/getCategoryTree/{categoryId}")
+    public CategoryNode getCategorySubtree(@PathVariable @Min(value = 1, message = "Category ID must be positive") int categoryId) {
+        return categoryTree.find(categoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with Id: " + categoryId));
+    }
+
     @GetMapping("/getCategoryById/{category_id}")
-    public Category getCategoryById(@PathVariable @Min(value = 1, message = "Category ID must be positive") int category_id) {
-        return categoryServiceImpl.getCategoryById(category_id);
+    public Category getCategoryById(@PathVariable @Min(value = 1, message = "Category ID must be positive") int category_id, WebRequest request) {
+        Category category = categoryServiceImpl.getCategoryById(category_id);
+        // 304 with no body when the client's If-None-Match still matches the version
+        return request.checkNotModified(ETags.of(category)) ? null : category;
     }
 
 
     @GetMapping("/admin/getCategoryByName/{categoryName}")
-    public Category getCategoryByName(@PathVariable @NotBlank(message = "Category name cannot be blank") String categoryName) {
-        return categoryServiceImpl.getCategoryByName(categoryName);
+    public Category getCategoryByName(@PathVariable @NotBlank(message = "Category name cannot be blank") String categoryName, WebRequest request) {
+        Category category = categoryServiceImpl.getCategoryByName(categoryName);
+        return request.checkNotModified(ETags.of(category)) ? null : category;
     }
 
     @PutMapping("/admin/updateCategoryName/{id}")
@@ -62,8 +94,9 @@ public class CategoryController {
             @PathVariable @Min(value = 1, message = "Category ID must be positive") int id,
             @RequestParam @NotBlank(message = "New category name cannot be blank")
             @Size(min = 2, max = 50, message = "Category name must be between 2 and 50 characters")
-            String newCategoryName) {
-        return categoryServiceImpl.updateCategoryName(id, newCategoryName);
+            String newCategoryName,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return categoryServiceImpl.updateCategoryName(id, newCategoryName, ETags.expectedCategoryVersion(ifMatch, id));
     }
 
 }
\ No newline at end of file
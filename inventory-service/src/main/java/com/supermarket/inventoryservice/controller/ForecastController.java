@@ -0,0 +1,36 @@
+package com.supermarket.inventoryservice.controller;
+
+import com.supermarket.inventoryservice.dto.ReorderSuggestion;
+import com.supermarket.inventoryservice.service.ForecastServiceImpl;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/invent")
+@Validated
+public class ForecastController {
+
+    @Autowired
+    private ForecastServiceImpl forecastServiceImpl;
+
+    // Forecast daily demand, days of cover and suggested reorder point/quantity for one product (Admin only).
+    @GetMapping("/admin/forecast/{productId}")
+    public ReorderSuggestion getForecast(
+            @PathVariable @Min(value = 1, message = "Product ID must be positive") int productId
+    ) {
+        return forecastServiceImpl.getForecast(productId);
+    }
+
+    // Products at or below their suggested reorder point, soonest to run out first (Admin only).
+    @GetMapping("/admin/reorderSuggestions")
+    public List<ReorderSuggestion> getReorderSuggestions(
+            @RequestParam(defaultValue = "100") @Min(value = 1, message = "Limit must be positive") @Max(value = 10000, message = "Limit cannot exceed 10000") int limit
+    ) {
+        return forecastServiceImpl.getReorderSuggestions(limit);
+    }
+}
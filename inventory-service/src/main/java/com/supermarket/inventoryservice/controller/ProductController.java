@@ -1,14 +1,30 @@
 package com.supermarket.inventoryservice.controller;
 
+import com.supermarket.inventoryservice.alert.LowStockMonitor;
+import com.supermarket.inventoryservice.dto.CatalogImportReport;
+import com.supermarket.inventoryservice.dto.LowStockItem;
+import com.supermarket.inventoryservice.dto.ProductPage;
+import com.supermarket.inventoryservice.dto.ProductSearchResult;
+import com.supermarket.inventoryservice.feed.ProductChangeFeed;
+import com.supermarket.inventoryservice.importer.ImportFormat;
 import com.supermarket.inventoryservice.model.Category;
 import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.search.ProductSortField;
+import com.supermarket.inventoryservice.service.CatalogImportServiceImpl;
 import com.supermarket.inventoryservice.service.ProductServiceImpl;
+import com.supermarket.inventoryservice.service.StoreStockServiceImpl;
+import com.supermarket.inventoryservice.util.ETags;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -19,6 +35,18 @@ public class ProductController {
     @Autowired
     private ProductServiceImpl productServiceImpl;
 
+    @Autowired
+    private CatalogImportServiceImpl catalogImportServiceImpl;
+
+    @Autowired
+    private ProductChangeFeed productChangeFeed;
+
+    @Autowired
+    private StoreStockServiceImpl storeStockServiceImpl;
+
+    @Autowired
+    private LowStockMonitor lowStockMonitor;
+
     // Adds a new product based on the provided details (Admin only).
     @PostMapping("/admin/addProduct")
     public String addProduct(
@@ -28,13 +56,23 @@ public class ProductController {
         return addedProduct.getProdName() + " added successfully";
     }
 
+    // Bulk upserts products from a CSV or NDJSON catalog file streamed as the request body (Admin only).
+    @PostMapping("/admin/importCatalog")
+    public CatalogImportReport importCatalog(
+            @RequestParam(defaultValue = "CSV") ImportFormat format, // CSV needs a prodName,price,categoryName[,stock][,barcode] header
+            InputStream body // Read row by row, never buffered whole
+    ) {
+        return catalogImportServiceImpl.importCatalog(format, body);
+    }
+
     // Updates an existing product identified by prodId (Admin only).
     @PutMapping("/admin/updateProduct/{prodId}")
     public Product updateProd(
             @PathVariable @NotNull(message = "Product ID cannot be null") @Min(value=1, message="Product ID must be positive") int prodId, // Combined validation
-            @Valid @RequestBody Product updatedproduct // Validates the incoming update data
+            @Valid @RequestBody Product updatedproduct, // Validates the incoming update data
+            @RequestHeader(value = "If-Match", required = false) String ifMatch // Optional ETag from a previous GET
     ) {
-        return productServiceImpl.updateProduct(prodId, updatedproduct);
+        return productServiceImpl.updateProduct(prodId, updatedproduct, ETags.expectedProductVersion(ifMatch, prodId));
     }
 
     // Deletes a product by its ID (Admin only).
@@ -48,74 +86,195 @@ public class ProductController {
 
     // Retrieves a list of all products (Accessible by Admin, Biller, Customer).
     @GetMapping("/admin-biller-customer/getAllProducts")
-    public List<Product> getAllProd() {
-        return productServiceImpl.getAllProducts();
+    public List<Product> getAllProd(WebRequest request) {
+        List<Product> products = productServiceImpl.getAllProducts();
+        return request.checkNotModified(ETags.ofProducts(products)) ? null : products;
     }
 
     // Updates the stock quantity for a specific product (Admin only).
     @PutMapping("/admin/updateQuantity/{prodId}")
     public Product updateQty(
             @PathVariable @Min(value = 1, message = "Product ID must be positive") int prodId, // Validates ID
-            @RequestParam @PositiveOrZero(message = "New quantity cannot be negative") int newQuantity // Validates quantity
+            @RequestParam @PositiveOrZero(message = "New quantity cannot be negative") int newQuantity, // Validates quantity
+            @RequestHeader(value = "If-Match", required = false) String ifMatch // Optional ETag from a previous GET
     ) {
-        return productServiceImpl.updateQuantity(prodId, newQuantity);
+        return productServiceImpl.updateQuantity(prodId, newQuantity, ETags.expectedProductVersion(ifMatch, prodId));
+    }
+
+    // Sets the reorder point below which the product is reported as low on stock (Admin only).
+    @PutMapping("/admin/setReorderPoint/{prodId}/{reorderPoint}")
+    public Product setReorderPoint(
+            @PathVariable @Min(value = 1, message = "Product ID must be positive") int prodId, // Validates ID
+            @PathVariable @PositiveOrZero(message = "Reorder point cannot be negative") int reorderPoint // Validates threshold
+    ) {
+        return productServiceImpl.updateReorderPoint(prodId, reorderPoint);
+    }
+
+    // Lists products at or below their reorder point, most urgent first (Admin only).
+    @GetMapping("/admin/lowStock")
+    public List<LowStockItem> getLowStock(
+            @RequestParam(defaultValue = "100") @Min(value = 1, message = "Limit must be at least 1") @Max(value = 10000, message = "Limit cannot exceed 10000") int limit
+    ) {
+        return lowStockMonitor.getLowStock(limit);
+    }
+
+    // Streams low-stock and cleared alerts as Server-Sent Events, starting with the current low-stock list (Admin only).
+    @GetMapping(value = "/admin/lowStock/alerts", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter lowStockAlerts() {
+        return lowStockMonitor.subscribe();
     }
 
     // Reduces the stock for a product, typically called after order processing (Biller/Customer triggered).
     @PutMapping("/reduceStock/{productId}/{quantity}")
     public void reduceStock(
             @PathVariable @Min(value = 1, message = "Product ID must be positive") int productId, // Validates ID
-            @PathVariable @Positive(message = "Quantity to reduce must be positive") int quantity // Validates quantity
+            @PathVariable @Positive(message = "Quantity to reduce must be positive") int quantity, // Validates quantity
+            @RequestHeader(value = "X-StoreId", required = false) Integer storeId // Store whose stock is sold from; central stock when absent
     ) {
-        productServiceImpl.reduceStock(productId, quantity);
+        if (storeId == null) {
+            productServiceImpl.reduceStock(productId, quantity);
+        } else {
+            storeStockServiceImpl.reduceStock(storeId, productId, quantity);
+        }
     }
 
     // Retrieves a specific product by its ID (Accessible by Biller, Customer).
     @GetMapping("/biller-customer/getProductById/{id}")
     public Product getProductById(
-            @PathVariable @Min(value = 1, message = "Product ID must be positive") int id // Validates ID
+            @PathVariable @Min(value = 1, message = "Product ID must be positive") int id, // Validates ID
+            WebRequest request
     ) {
-        return productServiceImpl.getProductById(id);
+        Product product = productServiceImpl.getProductById(id);
+        // 304 with no body when the client's If-None-Match still matches the version
+        return request.checkNotModified(ETags.of(product)) ? null : product;
     }
 
     // Retrieves all products belonging to a specific category ID (Accessible by Biller, Customer).
     @GetMapping("/biller-customer/getProductsByCategory/{categoryId}")
     public List<Product> getProdByCategory(
-            @PathVariable @Min(value = 1, message = "Category ID must be positive") int categoryId // Validates ID
+            @PathVariable @Min(value = 1, message = "Category ID must be positive") int categoryId, // Validates ID
+            WebRequest request
+    ) {
+        List<Product> products = productServiceImpl.getProductsByCategoryId(categoryId);
+        return request.checkNotModified(ETags.ofProducts(products)) ? null : products;
+    }
+
+    // Retrieves all products in a category and its subcategories (Accessible by Biller, Customer).
+    @GetMapping("/biller-customer/getProductsInCategoryTree/{categoryId}")
+    public List<Product> getProdInCategoryTree(
+            @PathVariable @Min(value = 1, message = "Category ID must be positive") int categoryId,
+            WebRequest request
     ) {
-        return productServiceImpl.getProductsByCategoryId(categoryId);
+        List<Product> products = productServiceImpl.getProductsInCategoryTree(categoryId);
+        return request.checkNotModified(ETags.ofProducts(products)) ? null : products;
     }
 
     // Retrieves all products belonging to a specific category name (Accessible by Customer).
     @GetMapping("/customer/getProductsByCategoryName")
     public List<Product> getProdByCategoryName(
-            @RequestParam @NotBlank(message = "Category name cannot be blank") String categoryName // Validates name
+            @RequestParam @NotBlank(message = "Category name cannot be blank") String categoryName, // Validates name
+            WebRequest request
     ) {
-        return productServiceImpl.getProductsByCategoryName(categoryName);
+        List<Product> products = productServiceImpl.getProductsByCategoryName(categoryName);
+        return request.checkNotModified(ETags.ofProducts(products)) ? null : products;
+    }
+
+    // Filters products by category, price range and availability with sorting and paging (Accessible by Customer).
+    @GetMapping("/customer/products")
+    public ProductPage getProducts(
+            @RequestParam(required = false) String category, // Optional category name
+            @RequestParam(required = false) @PositiveOrZero(message = "Minimum price cannot be negative") Double minPrice,
+            @RequestParam(required = false) @PositiveOrZero(message = "Maximum price cannot be negative") Double maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(defaultValue = "PRICE") ProductSortField sortBy,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            @RequestParam(defaultValue = "0") @PositiveOrZero(message = "Page cannot be negative") int page,
+            @RequestParam(defaultValue = "20") @Min(value = 1, message = "Page size must be at least 1") @Max(value = 100, message = "Page size cannot exceed 100") int size
+    ) {
+        return productServiceImpl.getProducts(category, minPrice, maxPrice, inStock, sortBy, direction, page, size);
     }
 
     // Retrieves the category associated with a specific product ID (Accessible by Biller).
     @GetMapping("/biller/getCategoryByProduct/{prodId}")
     public Category getCategoryByProduct(
-            @PathVariable @Min(value = 1, message = "Product ID must be positive") int prodId // Validates ID
+            @PathVariable @Min(value = 1, message = "Product ID must be positive") int prodId, // Validates ID
+            WebRequest request
     ) {
-        return productServiceImpl.getCategoryByProduct(prodId);
+        Category category = productServiceImpl.getCategoryByProduct(prodId);
+        return request.checkNotModified(ETags.of(category)) ? null : category;
     }
 
     // Retrieves a specific product by name (for Biller lookup).
     @GetMapping("/biller/getProductByProdName")
     public Product findProductByNameForBiller(
-            @RequestParam @NotBlank(message="Product name cannot be blank") String prodName // Validates name
+            @RequestParam @NotBlank(message="Product name cannot be blank") String prodName, // Validates name
+            WebRequest request
+    ) {
+        Product product = productServiceImpl.getProductByProdName(prodName); // Using general method based on provided code
+        return request.checkNotModified(ETags.of(product)) ? null : product;
+    }
+
+    // Typeahead search over product names, ranked best match first (Accessible by Biller, Customer).
+    @GetMapping("/biller-customer/search")
+    public List<ProductSearchResult> searchProducts(
+            @RequestParam @NotBlank(message = "Search query cannot be blank") String q, // Validates query
+            @RequestParam(defaultValue = "10") @Min(value = 1, message = "Limit must be at least 1") @Max(value = 50, message = "Limit cannot exceed 50") int limit
+    ) {
+        return productServiceImpl.searchProducts(q, limit);
+    }
+
+    // Retrieves a product by its scanned EAN/UPC barcode (for Biller lookup).
+    @GetMapping("/biller/getProductByBarcode/{barcode}")
+    public Product findProductByBarcodeForBiller(
+            @PathVariable @Positive(message = "Barcode must be positive") long barcode, // Validates barcode
+            WebRequest request
     ) {
-        return productServiceImpl.getProductByProdName(prodName); // Using general method based on provided code
+        Product product = productServiceImpl.getProductByBarcode(barcode);
+        return request.checkNotModified(ETags.of(product)) ? null : product;
+    }
+
+    // Retrieves a product by barcode (used by other services, e.g. cart scanning).
+    @GetMapping("/getProductByBarcode/{barcode}")
+    public Product getProductByBarcode(
+            @PathVariable @Positive(message = "Barcode must be positive") long barcode, // Validates barcode
+            WebRequest request
+    ) {
+        Product product = productServiceImpl.getProductByBarcode(barcode);
+        return request.checkNotModified(ETags.of(product)) ? null : product;
+    }
+
+    // Streams product changes as Server-Sent Events so clients can keep local caches current (Accessible by Biller, Customer).
+    @GetMapping(value = "/biller-customer/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter productChangesForClients(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader, // Sent automatically on reconnect
+            @RequestParam(required = false) String lastEventId // For clients that cannot set headers
+    ) {
+        return productChangeFeed.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+
+    // Streams product changes as Server-Sent Events (used by other services, e.g. cart product cache).
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter productChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId
+    ) {
+        return productChangeFeed.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+
+    // Retrieves several products by name in one round trip (used by other services, e.g. bulk cart adds).
+    @PostMapping("/getProductsByProdNames")
+    public List<Product> getProductsByProdNames(@RequestBody List<String> prodNames) {
+        return productServiceImpl.getProductsByProdNames(prodNames);
     }
 
     // Retrieves a specific product by name (General access? Potentially duplicate of biller one).
     @GetMapping("/getProductByProdName")
     public Product getProductByProdName(
-            @RequestParam @NotBlank(message = "Product name cannot be blank") String prodName // Validates name
+            @RequestParam @NotBlank(message = "Product name cannot be blank") String prodName, // Validates name
+            WebRequest request
     ) {
-        return productServiceImpl.getProductByProdName(prodName);
+        Product product = productServiceImpl.getProductByProdName(prodName);
+        return request.checkNotModified(ETags.of(product)) ? null : product;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.supermarket.inventoryservice.controller;
+
+import com.supermarket.inventoryservice.dto.StockLevel;
+import com.supermarket.inventoryservice.dto.StockMovement;
+import com.supermarket.inventoryservice.dto.StockRestoreReport;
+import com.supermarket.inventoryservice.service.StockJournalServiceImpl;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/invent")
+@Validated
+public class StockJournalController {
+
+    @Autowired
+    private StockJournalServiceImpl stockJournalServiceImpl;
+
+    // Stock movements of a product, newest first, served from the journal without touching MySQL (Admin only).
+    @GetMapping("/admin/stockHistory/{productId}")
+    public List<StockMovement> getStockHistory(
+            @PathVariable @Min(value = 1, message = "Product ID must be positive") int productId,
+            @RequestParam(required = false) Integer storeId, // 0 for central stock; all stores when absent
+            @RequestParam(required = false) Instant from, // ISO-8601, e.g. 2025-01-31T18:00:00Z
+            @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "100") @Min(value = 1, message = "Limit must be positive") @Max(value = 10000, message = "Limit cannot exceed 10000") int limit
+    ) {
+        return stockJournalServiceImpl.getStockHistory(productId, storeId, from, to, limit);
+    }
+
+    // Stock levels of every product and store as they were at the given time (Admin only).
+    @GetMapping("/admin/stockJournal/replay")
+    public List<StockLevel> replayStock(@RequestParam @NotNull(message = "Replay time is required") Instant at) {
+        return stockJournalServiceImpl.replayStock(at);
+    }
+
+    // Rebuilds stock in MySQL to the levels at the given time, e.g. after a bad import (Admin only).
+    @PostMapping("/admin/stockJournal/restore")
+    public StockRestoreReport restoreStock(@RequestParam @NotNull(message = "Restore time is required") Instant at) {
+        return stockJournalServiceImpl.restoreStock(at);
+    }
+}
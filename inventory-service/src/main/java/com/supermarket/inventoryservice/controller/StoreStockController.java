@@ -0,0 +1,65 @@
+package com.supermarket.inventoryservice.controller;
+
+import com.supermarket.inventoryservice.dto.ProductAvailability;
+import com.supermarket.inventoryservice.model.StoreStock;
+import com.supermarket.inventoryservice.service.ProductServiceImpl;
+import com.supermarket.inventoryservice.service.StoreStockServiceImpl;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/invent")
+@Validated
+public class StoreStockController {
+
+    @Autowired
+    private StoreStockServiceImpl storeStockServiceImpl;
+
+    @Autowired
+    private ProductServiceImpl productServiceImpl;
+
+    // Sets a store's stock of a product, creating the row if needed (Admin only).
+    @PutMapping("/admin/setStoreStock/{storeId}/{productId}/{quantity}")
+    public StoreStock setStoreStock(
+            @PathVariable @Min(value = 1, message = "Store ID must be positive") int storeId,
+            @PathVariable @Min(value = 1, message = "Product ID must be positive") int productId,
+            @PathVariable @PositiveOrZero(message = "Stock cannot be negative") int quantity
+    ) {
+        return storeStockServiceImpl.setStock(storeId, productId, quantity);
+    }
+
+    // Adds delivered or returned units to a store's stock, or to the central stock when no store is given.
+    @PutMapping("/restock/{productId}/{quantity}")
+    public void restock(
+            @PathVariable @Min(value = 1, message = "Product ID must be positive") int productId,
+            @PathVariable @Positive(message = "Quantity to restock must be positive") int quantity,
+            @RequestHeader(value = "X-StoreId", required = false) @Min(value = 1, message = "Store ID must be positive") Integer storeId
+    ) {
+        if (storeId == null) {
+            productServiceImpl.restock(productId, quantity);
+        } else {
+            storeStockServiceImpl.restock(storeId, productId, quantity);
+        }
+    }
+
+    // Local availability at the caller's store (Accessible by Biller).
+    @GetMapping("/biller/getStoreStock/{productId}")
+    public StoreStock getStoreStock(
+            @PathVariable @Min(value = 1, message = "Product ID must be positive") int productId,
+            @RequestHeader("X-StoreId") @Min(value = 1, message = "Store ID must be positive") int storeId
+    ) {
+        return storeStockServiceImpl.getStoreStock(storeId, productId);
+    }
+
+    // Chain-wide availability: central stock plus every store's stock (Accessible by Biller, Customer).
+    @GetMapping("/biller-customer/getAvailability/{productId}")
+    public ProductAvailability getAvailability(
+            @PathVariable @Min(value = 1, message = "Product ID must be positive") int productId
+    ) {
+        return storeStockServiceImpl.getAvailability(productId);
+    }
+}
@@ -0,0 +1,16 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogImportError {
+    private long line;
+    private String prodName;
+    private String message;
+}
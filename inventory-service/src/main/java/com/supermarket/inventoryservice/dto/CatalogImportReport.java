@@ -0,0 +1,24 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogImportReport {
+    private int totalRows;
+    private int inserted;
+    private int updated;
+    private int failed;
+    private long durationMillis;
+    // Errors beyond the reporting cap are counted in failed but not listed.
+    private int errorsOmitted;
+    private List<CatalogImportError> errors = new ArrayList<>();
+}
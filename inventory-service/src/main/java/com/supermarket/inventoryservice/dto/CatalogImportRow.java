@@ -0,0 +1,19 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// One catalog line as read from the import file, before validation.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CatalogImportRow {
+    private String prodName;
+    private Double price;
+    private Integer stock;
+    private String categoryName;
+    private Long barcode;
+}
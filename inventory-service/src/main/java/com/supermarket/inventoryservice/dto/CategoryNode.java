@@ -0,0 +1,25 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+// Immutable node of the cached category tree.
+@Getter
+public final class CategoryNode {
+    private final int categoryId;
+    private final String categoryName;
+    private final Integer parentId;
+    private final String path;
+    private final int depth;
+    private final List<CategoryNode> children;
+
+    public CategoryNode(int categoryId, String categoryName, Integer parentId, String path, int depth, List<CategoryNode> children) {
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.parentId = parentId;
+        this.path = path;
+        this.depth = depth;
+        this.children = List.copyOf(children);
+    }
+}
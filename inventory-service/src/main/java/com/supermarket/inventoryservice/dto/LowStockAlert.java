@@ -0,0 +1,21 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class LowStockAlert {
+    private String type; // "low-stock" when the reorder point is crossed, "cleared" once restocked past the margin
+    private int prodId;
+    private String prodName;
+    private int stock;
+    private int reorderPoint;
+    private Instant raisedAt;
+}
@@ -0,0 +1,18 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class LowStockItem {
+    private int prodId;
+    private String prodName;
+    private int stock;
+    private int reorderPoint;
+    private int shortfall; // units needed to get back above the reorder point
+}
@@ -0,0 +1,22 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// Chain-wide view of a product: the central (unassigned) stock on the product row plus every store's own stock.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductAvailability {
+    private int prodId;
+    private String prodName;
+    private int centralStock;
+    private long storeStock;
+    private long totalAvailable;
+    private List<StoreStockLevel> stores;
+}
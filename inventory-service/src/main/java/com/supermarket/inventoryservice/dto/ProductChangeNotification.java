@@ -0,0 +1,23 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// One entry of the product change feed. Deletes carry only the id.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductChangeNotification {
+    private long sequence;
+    private String type;
+    private int prodId;
+    private String prodName;
+    private double price;
+    private int stock;
+    private int categoryId;
+    private Long barcode;
+    private long changedAt; // epoch millis
+}
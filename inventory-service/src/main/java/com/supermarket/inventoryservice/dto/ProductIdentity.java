@@ -0,0 +1,17 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// The columns the catalog import needs to match incoming rows against existing products.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductIdentity {
+    private int prodId;
+    private String prodName;
+    private Long barcode;
+}
@@ -0,0 +1,20 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductPage {
+    private List<ProductSummary> content = new ArrayList<>();
+    private int page;
+    private int size;
+    private long totalElements;
+}
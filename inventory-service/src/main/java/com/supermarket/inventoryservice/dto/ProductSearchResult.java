@@ -0,0 +1,18 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchResult {
+    private int prodId;
+    private String prodName;
+    private double price;
+    private int stock;
+    private double score;
+}
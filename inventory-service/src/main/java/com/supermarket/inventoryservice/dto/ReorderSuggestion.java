@@ -0,0 +1,22 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReorderSuggestion {
+    private int prodId;
+    private String prodName;
+    private long stock; // central plus all stores
+    private double forecastDailyDemand; // smoothed level; day-of-week factors average to one over a week
+    private Double daysOfCover; // null when no demand is forecast
+    private int suggestedReorderPoint; // lead-time demand plus safety stock
+    private int suggestedOrderQuantity; // to bring stock up to lead-time plus review-period demand and safety stock
+    private Integer currentReorderPoint;
+    private int observedDays; // days of sales history behind the forecast
+}
@@ -0,0 +1,24 @@
+package com.supermarket.inventoryservice.dto;
+
+import com.supermarket.inventoryservice.journal.MovementType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockMovement {
+    private long sequence;
+    private Instant recordedAt;
+    private int prodId;
+    private int storeId;
+    private MovementType type;
+    private int delta;
+    private int quantity;
+    private long version;
+}
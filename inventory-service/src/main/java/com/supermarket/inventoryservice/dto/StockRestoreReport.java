@@ -0,0 +1,21 @@
+package com.supermarket.inventoryservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockRestoreReport {
+    private Instant restoredTo;
+    private int levelsReplayed;
+    private int productsUpdated;
+    private int storeRowsUpdated;
+    private int skippedDeletedProducts;
+    private long durationMillis;
+}
@@ -0,0 +1,20 @@
+package com.supermarket.inventoryservice.event;
+
+import lombok.Getter;
+
+// Published by CategoryServiceImpl after a category is added, renamed, moved or deleted, so the
+// in-memory category tree can be rebuilt once the change has committed.
+@Getter
+public class CategoryChangeEvent {
+
+    private final int categoryId;
+
+    public CategoryChangeEvent(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryChangeEvent{categoryId=" + categoryId + "}";
+    }
+}
@@ -0,0 +1,68 @@
+package com.supermarket.inventoryservice.event;
+
+import com.supermarket.inventoryservice.model.Product;
+import lombok.Getter;
+
+import java.util.Objects;
+
+// Published by ProductServiceImpl after every product mutation so in-memory read models can
+// update incrementally instead of rescanning the table. Carries a detached copy of the fields
+// listeners need; the category is referenced by id only so no lazy proxy is initialised.
+// version is the row version the change committed at, so a listener can drop a change delivered
+// after a newer one; 0 when the writer could not know it (bulk import, deletes).
+@Getter
+public class ProductChangeEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final int prodId;
+    private final String prodName;
+    private final double price;
+    private final int stock;
+    private final int categoryId;
+    private final Long barcode;
+    private final Integer reorderPoint; // null when unset or not known to the writer (bulk import)
+    private final long version;
+
+    private ProductChangeEvent(Type type, int prodId, String prodName, double price, int stock, int categoryId, Long barcode, Integer reorderPoint, long version) {
+        this.type = type;
+        this.prodId = prodId;
+        this.prodName = prodName;
+        this.price = price;
+        this.stock = stock;
+        this.categoryId = categoryId;
+        this.barcode = barcode;
+        this.reorderPoint = reorderPoint;
+        this.version = version;
+    }
+
+    public static ProductChangeEvent of(Type type, Product product) {
+        return of(type, product, 0);
+    }
+
+    public static ProductChangeEvent of(Type type, Product product, long version) {
+        int categoryId = product.getCategory() != null ? product.getCategory().getCategoryId() : 0;
+        return new ProductChangeEvent(type, product.getProdId(), product.getProdName(), product.getPrice(), product.getStock(), categoryId, product.getBarcode(), product.getReorderPoint(), version);
+    }
+
+    public static ProductChangeEvent deleted(int prodId) {
+        return new ProductChangeEvent(Type.DELETED, prodId, null, 0.0, 0, 0, null, null, 0);
+    }
+
+    // Whether the two events describe the product the same way, ignoring type and version.
+    public boolean sameState(ProductChangeEvent other) {
+        return prodId == other.prodId && Objects.equals(prodName, other.prodName) && price == other.price
+                && stock == other.stock && categoryId == other.categoryId && Objects.equals(barcode, other.barcode)
+                && Objects.equals(reorderPoint, other.reorderPoint);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductChangeEvent{" + type + ", prodId=" + prodId + ", version=" + version + "}";
+    }
+}
@@ -0,0 +1,43 @@
+package com.supermarket.inventoryservice.event;
+
+import com.supermarket.inventoryservice.model.Product;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Last row version each listener applied per product. Commits racing on the same row can be
+// delivered out of order, so a change at or below the applied version is stale and skipped.
+// Changes without a version (0) always apply, as in the stock journal; a delete leaves a marker
+// so a late change cannot bring the product back. Not thread-safe: the owner guards it with the
+// lock that guards the state it versions.
+public class ProductVersions {
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final Map<Integer, Long> applied = new HashMap<>();
+
+    // Records the event and returns true if it should be applied.
+    public boolean advance(ProductChangeEvent event) {
+        if (event.getType() == ProductChangeEvent.Type.DELETED) {
+            applied.put(event.getProdId(), DELETED);
+            return true;
+        }
+        Long last = applied.get(event.getProdId());
+        if (last != null && (last == DELETED || event.getVersion() != 0 && event.getVersion() <= last)) {
+            return false;
+        }
+        if (event.getVersion() != 0) {
+            applied.put(event.getProdId(), event.getVersion());
+        }
+        return true;
+    }
+
+    // Starts over from the versions of a fresh load.
+    public void reset(List<Product> products) {
+        applied.clear();
+        for (Product product : products) {
+            applied.put(product.getProdId(), product.getVersion());
+        }
+    }
+}
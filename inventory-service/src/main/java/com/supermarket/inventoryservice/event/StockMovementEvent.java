@@ -0,0 +1,39 @@
+package com.supermarket.inventoryservice.event;
+
+import com.supermarket.inventoryservice.journal.MovementType;
+import lombok.Getter;
+
+// Published alongside every stock change and appended to the stock journal after commit.
+// storeId is 0 for the central stock held on the product row. version is the row version the
+// change produced, used to order concurrent changes to the same row; 0 when the writer could not
+// know it (JDBC bulk paths), in which case journal order decides.
+@Getter
+public class StockMovementEvent {
+
+    public static final int CENTRAL_STORE = 0;
+
+    private final int prodId;
+    private final int storeId;
+    private final MovementType type;
+    private final int delta;
+    private final int quantity;
+    private final long version;
+
+    public StockMovementEvent(int prodId, int storeId, MovementType type, int delta, int quantity, long version) {
+        this.prodId = prodId;
+        this.storeId = storeId;
+        this.type = type;
+        this.delta = delta;
+        this.quantity = quantity;
+        this.version = version;
+    }
+
+    public static StockMovementEvent central(int prodId, MovementType type, int delta, int quantity, long version) {
+        return new StockMovementEvent(prodId, CENTRAL_STORE, type, delta, quantity, version);
+    }
+
+    @Override
+    public String toString() {
+        return "StockMovementEvent{" + type + ", prodId=" + prodId + ", storeId=" + storeId + ", delta=" + delta + ", quantity=" + quantity + "}";
+    }
+}
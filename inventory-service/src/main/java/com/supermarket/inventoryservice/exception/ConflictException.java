@@ -0,0 +1,8 @@
+package com.supermarket.inventoryservice.exception;
+
+// The request clashes with work already in progress, such as a second catalog import.
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
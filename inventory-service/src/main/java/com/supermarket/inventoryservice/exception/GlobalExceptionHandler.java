@@ -5,6 +5,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -84,6 +85,26 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Object> handlePreconditionFailedException(PreconditionFailedException ex, WebRequest request) {
+        Map<String, Object> body = createErrorBody(HttpStatus.PRECONDITION_FAILED, ex.getMessage(), request);
+        return new ResponseEntity<>(body, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<Object> handleConflictException(ConflictException ex, WebRequest request) {
+        Map<String, Object> body = createErrorBody(HttpStatus.CONFLICT, ex.getMessage(), request);
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
+    // Another request updated the same row between our read and write.
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, WebRequest request) {
+        String message = "The resource was modified by another request. Reload it and try again.";
+        Map<String, Object> body = createErrorBody(HttpStatus.CONFLICT, message, request);
+        return new ResponseEntity<>(body, HttpStatus.CONFLICT);
+    }
+
     // validation exception
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
@@ -9,4 +9,8 @@ public class OperationFailedException extends RuntimeException {
     public OperationFailedException(String message) {
         super(message);
     }
-}
\ No newline at end of file
+
+    public OperationFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
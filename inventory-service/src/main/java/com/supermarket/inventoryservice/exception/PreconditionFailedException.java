@@ -0,0 +1,8 @@
+package com.supermarket.inventoryservice.exception;
+
+// The If-Match header on an update did not match the resource's current version.
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,225 @@
+package com.supermarket.inventoryservice.feed;
+
+import com.supermarket.inventoryservice.dto.ProductChangeNotification;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.ProductVersions;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Sequenced product change feed served over Server-Sent Events. Every committed
+// ProductChangeEvent gets the next sequence number and is kept in a fixed-size ring buffer, so a
+// subscriber that reconnects with its last event id gets exactly what it missed. If that is no
+// longer in the buffer (or the service restarted) it gets a "reset" event and must resync.
+//
+// Event ids have the form "<feedId>:<sequence>". The feed id changes on every start, because
+// sequence numbers are only meaningful within one process lifetime.
+@Component
+public class ProductChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeFeed.class);
+
+    public static final String CHANGE_EVENT = "change";
+    public static final String RESET_EVENT = "reset";
+    public static final String READY_EVENT = "ready";
+
+    @Value("${inventory.feed.buffer-size:4096}")
+    private int bufferSize;
+
+    @Value("${inventory.feed.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMillis;
+
+    @Value("${inventory.feed.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    private final String feedId = Long.toString(System.currentTimeMillis(), 36);
+    private final Object lock = new Object();
+    private ProductChangeNotification[] ring;
+    private long head; // last sequence assigned, 0 before the first change
+    private final ProductVersions versions = new ProductVersions(); // guarded by lock
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // One thread does all sending, so each subscriber sees events in sequence order.
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private long lastSent; // only touched on the dispatcher thread
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    // Result of looking up a resume point: either the missed changes or a reset.
+    record Replay(boolean reset, List<ProductChangeNotification> changes, long head) {
+    }
+
+    @PostConstruct
+    public void start() {
+        ring = new ProductChangeNotification[bufferSize];
+        dispatcher.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    // Sequences a product mutation once its transaction has committed. The delivery is queued
+    // under the same lock that assigns the sequence, so the dispatcher sees changes in sequence
+    // order; otherwise a racing commit could be sent first and the earlier one skipped as sent.
+    // A change delivered after a newer one for the same product is not sequenced at all.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        synchronized (lock) {
+            if (!versions.advance(event)) {
+                return; // a newer change to this product was already sequenced
+            }
+            ProductChangeNotification notification = append(event);
+            dispatcher.execute(() -> deliver(notification));
+        }
+    }
+
+    public String getFeedId() {
+        return feedId;
+    }
+
+    // Opens a stream for one subscriber, replaying what it missed since lastEventId if given.
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = newEmitter();
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        dispatcher.execute(() -> {
+            Replay replay = lastEventId == null ? new Replay(false, List.of(), currentHead()) : replay(lastEventId);
+            try {
+                if (replay.reset()) {
+                    emitter.send(SseEmitter.event().id(eventId(replay.head())).name(RESET_EVENT).data(replay.head()));
+                }
+                for (ProductChangeNotification change : replay.changes()) {
+                    send(emitter, change);
+                }
+                emitter.send(SseEmitter.event().id(eventId(replay.head())).name(READY_EVENT).data(replay.head()));
+                // changes sequenced after the snapshot are still queued behind this task
+                subscriber.lastSent = replay.head();
+                subscribers.add(subscriber);
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(emitterTimeoutMillis);
+    }
+
+    ProductChangeNotification append(ProductChangeEvent event) {
+        synchronized (lock) {
+            long sequence = ++head;
+            ProductChangeNotification notification = new ProductChangeNotification(sequence, event.getType().name(),
+                    event.getProdId(), event.getProdName(), event.getPrice(), event.getStock(), event.getCategoryId(),
+                    event.getBarcode(), System.currentTimeMillis());
+            ring[(int) ((sequence - 1) % ring.length)] = notification;
+            return notification;
+        }
+    }
+
+    // Changes after the given event id, or a reset if they are no longer all in the buffer.
+    Replay replay(String lastEventId) {
+        synchronized (lock) {
+            long since = parseSequence(lastEventId);
+            long oldest = Math.max(1, head - ring.length + 1);
+            if (since < 0 || since > head || since < oldest - 1) {
+                return new Replay(true, List.of(), head);
+            }
+            List<ProductChangeNotification> changes = new ArrayList<>((int) (head - since));
+            for (long sequence = since + 1; sequence <= head; sequence++) {
+                changes.add(ring[(int) ((sequence - 1) % ring.length)]);
+            }
+            return new Replay(false, changes, head);
+        }
+    }
+
+    private long currentHead() {
+        synchronized (lock) {
+            return head;
+        }
+    }
+
+    // -1 when the id is malformed or from a previous run of the service.
+    private long parseSequence(String lastEventId) {
+        int separator = lastEventId.lastIndexOf(':');
+        if (separator < 0 || !lastEventId.substring(0, separator).equals(feedId)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void deliver(ProductChangeNotification notification) {
+        for (Subscriber subscriber : subscribers) {
+            if (notification.getSequence() <= subscriber.lastSent) {
+                continue; // already sent as part of its replay
+            }
+            try {
+                send(subscriber.emitter, notification);
+                subscriber.lastSent = notification.getSequence();
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void send(SseEmitter emitter, ProductChangeNotification notification) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(eventId(notification.getSequence()))
+                .name(CHANGE_EVENT)
+                .data(notification, MediaType.APPLICATION_JSON));
+    }
+
+    // A comment line keeps idle connections open through proxies and exposes dead subscribers.
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+            }
+        }
+        log.debug("Product change feed at sequence {} with {} subscribers", currentHead(), subscribers.size());
+    }
+
+    private String eventId(long sequence) {
+        return feedId + ":" + sequence;
+    }
+}
@@ -0,0 +1,167 @@
+package com.supermarket.inventoryservice.forecast;
+
+import com.supermarket.inventoryservice.dto.ReorderSuggestion;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
+import com.supermarket.inventoryservice.journal.MovementType;
+import com.supermarket.inventoryservice.model.Product;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Learns daily demand per SKU from committed sales (central and store reduceStock), so reorder
+// points can be set from live data instead of offline order exports. Each sale is an O(1) update
+// of DemandModel. The model is checkpointed to disk every checkpoint-interval-seconds and on
+// shutdown, so a restart loses at most that interval of history.
+//
+// Suggestions follow a periodic-review policy. The reorder point covers forecast demand over
+// the supplier lead time plus z standard deviations of the one-day error scaled by the square
+// root of the lead time. The order quantity tops stock up to cover the lead time plus the review
+// period on the same basis.
+@Component
+public class DemandForecaster {
+
+    private static final Logger log = LoggerFactory.getLogger(DemandForecaster.class);
+
+    static final int MAX_COVER_DAYS = 365;
+
+    @Value("${inventory.forecast.checkpoint:data/demand-forecast.bin}")
+    private String checkpointFile;
+
+    @Value("${inventory.forecast.checkpoint-interval-seconds:60}")
+    private long checkpointIntervalSeconds;
+
+    // Smoothing of the daily level; 0.1 weighs roughly the last ten selling days.
+    @Value("${inventory.forecast.alpha:0.1}")
+    private double alpha;
+
+    // Smoothing of the day-of-week factors; each factor only updates once a week, so keep it larger.
+    @Value("${inventory.forecast.season-gamma:0.2}")
+    private double gamma;
+
+    @Value("${inventory.forecast.lead-time-days:3}")
+    private int leadTimeDays;
+
+    @Value("${inventory.forecast.review-days:7}")
+    private int reviewDays;
+
+    // Standard normal quantile of the target service level; 1.65 is about 95%.
+    @Value("${inventory.forecast.service-level-z:1.65}")
+    private double serviceLevelZ;
+
+    @Value("${inventory.forecast.zone:}")
+    private String zone;
+
+    private DemandModel model;
+    private Path checkpoint;
+    private ZoneId zoneId;
+    private long checkpointedChanges;
+
+    private final ScheduledExecutorService checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "demand-forecast-checkpoint");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() throws IOException {
+        zoneId = zone == null || zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone);
+        model = new DemandModel(alpha, gamma, 1024);
+        checkpoint = Paths.get(checkpointFile);
+        if (checkpoint.getParent() != null) {
+            Files.createDirectories(checkpoint.getParent());
+        }
+        if (Files.exists(checkpoint)) {
+            try {
+                model.restore(checkpoint);
+                log.info("Demand forecast restored {} products from {}", model.products().length, checkpoint.toAbsolutePath());
+            } catch (IOException e) {
+                // better to relearn than to refuse to start; the bad file is overwritten at the next checkpoint
+                log.warn("Ignoring unreadable demand forecast checkpoint {}: {}", checkpoint.toAbsolutePath(), e.getMessage());
+            }
+        }
+        checkpointer.scheduleWithFixedDelay(this::checkpoint, checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        checkpointer.shutdownNow();
+        checkpoint();
+    }
+
+    // Counts a sale once its transaction has committed; rolled-back sales never reach the model.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockMovement(StockMovementEvent event) {
+        if (event.getType() == MovementType.SALE && event.getDelta() < 0) {
+            record(event.getProdId(), -event.getDelta(), Instant.now());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.getType() == ProductChangeEvent.Type.DELETED) {
+            model.remove(event.getProdId());
+        }
+    }
+
+    void record(int prodId, int units, Instant at) {
+        model.record(prodId, units, epochDay(at));
+    }
+
+    // Products with any sales history.
+    public int[] trackedProducts() {
+        return model.products();
+    }
+
+    // Forecast and reorder suggestion for one product holding the given stock, as of now.
+    public ReorderSuggestion suggest(Product product, long stock) {
+        return suggest(product, stock, Instant.now());
+    }
+
+    ReorderSuggestion suggest(Product product, long stock, Instant now) {
+        int today = epochDay(now);
+        DemandModel.Estimate estimate = model.estimate(product.getProdId(), today);
+        if (estimate == null) {
+            return new ReorderSuggestion(product.getProdId(), product.getProdName(), stock, 0, null, 0, 0, product.getReorderPoint(), 0);
+        }
+        double sigma = Math.sqrt(estimate.variance());
+        double leadTimeDemand = estimate.demand(today, leadTimeDays) + serviceLevelZ * sigma * Math.sqrt(leadTimeDays);
+        int horizon = leadTimeDays + reviewDays;
+        double orderUpTo = estimate.demand(today, horizon) + serviceLevelZ * sigma * Math.sqrt(horizon);
+        return new ReorderSuggestion(product.getProdId(), product.getProdName(), stock,
+                estimate.level(), estimate.daysOfCover(today, stock, MAX_COVER_DAYS),
+                (int) Math.ceil(leadTimeDemand), (int) Math.max(0, Math.ceil(orderUpTo - stock)),
+                product.getReorderPoint(), estimate.observedDays());
+    }
+
+    // Writes the model if it changed since the last checkpoint.
+    synchronized void checkpoint() {
+        try {
+            if (model == null || model.getChanges() == checkpointedChanges) {
+                return;
+            }
+            checkpointedChanges = model.checkpoint(checkpoint);
+        } catch (IOException | RuntimeException e) {
+            log.error("Demand forecast checkpoint failed", e);
+        }
+    }
+
+    private int epochDay(Instant at) {
+        return (int) LocalDate.ofInstant(at, zoneId).toEpochDay();
+    }
+}
@@ -0,0 +1,305 @@
+package com.supermarket.inventoryservice.forecast;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+// Per-SKU daily demand model: an exponentially smoothed level (units per day, deseasonalised),
+// a multiplicative day-of-week factor, and a smoothed squared forecast error for safety stock.
+// This is Holt-Winters without a trend term.
+//
+// State lives in parallel primitive arrays indexed by slot, about 100 bytes per SKU. Sales
+// accumulate in the open day's bucket. A day is folded into the model when the first sale of a
+// later day arrives. Skipped days fold as zero sales: up to a week one at a time, and beyond that
+// in closed form. Every event therefore costs O(1) however long the product was quiet. Sales for
+// a day that has already been folded count towards the open day.
+final class DemandModel {
+
+    private static final int MAGIC = 0x44464350; // "DFCP"
+    private static final int FORMAT = 1;
+    private static final int SLOT_BYTES = 3 * 4 + 10 * 8;
+    private static final double MIN_SEASON = 0.05;
+
+    private final double alpha;
+    private final double gamma;
+
+    // Guarded by this.
+    private final Map<Integer, Integer> slots = new HashMap<>();
+    private int size;
+    private int[] prodIds;
+    private int[] openDay;
+    private int[] observedDays;
+    private double[] openUnits;
+    private double[] level;
+    private double[] variance;
+    private double[] season; // 7 per slot, Monday first, averaging 1
+    private long changes;
+
+    DemandModel(double alpha, double gamma, int initialCapacity) {
+        this.alpha = alpha;
+        this.gamma = gamma;
+        allocate(Math.max(16, initialCapacity));
+    }
+
+    static int dayOfWeek(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, 7L); // 1970-01-01 was a Thursday
+    }
+
+    synchronized void record(int prodId, double units, int epochDay) {
+        Integer slot = slots.get(prodId);
+        if (slot == null) {
+            slot = add(prodId, epochDay);
+        } else if (epochDay > openDay[slot]) {
+            roll(slot, epochDay);
+        }
+        openUnits[slot] += units;
+        changes++;
+    }
+
+    synchronized void remove(int prodId) {
+        Integer slot = slots.remove(prodId);
+        if (slot == null) {
+            return;
+        }
+        int last = --size;
+        if (slot != last) { // move the last slot into the hole to keep the arrays dense
+            prodIds[slot] = prodIds[last];
+            openDay[slot] = openDay[last];
+            observedDays[slot] = observedDays[last];
+            openUnits[slot] = openUnits[last];
+            level[slot] = level[last];
+            variance[slot] = variance[last];
+            System.arraycopy(season, last * 7, season, slot * 7, 7);
+            slots.put(prodIds[slot], slot);
+        }
+        changes++;
+    }
+
+    synchronized boolean contains(int prodId) {
+        return slots.containsKey(prodId);
+    }
+
+    synchronized int[] products() {
+        return Arrays.copyOf(prodIds, size);
+    }
+
+    synchronized long getChanges() {
+        return changes;
+    }
+
+    // Point-in-time view of one SKU, with closed days folded in as of the given day; null if never sold.
+    synchronized Estimate estimate(int prodId, int today) {
+        Integer slot = slots.get(prodId);
+        if (slot == null) {
+            return null;
+        }
+        if (today > openDay[slot]) {
+            roll(slot, today); // a quiet product still decays
+        }
+        if (observedDays[slot] == 0) {
+            // nothing folded yet: today's sales are the only evidence
+            return new Estimate(openUnits[slot], 0, 0, openUnits[slot], new double[]{1, 1, 1, 1, 1, 1, 1});
+        }
+        return new Estimate(level[slot], variance[slot], observedDays[slot], openDay[slot] == today ? openUnits[slot] : 0,
+                Arrays.copyOfRange(season, slot * 7, slot * 7 + 7));
+    }
+
+    // Smoothed state of one SKU: level in units per day, squared one-day error, days folded so far,
+    // units already sold today, and the seven day-of-week factors.
+    record Estimate(double level, double variance, int observedDays, double soldToday, double[] season) {
+
+        double demandOn(long epochDay) {
+            return level * season[dayOfWeek(epochDay)];
+        }
+
+        // Expected units over the given number of days starting today, net of what today already sold.
+        double demand(long today, int days) {
+            double total = 0;
+            for (int d = 0; d < days; d++) {
+                double day = demandOn(today + d);
+                total += d == 0 ? Math.max(0, day - soldToday) : day;
+            }
+            return total;
+        }
+
+        // Days until the stock runs out at forecast demand, or null if demand is zero. Capped at maxDays.
+        Double daysOfCover(long today, long stock, int maxDays) {
+            if (level <= 0) {
+                return null;
+            }
+            double remaining = stock;
+            for (int d = 0; d < maxDays; d++) {
+                double day = d == 0 ? Math.max(0, demandOn(today) - soldToday) : demandOn(today + d);
+                if (day >= remaining) {
+                    return d + (day == 0 ? 0 : remaining / day);
+                }
+                remaining -= day;
+            }
+            return (double) maxDays;
+        }
+    }
+
+    private int add(int prodId, int epochDay) {
+        if (size == prodIds.length) {
+            grow();
+        }
+        int slot = size++;
+        prodIds[slot] = prodId;
+        openDay[slot] = epochDay;
+        observedDays[slot] = 0;
+        openUnits[slot] = 0;
+        level[slot] = 0;
+        variance[slot] = 0;
+        Arrays.fill(season, slot * 7, slot * 7 + 7, 1.0);
+        slots.put(prodId, slot);
+        return slot;
+    }
+
+    // Closes the open day and every skipped day before the new one.
+    private void roll(int slot, int newDay) {
+        fold(slot, dayOfWeek(openDay[slot]), openUnits[slot]);
+        long gap = (long) newDay - openDay[slot] - 1;
+        for (long d = 1; d <= Math.min(gap, 7); d++) {
+            fold(slot, dayOfWeek(openDay[slot] + d), 0);
+        }
+        if (gap > 7) {
+            // a week of zeros has already pulled every weekday factor down; the rest only decays the
+            // level, and each day's error is the whole (decaying) level, which sums to a closed form
+            double keep = Math.pow(1 - alpha, gap - 7);
+            variance[slot] = keep * (variance[slot] + level[slot] * level[slot] * (1 - keep) / (1 - alpha));
+            level[slot] *= keep;
+            observedDays[slot] += (int) Math.min(gap - 7, Integer.MAX_VALUE - observedDays[slot]);
+        }
+        openDay[slot] = newDay;
+        openUnits[slot] = 0;
+        changes++;
+    }
+
+    private void fold(int slot, int dow, double units) {
+        int s = slot * 7 + dow;
+        if (observedDays[slot] == 0) {
+            level[slot] = units;
+            observedDays[slot] = 1;
+            return;
+        }
+        double factor = Math.max(season[s], MIN_SEASON);
+        double error = units - level[slot] * factor;
+        variance[slot] = alpha * error * error + (1 - alpha) * variance[slot];
+        level[slot] = alpha * (units / factor) + (1 - alpha) * level[slot];
+        if (level[slot] > 0) {
+            season[s] = Math.max(MIN_SEASON, gamma * (units / level[slot]) + (1 - gamma) * season[s]);
+            normalise(slot);
+        }
+        if (observedDays[slot] < Integer.MAX_VALUE) {
+            observedDays[slot]++;
+        }
+    }
+
+    private void normalise(int slot) {
+        double sum = 0;
+        for (int i = slot * 7; i < slot * 7 + 7; i++) {
+            sum += season[i];
+        }
+        double scale = 7 / sum;
+        for (int i = slot * 7; i < slot * 7 + 7; i++) {
+            season[i] *= scale;
+        }
+    }
+
+    private void allocate(int capacity) {
+        prodIds = new int[capacity];
+        openDay = new int[capacity];
+        observedDays = new int[capacity];
+        openUnits = new double[capacity];
+        level = new double[capacity];
+        variance = new double[capacity];
+        season = new double[capacity * 7];
+    }
+
+    private void grow() {
+        int capacity = prodIds.length * 2;
+        prodIds = Arrays.copyOf(prodIds, capacity);
+        openDay = Arrays.copyOf(openDay, capacity);
+        observedDays = Arrays.copyOf(observedDays, capacity);
+        openUnits = Arrays.copyOf(openUnits, capacity);
+        level = Arrays.copyOf(level, capacity);
+        variance = Arrays.copyOf(variance, capacity);
+        season = Arrays.copyOf(season, capacity * 7);
+    }
+
+    // Serialises under the lock, then writes to a temporary file and renames it, so a crash
+    // never leaves a half-written checkpoint. Returns the change count the checkpoint covers.
+    long checkpoint(Path file) throws IOException {
+        ByteBuffer buffer;
+        long covered;
+        synchronized (this) {
+            buffer = ByteBuffer.allocate(12 + size * SLOT_BYTES + 4);
+            buffer.putInt(MAGIC).putInt(FORMAT).putInt(size);
+            for (int slot = 0; slot < size; slot++) {
+                buffer.putInt(prodIds[slot]).putInt(openDay[slot]).putInt(observedDays[slot])
+                        .putDouble(openUnits[slot]).putDouble(level[slot]).putDouble(variance[slot]);
+                for (int i = slot * 7; i < slot * 7 + 7; i++) {
+                    buffer.putDouble(season[i]);
+                }
+            }
+            covered = changes;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return covered;
+    }
+
+    // Replaces the current state with a checkpoint, verifying its checksum.
+    synchronized void restore(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < 16 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+            throw new IOException("Not a demand forecast checkpoint: " + file);
+        }
+        int count = buffer.getInt();
+        int crcOffset = 12 + count * SLOT_BYTES;
+        if (count < 0 || bytes.length != crcOffset + 4) {
+            throw new IOException("Truncated demand forecast checkpoint " + file);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, crcOffset);
+        if (buffer.getInt(crcOffset) != (int) crc.getValue()) {
+            throw new IOException("Corrupt demand forecast checkpoint " + file);
+        }
+        slots.clear();
+        allocate(Math.max(16, Integer.highestOneBit(Math.max(1, count)) * 2));
+        for (int slot = 0; slot < count; slot++) {
+            prodIds[slot] = buffer.getInt();
+            openDay[slot] = buffer.getInt();
+            observedDays[slot] = buffer.getInt();
+            openUnits[slot] = buffer.getDouble();
+            level[slot] = buffer.getDouble();
+            variance[slot] = buffer.getDouble();
+            for (int i = slot * 7; i < slot * 7 + 7; i++) {
+                season[i] = buffer.getDouble();
+            }
+            slots.put(prodIds[slot], slot);
+        }
+        size = count;
+        changes = 0;
+    }
+}
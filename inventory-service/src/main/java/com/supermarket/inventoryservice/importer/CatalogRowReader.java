@@ -0,0 +1,178 @@
+package com.supermarket.inventoryservice.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.supermarket.inventoryservice.dto.CatalogImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+// Reads an import file one record at a time so only the current row is held in memory.
+// Call next() to advance and row() to parse the current record; a record that cannot be
+// parsed throws IllegalArgumentException from row() without stopping the rest of the file.
+public class CatalogRowReader {
+
+    private static final int NAME = 0;
+    private static final int PRICE = 1;
+    private static final int STOCK = 2;
+    private static final int CATEGORY = 3;
+    private static final int BARCODE = 4;
+
+    private final ImportFormat format;
+    private final BufferedReader reader;
+    private final ObjectReader jsonReader;
+
+    // Column position of each field in the CSV header, -1 when absent.
+    private final int[] columns = {-1, -1, -1, -1, -1};
+
+    private long nextLine = 1;
+    private long recordLine;
+    private List<String> fields;
+    private String json;
+
+    public CatalogRowReader(ImportFormat format, Reader reader, ObjectMapper objectMapper) throws IOException {
+        this.format = format;
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.jsonReader = objectMapper.readerFor(CatalogImportRow.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        if (format == ImportFormat.CSV) {
+            readHeader();
+        }
+    }
+
+    // Advances to the next non-blank record; false at end of input.
+    public boolean next() throws IOException {
+        if (format == ImportFormat.NDJSON) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                recordLine = nextLine++;
+                if (!line.isBlank()) {
+                    json = line;
+                    return true;
+                }
+            }
+            return false;
+        }
+        while ((fields = readRecord()) != null) {
+            if (!(fields.size() == 1 && fields.get(0).isBlank())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 1-based line on which the current record starts.
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    public CatalogImportRow row() {
+        if (format == ImportFormat.NDJSON) {
+            try {
+                return jsonReader.readValue(json);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+        CatalogImportRow row = new CatalogImportRow();
+        row.setProdName(field(NAME));
+        row.setCategoryName(field(CATEGORY));
+        row.setPrice(parse(field(PRICE), "price", Double::valueOf));
+        row.setStock(parse(field(STOCK), "stock", Integer::valueOf));
+        row.setBarcode(parse(field(BARCODE), "barcode", Long::valueOf));
+        return row;
+    }
+
+    private void readHeader() throws IOException {
+        List<String> header = readRecord();
+        if (header == null) {
+            return; // empty file, next() will report no rows
+        }
+        for (int i = 0; i < header.size(); i++) {
+            switch (header.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "prodname", "name", "product_name" -> columns[NAME] = i;
+                case "price" -> columns[PRICE] = i;
+                case "stock", "quantity" -> columns[STOCK] = i;
+                case "categoryname", "category", "category_name" -> columns[CATEGORY] = i;
+                case "barcode", "ean", "upc" -> columns[BARCODE] = i;
+                default -> { } // extra supplier columns are ignored
+            }
+        }
+        if (columns[NAME] < 0 || columns[PRICE] < 0 || columns[CATEGORY] < 0) {
+            throw new IllegalArgumentException("CSV header must contain prodName, price and categoryName columns.");
+        }
+    }
+
+    private String field(int column) {
+        int index = columns[column];
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static <T> T parse(String value, String name, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": '" + value + "'");
+        }
+    }
+
+    // Reads one RFC 4180 record. Quoted fields may contain delimiters, doubled quotes and line breaks.
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = nextLine;
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int peek = reader.read();
+                    if (peek == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (peek != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    if (c == '\n') {
+                        nextLine++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                nextLine++;
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        record.add(field.toString());
+        return record;
+    }
+}
@@ -0,0 +1,7 @@
+package com.supermarket.inventoryservice.importer;
+
+// Input formats accepted by the bulk catalog import endpoint.
+public enum ImportFormat {
+    CSV,
+    NDJSON
+}
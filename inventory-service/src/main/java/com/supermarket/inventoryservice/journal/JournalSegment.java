@@ -0,0 +1,169 @@
+package com.supermarket.inventoryservice.journal;
+
+import com.supermarket.inventoryservice.dto.StockMovement;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+// One memory-mapped journal file holding a fixed number of fixed-size records. Fixed-size
+// records make the i-th record a multiplication away, which is what lets history and replay
+// binary-search by time instead of scanning. A record is only counted once fully written, and
+// a torn or never-written slot (zero sequence or bad checksum) marks the end on recovery.
+//
+// Record layout (48 bytes, big-endian):
+//   sequence long | timestamp millis long | version long | prodId int | storeId int |
+//   type byte + 3 padding | delta int | quantity int | CRC32C of the preceding 44 bytes int
+final class JournalSegment implements AutoCloseable {
+
+    static final int RECORD_SIZE = 48;
+    private static final int CRC_OFFSET = 44;
+    private static final MovementType[] TYPES = MovementType.values();
+
+    private final Path path;
+    private final long firstSequence;
+    private final int capacity;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private volatile int count;
+
+    private JournalSegment(Path path, long firstSequence, int capacity) throws IOException {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.capacity = capacity;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+    }
+
+    static String fileName(long firstSequence) {
+        return String.format("%020d.seg", firstSequence);
+    }
+
+    static JournalSegment create(Path directory, long firstSequence, int capacity) throws IOException {
+        return new JournalSegment(directory.resolve(fileName(firstSequence)), firstSequence, capacity);
+    }
+
+    // Maps an existing segment and counts its valid records.
+    static JournalSegment open(Path path, long firstSequence) throws IOException {
+        int capacity;
+        try (FileChannel probe = FileChannel.open(path, StandardOpenOption.READ)) {
+            capacity = (int) (probe.size() / RECORD_SIZE);
+        }
+        JournalSegment segment = new JournalSegment(path, firstSequence, capacity);
+        int valid = 0;
+        while (valid < capacity && segment.isValid(valid, firstSequence + valid)) {
+            valid++;
+        }
+        segment.count = valid;
+        return segment;
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    // Sequence of the last record, or firstSequence - 1 when empty.
+    long getLastSequence() {
+        return firstSequence + count - 1;
+    }
+
+    int size() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    // Single writer only; StockJournal serialises appends.
+    void append(long sequence, long timestampMillis, long version, int prodId, int storeId, MovementType type, int delta, int quantity) {
+        int offset = count * RECORD_SIZE;
+        buffer.putLong(offset, sequence);
+        buffer.putLong(offset + 8, timestampMillis);
+        buffer.putLong(offset + 16, version);
+        buffer.putInt(offset + 24, prodId);
+        buffer.putInt(offset + 28, storeId);
+        buffer.putInt(offset + 32, type.ordinal() << 24);
+        buffer.putInt(offset + 36, delta);
+        buffer.putInt(offset + 40, quantity);
+        buffer.putInt(offset + CRC_OFFSET, checksum(offset));
+        count++; // publishes the record to readers
+    }
+
+    long timestampAt(int index) {
+        return buffer.getLong(index * RECORD_SIZE + 8);
+    }
+
+    int prodIdAt(int index) {
+        return buffer.getInt(index * RECORD_SIZE + 24);
+    }
+
+    int storeIdAt(int index) {
+        return buffer.getInt(index * RECORD_SIZE + 28);
+    }
+
+    long versionAt(int index) {
+        return buffer.getLong(index * RECORD_SIZE + 16);
+    }
+
+    MovementType typeAt(int index) {
+        return TYPES[buffer.getInt(index * RECORD_SIZE + 32) >>> 24];
+    }
+
+    int quantityAt(int index) {
+        return buffer.getInt(index * RECORD_SIZE + 40);
+    }
+
+    StockMovement read(int index) {
+        int offset = index * RECORD_SIZE;
+        return new StockMovement(buffer.getLong(offset), Instant.ofEpochMilli(buffer.getLong(offset + 8)),
+                buffer.getInt(offset + 24), buffer.getInt(offset + 28),
+                typeAt(index),
+                buffer.getInt(offset + 36), buffer.getInt(offset + 40), buffer.getLong(offset + 16));
+    }
+
+    // Number of records with a timestamp at or before the given time (timestamps never decrease).
+    int countAtOrBefore(long timestampMillis) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestampAt(mid) <= timestampMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private boolean isValid(int index, long expectedSequence) {
+        int offset = index * RECORD_SIZE;
+        return buffer.getLong(offset) == expectedSequence && buffer.getInt(offset + CRC_OFFSET) == checksum(offset)
+                && (buffer.getInt(offset + 32) >>> 24) < TYPES.length;
+    }
+
+    private int checksum(int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, CRC_OFFSET));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,125 @@
+package com.supermarket.inventoryservice.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+// Compact image of every stock level as of one journal sequence, so replay starts from the
+// nearest snapshot instead of the first segment.
+//
+// File layout (big-endian): magic int | sequence long | timestamp millis long | entry count int |
+// entries of prodId int, storeId int, version long, quantity int | CRC32C of everything before it int
+final class JournalSnapshot {
+
+    private static final int MAGIC = 0x534A534E; // "SJSN"
+    private static final int HEADER_SIZE = 24;
+    private static final int ENTRY_SIZE = 20;
+
+    // Level of one (product, store) pair and the row version it was recorded at.
+    record Level(long version, int quantity) {
+    }
+
+    private final Path path;
+    private final long sequence;
+    private final long timestampMillis;
+
+    private JournalSnapshot(Path path, long sequence, long timestampMillis) {
+        this.path = path;
+        this.sequence = sequence;
+        this.timestampMillis = timestampMillis;
+    }
+
+    static String fileName(long sequence) {
+        return String.format("snapshot-%020d.snap", sequence);
+    }
+
+    static long key(int prodId, int storeId) {
+        return ((long) prodId << 32) | (storeId & 0xFFFFFFFFL);
+    }
+
+    static int prodId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int storeId(long key) {
+        return (int) key;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    // Writes to a temporary file and renames it, so a crash never leaves a half-written snapshot.
+    static JournalSnapshot write(Path directory, long sequence, long timestampMillis, Map<Long, Level> levels) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + levels.size() * ENTRY_SIZE + 4);
+        buffer.putInt(MAGIC).putLong(sequence).putLong(timestampMillis).putInt(levels.size());
+        for (Map.Entry<Long, Level> entry : levels.entrySet()) {
+            buffer.putInt(prodId(entry.getKey())).putInt(storeId(entry.getKey()))
+                    .putLong(entry.getValue().version()).putInt(entry.getValue().quantity());
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        Path target = directory.resolve(fileName(sequence));
+        Path temp = directory.resolve(fileName(sequence) + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return new JournalSnapshot(target, sequence, timestampMillis);
+    }
+
+    // Reads only the header; null if the file is not a valid snapshot.
+    static JournalSnapshot peek(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.read(header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC) {
+                return null;
+            }
+            return new JournalSnapshot(path, header.getLong(4), header.getLong(12));
+        }
+    }
+
+    // Loads all levels, verifying the checksum.
+    Map<Long, Level> load() throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int count = buffer.getInt(20);
+        int crcOffset = HEADER_SIZE + count * ENTRY_SIZE;
+        if (bytes.length != crcOffset + 4) {
+            throw new IOException("Truncated stock journal snapshot " + path);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, crcOffset);
+        if (buffer.getInt(crcOffset) != (int) crc.getValue()) {
+            throw new IOException("Corrupt stock journal snapshot " + path);
+        }
+        Map<Long, Level> levels = new HashMap<>(count * 2);
+        buffer.position(HEADER_SIZE);
+        for (int i = 0; i < count; i++) {
+            long key = key(buffer.getInt(), buffer.getInt());
+            levels.put(key, new Level(buffer.getLong(), buffer.getInt()));
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,15 @@
+package com.supermarket.inventoryservice.journal;
+
+// Why a stock level changed. SET, IMPORT and RESTORE carry an absolute level; the others are
+// relative movements whose delta is also recorded. The ordinal is stored in the journal, so only
+// ever append new constants.
+public enum MovementType {
+    SALE,
+    RESTOCK,
+    SET,
+    ADJUST,
+    IMPORT,
+    CREATE,
+    DELETE,
+    RESTORE
+}
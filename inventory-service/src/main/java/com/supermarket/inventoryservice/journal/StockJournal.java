@@ -0,0 +1,268 @@
+package com.supermarket.inventoryservice.journal;
+
+import com.supermarket.inventoryservice.dto.StockLevel;
+import com.supermarket.inventoryservice.dto.StockMovement;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Append-only journal of every committed stock movement, kept outside MySQL in memory-mapped
+// segment files. It is the audit trail for shrinkage and the source for rebuilding stock after a
+// bad import: replay(at) starts from the newest snapshot taken before that time and applies only
+// the records after it, so it touches at most snapshot-every records.
+//
+// Appends go to the page cache and are forced to disk every flush-interval-ms, so a process crash
+// loses nothing and an OS crash loses at most that interval. Journal failures are logged and never
+// fail the stock change itself.
+@Component
+public class StockJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(StockJournal.class);
+
+    @Value("${inventory.journal.dir:data/stock-journal}")
+    private String directory;
+
+    // Records per segment file; each record is 48 bytes.
+    @Value("${inventory.journal.segment-records:1048576}")
+    private int segmentRecords;
+
+    @Value("${inventory.journal.snapshot-every:100000}")
+    private long snapshotEvery;
+
+    @Value("${inventory.journal.flush-interval-ms:1000}")
+    private long flushIntervalMillis;
+
+    @Value("${inventory.journal.snapshots-retained:48}")
+    private int snapshotsRetained;
+
+    private Path root;
+
+    // Readers iterate these without locking; only the writer adds to them.
+    private final List<JournalSegment> segments = new CopyOnWriteArrayList<>();
+    private final List<JournalSnapshot> snapshots = new CopyOnWriteArrayList<>();
+
+    // Guarded by this: the writer's position and the current level of every (product, store).
+    private long lastSequence;
+    private long lastTimestamp;
+    private final Map<Long, JournalSnapshot.Level> levels = new HashMap<>();
+    private long lastSnapshotSequence;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-journal-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() throws IOException {
+        root = Paths.get(directory);
+        Files.createDirectories(root);
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path file : files.sorted().toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".seg")) {
+                    segments.add(JournalSegment.open(file, Long.parseLong(name.substring(0, name.length() - 4))));
+                } else if (name.endsWith(".snap")) {
+                    JournalSnapshot snapshot = JournalSnapshot.peek(file);
+                    if (snapshot != null) {
+                        snapshots.add(snapshot);
+                    }
+                } else if (name.endsWith(".tmp")) {
+                    Files.delete(file); // snapshot interrupted before its rename
+                }
+            }
+        }
+        synchronized (this) {
+            if (!segments.isEmpty()) {
+                JournalSegment last = segments.get(segments.size() - 1);
+                lastSequence = last.getLastSequence();
+                lastTimestamp = last.size() > 0 ? last.timestampAt(last.size() - 1) : 0;
+            }
+            // a snapshot can never be ahead of the forced journal, but a copied-in directory might be
+            snapshots.removeIf(snapshot -> snapshot.getSequence() > lastSequence);
+            levels.putAll(rebuild(Long.MAX_VALUE));
+            lastSnapshotSequence = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1).getSequence();
+        }
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Stock journal opened at {} with {} segments, {} snapshots, last sequence {}",
+                root.toAbsolutePath(), segments.size(), snapshots.size(), lastSequence);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        flusher.shutdownNow();
+        synchronized (this) {
+            for (JournalSegment segment : segments) {
+                segment.close();
+            }
+        }
+    }
+
+    // Records a stock change once its transaction has committed.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockMovement(StockMovementEvent event) {
+        try {
+            append(event, System.currentTimeMillis());
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not journal {}", event, e);
+        }
+    }
+
+    // Appends one record and returns its sequence. Timestamps are clamped so they never go
+    // backwards, which keeps every segment sorted by time.
+    synchronized long append(StockMovementEvent event, long timestampMillis) throws IOException {
+        JournalSegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.isFull()) {
+            if (segment != null) {
+                segment.force();
+            }
+            segment = JournalSegment.create(root, lastSequence + 1, segmentRecords);
+            segments.add(segment);
+        }
+        long sequence = lastSequence + 1;
+        long timestamp = Math.max(timestampMillis, lastTimestamp);
+        segment.append(sequence, timestamp, event.getVersion(), event.getProdId(), event.getStoreId(),
+                event.getType(), event.getDelta(), event.getQuantity());
+        lastSequence = sequence;
+        lastTimestamp = timestamp;
+        apply(levels, event.getProdId(), event.getStoreId(), event.getType(), event.getVersion(), event.getQuantity());
+        return sequence;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    // Movements of one product (optionally one store) within [from, to], newest first. Walks
+    // segments backwards and binary-searches the upper time bound, so recent history is cheap.
+    public List<StockMovement> history(int prodId, Integer storeId, Instant from, Instant to, int limit) {
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        List<StockMovement> movements = new ArrayList<>();
+        for (int s = segments.size() - 1; s >= 0 && movements.size() < limit; s--) {
+            JournalSegment segment = segments.get(s);
+            for (int i = segment.countAtOrBefore(toMillis) - 1; i >= 0; i--) {
+                if (segment.timestampAt(i) < fromMillis) {
+                    return movements;
+                }
+                if (segment.prodIdAt(i) == prodId && (storeId == null || segment.storeIdAt(i) == storeId)) {
+                    movements.add(segment.read(i));
+                    if (movements.size() == limit) {
+                        return movements;
+                    }
+                }
+            }
+        }
+        return movements;
+    }
+
+    // Stock level of every (product, store) as of the given time, sorted by product then store.
+    public List<StockLevel> replay(Instant at) {
+        Map<Long, JournalSnapshot.Level> replayed = rebuild(at.toEpochMilli());
+        List<StockLevel> result = new ArrayList<>(replayed.size());
+        replayed.forEach((key, level) -> result.add(new StockLevel(JournalSnapshot.prodId(key), JournalSnapshot.storeId(key), level.quantity())));
+        result.sort(Comparator.comparingInt(StockLevel::getProdId).thenComparingInt(StockLevel::getStoreId));
+        return result;
+    }
+
+    // Forces dirty pages to disk and takes a snapshot once enough records have accumulated.
+    void flush() {
+        try {
+            JournalSegment current = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (current != null) {
+                current.force();
+            }
+            Map<Long, JournalSnapshot.Level> copy;
+            long sequence;
+            long timestamp;
+            synchronized (this) {
+                if (lastSequence - lastSnapshotSequence < snapshotEvery) {
+                    return;
+                }
+                // everything up to lastSequence may not be forced yet, so snapshot only what is
+                if (current != null && current.getLastSequence() != lastSequence) {
+                    return;
+                }
+                copy = new HashMap<>(levels);
+                sequence = lastSequence;
+                timestamp = lastTimestamp;
+                lastSnapshotSequence = sequence;
+            }
+            current.force();
+            snapshots.add(JournalSnapshot.write(root, sequence, timestamp, copy));
+            while (snapshots.size() > snapshotsRetained) {
+                Files.deleteIfExists(snapshots.remove(0).getPath());
+            }
+            log.info("Stock journal snapshot at sequence {} with {} levels", sequence, copy.size());
+        } catch (IOException | RuntimeException e) {
+            log.error("Stock journal flush failed", e);
+        }
+    }
+
+    // Levels as of a time: the newest readable snapshot taken at or before it, plus later records.
+    private Map<Long, JournalSnapshot.Level> rebuild(long atMillis) {
+        Map<Long, JournalSnapshot.Level> result = new HashMap<>();
+        long startSequence = 1;
+        for (int s = snapshots.size() - 1; s >= 0; s--) {
+            JournalSnapshot snapshot = snapshots.get(s);
+            if (snapshot.getTimestampMillis() > atMillis) {
+                continue;
+            }
+            try {
+                result = snapshot.load();
+                startSequence = snapshot.getSequence() + 1;
+                break;
+            } catch (IOException e) {
+                log.warn("Skipping unreadable stock journal snapshot {}: {}", snapshot.getPath(), e.getMessage());
+            }
+        }
+        for (JournalSegment segment : segments) {
+            if (segment.getLastSequence() < startSequence) {
+                continue;
+            }
+            if (segment.size() > 0 && segment.timestampAt(0) > atMillis) {
+                break;
+            }
+            int end = segment.countAtOrBefore(atMillis);
+            for (int i = (int) Math.max(0, startSequence - segment.getFirstSequence()); i < end; i++) {
+                apply(result, segment.prodIdAt(i), segment.storeIdAt(i), segment.typeAt(i), segment.versionAt(i), segment.quantityAt(i));
+            }
+        }
+        return result;
+    }
+
+    // A record replaces the known level unless it carries an older row version, which happens
+    // when two commits on the same row reach the journal in the opposite order.
+    private static void apply(Map<Long, JournalSnapshot.Level> target, int prodId, int storeId, MovementType type, long version, int quantity) {
+        long key = JournalSnapshot.key(prodId, storeId);
+        if (type == MovementType.DELETE) {
+            target.remove(key);
+            return;
+        }
+        JournalSnapshot.Level current = target.get(key);
+        if (current == null || version == 0 || version >= current.version()) {
+            target.put(key, new JournalSnapshot.Level(version, quantity));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.supermarket.inventoryservice.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -9,6 +10,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,9 +19,11 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // second-level cache, region sized in ehcache.xml
 @Getter
 @Setter
-@Table(name = "product_category")
+@Table(name = "product_category", indexes = @Index(name = "idx_category_path", columnList = "path"))
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"}) // ignore proxy objects
 public class Category {
 
@@ -36,6 +41,27 @@ public class Category {
     @JsonIgnore
     private List<Product> products = new ArrayList<>();
 
+    // Null for a top-level category.
+    @Column(name = "parent_id")
+    private Integer parentId;
+
+    // Materialised path of ids from the root, e.g. "/3/17/42/". Every category under 3 has a
+    // path starting with "/3/", so a subtree is one prefix (index range) scan.
+    @Column(name = "path", length = 255)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY) // derived from parentId, never taken from a request
+    private String path;
+
+    // Optimistic lock version, bumped by Hibernate on every update and exposed as the ETag.
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    public Category(int categoryId, String categoryName, List<Product> products) {
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.products = products;
+    }
+
 
     public int getCategoryId() {
         return categoryId;
@@ -60,4 +86,28 @@ public class Category {
     public void setProducts(List<Product> products) {
         this.products = products;
     }
+
+    public Integer getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(Integer parentId) {
+        this.parentId = parentId;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
@@ -8,12 +8,16 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // second-level cache, region sized in ehcache.xml
 @Table(name = "product")
 public class Product {
 
@@ -42,6 +46,29 @@ public class Product {
     @NotNull(message = "Category cannot be null")
     private Category category;
 
+    // EAN-8, UPC-A or EAN-13 code scanned at the till; optional for legacy products.
+    @Column(name = "barcode", unique = true)
+    @Positive(message = "Barcode must be positive")
+    private Long barcode;
+
+    // Stock level at or below which a low-stock alert is raised; null uses inventory.low-stock.default-reorder-point.
+    @Column(name = "reorder_point")
+    @PositiveOrZero(message = "Reorder point cannot be negative")
+    private Integer reorderPoint;
+
+    // Optimistic lock version, bumped by Hibernate on every update and exposed as the ETag.
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    public Product(int prodId, String prodName, double price, int stock, Category category) {
+        this.prodId = prodId;
+        this.prodName = prodName;
+        this.price = price;
+        this.stock = stock;
+        this.category = category;
+    }
+
     public int getProdId() {
         return prodId;
     }
@@ -81,4 +108,28 @@ public class Product {
     public void setCategory(Category category) {
         this.category = category;
     }
+
+    public Long getBarcode() {
+        return barcode;
+    }
+
+    public void setBarcode(Long barcode) {
+        this.barcode = barcode;
+    }
+
+    public Integer getReorderPoint() {
+        return reorderPoint;
+    }
+
+    public void setReorderPoint(Integer reorderPoint) {
+        this.reorderPoint = reorderPoint;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
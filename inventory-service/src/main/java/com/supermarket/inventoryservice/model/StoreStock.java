@@ -0,0 +1,44 @@
+package com.supermarket.inventoryservice.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// On-hand stock of one product at one store. The key leads with store_id so the table can be
+// partitioned by store (see db/store_stock_partitioning.sql); for the same reason prod_id is a
+// plain column, since MySQL does not allow foreign keys on partitioned tables.
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@Entity
+@IdClass(StoreStockId.class)
+@Table(name = "store_stock", indexes = @Index(name = "idx_store_stock_product", columnList = "product_id"))
+public class StoreStock {
+
+    @Id
+    @Column(name = "store_id")
+    private int storeId;
+
+    @Id
+    @Column(name = "product_id")
+    private int prodId;
+
+    @Column(name = "quantity", nullable = false)
+    @PositiveOrZero(message = "Stock cannot be negative")
+    private int quantity;
+
+    // Bumped by every write, including the bulk decrement/increment queries; orders journal records.
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    public StoreStock(int storeId, int prodId, int quantity) {
+        this.storeId = storeId;
+        this.prodId = prodId;
+        this.quantity = quantity;
+    }
+}
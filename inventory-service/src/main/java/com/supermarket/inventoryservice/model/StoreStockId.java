@@ -0,0 +1,20 @@
+package com.supermarket.inventoryservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+// Composite key of StoreStock.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+public class StoreStockId implements Serializable {
+    private int storeId;
+    private int prodId;
+}
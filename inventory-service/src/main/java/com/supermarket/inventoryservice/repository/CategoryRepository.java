@@ -1,13 +1,35 @@
 package com.supermarket.inventoryservice.repository;
 
 import com.supermarket.inventoryservice.model.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Integer> {
 
+    // Looked up on every product add/update, so the result is kept in the query cache.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Category> findByCategoryName(String categoryName);
+
+    boolean existsByParentId(Integer parentId);
+
+    // Rows created before categories had paths.
+    List<Category> findByPathIsNull();
+
+    // A category and all its descendants, served by the path index as a range scan.
+    List<Category> findByPathStartingWith(String pathPrefix);
+
+    // Re-roots a whole subtree after a move. Versions are bumped so cached ETags go stale too.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Category c set c.path = concat(:newPrefix, substring(c.path, length(:oldPrefix) + 1)), c.version = c.version + 1 where c.path like concat(:oldPrefix, '%')")
+    int rewritePathPrefix(@Param("oldPrefix") String oldPrefix, @Param("newPrefix") String newPrefix);
 }
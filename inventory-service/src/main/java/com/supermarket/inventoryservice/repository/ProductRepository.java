@@ -1,10 +1,17 @@
 package com.supermarket.inventoryservice.repository;
 
+import com.supermarket.inventoryservice.dto.ProductIdentity;
 import com.supermarket.inventoryservice.model.Category;
 import com.supermarket.inventoryservice.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,5 +19,25 @@ import java.util.Optional;
 public interface ProductRepository extends JpaRepository<Product, Integer> {
     List<Product> findByCategory(Category category);
 
+    // Name and barcode lookups back the biller/cart endpoints; results go through the query cache.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Product> findByProdName(String prodName);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<Product> findByBarcode(Long barcode);
+
+    // Batch name lookup for bulk cart adds; one IN query on the unique name index.
+    List<Product> findByProdNameIn(Collection<String> prodNames);
+
+    @Query("select p.prodId from Product p where p.category.categoryId = :categoryId")
+    List<Integer> findProdIdsByCategoryId(@Param("categoryId") int categoryId);
+
+    // Every product in the category subtree rooted at the given materialised path, as one
+    // prefix scan on the category path index joined to products.
+    @Query("select p from Product p join p.category c where c.path like concat(:pathPrefix, '%')")
+    List<Product> findByCategoryPathPrefix(@Param("pathPrefix") String pathPrefix);
+
+    // Id, name and barcode of every product in one query, without loading entities.
+    @Query("select new com.supermarket.inventoryservice.dto.ProductIdentity(p.prodId, p.prodName, p.barcode) from Product p")
+    List<ProductIdentity> findAllIdentities();
 }
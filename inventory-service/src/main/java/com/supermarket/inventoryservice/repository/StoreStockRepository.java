@@ -0,0 +1,45 @@
+package com.supermarket.inventoryservice.repository;
+
+import com.supermarket.inventoryservice.model.StoreStock;
+import com.supermarket.inventoryservice.model.StoreStockId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StoreStockRepository extends JpaRepository<StoreStock, StoreStockId> {
+
+    List<StoreStock> findByProdIdOrderByStoreId(int prodId);
+
+    // Stock held across all stores, per product.
+    interface ProductTotal {
+        int getProdId();
+        long getQuantity();
+    }
+
+    @Query("select s.prodId as prodId, sum(s.quantity) as quantity from StoreStock s where s.prodId in :prodIds group by s.prodId")
+    List<ProductTotal> sumQuantityByProdIdIn(@Param("prodIds") Collection<Integer> prodIds);
+
+    // Conditional in-place decrement: only this store's row is locked, and only for the length of
+    // the statement. Returns 0 when the row is missing or holds less than the quantity.
+    @Modifying
+    @Query("update StoreStock s set s.quantity = s.quantity - :quantity, s.version = s.version + 1 where s.storeId = :storeId and s.prodId = :prodId and s.quantity >= :quantity")
+    int decrement(@Param("storeId") int storeId, @Param("prodId") int prodId, @Param("quantity") int quantity);
+
+    // Adds to the store's row, creating it on the store's first delivery of the product. One
+    // statement, so two first restocks at once cannot both try to insert. MySQL reports 1 affected
+    // row when the row was inserted and 2 when an existing one was updated.
+    @Modifying
+    @Query(value = "insert into store_stock (store_id, product_id, quantity, version) values (:storeId, :prodId, :quantity, 0) "
+            + "on duplicate key update quantity = quantity + :quantity, version = version + 1", nativeQuery = true)
+    int incrementOrInsert(@Param("storeId") int storeId, @Param("prodId") int prodId, @Param("quantity") int quantity);
+
+    @Modifying
+    @Query("delete from StoreStock s where s.prodId in :prodIds")
+    int deleteByProdIdIn(@Param("prodIds") Collection<Integer> prodIds);
+}
@@ -0,0 +1,204 @@
+package com.supermarket.inventoryservice.search;
+
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.ProductVersions;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Barcode -> prodId lookup for POS scanning. Keys and values live in two primitive arrays with
+// linear probing, so a scan is a hash, usually one array probe and no boxing. Deletes use
+// backward-shift instead of tombstones so probe chains never degrade.
+@Component
+public class BarcodeIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BarcodeIndex.class);
+
+    // 0 is never a valid EAN/UPC, so it marks an empty slot.
+    private static final long EMPTY = 0L;
+    public static final int NOT_FOUND = -1;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] keys = new long[1024];
+    private int[] values = new int[1024];
+    private int size;
+    // Reverse mapping so deletes and barcode changes can find the old key.
+    private final Map<Integer, Long> barcodeByProdId = new HashMap<>();
+    private final ProductVersions versions = new ProductVersions();
+
+    // Loads every product barcode once the application has started, holding the write lock
+    // across the load as ProductSearchIndex does.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            List<Product> all = productRepository.findAll();
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            barcodeByProdId.clear();
+            versions.reset(all);
+            for (Product product : all) {
+                if (product.getBarcode() != null) {
+                    link(product.getBarcode(), product.getProdId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Barcode index built with {} barcodes", size);
+    }
+
+    // Applies a product mutation once its transaction has committed, unless a newer one already was.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!versions.advance(event)) {
+                return;
+            }
+            if (event.getType() == ProductChangeEvent.Type.DELETED) {
+                remove(event.getProdId());
+            } else {
+                put(event.getBarcode(), event.getProdId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns the prodId for the barcode, or NOT_FOUND.
+    public int get(long barcode) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(barcode, keys.length);
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == barcode) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            return NOT_FOUND;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Maps the barcode to the product, replacing any barcode the product had before; null clears it.
+    public void put(Long barcode, int prodId) {
+        lock.writeLock().lock();
+        try {
+            Long previous = barcodeByProdId.get(prodId);
+            if (previous != null && !previous.equals(barcode)) {
+                unlink(previous);
+                barcodeByProdId.remove(prodId);
+            }
+            if (barcode != null && barcode != EMPTY) {
+                link(barcode, prodId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int prodId) {
+        lock.writeLock().lock();
+        try {
+            Long previous = barcodeByProdId.remove(prodId);
+            if (previous != null) {
+                unlink(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller must hold the write lock.
+    private void link(long barcode, int prodId) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int slot = slotOf(barcode, keys.length);
+        while (keys[slot] != EMPTY && keys[slot] != barcode) {
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = barcode;
+            size++;
+        }
+        values[slot] = prodId;
+        barcodeByProdId.put(prodId, barcode);
+    }
+
+    // Caller must hold the write lock. Shifts later entries of the probe chain back into the gap.
+    private void unlink(long barcode) {
+        int mask = keys.length - 1;
+        int slot = slotOf(barcode, keys.length);
+        while (keys[slot] != barcode) {
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slotOf(keys[next], keys.length);
+            // move the entry if its home slot is not cyclically within (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i], capacity);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    // Barcodes share long runs of leading digits (GS1 company prefixes), so mix the bits before masking.
+    private static int slotOf(long barcode, int capacity) {
+        long h = barcode * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (capacity - 1);
+    }
+}
@@ -0,0 +1,131 @@
+package com.supermarket.inventoryservice.search;
+
+import com.supermarket.inventoryservice.dto.CategoryNode;
+import com.supermarket.inventoryservice.event.CategoryChangeEvent;
+import com.supermarket.inventoryservice.model.Category;
+import com.supermarket.inventoryservice.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// In-memory category hierarchy. The whole tree is an immutable snapshot swapped in with one
+// volatile write, so readers never lock and never see a half-applied change. Categories are few
+// and change rarely, so every mutation simply rebuilds the snapshot from the table.
+@Component
+public class CategoryTree {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryTree.class);
+
+    private static final Comparator<Category> BY_NAME = Comparator.comparing(Category::getCategoryName, String.CASE_INSENSITIVE_ORDER);
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of(), Map.of());
+
+    private record Snapshot(List<CategoryNode> roots, Map<Integer, CategoryNode> byId) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuild(categoryRepository.findAll());
+    }
+
+    // Rebuilds once the category change has committed.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChange(CategoryChangeEvent event) {
+        rebuild();
+    }
+
+    public void rebuild(List<Category> categories) {
+        Map<Integer, List<Category>> childrenByParent = new HashMap<>();
+        Map<Integer, Category> byId = new HashMap<>();
+        for (Category category : categories) {
+            byId.put(category.getCategoryId(), category);
+        }
+        List<Category> roots = new ArrayList<>();
+        for (Category category : categories) {
+            Integer parentId = category.getParentId();
+            if (parentId == null || !byId.containsKey(parentId)) {
+                roots.add(category); // an orphan is shown at the top rather than lost
+            } else {
+                childrenByParent.computeIfAbsent(parentId, id -> new ArrayList<>()).add(category);
+            }
+        }
+        Map<Integer, CategoryNode> nodes = new HashMap<>();
+        List<CategoryNode> rootNodes = build(roots, childrenByParent, 0, nodes);
+        snapshot = new Snapshot(rootNodes, Map.copyOf(nodes));
+        log.info("Category tree built with {} categories", nodes.size());
+    }
+
+    public List<CategoryNode> roots() {
+        return snapshot.roots();
+    }
+
+    public Optional<CategoryNode> find(int categoryId) {
+        return Optional.ofNullable(snapshot.byId().get(categoryId));
+    }
+
+    // The category and all of its descendants, in depth-first order.
+    public List<Integer> subtreeIds(int categoryId) {
+        CategoryNode node = snapshot.byId().get(categoryId);
+        if (node == null) {
+            return List.of();
+        }
+        List<Integer> ids = new ArrayList<>();
+        collect(node, ids);
+        return ids;
+    }
+
+    // Root-first chain of categories leading to (and including) the given one, for breadcrumbs.
+    public List<CategoryNode> ancestors(int categoryId) {
+        Snapshot current = snapshot;
+        List<CategoryNode> chain = new ArrayList<>();
+        for (CategoryNode node = current.byId().get(categoryId); node != null;
+             node = node.getParentId() == null ? null : current.byId().get(node.getParentId())) {
+            chain.add(0, node);
+            if (chain.size() > current.byId().size()) {
+                break; // defensive: a cycle in bad data must not loop forever
+            }
+        }
+        return chain;
+    }
+
+    private static List<CategoryNode> build(List<Category> level, Map<Integer, List<Category>> childrenByParent,
+                                            int depth, Map<Integer, CategoryNode> nodes) {
+        level.sort(BY_NAME);
+        List<CategoryNode> built = new ArrayList<>(level.size());
+        for (Category category : level) {
+            if (nodes.containsKey(category.getCategoryId())) {
+                continue;
+            }
+            // placeholder guards against cycles while children are built
+            nodes.put(category.getCategoryId(), null);
+            List<CategoryNode> children = build(childrenByParent.getOrDefault(category.getCategoryId(), new ArrayList<>()),
+                    childrenByParent, depth + 1, nodes);
+            CategoryNode node = new CategoryNode(category.getCategoryId(), category.getCategoryName(),
+                    category.getParentId(), category.getPath(), depth, children);
+            nodes.put(category.getCategoryId(), node);
+            built.add(node);
+        }
+        return built;
+    }
+
+    private static void collect(CategoryNode node, List<Integer> ids) {
+        ids.add(node.getCategoryId());
+        for (CategoryNode child : node.getChildren()) {
+            collect(child, ids);
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.supermarket.inventoryservice.search;
+
+import com.supermarket.inventoryservice.dto.ProductPage;
+import com.supermarket.inventoryservice.dto.ProductSummary;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.ProductVersions;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Precomputed indexes for faceted browsing. Each category keeps its products in parallel primitive
+// arrays sorted by (price, prodId) and a prodId array sorted by name, so a price range is two
+// binary searches; stock availability is a single BitSet keyed by prodId. All structures are
+// maintained incrementally from ProductChangeEvents.
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    // Bucket key for the whole catalogue, used when no category filter is given.
+    private static final int ALL_CATEGORIES = 0;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<Integer, SortedBucket> buckets = new HashMap<>();
+    private final ProductVersions versions = new ProductVersions();
+    private final BitSet inStock = new BitSet();
+
+    private static final class Entry {
+        private final int prodId;
+        private String prodName;
+        private String sortName;
+        private double price;
+        private int stock;
+        private int categoryId;
+
+        private Entry(int prodId) {
+            this.prodId = prodId;
+        }
+    }
+
+    // Loads the whole catalogue once the application has started. The write lock is held across
+    // the load, so a change committed meanwhile waits and is applied on top; one the load already
+    // saw is skipped by its version.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            List<Product> all = productRepository.findAll();
+            entries.clear();
+            buckets.clear();
+            inStock.clear();
+            versions.reset(all);
+            Map<Integer, List<Entry>> byCategory = new HashMap<>();
+            for (Product product : all) {
+                Entry entry = new Entry(product.getProdId());
+                int categoryId = product.getCategory() != null ? product.getCategory().getCategoryId() : ALL_CATEGORIES;
+                assign(entry, product.getProdName(), product.getPrice(), product.getStock(), categoryId);
+                entries.put(entry.prodId, entry);
+                inStock.set(entry.prodId, entry.stock > 0);
+                byCategory.computeIfAbsent(ALL_CATEGORIES, id -> new ArrayList<>()).add(entry);
+                if (categoryId != ALL_CATEGORIES) {
+                    byCategory.computeIfAbsent(categoryId, id -> new ArrayList<>()).add(entry);
+                }
+            }
+            byCategory.forEach((categoryId, members) -> buckets.put(categoryId, SortedBucket.of(entries, members)));
+            log.info("Product facet index built with {} products in {} categories", all.size(), Math.max(0, buckets.size() - 1));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Applies a product mutation once its transaction has committed, unless a newer one already was.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!versions.advance(event)) {
+                return;
+            }
+            if (event.getType() == ProductChangeEvent.Type.DELETED) {
+                remove(event.getProdId());
+            } else {
+                upsert(event.getProdId(), event.getProdName(), event.getPrice(), event.getStock(), event.getCategoryId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsert(int prodId, String prodName, double price, int stock, int categoryId) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(prodId);
+            String sortName = ProductSearchIndex.normalize(prodName);
+            if (entry != null && entry.price == price && entry.categoryId == categoryId && entry.sortName.equals(sortName)) {
+                // stock-only change: the sorted arrays are unaffected
+                entry.prodName = prodName;
+                entry.stock = stock;
+            } else {
+                if (entry != null) {
+                    unlinkFromBuckets(entry);
+                } else {
+                    entry = new Entry(prodId);
+                    entries.put(prodId, entry);
+                }
+                assign(entry, prodName, price, stock, categoryId);
+                bucket(ALL_CATEGORIES).add(entry);
+                if (categoryId != ALL_CATEGORIES) {
+                    bucket(categoryId).add(entry);
+                }
+            }
+            inStock.set(prodId, stock > 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int prodId) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(prodId);
+            if (entry != null) {
+                unlinkFromBuckets(entry);
+                entries.remove(prodId);
+                inStock.clear(prodId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns one page of products matching the filters. A null categoryId, minPrice or maxPrice
+    // leaves that filter open.
+    public ProductPage query(Integer categoryId, Double minPrice, Double maxPrice, boolean inStockOnly,
+                             ProductSortField sortBy, boolean descending, int page, int size) {
+        lock.readLock().lock();
+        try {
+            SortedBucket bucket = buckets.get(categoryId == null ? ALL_CATEGORIES : categoryId);
+            if (bucket == null || bucket.size == 0) {
+                return new ProductPage(new ArrayList<>(), page, size, 0);
+            }
+            int from = minPrice == null ? 0 : bucket.lowerBound(minPrice);
+            int to = maxPrice == null ? bucket.size : bucket.upperBound(maxPrice);
+            PageCollector collector = new PageCollector((long) page * size, size);
+            if (from < to) {
+                if (sortBy == ProductSortField.NAME) {
+                    for (int i = 0; i < bucket.size; i++) {
+                        Entry entry = entries.get(bucket.nameIds[descending ? bucket.size - 1 - i : i]);
+                        if ((minPrice == null || entry.price >= minPrice) && (maxPrice == null || entry.price <= maxPrice)
+                                && (!inStockOnly || inStock.get(entry.prodId))) {
+                            collector.offer(entry);
+                        }
+                    }
+                } else if (!inStockOnly) {
+                    // total is known from the bounds; only the requested slice is touched
+                    collector.matched = to - from;
+                    long skip = collector.skip;
+                    for (long i = skip; i < to - from && collector.content.size() < size; i++) {
+                        int index = (int) (descending ? to - 1 - i : from + i);
+                        collector.content.add(summaryOf(entries.get(bucket.priceIds[index])));
+                    }
+                } else {
+                    for (int i = 0; i < to - from; i++) {
+                        int prodId = bucket.priceIds[descending ? to - 1 - i : from + i];
+                        if (inStock.get(prodId)) {
+                            collector.offer(entries.get(prodId));
+                        }
+                    }
+                }
+            }
+            return new ProductPage(collector.content, page, size, collector.matched);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private final class PageCollector {
+        private final long skip;
+        private final int size;
+        private final List<ProductSummary> content = new ArrayList<>();
+        private long matched;
+
+        private PageCollector(long skip, int size) {
+            this.skip = skip;
+            this.size = size;
+        }
+
+        private void offer(Entry entry) {
+            if (matched >= skip && content.size() < size) {
+                content.add(summaryOf(entry));
+            }
+            matched++;
+        }
+    }
+
+    private static ProductSummary summaryOf(Entry entry) {
+        return new ProductSummary(entry.prodId, entry.prodName, entry.price, entry.stock, entry.categoryId);
+    }
+
+    private static void assign(Entry entry, String prodName, double price, int stock, int categoryId) {
+        entry.prodName = prodName;
+        entry.sortName = ProductSearchIndex.normalize(prodName);
+        entry.price = price;
+        entry.stock = stock;
+        entry.categoryId = categoryId;
+    }
+
+    // Caller must hold the write lock; entry must still carry the values it was indexed with.
+    private void unlinkFromBuckets(Entry entry) {
+        bucket(ALL_CATEGORIES).remove(entry);
+        if (entry.categoryId != ALL_CATEGORIES) {
+            SortedBucket bucket = bucket(entry.categoryId);
+            bucket.remove(entry);
+            if (bucket.size == 0) {
+                buckets.remove(entry.categoryId);
+            }
+        }
+    }
+
+    private SortedBucket bucket(int categoryId) {
+        return buckets.computeIfAbsent(categoryId, id -> new SortedBucket(entries, 16));
+    }
+
+    // Products of one category: priceIds/prices sorted by (price, prodId), nameIds sorted by (name, prodId).
+    private static final class SortedBucket {
+        private static final Comparator<Entry> BY_PRICE = Comparator.comparingDouble((Entry e) -> e.price).thenComparingInt(e -> e.prodId);
+        private static final Comparator<Entry> BY_NAME = Comparator.comparing((Entry e) -> e.sortName).thenComparingInt(e -> e.prodId);
+
+        private final Map<Integer, Entry> entries;
+        private double[] prices;
+        private int[] priceIds;
+        private int[] nameIds;
+        private int size;
+
+        private SortedBucket(Map<Integer, Entry> entries, int capacity) {
+            this.entries = entries;
+            this.prices = new double[capacity];
+            this.priceIds = new int[capacity];
+            this.nameIds = new int[capacity];
+        }
+
+        private static SortedBucket of(Map<Integer, Entry> entries, List<Entry> members) {
+            SortedBucket bucket = new SortedBucket(entries, Math.max(16, members.size()));
+            List<Entry> sorted = new ArrayList<>(members);
+            sorted.sort(BY_PRICE);
+            for (int i = 0; i < sorted.size(); i++) {
+                bucket.prices[i] = sorted.get(i).price;
+                bucket.priceIds[i] = sorted.get(i).prodId;
+            }
+            sorted.sort(BY_NAME);
+            for (int i = 0; i < sorted.size(); i++) {
+                bucket.nameIds[i] = sorted.get(i).prodId;
+            }
+            bucket.size = sorted.size();
+            return bucket;
+        }
+
+        private void add(Entry entry) {
+            if (size == prices.length) {
+                int capacity = prices.length * 2;
+                prices = Arrays.copyOf(prices, capacity);
+                priceIds = Arrays.copyOf(priceIds, capacity);
+                nameIds = Arrays.copyOf(nameIds, capacity);
+            }
+            int pricePos = pricePosition(entry.price, entry.prodId);
+            System.arraycopy(prices, pricePos, prices, pricePos + 1, size - pricePos);
+            System.arraycopy(priceIds, pricePos, priceIds, pricePos + 1, size - pricePos);
+            prices[pricePos] = entry.price;
+            priceIds[pricePos] = entry.prodId;
+
+            int namePos = namePosition(entry);
+            System.arraycopy(nameIds, namePos, nameIds, namePos + 1, size - namePos);
+            nameIds[namePos] = entry.prodId;
+            size++;
+        }
+
+        private void remove(Entry entry) {
+            int pricePos = pricePosition(entry.price, entry.prodId);
+            int namePos = namePosition(entry);
+            if (pricePos >= size || priceIds[pricePos] != entry.prodId || namePos >= size || nameIds[namePos] != entry.prodId) {
+                return;
+            }
+            System.arraycopy(prices, pricePos + 1, prices, pricePos, size - pricePos - 1);
+            System.arraycopy(priceIds, pricePos + 1, priceIds, pricePos, size - pricePos - 1);
+            System.arraycopy(nameIds, namePos + 1, nameIds, namePos, size - namePos - 1);
+            size--;
+        }
+
+        // First index whose (price, prodId) is not less than the given pair.
+        private int pricePosition(double price, int prodId) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int cmp = Double.compare(prices[mid], price);
+                if (cmp == 0) {
+                    cmp = Integer.compare(priceIds[mid], prodId);
+                }
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First index whose (name, prodId) is not less than the entry's.
+        private int namePosition(Entry entry) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (BY_NAME.compare(entries.get(nameIds[mid]), entry) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First index with price >= minPrice.
+        private int lowerBound(double minPrice) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < minPrice) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First index with price > maxPrice.
+        private int upperBound(double maxPrice) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] <= maxPrice) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
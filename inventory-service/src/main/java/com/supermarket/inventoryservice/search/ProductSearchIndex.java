@@ -0,0 +1,358 @@
+package com.supermarket.inventoryservice.search;
+
+import com.supermarket.inventoryservice.dto.ProductSearchResult;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.ProductVersions;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory typeahead index over product names. Every word of a name is stored in a prefix trie
+// (so "mil" finds "Organic Milk") and every name is split into character trigrams (so infix
+// queries and small typos still match). Names are folded to lower case without accents before
+// indexing, and the index is kept current from ProductChangeEvents rather than by rescanning.
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int NGRAM_SIZE = 3;
+
+    // Share of the query's trigrams a name must contain to be considered a fuzzy match.
+    private static final double MIN_NGRAM_OVERLAP = 0.5;
+
+    private static final Comparator<ProductSearchResult> RANKING = Comparator
+            .comparingDouble(ProductSearchResult::getScore)
+            .thenComparingInt(result -> -result.getProdName().length())
+            .thenComparing(ProductSearchResult::getProdName, Comparator.reverseOrder());
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, IndexedProduct> products = new HashMap<>();
+    private final TrieNode root = new TrieNode();
+    private final Map<String, Set<Integer>> ngrams = new HashMap<>();
+    private final ProductVersions versions = new ProductVersions();
+
+    private static final class IndexedProduct {
+        private final int prodId;
+        private final String normalizedName;
+        private final Set<String> prefixes;
+        private final Set<String> grams;
+        private String prodName;
+        private double price;
+        private int stock;
+
+        private IndexedProduct(int prodId, String prodName, String normalizedName) {
+            this.prodId = prodId;
+            this.prodName = prodName;
+            this.normalizedName = normalizedName;
+            this.prefixes = prefixesOf(normalizedName);
+            this.grams = ngramsOf(" " + normalizedName + " ");
+        }
+    }
+
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        // Products that have at least one word starting with the path to this node.
+        private final Set<Integer> prodIds = new HashSet<>();
+    }
+
+    // Loads the whole catalogue once the application has started. The write lock is held across
+    // the load, so a change committed meanwhile waits and is applied on top; one the load already
+    // saw is skipped by its version.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            List<Product> all = productRepository.findAll();
+            products.clear();
+            root.children.clear();
+            root.prodIds.clear();
+            ngrams.clear();
+            versions.reset(all);
+            for (Product product : all) {
+                put(product.getProdId(), product.getProdName(), product.getPrice(), product.getStock());
+            }
+            log.info("Product search index built with {} products", all.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Applies a product mutation once its transaction has committed, unless a newer one already was.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!versions.advance(event)) {
+                return;
+            }
+            if (event.getType() == ProductChangeEvent.Type.DELETED) {
+                remove(event.getProdId());
+            } else {
+                upsert(event.getProdId(), event.getProdName(), event.getPrice(), event.getStock());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsert(int prodId, String prodName, double price, int stock) {
+        lock.writeLock().lock();
+        try {
+            put(prodId, prodName, price, stock);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int prodId) {
+        lock.writeLock().lock();
+        try {
+            IndexedProduct existing = products.remove(prodId);
+            if (existing != null) {
+                unlink(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns up to limit products ranked by how well their name matches the query.
+    public List<ProductSearchResult> search(String query, int limit) {
+        String normalizedQuery = normalize(query);
+        if (normalizedQuery.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String[] queryTokens = normalizedQuery.split(" ");
+        Set<String> queryGrams = ngramsOf(normalizedQuery);
+
+        lock.readLock().lock();
+        try {
+            Set<Integer> prefixMatches = prefixMatches(queryTokens);
+            Map<Integer, Integer> gramHits = gramHits(queryGrams);
+
+            Set<Integer> candidates = new LinkedHashSet<>(prefixMatches);
+            int minHits = (int) Math.ceil(queryGrams.size() * MIN_NGRAM_OVERLAP);
+            gramHits.forEach((prodId, hits) -> {
+                if (hits >= minHits) {
+                    candidates.add(prodId);
+                }
+            });
+
+            PriorityQueue<ProductSearchResult> top = new PriorityQueue<>(limit + 1, RANKING);
+            for (int prodId : candidates) {
+                IndexedProduct product = products.get(prodId);
+                double score = score(product, normalizedQuery, queryGrams, prefixMatches.contains(prodId), gramHits.getOrDefault(prodId, 0));
+                top.add(new ProductSearchResult(product.prodId, product.prodName, product.price, product.stock, score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<ProductSearchResult> results = new ArrayList<>(top);
+            results.sort(RANKING.reversed());
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Exact and leading matches outrank word-prefix matches, which outrank fuzzy trigram matches.
+    private double score(IndexedProduct product, String normalizedQuery, Set<String> queryGrams, boolean prefixMatch, int hits) {
+        double score = 0.0;
+        if (product.normalizedName.equals(normalizedQuery)) {
+            score += 1000;
+        } else if (product.normalizedName.startsWith(normalizedQuery)) {
+            score += 500;
+        }
+        if (prefixMatch) {
+            score += 200;
+        } else if (product.normalizedName.contains(normalizedQuery)) {
+            score += 100;
+        }
+        if (!queryGrams.isEmpty()) {
+            score += 100.0 * (2.0 * hits) / (queryGrams.size() + product.grams.size());
+        }
+        return score;
+    }
+
+    // Products with a word starting with every query token.
+    private Set<Integer> prefixMatches(String[] queryTokens) {
+        Set<Integer> matches = null;
+        for (String token : queryTokens) {
+            TrieNode node = find(token);
+            if (node == null) {
+                return Set.of();
+            }
+            if (matches == null) {
+                matches = new HashSet<>(node.prodIds);
+            } else {
+                matches.retainAll(node.prodIds);
+            }
+            if (matches.isEmpty()) {
+                return Set.of();
+            }
+        }
+        return matches == null ? Set.of() : matches;
+    }
+
+    private Map<Integer, Integer> gramHits(Set<String> queryGrams) {
+        Map<Integer, Integer> hits = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<Integer> ids = ngrams.get(gram);
+            if (ids != null) {
+                for (int prodId : ids) {
+                    hits.merge(prodId, 1, Integer::sum);
+                }
+            }
+        }
+        return hits;
+    }
+
+    private TrieNode find(String prefix) {
+        TrieNode node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    // Caller must hold the write lock.
+    private void put(int prodId, String prodName, double price, int stock) {
+        if (prodName == null) {
+            return;
+        }
+        String normalizedName = normalize(prodName);
+        IndexedProduct existing = products.get(prodId);
+        IndexedProduct product;
+        if (existing != null && existing.normalizedName.equals(normalizedName)) {
+            product = existing; // price or stock change only, token structures are unchanged
+        } else {
+            if (existing != null) {
+                unlink(existing);
+            }
+            product = new IndexedProduct(prodId, prodName, normalizedName);
+            link(product);
+            products.put(prodId, product);
+        }
+        product.prodName = prodName;
+        product.price = price;
+        product.stock = stock;
+    }
+
+    private void link(IndexedProduct product) {
+        for (String prefix : product.prefixes) {
+            TrieNode node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new TrieNode());
+            }
+            node.prodIds.add(product.prodId);
+        }
+        for (String gram : product.grams) {
+            ngrams.computeIfAbsent(gram, g -> new HashSet<>()).add(product.prodId);
+        }
+    }
+
+    private void unlink(IndexedProduct product) {
+        for (String prefix : product.prefixes) {
+            unlinkPrefix(root, prefix, 0, product.prodId);
+        }
+        for (String gram : product.grams) {
+            Set<Integer> ids = ngrams.get(gram);
+            if (ids != null) {
+                ids.remove(product.prodId);
+                if (ids.isEmpty()) {
+                    ngrams.remove(gram);
+                }
+            }
+        }
+    }
+
+    // Removes the id from the node at the end of the prefix and prunes branches left empty.
+    private boolean unlinkPrefix(TrieNode node, String prefix, int depth, int prodId) {
+        if (depth == prefix.length()) {
+            node.prodIds.remove(prodId);
+        } else {
+            char c = prefix.charAt(depth);
+            TrieNode child = node.children.get(c);
+            if (child != null && unlinkPrefix(child, prefix, depth + 1, prodId)) {
+                node.children.remove(c);
+            }
+        }
+        return node != root && node.prodIds.isEmpty() && node.children.isEmpty();
+    }
+
+    // Every distinct prefix of every word, so each trie node holds a product id at most once.
+    private static Set<String> prefixesOf(String normalizedName) {
+        Set<String> prefixes = new HashSet<>();
+        for (String token : normalizedName.split(" ")) {
+            for (int i = 1; i <= token.length(); i++) {
+                prefixes.add(token.substring(0, i));
+            }
+        }
+        return prefixes;
+    }
+
+    private static Set<String> ngramsOf(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + NGRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + NGRAM_SIZE));
+        }
+        return grams;
+    }
+
+    // Lower-cases, strips accents and collapses anything that is not a letter or digit to one space.
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                pendingSpace = false;
+                normalized.append(Character.toLowerCase(c));
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+}
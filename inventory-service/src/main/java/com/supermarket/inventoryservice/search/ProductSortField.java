@@ -0,0 +1,6 @@
+package com.supermarket.inventoryservice.search;
+
+public enum ProductSortField {
+    PRICE,
+    NAME
+}
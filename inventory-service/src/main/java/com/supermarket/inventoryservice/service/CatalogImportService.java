@@ -0,0 +1,10 @@
+package com.supermarket.inventoryservice.service;
+
+import com.supermarket.inventoryservice.dto.CatalogImportReport;
+import com.supermarket.inventoryservice.importer.ImportFormat;
+
+import java.io.InputStream;
+
+public interface CatalogImportService {
+    CatalogImportReport importCatalog(ImportFormat format, InputStream inputStream);
+}
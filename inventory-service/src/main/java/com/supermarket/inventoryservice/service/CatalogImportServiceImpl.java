@@ -0,0 +1,350 @@
+package com.supermarket.inventoryservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supermarket.inventoryservice.cache.ProductCacheEvictor;
+import com.supermarket.inventoryservice.dto.CatalogImportError;
+import com.supermarket.inventoryservice.dto.CatalogImportReport;
+import com.supermarket.inventoryservice.dto.CatalogImportRow;
+import com.supermarket.inventoryservice.dto.ProductIdentity;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
+import com.supermarket.inventoryservice.exception.ConflictException;
+import com.supermarket.inventoryservice.exception.OperationFailedException;
+import com.supermarket.inventoryservice.importer.CatalogRowReader;
+import com.supermarket.inventoryservice.importer.ImportFormat;
+import com.supermarket.inventoryservice.journal.MovementType;
+import com.supermarket.inventoryservice.model.Category;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.repository.CategoryRepository;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import com.supermarket.inventoryservice.util.Barcodes;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Service
+public class CatalogImportServiceImpl implements CatalogImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogImportServiceImpl.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO product (product_name, price, quantity, category_id, barcode, version) VALUES (?, ?, ?, ?, ?, 0)";
+    // A row without a stock value keeps the product's current stock.
+    private static final String UPDATE_SQL =
+            "UPDATE product SET product_name = ?, price = ?, quantity = COALESCE(?, quantity), category_id = ?, barcode = ?, version = version + 1 WHERE product_id = ?";
+    private static final String STOCK_SQL = "SELECT product_id, quantity FROM product WHERE product_id IN (%s)";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProductCacheEvictor productCacheEvictor;
+
+    // Rows written per JDBC batch and per transaction.
+    @Value("${inventory.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${inventory.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    // Rows read so far by the running import, exposed as a gauge for progress tracking.
+    private final AtomicLong rowsProcessed = new AtomicLong();
+
+    // Imports match rows against a snapshot of names and barcodes, so two at once would race.
+    private final ReentrantLock importLock = new ReentrantLock();
+
+    // A validated row waiting for its chunk to be written.
+    private record PendingRow(long line, CatalogImportRow row, String nameKey, int prodId, Category category, Long barcode) {
+        boolean isInsert() {
+            return prodId == 0;
+        }
+    }
+
+    // Upserts a whole catalogue file keyed by product name. Categories, names and barcodes are
+    // loaded once up front, so each row is validated in memory; valid rows are then written
+    // with JDBC batches, one transaction per chunk, so a bad row or chunk never aborts the file.
+    @Override
+    public CatalogImportReport importCatalog(ImportFormat format, InputStream inputStream) {
+        if (!importLock.tryLock()) {
+            throw new ConflictException("A catalog import is already running. Try again once it has finished.");
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        rowsProcessed.set(0);
+        meterRegistry.gauge("inventory.catalog.import.rows.processed", rowsProcessed);
+        CatalogImportReport report = new CatalogImportReport();
+        try {
+            Map<String, Category> categoriesByName = new HashMap<>();
+            for (Category category : categoryRepository.findAll()) {
+                categoriesByName.put(key(category.getCategoryName()), category);
+            }
+            Map<String, Integer> prodIdsByName = new HashMap<>();
+            Map<Long, Integer> prodIdsByBarcode = new HashMap<>();
+            Map<Integer, Long> barcodesByProdId = new HashMap<>();
+            for (ProductIdentity identity : productRepository.findAllIdentities()) {
+                prodIdsByName.put(key(identity.getProdName()), identity.getProdId());
+                if (identity.getBarcode() != null) {
+                    prodIdsByBarcode.put(identity.getBarcode(), identity.getProdId());
+                    barcodesByProdId.put(identity.getProdId(), identity.getBarcode());
+                }
+            }
+
+            Set<String> namesInFile = new HashSet<>();
+            Set<Long> barcodesInFile = new HashSet<>();
+            List<PendingRow> chunk = new ArrayList<>(chunkSize);
+            CatalogRowReader reader = new CatalogRowReader(format,
+                    new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)), objectMapper);
+            while (reader.next()) {
+                report.setTotalRows(report.getTotalRows() + 1);
+                rowsProcessed.incrementAndGet();
+                CatalogImportRow row = null;
+                try {
+                    row = reader.row();
+                    chunk.add(validate(reader.getLineNumber(), row, categoriesByName, prodIdsByName,
+                            prodIdsByBarcode, barcodesByProdId, namesInFile, barcodesInFile));
+                } catch (IllegalArgumentException e) {
+                    recordError(report, reader.getLineNumber(), row == null ? null : row.getProdName(), e.getMessage());
+                }
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, report, prodIdsByBarcode);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, report, prodIdsByBarcode);
+            }
+        } catch (IOException e) {
+            throw new OperationFailedException("Failed to read the catalog import file.", e);
+        } catch (DataAccessException e) {
+            throw new OperationFailedException("Failed to load existing catalog for import.", e);
+        } finally {
+            long nanos = sample.stop(meterRegistry.timer("inventory.catalog.import.duration"));
+            report.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(nanos));
+            importLock.unlock();
+        }
+        meterRegistry.counter("inventory.catalog.import.rows", "outcome", "inserted").increment(report.getInserted());
+        meterRegistry.counter("inventory.catalog.import.rows", "outcome", "updated").increment(report.getUpdated());
+        meterRegistry.counter("inventory.catalog.import.rows", "outcome", "failed").increment(report.getFailed());
+        log.info("Catalog import finished: {} rows, {} inserted, {} updated, {} failed in {} ms",
+                report.getTotalRows(), report.getInserted(), report.getUpdated(), report.getFailed(), report.getDurationMillis());
+        return report;
+    }
+
+    // Applies the same rules as addProduct/updateProduct against the in-memory snapshot.
+    private PendingRow validate(long line, CatalogImportRow row, Map<String, Category> categoriesByName,
+                                Map<String, Integer> prodIdsByName, Map<Long, Integer> prodIdsByBarcode,
+                                Map<Integer, Long> barcodesByProdId, Set<String> namesInFile, Set<Long> barcodesInFile) {
+        String name = row.getProdName() == null ? null : row.getProdName().trim();
+        if (name == null || name.length() < 2 || name.length() > 100) {
+            throw new IllegalArgumentException("Product name must be between 2 and 100 characters");
+        }
+        if (row.getPrice() == null || !(row.getPrice() > 0) || row.getPrice().isInfinite()) {
+            throw new IllegalArgumentException("Price must be positive");
+        }
+        if (row.getStock() != null && row.getStock() < 0) {
+            throw new IllegalArgumentException("Stock cannot be negative");
+        }
+        Category category = row.getCategoryName() == null ? null : categoriesByName.get(key(row.getCategoryName()));
+        if (category == null) {
+            throw new IllegalArgumentException("Category not found with name: " + row.getCategoryName());
+        }
+        String nameKey = key(name);
+        if (!namesInFile.add(nameKey)) {
+            throw new IllegalArgumentException("Product '" + name + "' appears more than once in the file");
+        }
+        int prodId = prodIdsByName.getOrDefault(nameKey, 0);
+        Long barcode = row.getBarcode() != null ? row.getBarcode() : barcodesByProdId.get(prodId);
+        if (row.getBarcode() != null) {
+            if (!Barcodes.isValid(row.getBarcode())) {
+                namesInFile.remove(nameKey);
+                throw new IllegalArgumentException("Barcode " + row.getBarcode() + " is not a valid EAN-8, UPC-A or EAN-13 code.");
+            }
+            Integer owner = prodIdsByBarcode.get(row.getBarcode());
+            if ((owner != null && owner != prodId) || !barcodesInFile.add(row.getBarcode())) {
+                namesInFile.remove(nameKey);
+                throw new IllegalArgumentException("Barcode " + row.getBarcode() + " is already assigned to another product.");
+            }
+        }
+        row.setProdName(name);
+        if (prodId == 0 && row.getStock() == null) {
+            row.setStock(0); // a new product without a stock value starts empty
+        }
+        return new PendingRow(line, row, nameKey, prodId, category, barcode);
+    }
+
+    // Writes one chunk in its own transaction. If the chunk fails, every row in it is reported
+    // and the import moves on to the next chunk.
+    private void writeChunk(List<PendingRow> chunk, CatalogImportReport report, Map<Long, Integer> prodIdsByBarcode) {
+        List<PendingRow> inserts = new ArrayList<>();
+        List<PendingRow> updates = new ArrayList<>();
+        for (PendingRow pending : chunk) {
+            (pending.isInsert() ? inserts : updates).add(pending);
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            List<Integer> insertedIds = transaction.execute(status -> {
+                if (!updates.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, setter(updates, true));
+                }
+                List<Integer> ids = new ArrayList<>(inserts.size());
+                if (!inserts.isEmpty()) {
+                    KeyHolder keyHolder = new GeneratedKeyHolder();
+                    jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                            setter(inserts, false), keyHolder);
+                    for (Map<String, Object> keys : keyHolder.getKeyList()) {
+                        ids.add(((Number) keys.values().iterator().next()).intValue());
+                    }
+                }
+                // delivered to the indexes after this chunk commits
+                // the UPDATE does not return the new version, so these journal records carry 0 (apply in order)
+                Map<Integer, Integer> keptStock = keptStock(updates);
+                for (PendingRow pending : updates) {
+                    Integer stock = pending.row().getStock();
+                    if (stock == null) {
+                        // stock was left alone, so there is no movement to journal
+                        eventPublisher.publishEvent(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, toProduct(pending, pending.prodId(), keptStock.getOrDefault(pending.prodId(), 0))));
+                        continue;
+                    }
+                    eventPublisher.publishEvent(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, toProduct(pending, pending.prodId(), stock)));
+                    eventPublisher.publishEvent(StockMovementEvent.central(pending.prodId(), MovementType.IMPORT, 0, stock, 0));
+                }
+                for (int i = 0; i < inserts.size(); i++) {
+                    eventPublisher.publishEvent(ProductChangeEvent.of(ProductChangeEvent.Type.CREATED, toProduct(inserts.get(i), ids.get(i), inserts.get(i).row().getStock())));
+                    int stock = inserts.get(i).row().getStock();
+                    eventPublisher.publishEvent(StockMovementEvent.central(ids.get(i), MovementType.CREATE, stock, stock, 0));
+                }
+                return ids;
+            });
+            productCacheEvictor.evictProducts(updates.stream().map(PendingRow::prodId).toList());
+            for (int i = 0; i < inserts.size(); i++) {
+                if (inserts.get(i).barcode() != null) {
+                    prodIdsByBarcode.put(inserts.get(i).barcode(), insertedIds.get(i));
+                }
+            }
+            report.setInserted(report.getInserted() + inserts.size());
+            report.setUpdated(report.getUpdated() + updates.size());
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Catalog import chunk starting at line {} rolled back: {}", chunk.get(0).line(), e.getMessage());
+            for (PendingRow pending : chunk) {
+                recordError(report, pending.line(), pending.row().getProdName(), "Chunk rolled back: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+        log.info("Catalog import progress: {} rows read, {} inserted, {} updated, {} failed",
+                rowsProcessed.get(), report.getInserted(), report.getUpdated(), report.getFailed());
+    }
+
+    // Current stock of the updated products whose rows had none, read inside the chunk's
+    // transaction so the indexes get the level the UPDATE kept.
+    private Map<Integer, Integer> keptStock(List<PendingRow> updates) {
+        List<Integer> prodIds = updates.stream().filter(pending -> pending.row().getStock() == null).map(PendingRow::prodId).toList();
+        Map<Integer, Integer> stockByProdId = new HashMap<>();
+        if (!prodIds.isEmpty()) {
+            String placeholders = String.join(", ", Collections.nCopies(prodIds.size(), "?"));
+            jdbcTemplate.query(String.format(STOCK_SQL, placeholders),
+                    (RowCallbackHandler) rs -> stockByProdId.put(rs.getInt(1), rs.getInt(2)), prodIds.toArray());
+        }
+        return stockByProdId;
+    }
+
+    private static BatchPreparedStatementSetter setter(List<PendingRow> rows, boolean update) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PendingRow pending = rows.get(i);
+                ps.setString(1, pending.row().getProdName());
+                ps.setDouble(2, pending.row().getPrice());
+                if (pending.row().getStock() != null) {
+                    ps.setInt(3, pending.row().getStock());
+                } else {
+                    ps.setNull(3, Types.INTEGER);
+                }
+                ps.setInt(4, pending.category().getCategoryId());
+                if (pending.barcode() != null) {
+                    ps.setLong(5, pending.barcode());
+                } else {
+                    ps.setNull(5, Types.BIGINT);
+                }
+                if (update) {
+                    ps.setInt(6, pending.prodId());
+                }
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        };
+    }
+
+    private static Product toProduct(PendingRow pending, int prodId, int stock) {
+        Product product = new Product(prodId, pending.row().getProdName(), pending.row().getPrice(), stock, pending.category());
+        product.setBarcode(pending.barcode());
+        return product;
+    }
+
+    private void recordError(CatalogImportReport report, long line, String prodName, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(new CatalogImportError(line, prodName, message));
+        } else {
+            report.setErrorsOmitted(report.getErrorsOmitted() + 1);
+        }
+    }
+
+    // Product and category names are unique ignoring case, matching the database collation.
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
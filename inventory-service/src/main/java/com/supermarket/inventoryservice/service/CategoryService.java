@@ -10,6 +10,8 @@ public interface CategoryService {
     List<Category> getAllCategories();
     Category getCategoryByName(String categoryName);
     Category updateCategoryName(int category_id, String newCategoryName);
+    Category updateCategoryName(int category_id, String newCategoryName, Long expectedVersion);
+    Category moveCategory(int categoryId, Integer newParentId);
     void deleteCategory(int categoryId);
     List<String> getAllCategoryName();
 
@@ -1,13 +1,25 @@
 package com.supermarket.inventoryservice.service;
 
+import com.supermarket.inventoryservice.event.CategoryChangeEvent;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
 import com.supermarket.inventoryservice.exception.OperationFailedException;
+import com.supermarket.inventoryservice.exception.PreconditionFailedException;
 import com.supermarket.inventoryservice.exception.ResourceAlreadyExistsException;
 import com.supermarket.inventoryservice.exception.ResourceNotFoundException;
+import com.supermarket.inventoryservice.journal.MovementType;
 import com.supermarket.inventoryservice.model.Category;
 import com.supermarket.inventoryservice.repository.CategoryRepository;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,9 +29,20 @@ import java.util.stream.Collectors;
 // Assuming this implements a CategoryService interface
 public class CategoryServiceImpl implements CategoryService {
 
+    private static final Logger log = LoggerFactory.getLogger(CategoryServiceImpl.class);
+
+    // Width of the path column; roughly 25 levels of 9-digit ids.
+    static final int MAX_PATH_LENGTH = 255;
+
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     // Adds a new category after validating name and checking for existence.
     @Override
     @Transactional
@@ -30,13 +53,24 @@ public class CategoryServiceImpl implements CategoryService {
         if (categoryRepository.findByCategoryName(category.getCategoryName()).isPresent()) {
             throw new ResourceAlreadyExistsException("Category with name '" + category.getCategoryName() + "' already exists.");
         }
+        Category parent = null;
+        if (category.getParentId() != null) {
+            parent = categoryRepository.findById(category.getParentId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Parent category not found with Id: " + category.getParentId()));
+        }
+        category.setPath(null); // assigned once the id is known
+        Category saved;
         try {
-            return categoryRepository.save(category);
+            saved = categoryRepository.save(category);
         } catch (DataAccessException e) {
             throw new OperationFailedException("Failed to add category: " + category.getCategoryName()); // Added exception chaining
         } catch (Exception e) {
             throw new OperationFailedException("An unexpected error occurred while adding category: " + category.getCategoryName()); // Added exception chaining
         }
+        // the path embeds the generated id, so it is set after the insert and flushed on commit
+        saved.setPath(childPath(parent == null ? null : parent.getPath(), saved.getCategoryId()));
+        eventPublisher.publishEvent(new CategoryChangeEvent(saved.getCategoryId()));
+        return saved;
     }
 
     // Retrieves a specific category by its ID.
@@ -67,11 +101,20 @@ public class CategoryServiceImpl implements CategoryService {
     // Updates the name of an existing category after validating input and checking for conflicts.
     @Override
     public Category updateCategoryName(int category_id, String newCategoryName) {
+        return updateCategoryName(category_id, newCategoryName, null);
+    }
+
+    // Same as updateCategoryName, but only if the category is still at expectedVersion (from If-Match).
+    @Override
+    public Category updateCategoryName(int category_id, String newCategoryName, Long expectedVersion) {
         if (newCategoryName == null || newCategoryName.isBlank()) {
             throw new IllegalArgumentException("New category name cannot be empty.");
         }
         Category existingCategory = categoryRepository.findById(category_id)
                 .orElseThrow(() -> new ResourceNotFoundException("Cannot update. Category not found with Id: " + category_id));
+        if (expectedVersion != null && existingCategory.getVersion() != expectedVersion) {
+            throw new PreconditionFailedException("Category " + category_id + " is at version " + existingCategory.getVersion() + ", not " + expectedVersion + ".");
+        }
 
         categoryRepository.findByCategoryName(newCategoryName).ifPresent(conflictCategory -> {
             // Ensure the conflict is not with the category itself
@@ -82,7 +125,11 @@ public class CategoryServiceImpl implements CategoryService {
 
         existingCategory.setCategoryName(newCategoryName);
         try {
-            return categoryRepository.save(existingCategory);
+            Category saved = categoryRepository.save(existingCategory);
+            eventPublisher.publishEvent(new CategoryChangeEvent(category_id));
+            return saved;
+        } catch (OptimisticLockingFailureException e) {
+            throw e; // reported as 409 Conflict
         } catch (DataAccessException e) {
             throw new OperationFailedException("Failed to update category with ID: " + category_id); // Added exception chaining
         } catch (Exception e) {
@@ -90,6 +137,48 @@ public class CategoryServiceImpl implements CategoryService {
         }
     }
 
+    // Re-parents a category (null makes it top-level). Its whole subtree moves with it: every
+    // descendant path is rewritten by one prefix update instead of walking the tree.
+    @Override
+    @Transactional
+    public Category moveCategory(int categoryId, Integer newParentId) {
+        Category category = categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cannot move. Category not found with Id: " + categoryId));
+        String parentPath = null;
+        if (newParentId != null) {
+            Category newParent = categoryRepository.findById(newParentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Parent category not found with Id: " + newParentId));
+            if (newParent.getPath() != null && category.getPath() != null && newParent.getPath().startsWith(category.getPath())) {
+                throw new IllegalArgumentException("Cannot move category " + categoryId + " under itself or one of its subcategories.");
+            }
+            parentPath = newParent.getPath();
+        }
+        String oldPath = category.getPath();
+        String newPath = childPath(parentPath, categoryId);
+        category.setParentId(newParentId);
+        try {
+            if (oldPath == null) {
+                category.setPath(newPath);
+                categoryRepository.save(category);
+            } else if (!oldPath.equals(newPath)) {
+                int deepest = categoryRepository.findByPathStartingWith(oldPath).stream()
+                        .mapToInt(descendant -> descendant.getPath().length())
+                        .max().orElse(oldPath.length());
+                if (deepest - oldPath.length() + newPath.length() > MAX_PATH_LENGTH) {
+                    throw new IllegalArgumentException("Category tree would be too deep after moving category " + categoryId + ".");
+                }
+                // flushes the parentId change first, then rewrites the subtree (including this row)
+                categoryRepository.rewritePathPrefix(oldPath, newPath);
+            }
+        } catch (IllegalArgumentException | OptimisticLockingFailureException e) {
+            throw e;
+        } catch (DataAccessException e) {
+            throw new OperationFailedException("Failed to move category with ID: " + categoryId, e);
+        }
+        eventPublisher.publishEvent(new CategoryChangeEvent(categoryId));
+        return categoryRepository.findById(categoryId).orElse(category);
+    }
+
     // Deletes a category by its ID after checking for existence.
     @Override
     @Transactional
@@ -97,6 +186,11 @@ public class CategoryServiceImpl implements CategoryService {
         if (!categoryRepository.existsById(categoryId)) {
             throw new ResourceNotFoundException("Cannot delete. Category not found with Id: " + categoryId);
         }
+        if (categoryRepository.existsByParentId(categoryId)) {
+            throw new IllegalArgumentException("Cannot delete category with ID: " + categoryId + ". Move or delete its subcategories first.");
+        }
+        // products are removed by cascade, so collect their ids for the in-memory indexes first
+        List<Integer> removedProductIds = productRepository.findProdIdsByCategoryId(categoryId);
         try {
             categoryRepository.deleteById(categoryId);
         } catch (DataIntegrityViolationException e) { // Catch constraint violation specifically
@@ -106,6 +200,36 @@ public class CategoryServiceImpl implements CategoryService {
         } catch (Exception e) {
             throw new OperationFailedException("An unexpected error occurred while deleting category with ID: " + categoryId); // Added exception chaining
         }
+        for (Integer prodId : removedProductIds) {
+            eventPublisher.publishEvent(ProductChangeEvent.deleted(prodId));
+            eventPublisher.publishEvent(StockMovementEvent.central(prodId, MovementType.DELETE, 0, 0, 0));
+        }
+        eventPublisher.publishEvent(new CategoryChangeEvent(categoryId));
+    }
+
+    // Categories created before the hierarchy existed have no path; they become top-level ones.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillCategoryPaths() {
+        List<Category> unpathed = categoryRepository.findByPathIsNull();
+        for (Category category : unpathed) {
+            category.setParentId(null);
+            category.setPath(childPath(null, category.getCategoryId()));
+        }
+        if (!unpathed.isEmpty()) {
+            categoryRepository.saveAll(unpathed);
+            log.info("Assigned top-level paths to {} categories", unpathed.size());
+            eventPublisher.publishEvent(new CategoryChangeEvent(unpathed.get(0).getCategoryId()));
+        }
+    }
+
+    // Path of a category under the given parent path ("/" + id + "/" at the top level).
+    static String childPath(String parentPath, int categoryId) {
+        String path = (parentPath == null ? "/" : parentPath) + categoryId + "/";
+        if (path.length() > MAX_PATH_LENGTH) {
+            throw new IllegalArgumentException("Category tree is too deep under path " + parentPath + ".");
+        }
+        return path;
     }
 
     // Retrieves a sorted list of all category names.
@@ -0,0 +1,10 @@
+package com.supermarket.inventoryservice.service;
+
+import com.supermarket.inventoryservice.dto.ReorderSuggestion;
+
+import java.util.List;
+
+public interface ForecastService {
+    ReorderSuggestion getForecast(int prodId);
+    List<ReorderSuggestion> getReorderSuggestions(int limit);
+}
@@ -0,0 +1,64 @@
+package com.supermarket.inventoryservice.service;
+
+import com.supermarket.inventoryservice.dto.ReorderSuggestion;
+import com.supermarket.inventoryservice.exception.ResourceNotFoundException;
+import com.supermarket.inventoryservice.forecast.DemandForecaster;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.model.StoreStock;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import com.supermarket.inventoryservice.repository.StoreStockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ForecastServiceImpl implements ForecastService {
+
+    static final int MAX_SUGGESTIONS = 10_000;
+
+    @Autowired
+    private DemandForecaster demandForecaster;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StoreStockRepository storeStockRepository;
+
+    // Demand forecast and reorder suggestion for one product, against central plus store stock.
+    @Override
+    public ReorderSuggestion getForecast(int prodId) {
+        Product product = productRepository.findById(prodId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + prodId));
+        long storeStock = storeStockRepository.findByProdIdOrderByStoreId(prodId).stream().mapToLong(StoreStock::getQuantity).sum();
+        return demandForecaster.suggest(product, product.getStock() + storeStock);
+    }
+
+    // Products that should be reordered now, soonest to run out first. Only products with sales
+    // history are considered, and their stock is loaded in two queries.
+    @Override
+    public List<ReorderSuggestion> getReorderSuggestions(int limit) {
+        if (limit <= 0 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SUGGESTIONS + ".");
+        }
+        List<Integer> prodIds = Arrays.stream(demandForecaster.trackedProducts()).boxed().toList();
+        if (prodIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Long> storeStock = new HashMap<>();
+        for (StoreStockRepository.ProductTotal total : storeStockRepository.sumQuantityByProdIdIn(prodIds)) {
+            storeStock.put(total.getProdId(), total.getQuantity());
+        }
+        return productRepository.findAllById(prodIds).stream()
+                .map(product -> demandForecaster.suggest(product, product.getStock() + storeStock.getOrDefault(product.getProdId(), 0L)))
+                .filter(suggestion -> suggestion.getStock() <= suggestion.getSuggestedReorderPoint() && suggestion.getSuggestedOrderQuantity() > 0)
+                .sorted(Comparator.comparing(ReorderSuggestion::getDaysOfCover, Comparator.nullsLast(Comparator.naturalOrder())))
+                .limit(limit)
+                .toList();
+    }
+}
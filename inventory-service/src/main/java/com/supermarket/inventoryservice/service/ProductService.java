@@ -1,7 +1,11 @@
 package com.supermarket.inventoryservice.service;
 
+import com.supermarket.inventoryservice.dto.ProductPage;
+import com.supermarket.inventoryservice.dto.ProductSearchResult;
 import com.supermarket.inventoryservice.model.Category;
 import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.search.ProductSortField;
+import org.springframework.data.domain.Sort;
 
 import java.util.List;
 
@@ -10,11 +14,21 @@ public interface ProductService {
     Product getProductById(int productId);
     List<Product> getAllProducts();
     List<Product> getProductsByCategoryId(int categoryId);
+    List<Product> getProductsInCategoryTree(int categoryId);
     void reduceStock(int prodId, int quantity);
+    void restock(int prodId, int quantity);
     Product updateProduct(int prodId, Product updatedproduct);
+    Product updateProduct(int prodId, Product updatedproduct, Long expectedVersion);
     Category getCategoryByProduct(int prodId);
     Product updateQuantity(int productId, int newQuantity);
+    Product updateQuantity(int productId, int newQuantity, Long expectedVersion);
+    Product updateReorderPoint(int productId, int reorderPoint);
     void deleteProd(int prodId);
     Product getProductByProdName(String prodName);
+    List<Product> getProductsByProdNames(List<String> prodNames);
+    Product getProductByBarcode(long barcode);
     List<Product> getProductsByCategoryName(String categoryName);
+    List<ProductSearchResult> searchProducts(String query, int limit);
+    ProductPage getProducts(String categoryName, Double minPrice, Double maxPrice, boolean inStock,
+                            ProductSortField sortBy, Sort.Direction direction, int page, int size);
 }
@@ -1,29 +1,71 @@
 package com.supermarket.inventoryservice.service;
 
+import com.supermarket.inventoryservice.dto.ProductPage;
+import com.supermarket.inventoryservice.dto.ProductSearchResult;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
 import com.supermarket.inventoryservice.exception.InsufficientStockException;
 import com.supermarket.inventoryservice.exception.OperationFailedException;
+import com.supermarket.inventoryservice.exception.PreconditionFailedException;
 import com.supermarket.inventoryservice.exception.ResourceAlreadyExistsException;
 import com.supermarket.inventoryservice.exception.ResourceNotFoundException;
+import com.supermarket.inventoryservice.journal.MovementType;
 import com.supermarket.inventoryservice.model.Category;
 import com.supermarket.inventoryservice.model.Product;
 import com.supermarket.inventoryservice.repository.CategoryRepository;
 import com.supermarket.inventoryservice.repository.ProductRepository;
+import com.supermarket.inventoryservice.search.BarcodeIndex;
+import com.supermarket.inventoryservice.search.ProductFacetIndex;
+import com.supermarket.inventoryservice.search.ProductSearchIndex;
+import com.supermarket.inventoryservice.search.ProductSortField;
+import com.supermarket.inventoryservice.util.Barcodes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 @Service
 public class ProductServiceImpl implements ProductService{
 
+    private static final Logger log = LoggerFactory.getLogger(ProductServiceImpl.class);
+
+    private static final int MAX_STOCK_UPDATE_ATTEMPTS = 5;
+    static final int MAX_NAME_LOOKUP = 500;
+
     @Autowired
     private ProductRepository productRepository;
 
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private BarcodeIndex barcodeIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     // Adds a new product after validating category and checking for existing product name.
     @Override
     public Product addProduct(Product product) {
@@ -34,14 +76,22 @@ public class ProductServiceImpl implements ProductService{
         if (productRepository.findByProdName(product.getProdName()).isPresent()) {
             throw new ResourceAlreadyExistsException("Product with name '" + product.getProdName() + "' already exists.");
         }
+        if (product.getBarcode() != null) {
+            validateBarcode(product.getBarcode(), product.getProdId());
+        }
 
+        Product savedProduct;
         try {
-            return productRepository.save(product);
+            savedProduct = productRepository.save(product);
         } catch (DataAccessException e) {
             throw new OperationFailedException("Failed to add product: " + product.getProdName());
         } catch (Exception e) {
             throw new OperationFailedException("An unexpected error occurred while adding product: " + product.getProdName());
         }
+        eventPublisher.publishEvent(ProductChangeEvent.of(ProductChangeEvent.Type.CREATED, savedProduct, savedProduct.getVersion()));
+        eventPublisher.publishEvent(StockMovementEvent.central(savedProduct.getProdId(), MovementType.CREATE,
+                savedProduct.getStock(), savedProduct.getStock(), savedProduct.getVersion()));
+        return savedProduct;
     }
 
     // Retrieves a single product by its unique ID.
@@ -72,54 +122,124 @@ public class ProductServiceImpl implements ProductService{
 
     }
 
-    // Reduces the stock quantity for a given product ID.
+    // Retrieves all products in a category and every subcategory below it with one path-prefix query.
+    @Override
+    public List<Product> getProductsInCategoryTree(int categoryId) {
+        Category category = categoryRepository.findById(categoryId).orElseThrow(() -> new ResourceNotFoundException("Cannot get products. Category not found with id: " + categoryId));
+        List<Product> products = category.getPath() == null
+                ? productRepository.findByCategory(category) // path not backfilled yet
+                : productRepository.findByCategoryPathPrefix(category.getPath());
+        if (products.isEmpty()) {
+            throw new ResourceNotFoundException("No products found under category id: " + categoryId);
+        }
+        return products;
+    }
+
+    // Reduces the stock quantity for a given product ID. Runs in its own transaction and is
+    // retried with a fresh read if a concurrent update bumped the product's version first.
     @Override
     public void reduceStock(int prodId, int quantity) {
         if (quantity <= 0) { // Add check for non-positive quantity
             throw new IllegalArgumentException("Quantity to reduce must be positive.");
         }
-        Product product = productRepository.findById(prodId).orElseThrow(() -> new ResourceNotFoundException("Cannot reduce stock. Product not found with id: " + prodId));
+        retryOnVersionConflict(prodId, () -> {
+            Product product = productRepository.findById(prodId).orElseThrow(() -> new ResourceNotFoundException("Cannot reduce stock. Product not found with id: " + prodId));
 
-        if (product.getStock() < quantity) {
-            throw new InsufficientStockException("Not enough stock available for product '" + product.getProdName() + "' (ID: " + prodId + "). Available: " + product.getStock() + ", Requested: " + quantity);
-        }
+            if (product.getStock() < quantity) {
+                throw new InsufficientStockException("Not enough stock available for product '" + product.getProdName() + "' (ID: " + prodId + "). Available: " + product.getStock() + ", Requested: " + quantity);
+            }
 
-        product.setStock(product.getStock() - quantity);
+            product.setStock(product.getStock() - quantity);
 
-        try {
-            productRepository.save(product);
-        } catch (DataAccessException e) {
-            throw new OperationFailedException("Failed to update stock for product ID: " + prodId);
-        } catch (Exception e) {
-            throw new OperationFailedException("An unexpected error occurred while updating stock for product ID: " + prodId);
+            try {
+                productRepository.save(product);
+            } catch (OptimisticLockingFailureException e) {
+                throw e; // retried by the caller
+            } catch (DataAccessException e) {
+                throw new OperationFailedException("Failed to update stock for product ID: " + prodId);
+            } catch (Exception e) {
+                throw new OperationFailedException("An unexpected error occurred while updating stock for product ID: " + prodId);
+            }
+            eventPublisher.publishEvent(productChange(product));
+            eventPublisher.publishEvent(stockMovement(product, MovementType.SALE, -quantity));
+            return product;
+        });
+    }
+
+    // Adds units back to a product's central stock, e.g. returned goods or a checkout that was
+    // undone after its stock had been reduced. Retried like reduceStock.
+    @Override
+    public void restock(int prodId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity to restock must be positive.");
         }
+        retryOnVersionConflict(prodId, () -> {
+            Product product = productRepository.findById(prodId).orElseThrow(() -> new ResourceNotFoundException("Cannot restock. Product not found with id: " + prodId));
+            product.setStock(product.getStock() + quantity);
+            try {
+                productRepository.save(product);
+            } catch (OptimisticLockingFailureException e) {
+                throw e; // retried by the caller
+            } catch (DataAccessException e) {
+                throw new OperationFailedException("Failed to restock product ID: " + prodId);
+            }
+            eventPublisher.publishEvent(productChange(product));
+            eventPublisher.publishEvent(stockMovement(product, MovementType.RESTOCK, quantity));
+            return product;
+        });
     }
 
     // Updates an existing product's details based on provided data.
     @Override
     @Transactional
     public Product updateProduct(int prodId, Product updatedproduct) {
+        return updateProduct(prodId, updatedproduct, null);
+    }
+
+    // Same as updateProduct, but only if the product is still at expectedVersion (from If-Match).
+    // A concurrent write after this check still fails on flush, so nothing is silently overwritten.
+    @Override
+    @Transactional
+    public Product updateProduct(int prodId, Product updatedproduct, Long expectedVersion) {
         Product existingProduct = productRepository.findById(prodId).orElseThrow(() -> new ResourceNotFoundException("Cannot update. Product not found with id: " + prodId));
+        checkVersion(existingProduct, expectedVersion);
+        ProductChangeEvent before = ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, existingProduct);
 
         if (updatedproduct.getPrice() < 0) throw new IllegalArgumentException("Price cannot be negative.");
         if (updatedproduct.getStock() < 0) throw new IllegalArgumentException("Stock level cannot be negative.");
         if (updatedproduct.getProdName() == null) throw new IllegalArgumentException("Product name cannot be null.");
 
+        int previousStock = existingProduct.getStock();
         existingProduct.setProdName(updatedproduct.getProdName());
         existingProduct.setPrice(updatedproduct.getPrice());
         existingProduct.setStock(updatedproduct.getStock());
+        if (updatedproduct.getBarcode() != null) {
+            validateBarcode(updatedproduct.getBarcode(), prodId);
+            existingProduct.setBarcode(updatedproduct.getBarcode());
+        }
+        if (updatedproduct.getReorderPoint() != null) {
+            existingProduct.setReorderPoint(updatedproduct.getReorderPoint());
+        }
         if (updatedproduct.getCategory() != null && updatedproduct.getCategory().getCategoryName() != null) {
             String categoryName = updatedproduct.getCategory().getCategoryName();
             Category category = categoryRepository.findByCategoryName(categoryName).orElseThrow(() -> new ResourceNotFoundException("Cannot update product. Category not found: " + categoryName));
             existingProduct.setCategory(category);
         }
+        Product savedProduct;
         try {
-            return productRepository.save(existingProduct);
+            savedProduct = productRepository.save(existingProduct);
+        } catch (OptimisticLockingFailureException e) {
+            throw e; // reported as 409 Conflict
         } catch (DataAccessException e) {
             throw new OperationFailedException("Failed to update product with ID: " + prodId);
         } catch (Exception e) {
             throw new OperationFailedException("An unexpected error occurred while updating product with ID: " + prodId);
         }
+        eventPublisher.publishEvent(productChange(savedProduct, before));
+        if (savedProduct.getStock() != previousStock) {
+            eventPublisher.publishEvent(stockMovement(savedProduct, MovementType.ADJUST, savedProduct.getStock() - previousStock));
+        }
+        return savedProduct;
     }
     // Retrieves the category associated with a specific product ID.
     @Override
@@ -134,25 +254,65 @@ public class ProductServiceImpl implements ProductService{
 
     // Directly updates the stock quantity for a specific product ID.
     @Override
-    @Transactional
     public Product updateQuantity(int productId, int newQuantity) {
+        return updateQuantity(productId, newQuantity, null);
+    }
+
+    // Sets the stock level, retrying on version conflicts. With an If-Match version the retry
+    // re-checks it, so a conflicting write turns into a precondition failure instead.
+    @Override
+    public Product updateQuantity(int productId, int newQuantity, Long expectedVersion) {
         if (productId <= 0) {
             throw new IllegalArgumentException("Product ID must be positive.");
         }
         if (newQuantity < 0) {
             throw new IllegalArgumentException("Stock quantity cannot be negative.");
         }
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cannot update quantity. Product not found with id: " + productId));
+        return retryOnVersionConflict(productId, () -> {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Cannot update quantity. Product not found with id: " + productId));
+            checkVersion(product, expectedVersion);
+            ProductChangeEvent before = ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, product);
+
+            int previousStock = product.getStock();
+            product.setStock(newQuantity);
+            Product savedProduct;
+            try {
+                savedProduct = productRepository.save(product);
+            } catch (OptimisticLockingFailureException e) {
+                throw e; // retried by the caller
+            } catch (DataAccessException e) {
+                throw new OperationFailedException("Failed to update quantity for product ID: " + productId);
+            } catch (Exception e) {
+                throw new OperationFailedException("An unexpected error occurred while updating quantity for product ID: " + productId);
+            }
+            eventPublisher.publishEvent(productChange(savedProduct, before));
+            eventPublisher.publishEvent(stockMovement(savedProduct, MovementType.SET, newQuantity - previousStock));
+            return savedProduct;
+        });
+    }
 
-        product.setStock(newQuantity);
+    // Sets the stock level at or below which a low-stock alert is raised for this product.
+    @Override
+    @Transactional
+    public Product updateReorderPoint(int productId, int reorderPoint) {
+        if (reorderPoint < 0) {
+            throw new IllegalArgumentException("Reorder point cannot be negative.");
+        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cannot update reorder point. Product not found with id: " + productId));
+        ProductChangeEvent before = ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, product);
+        product.setReorderPoint(reorderPoint);
+        Product savedProduct;
         try {
-            return productRepository.save(product);
+            savedProduct = productRepository.save(product);
+        } catch (OptimisticLockingFailureException e) {
+            throw e; // reported as 409 Conflict
         } catch (DataAccessException e) {
-            throw new OperationFailedException("Failed to update quantity for product ID: " + productId);
-        } catch (Exception e) {
-            throw new OperationFailedException("An unexpected error occurred while updating quantity for product ID: " + productId);
+            throw new OperationFailedException("Failed to update reorder point for product ID: " + productId);
         }
+        eventPublisher.publishEvent(productChange(savedProduct, before));
+        return savedProduct;
     }
 
     // Deletes a product by its ID after checking for existence.
@@ -169,6 +329,8 @@ public class ProductServiceImpl implements ProductService{
         } catch (Exception e) {
             throw new OperationFailedException("An unexpected error occurred while deleting product with ID: " + prodId);
         }
+        eventPublisher.publishEvent(ProductChangeEvent.deleted(prodId));
+        eventPublisher.publishEvent(StockMovementEvent.central(prodId, MovementType.DELETE, 0, 0, 0));
     }
 
     // Retrieves a single product by its unique name.
@@ -177,6 +339,95 @@ public class ProductServiceImpl implements ProductService{
         return productRepository.findByProdName(prodName).orElseThrow(() -> new ResourceNotFoundException("Product not found with name: " + prodName));
     }
 
+    // Retrieves the products with any of the given names in one query; unknown names are simply absent.
+    @Override
+    public List<Product> getProductsByProdNames(List<String> prodNames) {
+        if (prodNames == null || prodNames.isEmpty()) {
+            return List.of();
+        }
+        if (prodNames.size() > MAX_NAME_LOOKUP) {
+            throw new IllegalArgumentException("Cannot look up more than " + MAX_NAME_LOOKUP + " products at once.");
+        }
+        if (prodNames.stream().anyMatch(name -> name == null || name.isBlank())) {
+            throw new IllegalArgumentException("Product name cannot be blank.");
+        }
+        return productRepository.findByProdNameIn(new LinkedHashSet<>(prodNames));
+    }
+
+    // Retrieves a product by its scanned barcode; the in-memory index resolves the id and the row is read by primary key.
+    @Override
+    public Product getProductByBarcode(long barcode) {
+        int prodId = barcodeIndex.get(barcode);
+        if (prodId != BarcodeIndex.NOT_FOUND) {
+            Optional<Product> product = productRepository.findById(prodId);
+            if (product.isPresent() && Long.valueOf(barcode).equals(product.get().getBarcode())) {
+                return product.get();
+            }
+        }
+        // index may lag a just-committed change, so fall back to the unique column before giving up
+        return productRepository.findByBarcode(barcode).orElseThrow(() -> new ResourceNotFoundException("Product not found with barcode: " + barcode));
+    }
+
+    // Runs one stock change per transaction. The version check happens when the transaction
+    // flushes, so a conflict surfaces from execute(); the rolled-back transaction clears the
+    // persistence context, so the next attempt reads the committed row.
+    private Product retryOnVersionConflict(int prodId, Supplier<Product> stockChange) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> stockChange.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_STOCK_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Version conflict on product {} (attempt {}), retrying", prodId, attempt);
+                try {
+                    // jittered backoff so competing tills do not collide again in lockstep
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10L * attempt));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Index update for a change to the product row, at the version it will commit at (see stockMovement).
+    private static ProductChangeEvent productChange(Product product) {
+        return ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, product, product.getVersion() + 1);
+    }
+
+    // As above for a change that may have left the product as it was. Hibernate only bumps the
+    // version of a dirty row, so such a change keeps the loaded version and listeners skip it.
+    private static ProductChangeEvent productChange(Product product, ProductChangeEvent before) {
+        ProductChangeEvent after = productChange(product);
+        return after.sameState(before) ? ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, product, product.getVersion()) : after;
+    }
+
+    // Journal record for a change to the product row. The row's version is bumped when the
+    // transaction flushes, so the version this change will commit at is the loaded one plus one.
+    private static StockMovementEvent stockMovement(Product product, MovementType type, int delta) {
+        return StockMovementEvent.central(product.getProdId(), type, delta, product.getStock(), product.getVersion() + 1);
+    }
+
+    private static void checkVersion(Product product, Long expectedVersion) {
+        if (expectedVersion != null && product.getVersion() != expectedVersion) {
+            throw new PreconditionFailedException("Product " + product.getProdId() + " is at version " + product.getVersion() + ", not " + expectedVersion + ".");
+        }
+    }
+
+    // Rejects malformed barcodes and barcodes already assigned to another product.
+    private void validateBarcode(long barcode, int prodId) {
+        if (!Barcodes.isValid(barcode)) {
+            throw new IllegalArgumentException("Barcode " + barcode + " is not a valid EAN-8, UPC-A or EAN-13 code.");
+        }
+        productRepository.findByBarcode(barcode).ifPresent(other -> {
+            if (other.getProdId() != prodId) {
+                throw new ResourceAlreadyExistsException("Barcode " + barcode + " is already assigned to product '" + other.getProdName() + "'.");
+            }
+        });
+    }
+
     // Finds a product by name, specifically for Biller
     @Override
     public List<Product> getProductsByCategoryName(String categoryName) {
@@ -189,4 +440,29 @@ public class ProductServiceImpl implements ProductService{
 
         return productList;
     }
+
+    // Ranked typeahead lookup over product names, served from the in-memory search index.
+    @Override
+    public List<ProductSearchResult> searchProducts(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query cannot be blank.");
+        }
+        return productSearchIndex.search(query, limit);
+    }
+
+    // Filters, sorts and pages the catalogue from the precomputed facet index.
+    @Override
+    public ProductPage getProducts(String categoryName, Double minPrice, Double maxPrice, boolean inStock,
+                                   ProductSortField sortBy, Sort.Direction direction, int page, int size) {
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new IllegalArgumentException("Minimum price cannot be greater than maximum price.");
+        }
+        Integer categoryId = null;
+        if (categoryName != null && !categoryName.isBlank()) {
+            categoryId = categoryRepository.findByCategoryName(categoryName)
+                    .orElseThrow(() -> new ResourceNotFoundException("Cannot get products. Category not found with name: " + categoryName))
+                    .getCategoryId();
+        }
+        return productFacetIndex.query(categoryId, minPrice, maxPrice, inStock, sortBy, direction == Sort.Direction.DESC, page, size);
+    }
 }
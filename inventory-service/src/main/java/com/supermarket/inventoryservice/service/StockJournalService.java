@@ -0,0 +1,14 @@
+package com.supermarket.inventoryservice.service;
+
+import com.supermarket.inventoryservice.dto.StockLevel;
+import com.supermarket.inventoryservice.dto.StockMovement;
+import com.supermarket.inventoryservice.dto.StockRestoreReport;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockJournalService {
+    List<StockMovement> getStockHistory(int prodId, Integer storeId, Instant from, Instant to, int limit);
+    List<StockLevel> replayStock(Instant at);
+    StockRestoreReport restoreStock(Instant at);
+}
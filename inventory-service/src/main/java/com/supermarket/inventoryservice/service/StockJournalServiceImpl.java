@@ -0,0 +1,187 @@
+package com.supermarket.inventoryservice.service;
+
+import com.supermarket.inventoryservice.cache.ProductCacheEvictor;
+import com.supermarket.inventoryservice.dto.StockLevel;
+import com.supermarket.inventoryservice.dto.StockMovement;
+import com.supermarket.inventoryservice.dto.StockRestoreReport;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
+import com.supermarket.inventoryservice.exception.OperationFailedException;
+import com.supermarket.inventoryservice.journal.MovementType;
+import com.supermarket.inventoryservice.journal.StockJournal;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class StockJournalServiceImpl implements StockJournalService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockJournalServiceImpl.class);
+
+    static final int MAX_HISTORY = 10_000;
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String CURRENT_PRODUCTS_SQL = "SELECT product_id, quantity FROM product FOR UPDATE";
+    private static final String CURRENT_STORES_SQL = "SELECT store_id, product_id, quantity FROM store_stock FOR UPDATE";
+    private static final String RESTORE_PRODUCT_SQL =
+            "UPDATE product SET quantity = ?, version = version + 1 WHERE product_id = ?";
+    private static final String RESTORE_STORE_SQL =
+            "UPDATE store_stock SET quantity = ?, version = version + 1 WHERE store_id = ? AND product_id = ?";
+    private static final String INSERT_STORE_SQL =
+            "INSERT INTO store_stock (store_id, product_id, quantity, version) VALUES (?, ?, ?, 0)";
+
+    // Rows the restore will write, decided by comparing the replay with the current levels.
+    private record RestorePlan(List<StockLevel> central, List<StockLevel> storeUpdates, List<StockLevel> storeInserts, int skipped) {
+    }
+
+    @Autowired
+    private StockJournal stockJournal;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ProductCacheEvictor productCacheEvictor;
+
+    // Movement history of one product, newest first, read from the journal only.
+    @Override
+    public List<StockMovement> getStockHistory(int prodId, Integer storeId, Instant from, Instant to, int limit) {
+        if (limit <= 0 || limit > MAX_HISTORY) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_HISTORY + ".");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' cannot be after 'to'.");
+        }
+        return stockJournal.history(prodId, storeId, from, to, limit);
+    }
+
+    // Stock levels as they were at the given time, without changing anything.
+    @Override
+    public List<StockLevel> replayStock(Instant at) {
+        if (at == null || at.isAfter(Instant.now())) {
+            throw new IllegalArgumentException("Replay time must be in the past.");
+        }
+        return stockJournal.replay(at);
+    }
+
+    // Writes the replayed levels back to MySQL in one transaction, e.g. to undo a bad import.
+    // Only rows whose quantity differs are touched; each of them is journalled as a RESTORE. What
+    // differs is decided from the current rows, read under lock, not from the driver's update
+    // counts: with rewriteBatchedStatements those are SUCCESS_NO_INFO, and found-rows mode reports
+    // a row set to its current value as updated.
+    @Override
+    public StockRestoreReport restoreStock(Instant at) {
+        long started = System.currentTimeMillis();
+        List<StockLevel> levels = replayStock(at);
+
+        RestorePlan plan;
+        try {
+            plan = new TransactionTemplate(transactionManager).execute(status -> {
+                RestorePlan restore = plan(levels);
+                jdbcTemplate.batchUpdate(RESTORE_PRODUCT_SQL, restore.central(), BATCH_SIZE, (ps, level) -> {
+                    ps.setInt(1, level.getQuantity());
+                    ps.setInt(2, level.getProdId());
+                });
+                jdbcTemplate.batchUpdate(RESTORE_STORE_SQL, restore.storeUpdates(), BATCH_SIZE, (ps, level) -> {
+                    ps.setInt(1, level.getQuantity());
+                    ps.setInt(2, level.getStoreId());
+                    ps.setInt(3, level.getProdId());
+                });
+                jdbcTemplate.batchUpdate(INSERT_STORE_SQL, restore.storeInserts(), BATCH_SIZE, (ps, level) -> {
+                    ps.setInt(1, level.getStoreId());
+                    ps.setInt(2, level.getProdId());
+                    ps.setInt(3, level.getQuantity());
+                });
+                for (StockLevel level : restore.central()) {
+                    eventPublisher.publishEvent(StockMovementEvent.central(level.getProdId(), MovementType.RESTORE, 0, level.getQuantity(), 0));
+                }
+                for (StockLevel level : restore.storeUpdates()) {
+                    eventPublisher.publishEvent(new StockMovementEvent(level.getProdId(), level.getStoreId(), MovementType.RESTORE, 0, level.getQuantity(), 0));
+                }
+                for (StockLevel level : restore.storeInserts()) {
+                    eventPublisher.publishEvent(new StockMovementEvent(level.getProdId(), level.getStoreId(), MovementType.RESTORE, 0, level.getQuantity(), 0));
+                }
+                return restore;
+            });
+        } catch (DataAccessException | TransactionException e) {
+            throw new OperationFailedException("Failed to restore stock to " + at, e);
+        }
+
+        List<Integer> changedProducts = plan.central().stream().map(StockLevel::getProdId).toList();
+        int storeRowsUpdated = plan.storeUpdates().size() + plan.storeInserts().size();
+        // JDBC bypassed the second-level cache and the in-memory indexes
+        productCacheEvictor.evictProducts(changedProducts);
+        for (Product product : productRepository.findAllById(changedProducts)) {
+            // read after the commit, so this is the version the restore left the row at
+            eventPublisher.publishEvent(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, product, product.getVersion()));
+        }
+        long duration = System.currentTimeMillis() - started;
+        log.info("Restored stock to {}: {} products and {} store rows changed in {} ms", at, changedProducts.size(), storeRowsUpdated, duration);
+        return new StockRestoreReport(at, levels.size(), changedProducts.size(), storeRowsUpdated, plan.skipped(), duration);
+    }
+
+    // Compares the replayed levels with the current rows, locked until the restore commits so
+    // nothing changes between the comparison and the writes.
+    private RestorePlan plan(List<StockLevel> levels) {
+        Map<Integer, Integer> products = new HashMap<>();
+        for (StockLevel level : jdbcTemplate.query(CURRENT_PRODUCTS_SQL,
+                (rs, row) -> new StockLevel(rs.getInt("product_id"), StockMovementEvent.CENTRAL_STORE, rs.getInt("quantity")))) {
+            products.put(level.getProdId(), level.getQuantity());
+        }
+        Map<Long, Integer> stores = new HashMap<>();
+        for (StockLevel level : jdbcTemplate.query(CURRENT_STORES_SQL,
+                (rs, row) -> new StockLevel(rs.getInt("product_id"), rs.getInt("store_id"), rs.getInt("quantity")))) {
+            stores.put(storeKey(level), level.getQuantity());
+        }
+
+        List<StockLevel> central = new ArrayList<>();
+        List<StockLevel> storeUpdates = new ArrayList<>();
+        List<StockLevel> storeInserts = new ArrayList<>();
+        int skipped = 0;
+        for (StockLevel level : levels) {
+            if (!products.containsKey(level.getProdId())) {
+                skipped++; // deleted since; restoring would resurrect nothing
+            } else if (level.getStoreId() == StockMovementEvent.CENTRAL_STORE) {
+                if (products.get(level.getProdId()) != level.getQuantity()) {
+                    central.add(level);
+                }
+            } else {
+                Integer current = stores.get(storeKey(level));
+                if (current == null) {
+                    storeInserts.add(level);
+                } else if (current != level.getQuantity()) {
+                    storeUpdates.add(level);
+                }
+            }
+        }
+        return new RestorePlan(central, storeUpdates, storeInserts, skipped);
+    }
+
+    private static long storeKey(StockLevel level) {
+        return ((long) level.getStoreId() << 32) | (level.getProdId() & 0xffffffffL);
+    }
+}
@@ -0,0 +1,12 @@
+package com.supermarket.inventoryservice.service;
+
+import com.supermarket.inventoryservice.dto.ProductAvailability;
+import com.supermarket.inventoryservice.model.StoreStock;
+
+public interface StoreStockService {
+    void reduceStock(int storeId, int prodId, int quantity);
+    void restock(int storeId, int prodId, int quantity);
+    StoreStock setStock(int storeId, int prodId, int quantity);
+    StoreStock getStoreStock(int storeId, int prodId);
+    ProductAvailability getAvailability(int prodId);
+}
@@ -0,0 +1,147 @@
+package com.supermarket.inventoryservice.service;
+
+import com.supermarket.inventoryservice.dto.ProductAvailability;
+import com.supermarket.inventoryservice.dto.StoreStockLevel;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
+import com.supermarket.inventoryservice.exception.InsufficientStockException;
+import com.supermarket.inventoryservice.exception.OperationFailedException;
+import com.supermarket.inventoryservice.exception.ResourceNotFoundException;
+import com.supermarket.inventoryservice.journal.MovementType;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.model.StoreStock;
+import com.supermarket.inventoryservice.model.StoreStockId;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import com.supermarket.inventoryservice.repository.StoreStockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Per-store stock. Each (store, product) pair is its own row, so tills in different stores never
+// wait on each other, and sales are applied as conditional in-place updates instead of
+// read-modify-write cycles on the shared product row.
+@Service
+public class StoreStockServiceImpl implements StoreStockService {
+
+    @Autowired
+    private StoreStockRepository storeStockRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Takes quantity out of one store's stock; fails without changing anything if the store has too little.
+    @Override
+    @Transactional
+    public void reduceStock(int storeId, int prodId, int quantity) {
+        validate(storeId, quantity);
+        int updated;
+        try {
+            updated = storeStockRepository.decrement(storeId, prodId, quantity);
+        } catch (DataAccessException e) {
+            throw new OperationFailedException("Failed to update stock for product ID: " + prodId + " at store " + storeId, e);
+        }
+        if (updated == 0) {
+            Product product = productRepository.findById(prodId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Cannot reduce stock. Product not found with id: " + prodId));
+            int available = storeStockRepository.findById(new StoreStockId(storeId, prodId)).map(StoreStock::getQuantity).orElse(0);
+            throw new InsufficientStockException("Not enough stock available for product '" + product.getProdName() + "' (ID: " + prodId + ") at store " + storeId + ". Available: " + available + ", Requested: " + quantity);
+        }
+        journal(storeId, prodId, MovementType.SALE, -quantity);
+    }
+
+    // Puts quantity back into one store's stock (returns, deliveries, cancelled sales).
+    @Override
+    @Transactional
+    public void restock(int storeId, int prodId, int quantity) {
+        validate(storeId, quantity);
+        try {
+            // a new row needs an existing product; throwing rolls the insert back
+            if (storeStockRepository.incrementOrInsert(storeId, prodId, quantity) == 1 && !productRepository.existsById(prodId)) {
+                throw new ResourceNotFoundException("Cannot restock. Product not found with id: " + prodId);
+            }
+        } catch (DataAccessException e) {
+            throw new OperationFailedException("Failed to restock product ID: " + prodId + " at store " + storeId, e);
+        }
+        journal(storeId, prodId, MovementType.RESTOCK, quantity);
+    }
+
+    // Sets a store's stock level outright, e.g. after a stock take.
+    @Override
+    @Transactional
+    public StoreStock setStock(int storeId, int prodId, int quantity) {
+        if (storeId <= 0) {
+            throw new IllegalArgumentException("Store ID must be positive.");
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Stock quantity cannot be negative.");
+        }
+        if (!productRepository.existsById(prodId)) {
+            throw new ResourceNotFoundException("Cannot set stock. Product not found with id: " + prodId);
+        }
+        StoreStock stock = storeStockRepository.findById(new StoreStockId(storeId, prodId))
+                .orElseGet(() -> new StoreStock(storeId, prodId, 0));
+        int previous = stock.getQuantity();
+        stock.setQuantity(quantity);
+        StoreStock saved;
+        try {
+            saved = storeStockRepository.saveAndFlush(stock);
+        } catch (DataAccessException e) {
+            throw new OperationFailedException("Failed to set stock for product ID: " + prodId + " at store " + storeId, e);
+        }
+        eventPublisher.publishEvent(new StockMovementEvent(prodId, storeId, MovementType.SET, quantity - previous, quantity, saved.getVersion()));
+        return saved;
+    }
+
+    // Retrieves one store's stock of a product.
+    @Override
+    public StoreStock getStoreStock(int storeId, int prodId) {
+        return storeStockRepository.findById(new StoreStockId(storeId, prodId))
+                .orElseThrow(() -> new ResourceNotFoundException("Product " + prodId + " is not stocked at store " + storeId));
+    }
+
+    // Aggregates central and per-store stock for one product.
+    @Override
+    public ProductAvailability getAvailability(int prodId) {
+        Product product = productRepository.findById(prodId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + prodId));
+        List<StoreStockLevel> stores = storeStockRepository.findByProdIdOrderByStoreId(prodId).stream()
+                .map(stock -> new StoreStockLevel(stock.getStoreId(), stock.getQuantity()))
+                .toList();
+        long storeStock = stores.stream().mapToLong(StoreStockLevel::getQuantity).sum();
+        return new ProductAvailability(prodId, product.getProdName(), product.getStock(), storeStock,
+                product.getStock() + storeStock, stores);
+    }
+
+    // store_stock has no foreign key to product, so a deleted product's rows are removed here,
+    // synchronously inside the deleting transaction.
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.getType() == ProductChangeEvent.Type.DELETED) {
+            storeStockRepository.deleteByProdIdIn(List.of(event.getProdId()));
+        }
+    }
+
+    // The conditional updates do not return the new row, so it is read back (by primary key, under
+    // the row lock this transaction already holds) to journal the resulting level and version.
+    private void journal(int storeId, int prodId, MovementType type, int delta) {
+        storeStockRepository.findById(new StoreStockId(storeId, prodId)).ifPresent(stock ->
+                eventPublisher.publishEvent(new StockMovementEvent(prodId, storeId, type, delta, stock.getQuantity(), stock.getVersion())));
+    }
+
+    private static void validate(int storeId, int quantity) {
+        if (storeId <= 0) {
+            throw new IllegalArgumentException("Store ID must be positive.");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive.");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.supermarket.inventoryservice.util;
+
+// Validation for the retail barcodes printed on products: EAN-8, UPC-A (12 digits) and EAN-13.
+public final class Barcodes {
+
+    private Barcodes() {
+    }
+
+    // True if the code has a supported length and a correct GS1 check digit.
+    public static boolean isValid(long barcode) {
+        if (barcode <= 0) {
+            return false;
+        }
+        int length = Long.toString(barcode).length();
+        // leading zeros are lost in the numeric form, so anything up to 13 digits is checked as EAN-13
+        if (length < 8 || length > 13) {
+            return false;
+        }
+        long body = barcode / 10;
+        int checkDigit = (int) (barcode % 10);
+        int sum = 0;
+        // weights alternate 3,1,3,... starting from the digit next to the check digit
+        for (int position = 0; body > 0; position++, body /= 10) {
+            int digit = (int) (body % 10);
+            sum += (position % 2 == 0) ? digit * 3 : digit;
+        }
+        return (10 - sum % 10) % 10 == checkDigit;
+    }
+}
@@ -0,0 +1,95 @@
+package com.supermarket.inventoryservice.util;
+
+import com.supermarket.inventoryservice.exception.PreconditionFailedException;
+import com.supermarket.inventoryservice.model.Category;
+import com.supermarket.inventoryservice.model.Product;
+
+import java.util.Collection;
+
+// Entity tags derived from the @Version columns, so a conditional GET can be answered from the
+// loaded entity without serialising it. Single resources use "p<id>v<version>" or
+// "c<id>v<version>"; lists use a hash of every (id, version) pair plus the size. A product's JSON
+// embeds its category, so product tags also carry the category's id and version
+// ("p<id>v<version>c<id>v<version>"): renaming or moving the category changes them.
+public final class ETags {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ETags() {
+    }
+
+    public static String of(Product product) {
+        Category category = product.getCategory();
+        String categoryPart = category == null ? "" : "c" + category.getCategoryId() + "v" + category.getVersion();
+        return "\"p" + product.getProdId() + "v" + product.getVersion() + categoryPart + "\"";
+    }
+
+    public static String of(Category category) {
+        return "\"c" + category.getCategoryId() + "v" + category.getVersion() + "\"";
+    }
+
+    public static String ofProducts(Collection<Product> products) {
+        long hash = FNV_OFFSET;
+        for (Product product : products) {
+            hash = mix(mix(hash, product.getProdId()), product.getVersion());
+            Category category = product.getCategory();
+            hash = category == null ? mix(hash, -1) : mix(mix(hash, category.getCategoryId()), category.getVersion());
+        }
+        return "\"pl" + products.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    public static String ofCategories(Collection<Category> categories) {
+        long hash = FNV_OFFSET;
+        for (Category category : categories) {
+            hash = mix(mix(hash, category.getCategoryId()), category.getVersion());
+        }
+        return "\"cl" + categories.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    // Version the client expects from an If-Match header on a product, or null when absent or "*".
+    // Only the product's own version is compared; the category part of the tag is ignored.
+    public static Long expectedProductVersion(String ifMatch, int prodId) {
+        return expectedVersion(ifMatch, "p" + prodId + "v");
+    }
+
+    public static Long expectedCategoryVersion(String ifMatch, int categoryId) {
+        return expectedVersion(ifMatch, "c" + categoryId + "v");
+    }
+
+    // If-Match uses strong comparison, so weak tags and tags for another resource never match.
+    private static Long expectedVersion(String ifMatch, String prefix) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                String value = tag.substring(1, tag.length() - 1);
+                if (value.startsWith(prefix)) {
+                    int end = prefix.length();
+                    while (end < value.length() && Character.isDigit(value.charAt(end))) {
+                        end++;
+                    }
+                    if (end < value.length() && value.charAt(end) != 'c') {
+                        continue; // not one of ours
+                    }
+                    try {
+                        return Long.parseLong(value.substring(prefix.length(), end));
+                    } catch (NumberFormatException e) {
+                        // not one of ours, keep looking
+                    }
+                }
+            }
+        }
+        throw new PreconditionFailedException("If-Match " + ifMatch + " does not match the current version.");
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,5 @@
+-- Optional: spread store_stock over partitions by store so that stores never share a B-tree page
+-- for hot SKUs and a store's rows can be scanned, archived or rebuilt on their own.
+-- Hibernate (ddl-auto=update) creates the table unpartitioned; run this once per region database.
+-- The primary key (store_id, product_id) already contains the partitioning column, as MySQL requires.
+ALTER TABLE store_stock PARTITION BY KEY (store_id) PARTITIONS 16;
@@ -0,0 +1,190 @@
+package com.supermarket.inventoryservice.alert;
+
+import com.supermarket.inventoryservice.dto.LowStockAlert;
+import com.supermarket.inventoryservice.dto.LowStockItem;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LowStockMonitorTest {
+
+    private LowStockMonitor monitor;
+
+    private static Product product(int id, int stock, Integer reorderPoint) {
+        Product product = new Product(id, "Product " + id, 1.0, stock, null);
+        product.setReorderPoint(reorderPoint);
+        return product;
+    }
+
+    private LowStockAlert update(int id, int stock, Integer reorderPoint) {
+        return monitor.apply(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, product(id, stock, reorderPoint)));
+    }
+
+    @BeforeEach
+    void setUp() {
+        monitor = new LowStockMonitor();
+        ReflectionTestUtils.setField(monitor, "defaultReorderPoint", 10);
+        ReflectionTestUtils.setField(monitor, "rearmMarginPercent", 20);
+        monitor.rebuild(List.of(product(1, 50, 20), product(2, 50, null)));
+    }
+
+    @Test
+    @DisplayName("Apply: Alert fires once when stock crosses the reorder point, not on every sale below it")
+    void apply_ShouldFireOncePerCrossing() {
+        assertNull(update(1, 21, null));
+
+        LowStockAlert alert = update(1, 20, null);
+        assertEquals(LowStockMonitor.LOW_STOCK_EVENT, alert.getType());
+        assertEquals(20, alert.getReorderPoint());
+
+        assertNull(update(1, 15, null));
+        assertNull(update(1, 3, null));
+        assertEquals(1, monitor.getLowStock(10).size());
+    }
+
+    @Test
+    @DisplayName("Apply: Alert re-arms only once stock clears the reorder point plus the margin")
+    void apply_ShouldRearmWithHysteresis() {
+        update(1, 10, null);
+
+        assertNull(update(1, 24, null)); // margin is 20% of 20 = 4, so 24 is not yet clear
+        assertNull(update(1, 19, null)); // dipping again does not re-alert
+        assertEquals(LowStockMonitor.CLEARED_EVENT, update(1, 25, null).getType());
+        assertTrue(monitor.getLowStock(10).isEmpty());
+        assertEquals(LowStockMonitor.LOW_STOCK_EVENT, update(1, 20, null).getType());
+    }
+
+    @Test
+    @DisplayName("GetLowStock: Most urgent first, by stock relative to the reorder point")
+    void getLowStock_ShouldOrderByUrgency() {
+        update(1, 10, null); // half of 20
+        update(2, 1, null);  // a tenth of the default 10
+        update(3, 0, 5);
+
+        List<LowStockItem> items = monitor.getLowStock(10);
+
+        assertEquals(List.of(3, 2, 1), items.stream().map(LowStockItem::getProdId).toList());
+        assertEquals(10, items.get(1).getReorderPoint());
+        assertEquals(11, items.get(2).getShortfall());
+        assertEquals(List.of(3), monitor.getLowStock(1).stream().map(LowStockItem::getProdId).toList());
+    }
+
+    @Test
+    @DisplayName("Apply: An event without a reorder point keeps the one already known")
+    void apply_WhenReorderPointMissing_ShouldKeepKnownThreshold() {
+        ProductChangeEvent imported = ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, product(1, 18, null));
+
+        LowStockAlert alert = monitor.apply(imported);
+
+        assertNotNull(alert);
+        assertEquals(20, alert.getReorderPoint());
+    }
+
+    @Test
+    @DisplayName("Rebuild: Products already low are listed without raising alerts")
+    void rebuild_ShouldListLowProductsWithoutAlerting() {
+        monitor.rebuild(List.of(product(1, 5, 20)));
+
+        assertEquals(1, monitor.getLowStock(10).size());
+        assertNull(update(1, 4, null));
+    }
+
+    @Test
+    @DisplayName("Apply: Deleting a product drops it from the low-stock list")
+    void apply_WhenDeleted_ShouldRemoveProduct() {
+        update(1, 1, null);
+
+        assertNull(monitor.apply(ProductChangeEvent.deleted(1)));
+
+        assertTrue(monitor.getLowStock(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Delivery: Alerts raised concurrently reach a subscriber in the order they were raised")
+    void onProductChange_WhenConcurrent_ShouldDeliverAlertsInOrder() throws Exception {
+        // Arrange
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        LowStockMonitor recording = new LowStockMonitor() {
+            @Override
+            SseEmitter newEmitter() {
+                return new SseEmitter(0L) {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        String event = builder.build().stream().map(part -> part.getData().toString()).collect(Collectors.joining());
+                        if (!event.contains("event:" + SNAPSHOT_EVENT)) {
+                            received.add(event.substring(event.indexOf("event:") + 6, event.indexOf('\n', event.indexOf("event:"))));
+                        }
+                    }
+                };
+            }
+        };
+        ReflectionTestUtils.setField(recording, "defaultReorderPoint", 10);
+        ReflectionTestUtils.setField(recording, "rearmMarginPercent", 20);
+        ReflectionTestUtils.setField(recording, "heartbeatSeconds", 60L);
+        recording.start();
+        recording.rebuild(List.of(product(1, 50, 20)));
+        recording.subscribe();
+        ScheduledExecutorService dispatcher = (ScheduledExecutorService) ReflectionTestUtils.getField(recording, "dispatcher");
+        dispatcher.submit(() -> { }).get(10, TimeUnit.SECONDS); // the subscriber is registered
+        int threads = 8;
+        int perThread = 250;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Act: every thread swings the same product between empty and well stocked
+        try {
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        recording.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, product(1, i % 2 == 0 ? 0 : 50, null)));
+                    }
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+            dispatcher.submit(() -> { }).get(10, TimeUnit.SECONDS); // every queued alert is sent
+        } finally {
+            recording.stop();
+        }
+
+        // Assert: alerts alternate, starting from the product being well stocked
+        assertFalse(received.isEmpty());
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals(i % 2 == 0 ? LowStockMonitor.LOW_STOCK_EVENT : LowStockMonitor.CLEARED_EVENT, received.get(i), "alert " + i);
+        }
+        assertEquals(received.get(received.size() - 1).equals(LowStockMonitor.LOW_STOCK_EVENT), !recording.getLowStock(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Apply: A change delivered after a newer one for the same product is skipped")
+    void apply_WhenOlderVersionArrivesLate_ShouldKeepNewer() {
+        LowStockAlert alert = monitor.apply(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, product(1, 5, null), 3));
+
+        assertNull(monitor.apply(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, product(1, 50, null), 2)));
+        assertEquals(LowStockMonitor.LOW_STOCK_EVENT, alert.getType());
+        assertEquals(5, monitor.getLowStock(10).get(0).getStock());
+    }
+}
@@ -0,0 +1,154 @@
+package com.supermarket.inventoryservice.feed;
+
+import com.supermarket.inventoryservice.dto.ProductChangeNotification;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.model.Category;
+import com.supermarket.inventoryservice.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductChangeFeedTest {
+
+    private ProductChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new ProductChangeFeed();
+        ReflectionTestUtils.setField(feed, "bufferSize", 4);
+        ReflectionTestUtils.setField(feed, "heartbeatSeconds", 60L);
+        feed.start();
+        Category category = new Category(1, "Dairy", null);
+        for (int i = 1; i <= 6; i++) {
+            feed.append(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, new Product(100 + i, "Milk " + i, 1.0 * i, i, category)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.stop();
+    }
+
+    @Test
+    @DisplayName("Replay: Returns only the changes after the last event id, in order")
+    void replay_WhenStillBuffered_ShouldReturnMissedChanges() {
+        ProductChangeFeed.Replay replay = feed.replay(feed.getFeedId() + ":3");
+
+        assertFalse(replay.reset());
+        assertEquals(List.of(4L, 5L, 6L), replay.changes().stream().map(ProductChangeNotification::getSequence).toList());
+        assertEquals(104, replay.changes().get(0).getProdId());
+        assertEquals(6, replay.head());
+    }
+
+    @Test
+    @DisplayName("Replay: Nothing to send when the subscriber is already current")
+    void replay_WhenUpToDate_ShouldReturnNoChanges() {
+        ProductChangeFeed.Replay replay = feed.replay(feed.getFeedId() + ":6");
+
+        assertFalse(replay.reset());
+        assertTrue(replay.changes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Replay: Resets when the missed changes have left the ring buffer")
+    void replay_WhenOverwritten_ShouldReset() {
+        // buffer of 4 now holds sequences 3..6, so resuming after 1 would miss sequence 2
+        assertTrue(feed.replay(feed.getFeedId() + ":1").reset());
+        assertFalse(feed.replay(feed.getFeedId() + ":2").reset());
+    }
+
+    @Test
+    @DisplayName("Replay: Resets for ids from another run of the service or malformed ids")
+    void replay_WhenIdUnknown_ShouldReset() {
+        assertTrue(feed.replay("previousRun:5").reset());
+        assertTrue(feed.replay(feed.getFeedId() + ":99").reset());
+        assertTrue(feed.replay("garbage").reset());
+    }
+
+    @Test
+    @DisplayName("Delivery: Changes committed concurrently reach a subscriber in sequence order with no gaps")
+    void onProductChange_WhenConcurrent_ShouldDeliverEverySequence() throws Exception {
+        // Arrange
+        List<Long> received = Collections.synchronizedList(new ArrayList<>());
+        ProductChangeFeed recording = new ProductChangeFeed() {
+            @Override
+            SseEmitter newEmitter() {
+                return new SseEmitter(0L) {
+                    @Override
+                    public void send(SseEventBuilder builder) {
+                        String event = builder.build().stream().map(part -> part.getData().toString()).collect(Collectors.joining());
+                        if (event.contains("event:" + CHANGE_EVENT)) {
+                            String id = event.substring(event.indexOf("id:") + 3, event.indexOf('\n', event.indexOf("id:")));
+                            received.add(Long.parseLong(id.substring(id.lastIndexOf(':') + 1)));
+                        }
+                    }
+                };
+            }
+        };
+        ReflectionTestUtils.setField(recording, "bufferSize", 4096);
+        ReflectionTestUtils.setField(recording, "heartbeatSeconds", 60L);
+        recording.start();
+        recording.subscribe(null);
+        Category category = new Category(1, "Dairy", null);
+        int threads = 8;
+        int perThread = 250;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Act
+        try {
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        recording.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, new Product(101, "Milk", 1.0, i, category)));
+                    }
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (received.size() < threads * perThread && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+        } finally {
+            recording.stop();
+        }
+
+        // Assert
+        List<Long> expected = LongStream.rangeClosed(1, threads * perThread).boxed().toList();
+        assertEquals(expected, List.copyOf(received));
+    }
+
+    @Test
+    @DisplayName("Sequencing: A change delivered after a newer one for the same product is not sequenced")
+    void onProductChange_WhenOlderVersionArrivesLate_ShouldSkipIt() {
+        Category category = new Category(1, "Dairy", null);
+        feed.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, new Product(101, "Milk", 1.0, 9, category), 5));
+        feed.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, new Product(101, "Milk", 1.0, 7, category), 4));
+
+        ProductChangeFeed.Replay replay = feed.replay(feed.getFeedId() + ":6");
+        assertEquals(List.of(9), replay.changes().stream().map(ProductChangeNotification::getStock).toList());
+    }
+}
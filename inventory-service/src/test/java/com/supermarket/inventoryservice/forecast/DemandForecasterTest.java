@@ -0,0 +1,151 @@
+package com.supermarket.inventoryservice.forecast;
+
+import com.supermarket.inventoryservice.dto.ReorderSuggestion;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
+import com.supermarket.inventoryservice.journal.MovementType;
+import com.supermarket.inventoryservice.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DemandForecasterTest {
+
+    private static final int START_DAY = 20_000;
+
+    @TempDir
+    Path directory;
+
+    private DemandForecaster forecaster;
+    private final Product milk = new Product(1, "Milk", 1.2, 0, null);
+
+    private static Instant noonOf(long epochDay) {
+        return Instant.ofEpochSecond(epochDay * 86_400 + 12 * 3_600);
+    }
+
+    private DemandForecaster newForecaster() throws IOException {
+        DemandForecaster created = new DemandForecaster();
+        ReflectionTestUtils.setField(created, "checkpointFile", directory.resolve("forecast.bin").toString());
+        ReflectionTestUtils.setField(created, "checkpointIntervalSeconds", 3600L);
+        ReflectionTestUtils.setField(created, "alpha", 0.1);
+        ReflectionTestUtils.setField(created, "gamma", 0.2);
+        ReflectionTestUtils.setField(created, "leadTimeDays", 3);
+        ReflectionTestUtils.setField(created, "reviewDays", 7);
+        ReflectionTestUtils.setField(created, "serviceLevelZ", 1.65);
+        ReflectionTestUtils.setField(created, "zone", "UTC");
+        created.start();
+        return created;
+    }
+
+    private void sell(int units, int days) {
+        for (int day = START_DAY; day < START_DAY + days; day++) {
+            forecaster.record(1, units, noonOf(day));
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        forecaster = newForecaster();
+    }
+
+    @AfterEach
+    void tearDown() {
+        forecaster.stop();
+    }
+
+    @Test
+    @DisplayName("Suggest: Steady sales converge on the daily rate and days of cover follow from stock")
+    void suggest_WithSteadyDemand_ShouldConvergeOnRate() {
+        sell(10, 60);
+
+        ReorderSuggestion suggestion = forecaster.suggest(milk, 50, noonOf(START_DAY + 60));
+
+        assertEquals(10, suggestion.getForecastDailyDemand(), 0.01);
+        assertEquals(5, suggestion.getDaysOfCover(), 0.01);
+        assertEquals(30, suggestion.getSuggestedReorderPoint()); // no error, so no safety stock
+        assertEquals(50, suggestion.getSuggestedOrderQuantity()); // up to ten days of demand
+        assertEquals(60, suggestion.getObservedDays());
+    }
+
+    @Test
+    @DisplayName("Record: Learns a weekday pattern as day-of-week factors")
+    void record_WithWeekendPeak_ShouldLearnSeasonality() {
+        for (int day = START_DAY; day < START_DAY + 140; day++) {
+            forecaster.record(1, DemandModel.dayOfWeek(day) == 5 ? 40 : 10, noonOf(day));
+        }
+
+        DemandModel model = (DemandModel) ReflectionTestUtils.getField(forecaster, "model");
+        double[] season = model.estimate(1, START_DAY + 140).season();
+
+        assertTrue(season[5] > 2.5 * season[0], "Saturday should sell far more than Monday");
+        assertEquals(7, season[0] + season[1] + season[2] + season[3] + season[4] + season[5] + season[6], 1e-9);
+    }
+
+    @Test
+    @DisplayName("Suggest: A product that stops selling decays towards zero demand")
+    void suggest_AfterLongQuietSpell_ShouldDecay() {
+        sell(10, 30);
+
+        ReorderSuggestion suggestion = forecaster.suggest(milk, 50, noonOf(START_DAY + 90));
+
+        assertTrue(suggestion.getForecastDailyDemand() < 0.1, "60 quiet days should leave almost no demand");
+        assertEquals(0, suggestion.getSuggestedOrderQuantity());
+    }
+
+    @Test
+    @DisplayName("Suggest: A product with no sales history has no demand and no cover estimate")
+    void suggest_WithoutHistory_ShouldReturnEmptyForecast() {
+        ReorderSuggestion suggestion = forecaster.suggest(milk, 50, noonOf(START_DAY));
+
+        assertEquals(0, suggestion.getForecastDailyDemand());
+        assertNull(suggestion.getDaysOfCover());
+        assertEquals(0, suggestion.getSuggestedOrderQuantity());
+    }
+
+    @Test
+    @DisplayName("OnStockMovement: Only committed sales count as demand")
+    void onStockMovement_ShouldCountSalesOnly() {
+        forecaster.onStockMovement(StockMovementEvent.central(1, MovementType.RESTOCK, 100, 100, 2));
+        forecaster.onStockMovement(StockMovementEvent.central(2, MovementType.SALE, -3, 97, 3));
+
+        assertArrayEquals(new int[]{2}, forecaster.trackedProducts());
+    }
+
+    @Test
+    @DisplayName("Checkpoint: A restart restores the learned model")
+    void checkpoint_ShouldSurviveRestart() throws IOException {
+        sell(10, 30);
+        ReorderSuggestion before = forecaster.suggest(milk, 50, noonOf(START_DAY + 30));
+        forecaster.stop();
+
+        forecaster = newForecaster();
+        ReorderSuggestion after = forecaster.suggest(milk, 50, noonOf(START_DAY + 30));
+
+        assertEquals(before.getForecastDailyDemand(), after.getForecastDailyDemand());
+        assertEquals(before.getSuggestedReorderPoint(), after.getSuggestedReorderPoint());
+        assertEquals(before.getObservedDays(), after.getObservedDays());
+    }
+
+    @Test
+    @DisplayName("Start: A corrupt checkpoint is ignored rather than failing startup")
+    void start_WithCorruptCheckpoint_ShouldStartEmpty() throws IOException {
+        sell(10, 30);
+        forecaster.stop();
+        byte[] bytes = Files.readAllBytes(directory.resolve("forecast.bin"));
+        bytes[20] ^= 1;
+        Files.write(directory.resolve("forecast.bin"), bytes);
+
+        forecaster = newForecaster();
+
+        assertEquals(0, forecaster.trackedProducts().length);
+    }
+}
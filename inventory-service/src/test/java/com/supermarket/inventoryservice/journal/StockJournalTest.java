@@ -0,0 +1,146 @@
+package com.supermarket.inventoryservice.journal;
+
+import com.supermarket.inventoryservice.dto.StockLevel;
+import com.supermarket.inventoryservice.dto.StockMovement;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockJournalTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    private StockJournal journal;
+
+    private StockJournal open() throws IOException {
+        StockJournal opened = new StockJournal();
+        ReflectionTestUtils.setField(opened, "directory", dir.toString());
+        ReflectionTestUtils.setField(opened, "segmentRecords", 4);
+        ReflectionTestUtils.setField(opened, "snapshotEvery", 3L);
+        ReflectionTestUtils.setField(opened, "flushIntervalMillis", 3_600_000L);
+        ReflectionTestUtils.setField(opened, "snapshotsRetained", 2);
+        opened.start();
+        return opened;
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journal = open();
+        journal.append(StockMovementEvent.central(1, MovementType.CREATE, 50, 50, 0), T0);
+        journal.append(StockMovementEvent.central(1, MovementType.SALE, -5, 45, 1), T0 + 1000);
+        journal.append(new StockMovementEvent(1, 7, MovementType.RESTOCK, 10, 10, 0), T0 + 2000);
+        journal.append(StockMovementEvent.central(2, MovementType.CREATE, 8, 8, 0), T0 + 3000);
+        journal.append(StockMovementEvent.central(1, MovementType.SALE, -3, 42, 2), T0 + 4000);
+        journal.append(new StockMovementEvent(1, 7, MovementType.SALE, -4, 6, 1), T0 + 5000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.stop();
+    }
+
+    private static int level(List<StockLevel> levels, int prodId, int storeId) {
+        return levels.stream()
+                .filter(level -> level.getProdId() == prodId && level.getStoreId() == storeId)
+                .findFirst().orElseThrow().getQuantity();
+    }
+
+    @Test
+    @DisplayName("History: Newest first, filtered by product, store and time range")
+    void history_ShouldFilterAndOrderNewestFirst() {
+        List<StockMovement> all = journal.history(1, null, null, null, 10);
+        List<StockMovement> central = journal.history(1, 0, Instant.ofEpochMilli(T0 + 500), Instant.ofEpochMilli(T0 + 4500), 10);
+
+        assertEquals(List.of(6L, 5L, 3L, 2L, 1L), all.stream().map(StockMovement::getSequence).toList());
+        assertEquals(List.of(5L, 2L), central.stream().map(StockMovement::getSequence).toList());
+        assertEquals(MovementType.SALE, central.get(0).getType());
+        assertEquals(-3, central.get(0).getDelta());
+        assertEquals(2, journal.history(1, null, null, null, 2).size());
+    }
+
+    @Test
+    @DisplayName("Replay: Returns every level as of the requested time")
+    void replay_ShouldRebuildLevelsAtTime() {
+        List<StockLevel> early = journal.replay(Instant.ofEpochMilli(T0 + 2500));
+        List<StockLevel> now = journal.replay(Instant.ofEpochMilli(T0 + 10_000));
+
+        assertEquals(2, early.size());
+        assertEquals(45, level(early, 1, 0));
+        assertEquals(10, level(early, 1, 7));
+        assertEquals(42, level(now, 1, 0));
+        assertEquals(6, level(now, 1, 7));
+        assertEquals(8, level(now, 2, 0));
+    }
+
+    @Test
+    @DisplayName("Replay: A record with an older row version does not overwrite a newer one")
+    void replay_WhenRecordsArriveOutOfOrder_ShouldKeepNewestVersion() throws IOException {
+        journal.append(StockMovementEvent.central(2, MovementType.SALE, -1, 6, 2), T0 + 6000);
+        journal.append(StockMovementEvent.central(2, MovementType.SALE, -1, 7, 1), T0 + 6001); // committed first, journalled second
+
+        assertEquals(6, level(journal.replay(Instant.ofEpochMilli(T0 + 10_000)), 2, 0));
+    }
+
+    @Test
+    @DisplayName("Replay: Deleted products drop out of the replayed levels")
+    void replay_WhenProductDeleted_ShouldOmitIt() throws IOException {
+        journal.append(StockMovementEvent.central(2, MovementType.DELETE, 0, 0, 0), T0 + 6000);
+
+        List<StockLevel> levels = journal.replay(Instant.ofEpochMilli(T0 + 10_000));
+
+        assertTrue(levels.stream().noneMatch(level -> level.getProdId() == 2));
+    }
+
+    @Test
+    @DisplayName("Snapshot: Replay after a snapshot and a restart gives the same levels")
+    void flush_ThenReopen_ShouldRecoverFromSnapshotAndSegments() throws IOException {
+        journal.flush();
+        journal.append(StockMovementEvent.central(2, MovementType.SET, 12, 20, 1), T0 + 7000);
+        journal.stop();
+
+        journal = open();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            List<String> names = files.map(path -> path.getFileName().toString()).sorted().toList();
+            assertEquals(List.of("00000000000000000001.seg", "00000000000000000005.seg", "snapshot-00000000000000000006.snap"), names);
+        }
+        assertEquals(7, journal.getLastSequence());
+        List<StockLevel> levels = journal.replay(Instant.ofEpochMilli(T0 + 10_000));
+        assertEquals(42, level(levels, 1, 0));
+        assertEquals(20, level(levels, 2, 0));
+        assertEquals(45, level(journal.replay(Instant.ofEpochMilli(T0 + 1500)), 1, 0)); // before the snapshot
+    }
+
+    @Test
+    @DisplayName("Recovery: A torn last record is dropped and its slot reused")
+    void start_WhenLastRecordTorn_ShouldTruncateToLastValidRecord() throws IOException {
+        journal.stop();
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("00000000000000000005.seg").toFile(), "rw")) {
+            file.seek(JournalSegment.RECORD_SIZE + 40); // quantity of sequence 6, checksum left stale
+            file.writeInt(999);
+        }
+
+        journal = open();
+
+        assertEquals(5, journal.getLastSequence());
+        assertEquals(6, journal.append(StockMovementEvent.central(1, MovementType.SALE, -2, 40, 3), T0 + 8000));
+        assertEquals(10, level(journal.replay(Instant.ofEpochMilli(T0 + 10_000)), 1, 7));
+    }
+}
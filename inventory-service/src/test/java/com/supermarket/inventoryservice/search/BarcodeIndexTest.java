@@ -0,0 +1,59 @@
+package com.supermarket.inventoryservice.search;
+
+import com.supermarket.inventoryservice.util.Barcodes;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BarcodeIndexTest {
+
+    @Test
+    @DisplayName("Index: Put, replace and remove barcodes")
+    void putAndRemove_ShouldKeepLookupsConsistent() {
+        BarcodeIndex index = new BarcodeIndex();
+        index.put(4006381333931L, 1);
+        index.put(96385074L, 2);
+
+        assertEquals(1, index.get(4006381333931L));
+        assertEquals(2, index.get(96385074L));
+
+        index.put(36000291452L, 1); // product 1 relabelled
+        assertEquals(BarcodeIndex.NOT_FOUND, index.get(4006381333931L));
+        assertEquals(1, index.get(36000291452L));
+
+        index.remove(2);
+        assertEquals(BarcodeIndex.NOT_FOUND, index.get(96385074L));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("Index: Lookups survive resizing and backward-shift deletes")
+    void manyEntries_ShouldResizeAndDeleteWithoutLosingKeys() {
+        BarcodeIndex index = new BarcodeIndex();
+        int count = 5000;
+        for (int i = 1; i <= count; i++) {
+            index.put(5000000000000L + i, i);
+        }
+        for (int i = 1; i <= count; i += 2) {
+            index.remove(i);
+        }
+
+        assertEquals(count / 2, index.size());
+        for (int i = 1; i <= count; i++) {
+            int expected = (i % 2 == 0) ? i : BarcodeIndex.NOT_FOUND;
+            assertEquals(expected, index.get(5000000000000L + i), "barcode for product " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("Barcodes: Accepts EAN-13, EAN-8 and UPC-A with valid check digits")
+    void isValid_ShouldCheckLengthAndCheckDigit() {
+        assertTrue(Barcodes.isValid(4006381333931L));   // EAN-13
+        assertTrue(Barcodes.isValid(96385074L));        // EAN-8
+        assertTrue(Barcodes.isValid(36000291452L));     // UPC-A 036000291452
+        assertFalse(Barcodes.isValid(4006381333932L));  // wrong check digit
+        assertFalse(Barcodes.isValid(1234567L));        // too short
+        assertFalse(Barcodes.isValid(0L));
+    }
+}
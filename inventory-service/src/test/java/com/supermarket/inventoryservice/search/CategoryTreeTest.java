@@ -0,0 +1,71 @@
+package com.supermarket.inventoryservice.search;
+
+import com.supermarket.inventoryservice.dto.CategoryNode;
+import com.supermarket.inventoryservice.model.Category;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryTreeTest {
+
+    private CategoryTree tree;
+
+    private static Category category(int id, String name, Integer parentId, String path) {
+        Category category = new Category(id, name, null);
+        category.setParentId(parentId);
+        category.setPath(path);
+        return category;
+    }
+
+    @BeforeEach
+    void setUp() {
+        tree = new CategoryTree();
+        tree.rebuild(List.of(
+                category(42, "Organic", 17, "/3/17/42/"),
+                category(3, "Dairy", null, "/3/"),
+                category(17, "Milk", 3, "/3/17/"),
+                category(18, "Cheese", 3, "/3/18/"),
+                category(5, "Bakery", null, "/5/")));
+    }
+
+    @Test
+    @DisplayName("Rebuild: Roots and children are nested and sorted by name")
+    void rebuild_ShouldNestChildrenSortedByName() {
+        List<CategoryNode> roots = tree.roots();
+
+        assertEquals(List.of("Bakery", "Dairy"), roots.stream().map(CategoryNode::getCategoryName).toList());
+        CategoryNode dairy = roots.get(1);
+        assertEquals(List.of("Cheese", "Milk"), dairy.getChildren().stream().map(CategoryNode::getCategoryName).toList());
+        assertEquals(2, tree.find(42).orElseThrow().getDepth());
+    }
+
+    @Test
+    @DisplayName("SubtreeIds: Returns the category and every descendant")
+    void subtreeIds_ShouldIncludeAllDescendants() {
+        assertEquals(List.of(3, 18, 17, 42), tree.subtreeIds(3));
+        assertEquals(List.of(5), tree.subtreeIds(5));
+        assertTrue(tree.subtreeIds(99).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Ancestors: Returns the root-first chain for breadcrumbs")
+    void ancestors_ShouldReturnRootFirstChain() {
+        assertEquals(List.of(3, 17, 42), tree.ancestors(42).stream().map(CategoryNode::getCategoryId).toList());
+    }
+
+    @Test
+    @DisplayName("Rebuild: Orphans become roots and the old snapshot is replaced whole")
+    void rebuild_WhenParentMissing_ShouldPromoteToRoot() {
+        List<CategoryNode> before = tree.roots();
+
+        tree.rebuild(List.of(category(17, "Milk", 3, "/3/17/")));
+
+        assertEquals(2, before.size()); // readers holding the old snapshot are unaffected
+        assertEquals(List.of(17), tree.roots().stream().map(CategoryNode::getCategoryId).toList());
+        assertFalse(tree.find(3).isPresent());
+    }
+}
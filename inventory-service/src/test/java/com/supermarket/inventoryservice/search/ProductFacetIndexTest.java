@@ -0,0 +1,85 @@
+package com.supermarket.inventoryservice.search;
+
+import com.supermarket.inventoryservice.dto.ProductPage;
+import com.supermarket.inventoryservice.dto.ProductSummary;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFacetIndexTest {
+
+    private static final int DAIRY = 1;
+    private static final int BAKERY = 2;
+
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFacetIndex();
+        index.upsert(1, "Whole Milk", 60.0, 10, DAIRY);
+        index.upsert(2, "Butter", 250.0, 0, DAIRY);
+        index.upsert(3, "Cheddar", 400.0, 4, DAIRY);
+        index.upsert(4, "Yoghurt", 60.0, 8, DAIRY);
+        index.upsert(5, "Brown Bread", 45.0, 20, BAKERY);
+    }
+
+    private static List<Integer> ids(ProductPage page) {
+        return page.getContent().stream().map(ProductSummary::getProdId).toList();
+    }
+
+    @Test
+    @DisplayName("Query: Price range within a category sorted by price")
+    void query_WhenPriceRange_ShouldReturnMatchesInPriceOrder() {
+        ProductPage page = index.query(DAIRY, 60.0, 300.0, false, ProductSortField.PRICE, false, 0, 10);
+
+        assertEquals(List.of(1, 4, 2), ids(page));
+        assertEquals(3, page.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Query: In-stock filter and descending order")
+    void query_WhenInStockDescending_ShouldSkipOutOfStock() {
+        ProductPage page = index.query(DAIRY, null, null, true, ProductSortField.PRICE, true, 0, 10);
+
+        assertEquals(List.of(3, 4, 1), ids(page));
+        assertEquals(3, page.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Query: Name sort with paging over all categories")
+    void query_WhenSortedByNameAndPaged_ShouldReturnRequestedSlice() {
+        ProductPage first = index.query(null, null, null, false, ProductSortField.NAME, false, 0, 2);
+        ProductPage second = index.query(null, null, null, false, ProductSortField.NAME, false, 1, 2);
+
+        assertEquals(List.of(5, 2), ids(first));       // Brown Bread, Butter
+        assertEquals(List.of(3, 1), ids(second));      // Cheddar, Whole Milk
+        assertEquals(5, second.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Index: Price, stock and category changes are applied incrementally")
+    void upsert_WhenProductChanges_ShouldRepositionIt() {
+        index.upsert(2, "Butter", 50.0, 3, DAIRY);                  // cheaper and back in stock
+        index.upsert(4, "Yoghurt", 60.0, 8, BAKERY);                // moved category
+        index.onProductChange(ProductChangeEvent.deleted(3));
+
+        ProductPage dairy = index.query(DAIRY, null, null, true, ProductSortField.PRICE, false, 0, 10);
+        assertEquals(List.of(2, 1), ids(dairy));
+        ProductPage bakery = index.query(BAKERY, null, null, false, ProductSortField.PRICE, false, 0, 10);
+        assertEquals(List.of(5, 4), ids(bakery));
+    }
+
+    @Test
+    @DisplayName("Query: Unknown category returns an empty page")
+    void query_WhenCategoryHasNoProducts_ShouldReturnEmptyPage() {
+        ProductPage page = index.query(99, null, null, false, ProductSortField.PRICE, false, 0, 10);
+
+        assertTrue(page.getContent().isEmpty());
+        assertEquals(0, page.getTotalElements());
+    }
+}
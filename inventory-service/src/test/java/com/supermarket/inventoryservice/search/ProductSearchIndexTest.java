@@ -0,0 +1,135 @@
+package com.supermarket.inventoryservice.search;
+
+import com.supermarket.inventoryservice.dto.ProductSearchResult;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.model.Category;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.upsert(1, "Organic Milk", 60.0, 10);
+        index.upsert(2, "Milk Chocolate", 120.0, 5);
+        index.upsert(3, "Crème Fraîche", 90.0, 3);
+        index.upsert(4, "Almond Milkshake", 150.0, 0);
+        index.upsert(5, "Brown Bread", 45.0, 20);
+    }
+
+    @Test
+    @DisplayName("Search: Leading prefix ranks above word prefix")
+    void search_WhenPrefixQuery_ShouldRankLeadingMatchFirst() {
+        List<ProductSearchResult> results = index.search("mil", 10);
+
+        assertEquals(3, results.size());
+        assertEquals(2, results.get(0).getProdId()); // "Milk Chocolate" starts with the query
+        assertTrue(results.stream().anyMatch(r -> r.getProdId() == 1));
+        assertTrue(results.stream().anyMatch(r -> r.getProdId() == 4));
+    }
+
+    @Test
+    @DisplayName("Search: Matching ignores case and accents")
+    void search_WhenAccentsDiffer_ShouldStillMatch() {
+        List<ProductSearchResult> results = index.search("CREME FRAI", 5);
+
+        assertFalse(results.isEmpty());
+        assertEquals(3, results.get(0).getProdId());
+        assertEquals("Crème Fraîche", results.get(0).getProdName());
+    }
+
+    @Test
+    @DisplayName("Search: Trigrams find infix matches")
+    void search_WhenInfixQuery_ShouldMatchThroughTrigrams() {
+        List<ProductSearchResult> results = index.search("read", 5);
+
+        assertEquals(1, results.size());
+        assertEquals(5, results.get(0).getProdId());
+    }
+
+    @Test
+    @DisplayName("Search: Result count is capped at the limit")
+    void search_WhenLimitSmallerThanMatches_ShouldReturnTopK() {
+        List<ProductSearchResult> results = index.search("milk", 1);
+
+        assertEquals(1, results.size());
+        assertEquals(2, results.get(0).getProdId());
+    }
+
+    @Test
+    @DisplayName("Index: Rename, stock update and delete are applied incrementally")
+    void onProductChange_ShouldUpdateIndexIncrementally() {
+        Category dairy = new Category(1, "Dairy", null);
+        index.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, new Product(1, "Organic Yoghurt", 60.0, 7, dairy)));
+        index.onProductChange(ProductChangeEvent.deleted(2));
+
+        assertTrue(index.search("milk", 10).stream().noneMatch(r -> r.getProdId() == 1 || r.getProdId() == 2));
+        List<ProductSearchResult> results = index.search("yog", 10);
+        assertEquals(1, results.size());
+        assertEquals(7, results.get(0).getStock());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    @DisplayName("Normalize: Folds case, accents and punctuation")
+    void normalize_ShouldFoldCaseAccentsAndPunctuation() {
+        assertEquals("creme fraiche 200g", ProductSearchIndex.normalize("  Crème-Fraîche (200g) "));
+        assertEquals("", ProductSearchIndex.normalize(null));
+    }
+
+    @Test
+    @DisplayName("Index: A change delivered after a newer one for the same product is skipped")
+    void onProductChange_WhenOlderVersionArrivesLate_ShouldKeepNewer() {
+        Category dairy = new Category(1, "Dairy", null);
+        index.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, new Product(1, "Organic Kefir", 60.0, 7, dairy), 3));
+        index.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, new Product(1, "Organic Yoghurt", 60.0, 9, dairy), 2));
+        index.onProductChange(ProductChangeEvent.deleted(2));
+        index.onProductChange(ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, new Product(2, "Milk Chocolate", 120.0, 4, dairy), 8));
+
+        assertTrue(index.search("yog", 10).isEmpty());
+        assertEquals(7, index.search("kefir", 10).get(0).getStock());
+        assertTrue(index.search("chocolate", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Rebuild: A change committed while the catalogue is loading is applied on top, not overwritten")
+    void rebuild_WhenChangeArrivesDuringLoad_ShouldKeepChange() throws Exception {
+        // Arrange
+        Category dairy = new Category(1, "Dairy", null);
+        ProductRepository productRepository = mock(ProductRepository.class);
+        ReflectionTestUtils.setField(index, "productRepository", productRepository);
+        Thread listener = new Thread(() -> index.onProductChange(
+                ProductChangeEvent.of(ProductChangeEvent.Type.UPDATED, new Product(1, "Organic Kefir", 60.0, 7, dairy), 2)));
+        when(productRepository.findAll()).thenAnswer(invocation -> {
+            listener.start();
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (listener.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5); // until the change is waiting for the index
+            }
+            Product loaded = new Product(1, "Organic Milk", 60.0, 10, dairy);
+            loaded.setVersion(1);
+            return List.of(loaded);
+        });
+
+        // Act
+        index.rebuild();
+        listener.join(5_000);
+
+        // Assert
+        assertEquals(1, index.search("kefir", 10).size());
+        assertTrue(index.search("organic milk", 10).stream().noneMatch(r -> r.getProdName().equals("Organic Milk")));
+    }
+}
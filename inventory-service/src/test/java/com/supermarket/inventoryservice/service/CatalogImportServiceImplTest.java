@@ -0,0 +1,259 @@
+package com.supermarket.inventoryservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supermarket.inventoryservice.cache.ProductCacheEvictor;
+import com.supermarket.inventoryservice.dto.CatalogImportReport;
+import com.supermarket.inventoryservice.dto.ProductIdentity;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
+import com.supermarket.inventoryservice.exception.ConflictException;
+import com.supermarket.inventoryservice.importer.ImportFormat;
+import com.supermarket.inventoryservice.model.Category;
+import com.supermarket.inventoryservice.repository.CategoryRepository;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogImportServiceImplTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductCacheEvictor productCacheEvictor;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private CatalogImportServiceImpl catalogImportServiceImpl;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(catalogImportServiceImpl, "chunkSize", 2);
+        ReflectionTestUtils.setField(catalogImportServiceImpl, "maxReportedErrors", 10);
+        when(categoryRepository.findAll()).thenReturn(List.of(new Category(1, "Electronics", null)));
+        when(productRepository.findAllIdentities()).thenReturn(List.of(new ProductIdentity(101, "Laptop", null)));
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void stubInsertReturningKey(long generatedKey) {
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenAnswer(invocation -> {
+                    KeyHolder keyHolder = invocation.getArgument(2);
+                    keyHolder.getKeyList().add(Map.of("GENERATED_KEY", generatedKey));
+                    return new int[]{1};
+                });
+    }
+
+    @Test
+    @DisplayName("ImportCatalog: Updates existing names, inserts new ones and reports bad rows")
+    void importCatalog_WhenCsvMixed_ShouldUpsertAndReportErrors() {
+        // Arrange
+        String csv = "prodName,price,stock,categoryName\r\n"
+                + "laptop,1100.00,40,Electronics\r\n"
+                + "\"Phone, \"\"Pro\"\"\",799.99,10,electronics\r\n"
+                + "Kettle,25.00,5,Kitchen\r\n";
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenReturn(new int[]{1});
+        stubInsertReturningKey(202L);
+
+        // Act
+        CatalogImportReport report = catalogImportServiceImpl.importCatalog(ImportFormat.CSV, body(csv));
+
+        // Assert
+        assertEquals(3, report.getTotalRows());
+        assertEquals(1, report.getUpdated());
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getFailed());
+        assertEquals(4, report.getErrors().get(0).getLine());
+        assertEquals("Kettle", report.getErrors().get(0).getProdName());
+        verify(eventPublisher, times(2)).publishEvent(any(ProductChangeEvent.class));
+        verify(transactionManager).commit(any());
+        verify(productCacheEvictor).evictProducts(List.of(101));
+    }
+
+    @Test
+    @DisplayName("ImportCatalog: Rows without stock keep the current level and journal no stock movement")
+    void importCatalog_WhenStockMissing_ShouldKeepCurrentStock() throws Exception {
+        // Arrange
+        String csv = "prodName,price,categoryName\n"
+                + "Laptop,1100.00,Electronics\n"
+                + "Phone,799.99,Electronics\n";
+        ArgumentCaptor<BatchPreparedStatementSetter> updateSetter = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        when(jdbcTemplate.batchUpdate(anyString(), updateSetter.capture())).thenReturn(new int[]{1});
+        stubInsertReturningKey(202L);
+        doAnswer(invocation -> {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getInt(1)).thenReturn(101);
+            when(rs.getInt(2)).thenReturn(37);
+            ((RowCallbackHandler) invocation.getArgument(1)).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT product_id, quantity"), any(RowCallbackHandler.class), eq(101));
+
+        // Act
+        CatalogImportReport report = catalogImportServiceImpl.importCatalog(ImportFormat.CSV, body(csv));
+
+        // Assert
+        assertEquals(1, report.getUpdated());
+        assertEquals(1, report.getInserted());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        updateSetter.getValue().setValues(ps, 0);
+        verify(ps).setNull(3, Types.INTEGER);
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        List<ProductChangeEvent> changes = events.getAllValues().stream()
+                .filter(ProductChangeEvent.class::isInstance).map(ProductChangeEvent.class::cast).toList();
+        assertEquals(List.of(37, 0), changes.stream().map(ProductChangeEvent::getStock).toList());
+        List<StockMovementEvent> movements = events.getAllValues().stream()
+                .filter(StockMovementEvent.class::isInstance).map(StockMovementEvent.class::cast).toList();
+        assertEquals(1, movements.size());
+        assertEquals(202, movements.get(0).getProdId()); // the insert's CREATE; the update journals nothing
+    }
+
+    @Test
+    @DisplayName("ImportCatalog: Reports every row of a chunk that fails to write")
+    void importCatalog_WhenChunkFails_ShouldReportRowsAndContinue() {
+        // Arrange
+        String ndjson = "{\"prodName\":\"Phone\",\"price\":799.99,\"stock\":10,\"categoryName\":\"Electronics\"}\n"
+                + "{\"prodName\":\"Tablet\",\"price\":499.0,\"stock\":3,\"categoryName\":\"Electronics\"}\n"
+                + "\n"
+                + "{\"prodName\":\"Camera\",\"price\":299.0,\"stock\":7,\"categoryName\":\"Electronics\",\"barcode\":4006381333931}\n";
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"))
+                .thenAnswer(invocation -> {
+                    KeyHolder keyHolder = invocation.getArgument(2);
+                    keyHolder.getKeyList().add(Map.of("GENERATED_KEY", 303L));
+                    return new int[]{1};
+                });
+
+        // Act
+        CatalogImportReport report = catalogImportServiceImpl.importCatalog(ImportFormat.NDJSON, body(ndjson));
+
+        // Assert
+        assertEquals(3, report.getTotalRows());
+        assertEquals(2, report.getFailed());
+        assertEquals(1, report.getInserted());
+        assertTrue(report.getErrors().get(0).getMessage().startsWith("Chunk rolled back"));
+        verify(transactionManager).rollback(any());
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangeEvent.class));
+    }
+
+    @Test
+    @DisplayName("ImportCatalog: Rejects invalid barcodes, bad numbers and names repeated in the file")
+    void importCatalog_WhenRowsInvalid_ShouldNotWriteThem() {
+        // Arrange
+        String csv = "name,price,quantity,category,barcode\n"
+                + "Phone,799.99,10,Electronics,4006381333932\n"
+                + "Tablet,abc,3,Electronics,\n"
+                + "Camera,299.0,7,Electronics,\n"
+                + "camera,289.0,7,Electronics,\n";
+        stubInsertReturningKey(404L);
+
+        // Act
+        CatalogImportReport report = catalogImportServiceImpl.importCatalog(ImportFormat.CSV, body(csv));
+
+        // Assert
+        assertEquals(4, report.getTotalRows());
+        assertEquals(1, report.getInserted());
+        assertEquals(3, report.getFailed());
+        assertEquals(List.of(2L, 3L, 5L), report.getErrors().stream().map(error -> error.getLine()).toList());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    @DisplayName("ImportCatalog: Throws IllegalArgumentException when the CSV header lacks required columns")
+    void importCatalog_WhenHeaderIncomplete_ShouldThrowIllegalArgumentException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> catalogImportServiceImpl.importCatalog(ImportFormat.CSV, body("prodName,price\nPhone,1.0\n")));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("ImportCatalog: A second import while one is running is refused as a conflict, not a bad request")
+    void importCatalog_WhenImportAlreadyRunning_ShouldThrowConflictException() throws Exception {
+        // Arrange: another thread holds the import lock, as a running import does
+        ReentrantLock importLock = (ReentrantLock) ReflectionTestUtils.getField(catalogImportServiceImpl, "importLock");
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Thread running = new Thread(() -> {
+            importLock.lock();
+            try {
+                locked.countDown();
+                finish.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                importLock.unlock();
+            }
+        });
+        running.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // Act & Assert
+        try {
+            assertThrows(ConflictException.class,
+                    () -> catalogImportServiceImpl.importCatalog(ImportFormat.CSV, body("prodName,price\nPhone,1.0\n")));
+            verifyNoInteractions(categoryRepository, productRepository, jdbcTemplate);
+        } finally {
+            finish.countDown();
+            running.join();
+        }
+        // once the running import has finished, the next one goes ahead (and fails on its own header)
+        assertThrows(IllegalArgumentException.class,
+                () -> catalogImportServiceImpl.importCatalog(ImportFormat.CSV, body("prodName,price\nPhone,1.0\n")));
+    }
+}
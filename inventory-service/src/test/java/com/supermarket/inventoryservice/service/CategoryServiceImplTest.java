@@ -1,10 +1,13 @@
 package com.supermarket.inventoryservice.service;
 
+import com.supermarket.inventoryservice.event.CategoryChangeEvent;
 import com.supermarket.inventoryservice.exception.OperationFailedException;
+import com.supermarket.inventoryservice.exception.PreconditionFailedException;
 import com.supermarket.inventoryservice.exception.ResourceAlreadyExistsException;
 import com.supermarket.inventoryservice.exception.ResourceNotFoundException;
 import com.supermarket.inventoryservice.model.Category;
 import com.supermarket.inventoryservice.repository.CategoryRepository;
+import com.supermarket.inventoryservice.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 
@@ -29,6 +33,12 @@ class CategoryServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private CategoryServiceImpl categoryServiceImpl;
 
@@ -110,6 +120,72 @@ class CategoryServiceImplTest {
         verify(categoryRepository).save(any(Category.class));
     }
 
+    @Test
+    @DisplayName("AddCategory: Child path extends the parent's path with the new id")
+    void addCategory_WhenParentGiven_ShouldSetPathUnderParent() {
+        // Arrange
+        Category dairy = new Category(3, "Dairy", null);
+        dairy.setPath("/3/");
+        Category milk = new Category(0, "Milk", null);
+        milk.setParentId(3);
+        when(categoryRepository.findByCategoryName("Milk")).thenReturn(Optional.empty());
+        when(categoryRepository.findById(3)).thenReturn(Optional.of(dairy));
+        when(categoryRepository.save(any(Category.class))).thenAnswer(invocation -> {
+            Category saved = invocation.getArgument(0);
+            saved.setCategoryId(17);
+            return saved;
+        });
+
+        // Act
+        Category result = categoryServiceImpl.addCategory(milk);
+
+        // Assert
+        assertEquals("/3/17/", result.getPath());
+        verify(eventPublisher).publishEvent(any(CategoryChangeEvent.class));
+    }
+
+    // --- moveCategory Tests ---
+    @Test
+    @DisplayName("MoveCategory: Rewrites the subtree paths under the new parent")
+    void moveCategory_WhenValid_ShouldRewritePathPrefix() {
+        // Arrange
+        Category milk = new Category(17, "Milk", null);
+        milk.setParentId(3);
+        milk.setPath("/3/17/");
+        Category fresh = new Category(5, "Fresh", null);
+        fresh.setPath("/5/");
+        Category organic = new Category(42, "Organic", null);
+        organic.setPath("/3/17/42/");
+        when(categoryRepository.findById(17)).thenReturn(Optional.of(milk));
+        when(categoryRepository.findById(5)).thenReturn(Optional.of(fresh));
+        when(categoryRepository.findByPathStartingWith("/3/17/")).thenReturn(List.of(milk, organic));
+
+        // Act
+        categoryServiceImpl.moveCategory(17, 5);
+
+        // Assert
+        assertEquals(5, milk.getParentId());
+        verify(categoryRepository).rewritePathPrefix("/3/17/", "/5/17/");
+        verify(eventPublisher).publishEvent(any(CategoryChangeEvent.class));
+    }
+
+    @Test
+    @DisplayName("MoveCategory: Throws IllegalArgumentException when moving under its own descendant")
+    void moveCategory_WhenTargetIsDescendant_ShouldThrowIllegalArgumentException() {
+        // Arrange
+        Category dairy = new Category(3, "Dairy", null);
+        dairy.setPath("/3/");
+        Category organic = new Category(42, "Organic", null);
+        organic.setPath("/3/17/42/");
+        when(categoryRepository.findById(3)).thenReturn(Optional.of(dairy));
+        when(categoryRepository.findById(42)).thenReturn(Optional.of(organic));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> categoryServiceImpl.moveCategory(3, 42));
+        verify(categoryRepository, never()).rewritePathPrefix(anyString(), anyString());
+        verifyNoInteractions(eventPublisher);
+    }
+
     // --- getCategoryById Tests ---
     @Test
     @DisplayName("GetCategoryById: Returns category when found")
@@ -224,6 +300,19 @@ class CategoryServiceImplTest {
         verify(categoryRepository).save(any(Category.class));
     }
 
+    @Test
+    @DisplayName("UpdateCategoryName: Throws PreconditionFailedException when If-Match version is stale")
+    void updateCategoryName_WhenVersionStale_ShouldThrowPreconditionFailed() {
+        // Arrange
+        int categoryId = sampleCategory.getCategoryId();
+        sampleCategory.setVersion(2);
+        when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(sampleCategory));
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> categoryServiceImpl.updateCategoryName(categoryId, "Gadgets", 1L));
+        verify(categoryRepository, never()).save(any(Category.class));
+    }
+
     @Test
     @DisplayName("UpdateCategoryName: Throws IllegalArgumentException for blank name")
     void updateCategoryName_WhenNameIsBlank_ShouldThrowIllegalArgumentException() {
@@ -306,6 +395,19 @@ class CategoryServiceImplTest {
         verify(categoryRepository, never()).deleteById(anyInt());
     }
 
+    @Test
+    @DisplayName("DeleteCategory: Throws IllegalArgumentException when the category has subcategories")
+    void deleteCategory_WhenHasChildren_ShouldThrowIllegalArgumentException() {
+        // Arrange
+        int categoryId = sampleCategory.getCategoryId();
+        when(categoryRepository.existsById(categoryId)).thenReturn(true);
+        when(categoryRepository.existsByParentId(categoryId)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> categoryServiceImpl.deleteCategory(categoryId));
+        verify(categoryRepository, never()).deleteById(anyInt());
+    }
+
     @Test
     @DisplayName("DeleteCategory: Throws OperationFailedException on DataIntegrityViolationException")
     void deleteCategory_WhenIntegrityViolation_ShouldThrowOperationFailedException() {
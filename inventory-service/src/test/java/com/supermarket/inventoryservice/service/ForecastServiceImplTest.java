@@ -0,0 +1,123 @@
+package com.supermarket.inventoryservice.service;
+
+import com.supermarket.inventoryservice.dto.ReorderSuggestion;
+import com.supermarket.inventoryservice.exception.ResourceNotFoundException;
+import com.supermarket.inventoryservice.forecast.DemandForecaster;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.model.StoreStock;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import com.supermarket.inventoryservice.repository.StoreStockRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ForecastServiceImplTest {
+
+    @Mock
+    private DemandForecaster demandForecaster;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private StoreStockRepository storeStockRepository;
+
+    @InjectMocks
+    private ForecastServiceImpl forecastServiceImpl;
+
+    private static StoreStockRepository.ProductTotal total(int prodId, long quantity) {
+        return new StoreStockRepository.ProductTotal() {
+            @Override
+            public int getProdId() {
+                return prodId;
+            }
+
+            @Override
+            public long getQuantity() {
+                return quantity;
+            }
+        };
+    }
+
+    private static ReorderSuggestion suggestion(Product product, long stock, Double daysOfCover, int reorderPoint, int orderQuantity) {
+        return new ReorderSuggestion(product.getProdId(), product.getProdName(), stock, 1.0, daysOfCover, reorderPoint, orderQuantity, null, 30);
+    }
+
+    @Test
+    @DisplayName("GetForecast: Counts central and store stock")
+    void getForecast_ShouldIncludeStoreStock() {
+        // Arrange
+        Product product = new Product(1, "Milk", 1.2, 10, null);
+        when(productRepository.findById(1)).thenReturn(Optional.of(product));
+        when(storeStockRepository.findByProdIdOrderByStoreId(1)).thenReturn(List.of(new StoreStock(1, 1, 5), new StoreStock(2, 1, 7)));
+        ReorderSuggestion expected = suggestion(product, 22, 4.0, 10, 0);
+        when(demandForecaster.suggest(product, 22)).thenReturn(expected);
+
+        // Act
+        ReorderSuggestion result = forecastServiceImpl.getForecast(1);
+
+        // Assert
+        assertSame(expected, result);
+    }
+
+    @Test
+    @DisplayName("GetForecast: Throws ResourceNotFoundException for an unknown product")
+    void getForecast_WhenProductNotFound_ShouldThrow() {
+        // Arrange
+        when(productRepository.findById(99)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> forecastServiceImpl.getForecast(99));
+        verifyNoInteractions(demandForecaster);
+    }
+
+    @Test
+    @DisplayName("GetReorderSuggestions: Keeps products at or below their suggested reorder point, soonest out first")
+    void getReorderSuggestions_ShouldFilterAndSortByCover() {
+        // Arrange
+        Product milk = new Product(1, "Milk", 1.2, 10, null);
+        Product bread = new Product(2, "Bread", 2.0, 2, null);
+        Product salt = new Product(3, "Salt", 0.5, 500, null);
+        when(demandForecaster.trackedProducts()).thenReturn(new int[]{1, 2, 3});
+        when(storeStockRepository.sumQuantityByProdIdIn(List.of(1, 2, 3))).thenReturn(List.of(total(1, 5)));
+        when(productRepository.findAllById(List.of(1, 2, 3))).thenReturn(List.of(milk, bread, salt));
+        when(demandForecaster.suggest(milk, 15)).thenReturn(suggestion(milk, 15, 3.0, 20, 40));
+        when(demandForecaster.suggest(bread, 2)).thenReturn(suggestion(bread, 2, 0.5, 8, 20));
+        when(demandForecaster.suggest(salt, 500)).thenReturn(suggestion(salt, 500, 365.0, 4, 0));
+
+        // Act
+        List<ReorderSuggestion> result = forecastServiceImpl.getReorderSuggestions(10);
+
+        // Assert
+        assertEquals(List.of(2, 1), result.stream().map(ReorderSuggestion::getProdId).toList());
+    }
+
+    @Test
+    @DisplayName("GetReorderSuggestions: Skips the database when nothing has sold yet")
+    void getReorderSuggestions_WithoutHistory_ShouldReturnEmpty() {
+        // Arrange
+        when(demandForecaster.trackedProducts()).thenReturn(new int[0]);
+
+        // Act & Assert
+        assertTrue(forecastServiceImpl.getReorderSuggestions(10).isEmpty());
+        verifyNoInteractions(productRepository, storeStockRepository);
+    }
+
+    @Test
+    @DisplayName("GetReorderSuggestions: Throws IllegalArgumentException for an out-of-range limit")
+    void getReorderSuggestions_WithInvalidLimit_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> forecastServiceImpl.getReorderSuggestions(0));
+        verify(demandForecaster, never()).trackedProducts();
+    }
+}
@@ -1,13 +1,18 @@
 package com.supermarket.inventoryservice.service;
 
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
 import com.supermarket.inventoryservice.exception.InsufficientStockException;
 import com.supermarket.inventoryservice.exception.OperationFailedException;
+import com.supermarket.inventoryservice.exception.PreconditionFailedException;
 import com.supermarket.inventoryservice.exception.ResourceAlreadyExistsException;
 import com.supermarket.inventoryservice.exception.ResourceNotFoundException;
 import com.supermarket.inventoryservice.model.Category;
 import com.supermarket.inventoryservice.model.Product;
 import com.supermarket.inventoryservice.repository.CategoryRepository;
 import com.supermarket.inventoryservice.repository.ProductRepository;
+import com.supermarket.inventoryservice.search.BarcodeIndex;
+import com.supermarket.inventoryservice.search.ProductFacetIndex;
+import com.supermarket.inventoryservice.search.ProductSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,6 +21,10 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Collections;
 import java.util.List;
@@ -34,6 +43,21 @@ class ProductServiceImplTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+
+    @Mock
+    private ProductFacetIndex productFacetIndex;
+
+    @Mock
+    private BarcodeIndex barcodeIndex;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private ProductServiceImpl productServiceImpl;
 
@@ -228,6 +252,23 @@ class ProductServiceImplTest {
         verify(productRepository, never()).findByCategory(any(Category.class));
     }
 
+    @Test
+    @DisplayName("GetProductsInCategoryTree: Fetches the whole subtree with one path-prefix query")
+    void getProductsInCategoryTree_WhenPathSet_ShouldQueryByPathPrefix() {
+        // Arrange
+        int categoryId = sampleCategory.getCategoryId();
+        sampleCategory.setPath("/" + categoryId + "/");
+        when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(sampleCategory));
+        when(productRepository.findByCategoryPathPrefix("/" + categoryId + "/")).thenReturn(List.of(sampleProduct, sampleProduct2));
+
+        // Act
+        List<Product> result = productServiceImpl.getProductsInCategoryTree(categoryId);
+
+        // Assert
+        assertEquals(2, result.size());
+        verify(productRepository, never()).findByCategory(any(Category.class));
+    }
+
 
     // --- reduceStock Tests ---
     @Test
@@ -252,6 +293,25 @@ class ProductServiceImplTest {
         assertEquals(expectedFinalStock, productCaptor.getValue().getStock());
     }
 
+    @Test
+    @DisplayName("Restock: Adds the units back to the central stock")
+    void restock_ShouldIncreaseStockAndSave() {
+        // Arrange
+        int prodId = sampleProduct.getProdId();
+        int initialStock = sampleProduct.getStock(); // 50
+
+        when(productRepository.findById(prodId)).thenReturn(Optional.of(sampleProduct));
+        when(productRepository.save(any(Product.class))).thenAnswer(i -> i.getArgument(0));
+
+        // Act
+        productServiceImpl.restock(prodId, 7);
+
+        // Assert
+        ArgumentCaptor<Product> productCaptor = ArgumentCaptor.forClass(Product.class);
+        verify(productRepository).save(productCaptor.capture());
+        assertEquals(initialStock + 7, productCaptor.getValue().getStock());
+    }
+
     @Test
     @DisplayName("ReduceStock: Throws IllegalArgumentException for non-positive quantity")
     void reduceStock_WhenQuantityNotPositive_ShouldThrowIllegalArgumentException() {
@@ -461,6 +521,32 @@ class ProductServiceImplTest {
         verify(productRepository, never()).save(any(Product.class));
     }
 
+    @Test
+    @DisplayName("UpdateReorderPoint: Saves the threshold and publishes it for the low-stock monitor")
+    void updateReorderPoint_WhenValid_ShouldSaveAndPublish() {
+        // Arrange
+        int productId = sampleProduct.getProdId();
+        when(productRepository.findById(productId)).thenReturn(Optional.of(sampleProduct));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Product result = productServiceImpl.updateReorderPoint(productId, 25);
+
+        // Assert
+        assertEquals(Integer.valueOf(25), result.getReorderPoint());
+        ArgumentCaptor<ProductChangeEvent> eventCaptor = ArgumentCaptor.forClass(ProductChangeEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(Integer.valueOf(25), eventCaptor.getValue().getReorderPoint());
+    }
+
+    @Test
+    @DisplayName("UpdateReorderPoint: Throws IllegalArgumentException for a negative threshold")
+    void updateReorderPoint_WhenNegative_ShouldThrowIllegalArgumentException() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> productServiceImpl.updateReorderPoint(sampleProduct.getProdId(), -1));
+        verify(productRepository, never()).findById(anyInt());
+    }
+
     @Test
     @DisplayName("UpdateQuantity: Throws OperationFailedException on save error")
     void updateQuantity_WhenSaveFails_ShouldThrowOperationFailedException() {
@@ -548,6 +634,27 @@ class ProductServiceImplTest {
         verify(productRepository).findByProdName(productName);
     }
 
+    @Test
+    @DisplayName("GetProductsByProdNames: Looks up distinct names in one query")
+    void getProductsByProdNames_ShouldQueryDistinctNamesOnce() {
+        // Arrange
+        when(productRepository.findByProdNameIn(anyCollection())).thenReturn(List.of(sampleProduct));
+
+        // Act
+        List<Product> result = productServiceImpl.getProductsByProdNames(List.of(sampleProduct.getProdName(), "Unknown", sampleProduct.getProdName()));
+
+        // Assert
+        assertEquals(List.of(sampleProduct), result);
+        verify(productRepository).findByProdNameIn(argThat(names -> names.size() == 2));
+    }
+
+    @Test
+    @DisplayName("GetProductsByProdNames: Throws IllegalArgumentException for a blank name")
+    void getProductsByProdNames_WithBlankName_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> productServiceImpl.getProductsByProdNames(List.of("Milk", " ")));
+        verify(productRepository, never()).findByProdNameIn(anyCollection());
+    }
+
     // --- getProductsByCategoryName Tests ---
     @Test
     @DisplayName("GetProductsByCategoryName: Success returns products in category")
@@ -593,4 +700,138 @@ class ProductServiceImplTest {
         verify(categoryRepository).findByCategoryName(categoryName);
         verify(productRepository).findByCategory(sampleCategory);
     }
-}
\ No newline at end of file
+
+    // --- getProductByBarcode Tests ---
+    @Test
+    @DisplayName("GetProductByBarcode: Resolves id from the index and reads by primary key")
+    void getProductByBarcode_WhenIndexed_ShouldReadByPrimaryKey() {
+        // Arrange
+        long barcode = 4006381333931L;
+        sampleProduct.setBarcode(barcode);
+        when(barcodeIndex.get(barcode)).thenReturn(sampleProduct.getProdId());
+        when(productRepository.findById(sampleProduct.getProdId())).thenReturn(Optional.of(sampleProduct));
+
+        // Act
+        Product result = productServiceImpl.getProductByBarcode(barcode);
+
+        // Assert
+        assertEquals(sampleProduct.getProdId(), result.getProdId());
+        verify(productRepository, never()).findByBarcode(anyLong());
+    }
+
+    @Test
+    @DisplayName("GetProductByBarcode: Throws ResourceNotFoundException when unknown")
+    void getProductByBarcode_WhenUnknown_ShouldThrowResourceNotFoundException() {
+        // Arrange
+        long barcode = 4006381333931L;
+        when(barcodeIndex.get(barcode)).thenReturn(BarcodeIndex.NOT_FOUND);
+        when(productRepository.findByBarcode(barcode)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> productServiceImpl.getProductByBarcode(barcode));
+        verify(productRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    @DisplayName("AddProduct: Throws IllegalArgumentException for a barcode with a bad check digit")
+    void addProduct_WhenBarcodeInvalid_ShouldThrowIllegalArgumentException() {
+        // Arrange
+        Product inputProduct = new Product(0, "Scanner Paper", 30.0, 5, new Category(0, "Electronics", null));
+        inputProduct.setBarcode(4006381333932L);
+        when(categoryRepository.findByCategoryName("Electronics")).thenReturn(Optional.of(sampleCategory));
+        when(productRepository.findByProdName("Scanner Paper")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> productServiceImpl.addProduct(inputProduct));
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    // --- Optimistic locking Tests ---
+    @Test
+    @DisplayName("ReduceStock: Retries with a fresh read after a version conflict")
+    void reduceStock_WhenVersionConflict_ShouldRetryAndSucceed() {
+        // Arrange
+        int prodId = sampleProduct.getProdId();
+        Product concurrentlyUpdated = new Product(prodId, "Laptop", 1200.00, 45, sampleCategory);
+        concurrentlyUpdated.setVersion(1);
+        when(productRepository.findById(prodId)).thenReturn(Optional.of(sampleProduct), Optional.of(concurrentlyUpdated));
+        when(productRepository.save(any(Product.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, prodId))
+                .thenAnswer(i -> i.getArgument(0));
+
+        // Act
+        productServiceImpl.reduceStock(prodId, 10);
+
+        // Assert
+        assertEquals(35, concurrentlyUpdated.getStock());
+        verify(productRepository, times(2)).save(any(Product.class));
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangeEvent.class));
+    }
+
+    @Test
+    @DisplayName("ReduceStock: Gives up after repeated version conflicts")
+    void reduceStock_WhenConflictPersists_ShouldThrowOptimisticLockingFailure() {
+        // Arrange
+        int prodId = sampleProduct.getProdId();
+        when(productRepository.findById(prodId)).thenAnswer(i -> Optional.of(new Product(prodId, "Laptop", 1200.00, 50, sampleCategory)));
+        when(productRepository.save(any(Product.class))).thenThrow(new ObjectOptimisticLockingFailureException(Product.class, prodId));
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> productServiceImpl.reduceStock(prodId, 1));
+        verify(productRepository, times(5)).save(any(Product.class));
+    }
+
+    @Test
+    @DisplayName("UpdateProduct: Throws PreconditionFailedException when If-Match version is stale")
+    void updateProduct_WhenVersionStale_ShouldThrowPreconditionFailed() {
+        // Arrange
+        int prodId = sampleProduct.getProdId();
+        sampleProduct.setVersion(4);
+        Product updateRequest = new Product(0, "Laptop Pro", 1300.00, 40, null);
+        when(productRepository.findById(prodId)).thenReturn(Optional.of(sampleProduct));
+
+        // Act & Assert
+        assertThrows(PreconditionFailedException.class, () -> productServiceImpl.updateProduct(prodId, updateRequest, 3L));
+        verify(productRepository, never()).save(any(Product.class));
+        assertEquals("Laptop", sampleProduct.getProdName());
+    }
+
+    @Test
+    @DisplayName("UpdateQuantity: Succeeds when If-Match version is current")
+    void updateQuantity_WhenVersionMatches_ShouldUpdateStock() {
+        // Arrange
+        int productId = sampleProduct.getProdId();
+        sampleProduct.setVersion(7);
+        when(productRepository.findById(productId)).thenReturn(Optional.of(sampleProduct));
+        when(productRepository.save(any(Product.class))).thenAnswer(i -> i.getArgument(0));
+
+        // Act
+        Product result = productServiceImpl.updateQuantity(productId, 12, 7L);
+
+        // Assert
+        assertEquals(12, result.getStock());
+    }
+
+    @Test
+    @DisplayName("UpdateReorderPoint: The change carries the version it commits at, or the loaded one if nothing changed")
+    void updateReorderPoint_ShouldPublishCommittedVersion() {
+        // Arrange
+        int productId = sampleProduct.getProdId();
+        sampleProduct.setVersion(4);
+        sampleProduct.setReorderPoint(25);
+        when(productRepository.findById(productId)).thenReturn(Optional.of(sampleProduct));
+        when(productRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        productServiceImpl.updateReorderPoint(productId, 30);
+        productServiceImpl.updateReorderPoint(productId, 30);
+
+        // Assert
+        ArgumentCaptor<ProductChangeEvent> eventCaptor = ArgumentCaptor.forClass(ProductChangeEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(eventCaptor.capture());
+        assertEquals(5, eventCaptor.getAllValues().get(0).getVersion());
+        assertEquals(4, eventCaptor.getAllValues().get(1).getVersion()); // Hibernate leaves an unchanged row alone
+    }
+}
@@ -0,0 +1,141 @@
+package com.supermarket.inventoryservice.service;
+
+import com.supermarket.inventoryservice.cache.ProductCacheEvictor;
+import com.supermarket.inventoryservice.dto.StockLevel;
+import com.supermarket.inventoryservice.dto.StockRestoreReport;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
+import com.supermarket.inventoryservice.journal.StockJournal;
+import com.supermarket.inventoryservice.model.Category;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockJournalServiceImplTest {
+
+    @Mock
+    private StockJournal stockJournal;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductCacheEvictor productCacheEvictor;
+
+    @InjectMocks
+    private StockJournalServiceImpl stockJournalServiceImpl;
+
+    @Test
+    @DisplayName("GetStockHistory: Throws IllegalArgumentException when 'from' is after 'to'")
+    void getStockHistory_WhenRangeInverted_ShouldThrowIllegalArgumentException() {
+        Instant now = Instant.now();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> stockJournalServiceImpl.getStockHistory(1, null, now, now.minusSeconds(60), 10));
+        verifyNoInteractions(stockJournal);
+    }
+
+    @Test
+    @DisplayName("ReplayStock: Throws IllegalArgumentException for a time in the future")
+    void replayStock_WhenInFuture_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> stockJournalServiceImpl.replayStock(Instant.now().plusSeconds(3600)));
+        verifyNoInteractions(stockJournal);
+    }
+
+    @Test
+    @DisplayName("RestoreStock: Writes and journals only rows that differ from the current levels, whatever the driver reports")
+    @SuppressWarnings("unchecked")
+    void restoreStock_ShouldUpdateChangedRowsOnly() {
+        // Arrange
+        Instant at = Instant.now().minusSeconds(3600);
+        when(stockJournal.replay(at)).thenReturn(List.of(
+                new StockLevel(101, 0, 40), new StockLevel(102, 0, 5),                             // central: changed, equal
+                new StockLevel(101, 7, 12), new StockLevel(102, 7, 9), new StockLevel(101, 8, 4), // stores: changed, equal, missing
+                new StockLevel(999, 0, 3)));                                                        // deleted product
+        when(jdbcTemplate.query(startsWith("SELECT product_id, quantity FROM product"), any(RowMapper.class)))
+                .thenReturn(List.of(new StockLevel(101, 0, 35), new StockLevel(102, 0, 5)));
+        when(jdbcTemplate.query(startsWith("SELECT store_id, product_id, quantity FROM store_stock"), any(RowMapper.class)))
+                .thenReturn(List.of(new StockLevel(101, 7, 20), new StockLevel(102, 7, 9)));
+        // rewriteBatchedStatements reports SUCCESS_NO_INFO for every row; the restore must not rely on it
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenAnswer(invocation -> new int[][]{Collections.nCopies(((List<?>) invocation.getArgument(1)).size(), Statement.SUCCESS_NO_INFO)
+                        .stream().mapToInt(Integer::intValue).toArray()});
+        when(productRepository.findAllById(List.of(101)))
+                .thenReturn(List.of(new Product(101, "Laptop", 1200.0, 40, new Category(1, "Electronics", null))));
+
+        // Act
+        StockRestoreReport report = stockJournalServiceImpl.restoreStock(at);
+
+        // Assert
+        assertEquals(6, report.getLevelsReplayed());
+        assertEquals(1, report.getProductsUpdated());
+        assertEquals(2, report.getStoreRowsUpdated());
+        assertEquals(1, report.getSkippedDeletedProducts());
+        ArgumentCaptor<List<StockLevel>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE product"), rows.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(List.of(101), rows.getValue().stream().map(StockLevel::getProdId).toList());
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE store_stock"), rows.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1, rows.getValue().size());
+        assertEquals(7, rows.getValue().get(0).getStoreId());
+        assertEquals(12, rows.getValue().get(0).getQuantity());
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO store_stock"), rows.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1, rows.getValue().size());
+        assertEquals(8, rows.getValue().get(0).getStoreId());
+        verify(eventPublisher, times(3)).publishEvent(any(StockMovementEvent.class));
+        verify(eventPublisher).publishEvent(any(ProductChangeEvent.class));
+        verify(productCacheEvictor).evictProducts(List.of(101));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("RestoreStock: Nothing is written or journalled when every level already matches")
+    @SuppressWarnings("unchecked")
+    void restoreStock_WhenNothingDiffers_ShouldJournalNothing() {
+        // Arrange
+        Instant at = Instant.now().minusSeconds(3600);
+        when(stockJournal.replay(at)).thenReturn(List.of(new StockLevel(101, 0, 40), new StockLevel(101, 7, 12)));
+        when(jdbcTemplate.query(startsWith("SELECT product_id, quantity FROM product"), any(RowMapper.class)))
+                .thenReturn(List.of(new StockLevel(101, 0, 40)));
+        when(jdbcTemplate.query(startsWith("SELECT store_id, product_id, quantity FROM store_stock"), any(RowMapper.class)))
+                .thenReturn(List.of(new StockLevel(101, 7, 12)));
+
+        // Act
+        StockRestoreReport report = stockJournalServiceImpl.restoreStock(at);
+
+        // Assert
+        assertEquals(0, report.getProductsUpdated());
+        assertEquals(0, report.getStoreRowsUpdated());
+        verify(eventPublisher, never()).publishEvent(any(StockMovementEvent.class));
+        verify(productCacheEvictor).evictProducts(List.of());
+    }
+}
@@ -0,0 +1,171 @@
+package com.supermarket.inventoryservice.service;
+
+import com.supermarket.inventoryservice.dto.ProductAvailability;
+import com.supermarket.inventoryservice.event.ProductChangeEvent;
+import com.supermarket.inventoryservice.event.StockMovementEvent;
+import com.supermarket.inventoryservice.exception.InsufficientStockException;
+import com.supermarket.inventoryservice.exception.ResourceNotFoundException;
+import com.supermarket.inventoryservice.model.Category;
+import com.supermarket.inventoryservice.model.Product;
+import com.supermarket.inventoryservice.model.StoreStock;
+import com.supermarket.inventoryservice.model.StoreStockId;
+import com.supermarket.inventoryservice.repository.ProductRepository;
+import com.supermarket.inventoryservice.repository.StoreStockRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StoreStockServiceImplTest {
+
+    private static final int STORE = 7;
+
+    @Mock
+    private StoreStockRepository storeStockRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private StoreStockServiceImpl storeStockServiceImpl;
+
+    private Product sampleProduct;
+
+    @BeforeEach
+    void setUp() {
+        sampleProduct = new Product(101, "Laptop", 1200.00, 50, new Category(1, "Electronics", null));
+    }
+
+    @Test
+    @DisplayName("ReduceStock: Decrements only the given store's row")
+    void reduceStock_WhenEnoughAtStore_ShouldDecrementStoreRow() {
+        // Arrange
+        when(storeStockRepository.decrement(STORE, 101, 3)).thenReturn(1);
+        StoreStock after = new StoreStock(STORE, 101, 9);
+        after.setVersion(4);
+        when(storeStockRepository.findById(new StoreStockId(STORE, 101))).thenReturn(Optional.of(after));
+
+        // Act
+        storeStockServiceImpl.reduceStock(STORE, 101, 3);
+
+        // Assert
+        verify(storeStockRepository).decrement(STORE, 101, 3);
+        verifyNoInteractions(productRepository);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof StockMovementEvent movement
+                && movement.getStoreId() == STORE && movement.getDelta() == -3 && movement.getQuantity() == 9 && movement.getVersion() == 4));
+    }
+
+    @Test
+    @DisplayName("ReduceStock: Throws InsufficientStockException reporting the store's level")
+    void reduceStock_WhenNotEnoughAtStore_ShouldThrowInsufficientStock() {
+        // Arrange
+        when(storeStockRepository.decrement(STORE, 101, 5)).thenReturn(0);
+        when(productRepository.findById(101)).thenReturn(Optional.of(sampleProduct));
+        when(storeStockRepository.findById(new StoreStockId(STORE, 101))).thenReturn(Optional.of(new StoreStock(STORE, 101, 2)));
+
+        // Act & Assert
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+                () -> storeStockServiceImpl.reduceStock(STORE, 101, 5));
+        assertTrue(ex.getMessage().contains("Available: 2"));
+    }
+
+    @Test
+    @DisplayName("ReduceStock: Throws ResourceNotFoundException for an unknown product")
+    void reduceStock_WhenProductMissing_ShouldThrowResourceNotFound() {
+        // Arrange
+        when(storeStockRepository.decrement(STORE, 999, 1)).thenReturn(0);
+        when(productRepository.findById(999)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> storeStockServiceImpl.reduceStock(STORE, 999, 1));
+    }
+
+    @Test
+    @DisplayName("Restock: Adds to an existing store row without checking the product")
+    void restock_WhenRowExists_ShouldIncrementInPlace() {
+        // Arrange
+        when(storeStockRepository.incrementOrInsert(STORE, 101, 4)).thenReturn(2);
+        StoreStock after = new StoreStock(STORE, 101, 10);
+        after.setVersion(3);
+        when(storeStockRepository.findById(new StoreStockId(STORE, 101))).thenReturn(Optional.of(after));
+
+        // Act
+        storeStockServiceImpl.restock(STORE, 101, 4);
+
+        // Assert
+        verifyNoInteractions(productRepository);
+        verify(storeStockRepository, never()).saveAndFlush(any());
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof StockMovementEvent movement
+                && movement.getDelta() == 4 && movement.getQuantity() == 10 && movement.getVersion() == 3));
+    }
+
+    @Test
+    @DisplayName("Restock: Creates the store row in the same statement when the store has never stocked the product")
+    void restock_WhenRowMissing_ShouldInsertRow() {
+        // Arrange
+        when(storeStockRepository.incrementOrInsert(STORE, 101, 4)).thenReturn(1);
+        when(productRepository.existsById(101)).thenReturn(true);
+
+        // Act
+        storeStockServiceImpl.restock(STORE, 101, 4);
+
+        // Assert
+        verify(storeStockRepository).incrementOrInsert(STORE, 101, 4);
+        verify(storeStockRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Restock: Throws ResourceNotFoundException when the new row is for an unknown product")
+    void restock_WhenProductMissing_ShouldThrowResourceNotFound() {
+        // Arrange
+        when(storeStockRepository.incrementOrInsert(STORE, 999, 4)).thenReturn(1);
+        when(productRepository.existsById(999)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> storeStockServiceImpl.restock(STORE, 999, 4));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    @DisplayName("GetAvailability: Sums central stock and every store's stock")
+    void getAvailability_ShouldAggregateStores() {
+        // Arrange
+        when(productRepository.findById(101)).thenReturn(Optional.of(sampleProduct));
+        when(storeStockRepository.findByProdIdOrderByStoreId(101))
+                .thenReturn(List.of(new StoreStock(3, 101, 10), new StoreStock(STORE, 101, 5)));
+
+        // Act
+        ProductAvailability availability = storeStockServiceImpl.getAvailability(101);
+
+        // Assert
+        assertEquals(50, availability.getCentralStock());
+        assertEquals(15, availability.getStoreStock());
+        assertEquals(65, availability.getTotalAvailable());
+        assertEquals(2, availability.getStores().size());
+    }
+
+    @Test
+    @DisplayName("OnProductChange: Removes a deleted product's store rows")
+    void onProductChange_WhenDeleted_ShouldDeleteStoreRows() {
+        // Act
+        storeStockServiceImpl.onProductChange(ProductChangeEvent.deleted(101));
+
+        // Assert
+        verify(storeStockRepository).deleteByProdIdIn(List.of(101));
+    }
+}
@@ -0,0 +1,45 @@
+package com.supermarket.inventoryservice.util;
+
+import com.supermarket.inventoryservice.exception.PreconditionFailedException;
+import com.supermarket.inventoryservice.model.Category;
+import com.supermarket.inventoryservice.model.Product;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagsTest {
+
+    private static Product product(Category category) {
+        Product product = new Product(12, "Milk", 1.5, 10, category);
+        product.setVersion(3);
+        return product;
+    }
+
+    @Test
+    @DisplayName("Of: A category rename or move changes the product tag and the list tag")
+    void of_WhenCategoryVersionChanges_ShouldChangeTag() {
+        Category category = new Category(4, "Dairy", null);
+        category.setVersion(1);
+        Product product = product(category);
+        String single = ETags.of(product);
+        String list = ETags.ofProducts(List.of(product));
+
+        category.setVersion(2); // updateCategoryName / moveCategory bump only the category
+
+        assertEquals("\"p12v3c4v1\"", single);
+        assertNotEquals(single, ETags.of(product));
+        assertNotEquals(list, ETags.ofProducts(List.of(product)));
+    }
+
+    @Test
+    @DisplayName("ExpectedProductVersion: Reads the product version from a tag with or without the category part")
+    void expectedProductVersion_ShouldIgnoreCategoryPart() {
+        assertEquals(3L, ETags.expectedProductVersion("\"p12v3c4v1\"", 12));
+        assertEquals(3L, ETags.expectedProductVersion("\"p12v3\"", 12));
+        assertNull(ETags.expectedProductVersion("*", 12));
+        assertThrows(PreconditionFailedException.class, () -> ETags.expectedProductVersion("\"p120v3\"", 12));
+    }
+}
@@ -1,17 +1,25 @@
 package com.supermarket.paymentservice.controller;
 
+import com.supermarket.paymentservice.export.ExportFormat;
 import com.supermarket.paymentservice.model.PaymentMode;
 import com.supermarket.paymentservice.model.Transaction;
 import com.supermarket.paymentservice.service.TransactionServiceImpl;
 import jakarta.validation.constraints.*;
 import org.hibernate.validator.constraints.CreditCardNumber;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.OutputStream;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
 @RestController
@@ -74,6 +82,27 @@ public class TransactionController {
 
     }
 
+    // Streams all payments as NDJSON or CSV for end-of-day reconciliation, optionally gzip-compressed.
+    @GetMapping("/admin/exportPayments")
+    public ResponseEntity<StreamingResponseBody> exportPayments(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, 8192) : outputStream;
+            transactionService.exportPayments(format, target);
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"payments." + format.getFileExtension() + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     // complete get my transactions
     @GetMapping("/customer/getMyTransactions")
     public List<Transaction> getMyTransactions(@RequestHeader("X-UserId") int userId) {
@@ -0,0 +1,28 @@
+package com.supermarket.paymentservice.dto;
+
+import com.supermarket.paymentservice.model.PaymentMode;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Flat payment record used by the streaming export. Card numbers, holder names and UPI ids are
+// deliberately left out so the reconciliation file carries no payment credentials.
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionExportRow {
+    private int transactionId;
+    private int userId;
+    private int orderId;
+    private double requiredAmount;
+    private double receivedAmount;
+    private double balanceAmount;
+    private PaymentMode paymentMode;
+    private String paymentStatus;
+    private LocalDateTime paymentTime;
+    private LocalDateTime transactionTime;
+}
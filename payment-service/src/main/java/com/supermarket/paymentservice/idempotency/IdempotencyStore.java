@@ -0,0 +1,152 @@
+package com.supermarket.paymentservice.idempotency;
+
+import com.supermarket.paymentservice.model.IdempotencyRecord;
+import com.supermarket.paymentservice.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Recorded payment responses per Idempotency-Key, kept in memory in front of the idempotency_record table
+// of this service's database. The in-flight map is per instance, as in cart-service.
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.purge-interval-minutes:10}")
+    private long purgeIntervalMinutes;
+
+    // Access-ordered, so the eldest entry is the least recently replayed. Guarded by itself.
+    private final Map<String, StoredResponse> recent = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void start() {
+        purger.scheduleWithFixedDelay(this::purgeExpired, purgeIntervalMinutes, purgeIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        purger.shutdownNow();
+    }
+
+    // The unexpired response recorded for the key, or null.
+    public StoredResponse find(String key) {
+        synchronized (recent) {
+            StoredResponse response = recent.get(key);
+            if (response != null) {
+                if (!response.isExpired()) {
+                    return response;
+                }
+                recent.remove(key);
+            }
+        }
+        IdempotencyRecord record;
+        try {
+            record = idempotencyRecordRepository.findById(key).orElse(null);
+        } catch (DataAccessException e) {
+            // without the table only this instance's memory protects against duplicates
+            log.warn("Could not read idempotency key {}: {}", key, e.getMessage());
+            return null;
+        }
+        if (record == null || record.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return null;
+        }
+        StoredResponse response = new StoredResponse(record.getFingerprint(), record.getStatus(), record.getContentType(),
+                record.getBody(), record.getExpiresAt());
+        remember(key, response);
+        return response;
+    }
+
+    // Claims the key for the calling request. Returns null if the caller now holds it and must call
+    // complete; otherwise the pending response of the request that holds it.
+    public CompletableFuture<StoredResponse> claim(String key) {
+        return inFlight.putIfAbsent(key, new CompletableFuture<>());
+    }
+
+    // Gives up a claim without running, handing waiters the response that was found recorded.
+    public void release(String key, StoredResponse recorded) {
+        CompletableFuture<StoredResponse> pending = inFlight.remove(key);
+        if (pending != null) {
+            pending.complete(recorded);
+        }
+    }
+
+    // Records the response (null records nothing, so a retry runs again) and releases the key.
+    public void complete(String key, String fingerprint, int status, String contentType, byte[] body, boolean record) {
+        StoredResponse response = null;
+        if (record) {
+            response = new StoredResponse(fingerprint, status, contentType, body, LocalDateTime.now().plusMinutes(ttlMinutes));
+            remember(key, response);
+            persist(key, response);
+        }
+        CompletableFuture<StoredResponse> pending = inFlight.remove(key);
+        if (pending != null) {
+            pending.complete(response);
+        }
+    }
+
+    int purgeExpired() {
+        try {
+            int purged = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+            if (purged > 0) {
+                log.debug("Purged {} expired idempotency records", purged);
+            }
+            return purged;
+        } catch (DataAccessException e) {
+            log.warn("Purging expired idempotency records failed: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    private void remember(String key, StoredResponse response) {
+        synchronized (recent) {
+            recent.put(key, response);
+        }
+    }
+
+    // A failed write only costs the replay after a restart; the memory entry still answers retries.
+    private void persist(String key, StoredResponse response) {
+        try {
+            idempotencyRecordRepository.save(new IdempotencyRecord(key, response.fingerprint(), response.status(),
+                    response.contentType(), response.body(), response.expiresAt()));
+        } catch (DataAccessException e) {
+            log.warn("Could not persist idempotency key {}: {}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.supermarket.paymentservice.idgen;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// payment.transaction_id values from the id_generator table. Same scheme as cart-service's
+// IdGeneratorTable: pooled-lo blocks of ALLOCATION_SIZE, seeded at startup past the highest
+// transaction_id. Every row goes through Hibernate, so there is no reserve().
+@Component
+@DependsOn("entityManagerFactory") // schema update has created the tables
+public class IdGeneratorTable {
+
+    public static final String TABLE = "id_generator";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    public static final String PAYMENT = "payment";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void start() {
+        seed(PAYMENT, "payment", "transaction_id");
+    }
+
+    // Moves a generator past the highest id in its table; never moves it back.
+    void seed(String name, String table, String idColumn) {
+        Long next = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + table, Long.class);
+        jdbcTemplate.update("INSERT INTO " + TABLE + " (" + NAME_COLUMN + ", " + VALUE_COLUMN + ") VALUES (?, ?)"
+                + " ON DUPLICATE KEY UPDATE " + VALUE_COLUMN + " = GREATEST(" + VALUE_COLUMN + ", ?)", name, next, next);
+    }
+}
@@ -1,5 +1,6 @@
 package com.supermarket.paymentservice.model;
 
+import com.supermarket.paymentservice.idgen.IdGeneratorTable;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -19,7 +20,10 @@ import java.time.LocalDateTime;
 public class Transaction {
     @Id
     @Column(name = "transaction_id") //modify to 32 bit
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "transaction_ids")
+    @TableGenerator(name = "transaction_ids", table = IdGeneratorTable.TABLE, pkColumnName = IdGeneratorTable.NAME_COLUMN,
+            valueColumnName = IdGeneratorTable.VALUE_COLUMN, pkColumnValue = IdGeneratorTable.PAYMENT,
+            allocationSize = IdGeneratorTable.ALLOCATION_SIZE) // pooled, so inserts can be batched
     private int transactionId;
 
     @Column(name = "user_id")
@@ -1,15 +1,21 @@
 package com.supermarket.paymentservice.repository;
 
+import com.supermarket.paymentservice.dto.TransactionExportRow;
 import com.supermarket.paymentservice.model.PaymentMode;
 import com.supermarket.paymentservice.model.Transaction;
 
+import jakarta.persistence.QueryHint;
 import jakarta.validation.constraints.Min;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
@@ -20,4 +26,17 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
     List<Transaction> findAllByPaymentMode(PaymentMode paymentMode);
 
 	Optional<Transaction> findByUserIdAndOrderId(int userId,int orderId);
+
+    // Streams payments row by row: a fetch size of Integer.MIN_VALUE puts MySQL Connector/J into
+    // streaming mode for this query only, instead of buffering the whole result set in the driver.
+    // The connection serves nothing else until the stream is closed.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select new com.supermarket.paymentservice.dto.TransactionExportRow(t.transactionId, t.userId, t.orderId, "
+            + "t.requiredAmount, t.receivedAmount, t.balanceAmount, t.paymentMode, t.paymentStatus, t.paymentTime, t.transactionTime) "
+            + "from Transaction t order by t.transactionId")
+    Stream<TransactionExportRow> streamAllForExport();
 }
@@ -1,7 +1,9 @@
 package com.supermarket.paymentservice.service;
 
+import java.io.OutputStream;
 import java.util.List;
 
+import com.supermarket.paymentservice.export.ExportFormat;
 import com.supermarket.paymentservice.model.PaymentMode;
 import com.supermarket.paymentservice.model.Transaction;
 
@@ -18,4 +20,5 @@ public interface TransactionService {
 	List<Transaction> getAllPaymentsByUserId(int userId);
 	Transaction getMyTransactionById(int userId, int transactionId);
 	Transaction getMyTransactionByOrderId(int userId, int orderId);
+	void exportPayments(ExportFormat format, OutputStream outputStream);
 }
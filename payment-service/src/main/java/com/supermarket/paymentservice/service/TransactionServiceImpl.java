@@ -1,8 +1,12 @@
 package com.supermarket.paymentservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.supermarket.paymentservice.dto.OrderDto;
+import com.supermarket.paymentservice.dto.TransactionExportRow;
 import com.supermarket.paymentservice.exception.OperationFailedException;
 import com.supermarket.paymentservice.exception.ResourceNotFoundException;
+import com.supermarket.paymentservice.export.ExportFormat;
+import com.supermarket.paymentservice.export.ExportRowWriter;
 import com.supermarket.paymentservice.feign.BillingServiceClient;
 import com.supermarket.paymentservice.feign.CartServiceClient;
 import com.supermarket.paymentservice.model.PaymentMode;
@@ -16,8 +20,17 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class TransactionServiceImpl implements TransactionService {
@@ -30,6 +43,9 @@ public class TransactionServiceImpl implements TransactionService {
     @Autowired
     private CartServiceClient cartServiceClient;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Override
     public Transaction proceedTransaction(int orderId, PaymentMode paymentMode) {
         // Step 1: Get order info from billing-service using Feign client
@@ -201,20 +217,29 @@ public class TransactionServiceImpl implements TransactionService {
 		Transaction transaction = transactionRepository.findByUserIdAndOrderId(userId, orderId).orElseThrow(() -> new ResourceNotFoundException("Transaction not found for User ID: "+userId+" and Order ID: "+ orderId));
 		return transaction;
 	}
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+    // Streams every payment to the output in the requested format; rows are streamed from the
+    // driver and written one at a time, so memory use does not grow with the table.
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPayments(ExportFormat format, OutputStream outputStream) {
+        try (Stream<TransactionExportRow> rows = transactionRepository.streamAllForExport()) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            ExportRowWriter<TransactionExportRow> rowWriter = new ExportRowWriter<>(format, writer, objectMapper,
+                    List.of("transactionId", "userId", "orderId", "requiredAmount", "receivedAmount", "balanceAmount",
+                            "paymentMode", "paymentStatus", "paymentTime", "transactionTime"),
+                    row -> Arrays.asList(row.getTransactionId(), row.getUserId(), row.getOrderId(), row.getRequiredAmount(),
+                            row.getReceivedAmount(), row.getBalanceAmount(), row.getPaymentMode(), row.getPaymentStatus(),
+                            row.getPaymentTime(), row.getTransactionTime()));
+            Iterator<TransactionExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.write(iterator.next());
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new OperationFailedException("Failed to write payment export.", e);
+        } catch (DataAccessException e) {
+            throw new OperationFailedException("Failed to read payments for export.", e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.supermarket.paymentservice.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.supermarket.paymentservice.dto.OrderDto;
+import com.supermarket.paymentservice.feign.BillingServiceClient;
+import com.supermarket.paymentservice.feign.CartServiceClient;
+import com.supermarket.paymentservice.model.Transaction;
+import com.supermarket.paymentservice.repository.IdempotencyRecordRepository;
+import com.supermarket.paymentservice.repository.TransactionRepository;
+import com.supermarket.paymentservice.service.TransactionServiceImpl;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyFilterTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private BillingServiceClient billingServiceClient;
+    @Mock
+    private CartServiceClient cartServiceClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Transactions inserted, i.e. saved before they had an id; payByCard saves its transaction twice.
+    private final AtomicInteger inserted = new AtomicInteger();
+    private IdempotencyStore store;
+    private IdempotencyFilter filter;
+    private TransactionServiceImpl transactionService;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore();
+        ReflectionTestUtils.setField(store, "idempotencyRecordRepository", idempotencyRecordRepository);
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+        filter = new IdempotencyFilter();
+        ReflectionTestUtils.setField(filter, "idempotencyStore", store);
+        ReflectionTestUtils.setField(filter, "inFlightWaitMillis", 5_000L);
+
+        transactionService = new TransactionServiceImpl();
+        ReflectionTestUtils.setField(transactionService, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(transactionService, "billingServiceClient", billingServiceClient);
+        ReflectionTestUtils.setField(transactionService, "cartServiceClient", cartServiceClient);
+        ReflectionTestUtils.setField(transactionService, "objectMapper", objectMapper);
+
+        when(billingServiceClient.getOrderByOrderId(101))
+                .thenReturn(new OrderDto(101, 1, 10, 250.5, LocalDateTime.now(), Collections.emptyList()));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> {
+            Transaction transaction = inv.getArgument(0);
+            if (transaction.getTransactionId() == 0) {
+                transaction.setTransactionId(500 + inserted.incrementAndGet());
+            }
+            return transaction;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.stop();
+    }
+
+    private MockHttpServletRequest payByCard(String key) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/payment/biller-customer/payByCard");
+        request.setQueryString("orderId=101&receivedAmount=250.5&cardNumber=4111111111111111&cardHolderName=Jane");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        return request;
+    }
+
+    // Stands in for TransactionController.payByCard, running the real service against mocked repositories.
+    private FilterChain payByCardChain() {
+        return (request, response) -> {
+            Transaction transaction = transactionService.payByCard(101, 250.5, "4111111111111111", "Jane");
+            response.setContentType("application/json");
+            objectMapper.writeValue(response.getOutputStream(), Map.of("transactionId", transaction.getTransactionId()));
+        };
+    }
+
+    @Test
+    @DisplayName("PayByCard: A retried payByCard with the same key writes exactly one Transaction")
+    void payByCard_WhenRetriedWithSameKey_ShouldSaveOneTransaction() throws Exception {
+        // Arrange
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(payByCard("pay-1"), first, payByCardChain());
+        filter.doFilter(payByCard("pay-1"), retry, payByCardChain());
+
+        // Assert
+        assertEquals(1, inserted.get());
+        verify(billingServiceClient, times(1)).getOrderByOrderId(101);
+        verify(cartServiceClient, times(1)).clearCartAndReduceStockForUser(1);
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    @DisplayName("PayByCard: Concurrent payByCard retries with the same key write exactly one Transaction")
+    void payByCard_WhenRetriedConcurrently_ShouldSaveOneTransaction() throws Exception {
+        // Arrange
+        int retries = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(retries);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+
+        // Act
+        try {
+            for (int i = 0; i < retries; i++) {
+                responses.add(pool.submit(() -> {
+                    start.await();
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+                    filter.doFilter(payByCard("pay-2"), response, payByCardChain());
+                    return response;
+                }));
+            }
+            start.countDown();
+            for (Future<MockHttpServletResponse> response : responses) {
+                assertEquals(200, response.get(10, TimeUnit.SECONDS).getStatus());
+                assertEquals("{\"transactionId\":501}", response.get().getContentAsString());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(1, inserted.get());
+        verify(cartServiceClient, times(1)).clearCartAndReduceStockForUser(1);
+        verify(idempotencyRecordRepository, times(1)).save(any());
+    }
+
+    @Test
+    @DisplayName("PayByCard: A retry whose lookup misses just before the first request completes writes no second Transaction")
+    void payByCard_WhenFirstCompletesDuringRetryLookup_ShouldSaveOneTransaction() throws Exception {
+        // Arrange: the retry's table lookup is still on its way back when the first request completes
+        CountDownLatch retryLookingUp = new CountDownLatch(1);
+        CountDownLatch firstCompleted = new CountDownLatch(1);
+        AtomicInteger lookups = new AtomicInteger();
+        when(idempotencyRecordRepository.findById("pay-3")).thenAnswer(invocation -> {
+            if (lookups.incrementAndGet() == 3) { // the first request looks up before and after its claim
+                retryLookingUp.countDown();
+                firstCompleted.await(5, TimeUnit.SECONDS);
+            }
+            return Optional.empty();
+        });
+        CountDownLatch firstRunning = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        FilterChain slow = (request, response) -> {
+            firstRunning.countDown();
+            try {
+                releaseFirst.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            payByCardChain().doFilter(request, response);
+        };
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse retry = new MockHttpServletResponse();
+
+        // Act
+        try {
+            Future<?> firstDone = pool.submit(() -> {
+                filter.doFilter(payByCard("pay-3"), first, slow);
+                return null;
+            });
+            assertTrue(firstRunning.await(5, TimeUnit.SECONDS));
+            Future<?> retryDone = pool.submit(() -> {
+                filter.doFilter(payByCard("pay-3"), retry, payByCardChain());
+                return null;
+            });
+            assertTrue(retryLookingUp.await(5, TimeUnit.SECONDS));
+            releaseFirst.countDown();
+            firstDone.get(5, TimeUnit.SECONDS);
+            firstCompleted.countDown();
+            retryDone.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(1, inserted.get());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+}
@@ -0,0 +1,56 @@
+package com.supermarket.paymentservice.idgen;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdGeneratorTableTest {
+
+    private static final String SEED_SQL = "INSERT INTO id_generator (sequence_name, next_val) VALUES (?, ?)"
+            + " ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, ?)";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private IdGeneratorTable idGeneratorTable;
+
+    @BeforeEach
+    void setUp() {
+        idGeneratorTable = new IdGeneratorTable();
+        ReflectionTestUtils.setField(idGeneratorTable, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Start: The payment generator is raised past the highest existing id, never lowered")
+    void start_ShouldSeedGeneratorAboveExistingIds() {
+        // Arrange
+        when(jdbcTemplate.queryForObject("SELECT COALESCE(MAX(transaction_id), 0) + 1 FROM payment", Long.class)).thenReturn(8431L);
+
+        // Act
+        idGeneratorTable.start();
+
+        // Assert
+        verify(jdbcTemplate).update(SEED_SQL, IdGeneratorTable.PAYMENT, 8431L, 8431L);
+    }
+
+    @Test
+    @DisplayName("Start: An empty payment table starts the generator at 1")
+    void start_WhenTableEmpty_ShouldSeedGeneratorAtOne() {
+        // Arrange
+        when(jdbcTemplate.queryForObject("SELECT COALESCE(MAX(transaction_id), 0) + 1 FROM payment", Long.class)).thenReturn(1L);
+
+        // Act
+        idGeneratorTable.start();
+
+        // Assert
+        verify(jdbcTemplate).update(SEED_SQL, IdGeneratorTable.PAYMENT, 1L, 1L);
+    }
+}
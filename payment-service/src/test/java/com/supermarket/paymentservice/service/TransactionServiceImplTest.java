@@ -1,8 +1,11 @@
 package com.supermarket.paymentservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.supermarket.paymentservice.dto.OrderDto;
+import com.supermarket.paymentservice.dto.TransactionExportRow;
 import com.supermarket.paymentservice.exception.OperationFailedException;
 import com.supermarket.paymentservice.exception.ResourceNotFoundException;
+import com.supermarket.paymentservice.export.ExportFormat;
 import com.supermarket.paymentservice.feign.BillingServiceClient;
 import com.supermarket.paymentservice.model.PaymentMode;
 import com.supermarket.paymentservice.model.Transaction;
@@ -18,13 +21,21 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataAccessException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -37,6 +48,8 @@ class TransactionServiceImplTest {
     private TransactionRepository transactionRepository;
     @Mock
     private BillingServiceClient billingServiceClient;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     @InjectMocks
     private TransactionServiceImpl transactionService;
@@ -392,4 +405,70 @@ class TransactionServiceImplTest {
         verify(transactionRepository).findByTransactionIdAndUserId(transactionId, userId);
     }
 
-}
\ No newline at end of file
+
+    // --- exportPayments Tests ---
+    private Stream<TransactionExportRow> exportRows(LocalDateTime paidAt) {
+        return Stream.of(
+                new TransactionExportRow(transactionId, userId, orderId, orderAmount, 300.0, 0.0, PaymentMode.CARD, "Completed", paidAt, paidAt),
+                new TransactionExportRow(transactionId + 1, userId, orderId + 1, 40.0, 10.0, 30.0, PaymentMode.CASH, "Incomplete, short by 30.0", null, null));
+    }
+
+    @Test
+    @DisplayName("ExportPayments: Writes CSV header and one line per streamed row, quoting values with commas")
+    void exportPayments_WhenCsv_WritesHeaderAndRows() {
+        // Arrange
+        LocalDateTime paidAt = LocalDateTime.of(2025, 7, 4, 18, 30);
+        when(transactionRepository.streamAllForExport()).thenReturn(exportRows(paidAt));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        transactionService.exportPayments(ExportFormat.CSV, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("transactionId,userId,orderId,requiredAmount,receivedAmount,balanceAmount,paymentMode,paymentStatus,paymentTime,transactionTime", lines[0]);
+        assertEquals(transactionId + "," + userId + "," + orderId + "," + orderAmount + ",300.0,0.0,CARD,Completed," + paidAt + "," + paidAt, lines[1]);
+        assertEquals((transactionId + 1) + "," + userId + "," + (orderId + 1) + ",40.0,10.0,30.0,CASH,\"Incomplete, short by 30.0\",,", lines[2]);
+        verify(transactionRepository).streamAllForExport();
+    }
+
+    @Test
+    @DisplayName("ExportPayments: Writes one JSON object per line for NDJSON")
+    void exportPayments_WhenNdjson_WritesOneObjectPerLine() throws Exception {
+        // Arrange
+        when(transactionRepository.streamAllForExport()).thenReturn(exportRows(null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        transactionService.exportPayments(ExportFormat.NDJSON, out);
+
+        // Assert
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(transactionId, objectMapper.readTree(lines[0]).get("transactionId").asInt());
+        assertEquals("CARD", objectMapper.readTree(lines[0]).get("paymentMode").asText());
+        assertEquals("Incomplete, short by 30.0", objectMapper.readTree(lines[1]).get("paymentStatus").asText());
+    }
+
+    @Test
+    @DisplayName("ExportPayments: Gzip-wrapped output, as the controller writes it, decompresses to the plain export")
+    void exportPayments_WhenGzipped_DecompressesToPlainExport() throws IOException {
+        // Arrange
+        LocalDateTime paidAt = LocalDateTime.of(2025, 7, 4, 18, 30);
+        when(transactionRepository.streamAllForExport()).thenReturn(exportRows(paidAt), exportRows(paidAt));
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        // Act
+        transactionService.exportPayments(ExportFormat.CSV, plain);
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed, 8192);
+        transactionService.exportPayments(ExportFormat.CSV, gzip);
+        gzip.finish();
+
+        // Assert
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(plain.toByteArray(), in.readAllBytes());
+        }
+    }
+}